@@ -33,7 +33,7 @@ public class AircraftHandler implements Runnable {
      * Tento zoznam si periodicky každú sekundu pýtajú zoznamy odletov / príletov,
      * ktoré podľa nich do seba radia jednotlivé lietadla.
      */
-    private List<Aircraft> handledAircraft;
+    private volatile List<Aircraft> handledAircraft;
 
     /**
      * Objekt vlákna, na ktorom {@code AircraftHandler} beží.
@@ -43,16 +43,25 @@ public class AircraftHandler implements Runnable {
      */
     private final Thread thread;
 
+    /**
+     * Vlákno, ktoré odosiela serveru lietadlá modifikované riadiacim hneď,
+     * ako ich riadiaci zmení, nezávisle od lietadiel prijímaných od servera.
+     */
+    private final Thread commandWriter;
+
     /**
      * Údaj, či vlákno práve beží alebo nie.
      */
-    private boolean running;
+    private volatile boolean running;
 
     /**
      * Základný konštruktor nastavuje atribúty pre {@code AirportClient},
      * ktorý je predaný z hlavného okna radaru a spájaný zoznam, do ktorého sa z radaru
      * pridávajú lietadlá modifikované riadiacim.
      *
+     * Radar musí lietadlo do zoznamu pridať synchronizovane na zozname a upozorniť
+     * naň cez {@code notifyAll}, aby ho vlákno odosielajúce príkazy hneď odoslalo.
+     *
      * @param airportClient Letiskový klient, ktorý zabezpečuje komunikáciu so serverom.
      * @param modifiedAircraft Spájaný zoznam lietadiel modifikovaných riadiacim.
      */
@@ -61,6 +70,12 @@ public class AircraftHandler implements Runnable {
         this.modifiedAircraft = modifiedAircraft;
         handledAircraft = new LinkedList<Aircraft>();
         thread = new Thread(this);
+        commandWriter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                sendCommands();
+            }
+        });
     }
 
     /**
@@ -69,38 +84,63 @@ public class AircraftHandler implements Runnable {
     public synchronized void start() {
         running = true;
         thread.start();
+        commandWriter.start();
     }
 
     /**
      * Zastaví vlákno, na ktorom beží {@code AircraftHandler}.
+     *
+     * Vlákno prestane odosielať modifikované lietadlá a skončí, keď server
+     * potvrdí koniec komunikácie.
      */
     public synchronized void stop() {
         running = false;
         thread.interrupt();
+        commandWriter.interrupt();
     }
 
     /**
-     * Hlavná metóda vlákna, ktorá si periodicky každú sekundu
-     * vyžiada od servera zoznam lietadiel, ktoré sa práve na letisku
-     * nachádzajú a odošle mu späť zoznam modifikovaných lietadiel.
+     * Hlavná metóda vlákna, ktorá klienta prihlási na odber lietadiel a potom
+     * prijíma lietadlá, ktoré server sám odosiela pri každom kroku simulácie.
      *
-     * Zoznam modifikovaných lietadiel sa odosiela aj keď sa v ňom aktuálne
-     * nenachádza žiadne lietadlo. Server však reaguje na zoznam len keď treba
-     * vykonať s nejakým modifikovaným lietadlom akciu.
+     * Vlákno prijíma lietadlá, kým server nepotvrdí koniec komunikácie, pretože
+     * práve ono toto potvrdenie zo spojenia prečíta. Modifikované lietadlá odosiela
+     * samostatné vlákno, aby príkazy riadiaceho nečakali na ďalšie lietadlá od servera.
      */
     @Override
     public void run() {
-        long timerLast = System.currentTimeMillis();
-        do {
-            long timerNow = System.currentTimeMillis();
-            double difference = timerNow - timerLast;
-            while (difference >= 500) {
-                handledAircraft = airportClient.requestAircraftsData();
-                airportClient.sendModifiedAircraft(modifiedAircraft);
-                timerLast = timerNow;
-                difference = 0;
+        airportClient.subscribeAircraftsData();
+        while (airportClient.getProtocol().getState() != AirportServiceProtocol.END_COM) {
+            List<Aircraft> receivedAircraft = airportClient.receiveAircraftsData();
+            if (receivedAircraft != null) {
+                handledAircraft = receivedAircraft;
+            }
+        }
+    }
+
+    /**
+     * Čaká, kým riadiaci nezmení nejaké lietadlo, a hneď ho odošle serveru.
+     * Server na modifikované lietadlá neodpovedá, vlákno preto nič nečíta.
+     */
+    private void sendCommands() {
+        while (running) {
+            List<Aircraft> commands;
+            synchronized (modifiedAircraft) {
+                try {
+                    while (running && modifiedAircraft.isEmpty()) {
+                        modifiedAircraft.wait();
+                    }
+                } catch (InterruptedException ex) {
+                    return;
+                }
+                if (!running) {
+                    return;
+                }
+                commands = new LinkedList<Aircraft>(modifiedAircraft);
+                modifiedAircraft.clear();
             }
-        } while (running && airportClient.getProtocol().getState() != AirportServiceProtocol.END_COM);
+            airportClient.sendModifiedAircraft(commands);
+        }
     }
 
     /**
@@ -0,0 +1,89 @@
+package net.robobalasko.letisko.siet;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import net.robobalasko.letiskoserv.data.AircraftSnapshotDelta;
+import net.robobalasko.letiskoserv.data.AircraftStateChange;
+import net.robobalasko.letiskoserv.lietadla.Aircraft;
+
+/**
+ * Lokálna kópia lietadiel na riadenom letisku, ktorú klient udržiava
+ * aplikovaním rozdielov {@code AircraftSnapshotDelta} prijatých od servera.
+ *
+ * @author rbalasko
+ */
+public class AircraftMirror {
+
+    /**
+     * Lietadlá na letisku podľa identifikátora, ktorý im pridelil server.
+     */
+    private final Map<Integer, Aircraft> aircraft;
+
+    /**
+     * Verzia zoznamu lietadiel, ktorú má klient aktuálne aplikovanú.
+     */
+    private long version;
+
+    /**
+     * Základný konštruktor vytvorí prázdnu kópiu bez aplikovanej verzie.
+     */
+    public AircraftMirror() {
+        this.aircraft = new LinkedHashMap<Integer, Aircraft>();
+        this.version = 0;
+    }
+
+    /**
+     * Aplikuje na lokálnu kópiu rozdiel prijatý od servera.
+     *
+     * Ak rozdiel nenadväzuje na aktuálne aplikovanú verziu, kópia sa nezmení
+     * a klient tak pri ďalšej požiadavke potvrdí starú verziu, na čo mu server odošle úplný zoznam.
+     *
+     * @param delta Rozdiel prijatý od servera.
+     *
+     * @return True, ak sa rozdiel podarilo aplikovať.
+     */
+    public boolean apply(AircraftSnapshotDelta delta) {
+        if (delta.isFullSnapshot()) {
+            aircraft.clear();
+        } else if (delta.getBaseVersion() != version) {
+            return false;
+        }
+        for (Integer aircraftId : delta.getRemovedAircraftIds()) {
+            aircraft.remove(aircraftId);
+        }
+        Iterator<Integer> addedIds = delta.getAddedAircraftIds().iterator();
+        for (Aircraft acft : delta.getAddedAircraft()) {
+            aircraft.put(addedIds.next(), acft);
+        }
+        for (AircraftStateChange change : delta.getChangedAircraft()) {
+            Aircraft acft = aircraft.get(change.getAircraftId());
+            if (acft != null) {
+                change.applyTo(acft);
+            }
+        }
+        version = delta.getVersion();
+        return true;
+    }
+
+    /**
+     * Vráti nový zoznam lietadiel z lokálnej kópie, ktorý môžu zobrazovacie komponenty bezpečne prechádzať.
+     *
+     * @return Zoznam objektov {@code Aircraft}.
+     */
+    public List<Aircraft> getAircraft() {
+        return new ArrayList<Aircraft>(aircraft.values());
+    }
+
+    /**
+     * Vráti verziu zoznamu lietadiel, ktorú má klient aktuálne aplikovanú.
+     *
+     * @return Verzia zoznamu lietadiel.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+}
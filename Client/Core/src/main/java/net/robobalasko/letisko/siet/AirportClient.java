@@ -1,12 +1,16 @@
 package net.robobalasko.letisko.siet;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.net.Socket;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import net.robobalasko.letiskoserv.data.AircraftSnapshotDelta;
+import net.robobalasko.letiskoserv.data.AirportMessageCodec;
 import net.robobalasko.letiskoserv.data.AirportServiceProtocol;
 import net.robobalasko.letiskoserv.lietadla.Aircraft;
 import net.robobalasko.letiskoserv.navigacia.Airport;
@@ -31,12 +35,32 @@ public final class AirportClient {
     /**
      * Prichádzajúce dáta zo strany servera.
      */
-    private final ObjectInputStream incomingData;
+    private final DataInputStream incomingData;
 
     /**
      * Odchádzajúce dáta k serveru.
      */
-    private final ObjectOutputStream outgoingData;
+    private final DataOutputStream outgoingData;
+
+    /**
+     * Lokálna kópia lietadiel na riadenom letisku.
+     */
+    private final AircraftMirror aircraftMirror;
+
+    /**
+     * Definuje, či sa správy so serverom kódujú v binárnom formáte.
+     */
+    private boolean binaryCodec;
+
+    /**
+     * Definuje, či je klient prihlásený na odber lietadiel, ktoré mu server posiela sám.
+     */
+    private volatile boolean subscribed;
+
+    /**
+     * Maximálny čas v milisekundách, počas ktorého klient čaká na potvrdenie konca komunikácie.
+     */
+    private static final long END_COM_TIMEOUT = 5000;
 
     /**
      * Hneď pri vytváraní objektu {@code AirportClient} sa konštruktor pokúša pripojiť k serveru.
@@ -49,8 +73,63 @@ public final class AirportClient {
     public AirportClient(String hostName, int port) throws IOException {
         this.socket = new Socket(hostName, port);
         this.protocol = new AirportServiceProtocol();
-        this.outgoingData = new ObjectOutputStream(socket.getOutputStream());
-        this.incomingData = new ObjectInputStream(socket.getInputStream());
+        this.socket.setTcpNoDelay(true);
+        this.outgoingData = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        this.incomingData = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.aircraftMirror = new AircraftMirror();
+    }
+
+    /**
+     * Odošle serveru jednu správu ako samostatný rámec.
+     *
+     * @param message Objekt správy, ktorý sa má odoslať.
+     *
+     * @throws IOException Ak sa správu nepodarí odoslať.
+     */
+    private void send(Object message) throws IOException {
+        synchronized (outgoingData) {
+            AirportMessageCodec.writeMessage(outgoingData, message, binaryCodec);
+        }
+    }
+
+    /**
+     * Prečíta od servera jednu celú správu.
+     *
+     * @return Objekt prijatej správy.
+     *
+     * @throws IOException Ak sa správu nepodarí prečítať.
+     * @throws ClassNotFoundException Ak sa nepodarí nájsť triedu prijatého objektu.
+     */
+    private Object receive() throws IOException, ClassNotFoundException {
+        synchronized (incomingData) {
+            return AirportMessageCodec.readMessage(incomingData);
+        }
+    }
+
+    /**
+     * Dohodne so serverom formát, v ktorom si budú posielať správy.
+     *
+     * Dohodnutie sa posiela ešte v Java serializácii. Ak server binárny formát neprijme,
+     * klient ďalej používa Java serializáciu.
+     *
+     * @param codec Názov žiadaného formátu ({@code binary} alebo {@code serialization}).
+     *
+     * @return Názov formátu, ktorý server prijal.
+     */
+    public String requestWireCodec(String codec) {
+        String acceptedCodec = AirportMessageCodec.CODEC_SERIALIZATION;
+        try {
+            Integer requestFlag = AirportServiceProtocol.SEND_WIRE_CODEC;
+            send(requestFlag);
+            send(codec);
+            acceptedCodec = (String) receive();
+            binaryCodec = AirportMessageCodec.CODEC_BINARY.equals(acceptedCodec);
+        } catch (IOException ex) {
+            Logger.getLogger(AirportClient.class.getName()).log(Level.SEVERE, null, ex);
+        } catch (ClassNotFoundException ex) {
+            Logger.getLogger(AirportClient.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        return acceptedCodec;
     }
 
     /**
@@ -66,8 +145,8 @@ public final class AirportClient {
         List<String> airports = null;
         try {
             Integer requestFlag = AirportServiceProtocol.SEND_AIRPRT_LIST;
-            outgoingData.writeObject(requestFlag);
-            airports = (List<String>) incomingData.readObject();
+            send(requestFlag);
+            airports = (List<String>) receive();
         } catch (IOException ex) {
             Logger.getLogger(AirportClient.class.getName()).log(Level.SEVERE, null, ex);
         } catch (ClassNotFoundException ex) {
@@ -81,9 +160,8 @@ public final class AirportClient {
      * Odosiela serveru aktuálny rozmer obrazovky radaru, na ktorej sa budú
      * vykresľovať všetky navigačné objekty aj spolu s lietadlami a ich trasami.
      *
-     * Údaj server potrebuje pre prepočet skutočných GPS dát všetkých
-     * bodov na letisku a lietadiel, ktoré sa na letisku nachádzajú,
-     * na pixelové súradnice pre obrazovku.
+     * Simulácia na serveri beží v skutočných GPS súradniciach a na pixely
+     * ich prepočítava klient sám, server údaj len prijme kvôli zachovaniu protokolu.
      *
      * @param screenWidth Šírka aktuálneho zobrazenia na radare.
      * @param screenHeight Výška aktuálneho zobrazenia na radare.
@@ -91,9 +169,9 @@ public final class AirportClient {
     public void sendScreenSize(int screenWidth, int screenHeight) {
         try {
             Integer requestFlag = AirportServiceProtocol.SENT_GUISCR_DATA;
-            outgoingData.writeObject(requestFlag);
-            outgoingData.writeObject(screenWidth);
-            outgoingData.writeObject(screenHeight);
+            send(requestFlag);
+            send(screenWidth);
+            send(screenHeight);
         } catch (IOException ex) {
             Logger.getLogger(AirportClient.class.getName()).log(Level.SEVERE, null, ex);
         }
@@ -101,8 +179,7 @@ public final class AirportClient {
 
     /**
      * Vyžiada si od servera objekt, ktorý obsahuje dáta načítané z .xml súboru
-     * daného letiska, spolu s údajmi, ktoré sú už prepočítané
-     * a vhodné na zobrazenie na radarovej obrazovke.
+     * daného letiska v skutočných GPS súradniciach.
      *
      * @param airportIcaoCode ICAO kód letiska, ktoré klient žiada.
      * @param screenWidth Šírka aktuálneho zobrazenia na radare.
@@ -116,9 +193,9 @@ public final class AirportClient {
         sendScreenSize(screenWidth, screenHeight);
         try {
             Integer requestFlag = AirportServiceProtocol.SEND_AIRPRT_DATA;
-            outgoingData.writeObject(requestFlag);
-            outgoingData.writeObject(airportIcaoCode);
-            requestedAirport = (Airport) incomingData.readObject();
+            send(requestFlag);
+            send(airportIcaoCode);
+            requestedAirport = (Airport) receive();
         } catch (IOException ex) {
             Logger.getLogger(AirportClient.class.getName()).log(Level.SEVERE, null, ex);
         } catch (ClassNotFoundException ex) {
@@ -136,14 +213,20 @@ public final class AirportClient {
      * každú sekundu hneď potom ako prepočíta pre všetky
      * lietadlá ich aktuálne pozície, príp. priloží do zoznamu nové lietadlo.
      *
-     * @return Spájaný zoznam objektov {@code Aircraft}.
+     * Klient pritom serveru potvrdí verziu zoznamu, ktorú má aplikovanú, a server mu
+     * odošle len lietadlá, ktoré od tej verzie pribudli, zmenili sa alebo zmizli.
+     * Tieto rozdiely sa aplikujú na lokálnu kópiu lietadiel.
+     *
+     * @return Zoznam objektov {@code Aircraft}.
      */
     public List<Aircraft> requestAircraftsData() {
         List<Aircraft> generatedAircraft = null;
         try {
-            Integer requestFlag = AirportServiceProtocol.SEND_AIRCFT_DATA;
-            outgoingData.writeObject(requestFlag);
-            generatedAircraft = (List<Aircraft>) incomingData.readObject();
+            Integer requestFlag = AirportServiceProtocol.SEND_AIRCFT_DELTA;
+            send(requestFlag);
+            send(aircraftMirror.getVersion());
+            aircraftMirror.apply((AircraftSnapshotDelta) receive());
+            generatedAircraft = aircraftMirror.getAircraft();
         } catch (IOException ex) {
             Logger.getLogger(AirportClient.class.getName()).log(Level.SEVERE, null, ex);
         } catch (ClassNotFoundException ex) {
@@ -152,23 +235,67 @@ public final class AirportClient {
         return generatedAircraft;
     }
 
+    /**
+     * Prihlási klienta na odber lietadiel. Server potom pri každom kroku simulácie sám odošle
+     * rozdiel v lietadlách, ktorý si klient prečíta metódou {@code receiveAircraftsData}.
+     */
+    public void subscribeAircraftsData() {
+        try {
+            Integer requestFlag = AirportServiceProtocol.SUBSCRIBE_AIRCFT_DATA;
+            send(requestFlag);
+            subscribed = true;
+        } catch (IOException ex) {
+            Logger.getLogger(AirportClient.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    /**
+     * Počká na ďalší rozdiel v lietadlách, ktorý server odoslal klientovi prihlásenému na odber,
+     * a aplikuje ho na lokálnu kópiu lietadiel.
+     *
+     * Ak server namiesto rozdielu potvrdí koniec komunikácie, klient uzatvorí spojenie.
+     *
+     * @return Zoznam objektov {@code Aircraft}, alebo null, ak komunikácia skončila.
+     */
+    public List<Aircraft> receiveAircraftsData() {
+        try {
+            Object message = receive();
+            if (message instanceof AircraftSnapshotDelta) {
+                aircraftMirror.apply((AircraftSnapshotDelta) message);
+                return aircraftMirror.getAircraft();
+            }
+            if (message instanceof Integer && (Integer) message == AirportServiceProtocol.END_COM) {
+                communicationEnded();
+            }
+        } catch (IOException ex) {
+            if (protocol.getState() != AirportServiceProtocol.END_COM) {
+                Logger.getLogger(AirportClient.class.getName()).log(Level.SEVERE, null, ex);
+                communicationEnded();
+            }
+        } catch (ClassNotFoundException ex) {
+            Logger.getLogger(AirportClient.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        return null;
+    }
+
     /**
      * Odosiela serveru zoznam lietadiel, ktoré boli riadiacim
      * počas ich letu modifikované, aby server mohol ďalej
      * prepočítavať dáta berúc ohľad na tieto nové modifikované dáta.
      *
-     * Po každom odoslaní metóda zoznam modifikovaných lietadiel vymaže,
-     * pretože tento sa odosiela serveru periodicky každú sekundu nezávisle
-     * od toho, či sa v ňom nejaké modifikované lietadlo nachádza.
+     * Po každom odoslaní metóda zoznam modifikovaných lietadiel vymaže.
+     * Metódu je možné volať aj súčasne s prijímaním lietadiel z iného vlákna.
      *
      * @param modifiedAircraft Spájaný zoznam lietadiel, ktoré riadiaci modifikoval.
      */
     public void sendModifiedAircraft(List<Aircraft> modifiedAircraft) {
         try {
             Integer requestFlag = AirportServiceProtocol.RCVD_MODACFT_DATA;
-            outgoingData.writeObject(requestFlag);
-            outgoingData.writeObject(modifiedAircraft);
-            outgoingData.reset();
+            // Žiadosť a zoznam lietadiel musia ísť tesne za sebou, aj keď iné vlákno práve niečo odosiela
+            synchronized (outgoingData) {
+                send(requestFlag);
+                send(modifiedAircraft);
+            }
             modifiedAircraft.clear();
         } catch (IOException ex) {
             Logger.getLogger(AirportClient.class.getName()).log(Level.SEVERE, null, ex);
@@ -183,11 +310,13 @@ public final class AirportClient {
     public boolean endServerCommunication() {
         try {
             Integer requestFlag = AirportServiceProtocol.END_COM;
-            outgoingData.writeObject(requestFlag);
-            if ((Integer) incomingData.readObject() == AirportServiceProtocol.END_COM) {
+            send(requestFlag);
+            if (subscribed) {
+                // Potvrdenie prečíta vlákno, ktoré prijíma lietadlá od servera
+                return awaitCommunicationEnd();
+            }
+            if ((Integer) receive() == AirportServiceProtocol.END_COM) {
                 protocol.setState(AirportServiceProtocol.END_COM);
-                outgoingData.close();
-                incomingData.close();
                 socket.close();
                 return true;
             }
@@ -199,6 +328,43 @@ public final class AirportClient {
         return false;
     }
 
+    /**
+     * Počká, kým vlákno prijímajúce lietadlá nedostane od servera potvrdenie konca komunikácie.
+     *
+     * @return True, ak komunikácia skončila.
+     */
+    private boolean awaitCommunicationEnd() {
+        long deadline = System.currentTimeMillis() + END_COM_TIMEOUT;
+        synchronized (protocol) {
+            long remaining = deadline - System.currentTimeMillis();
+            while (protocol.getState() != AirportServiceProtocol.END_COM && remaining > 0) {
+                try {
+                    protocol.wait(remaining);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                remaining = deadline - System.currentTimeMillis();
+            }
+            return protocol.getState() == AirportServiceProtocol.END_COM;
+        }
+    }
+
+    /**
+     * Označí komunikáciu so serverom za ukončenú, uzatvorí socket a prebudí vlákno čakajúce na koniec komunikácie.
+     */
+    private void communicationEnded() {
+        synchronized (protocol) {
+            protocol.setState(AirportServiceProtocol.END_COM);
+            protocol.notifyAll();
+        }
+        try {
+            socket.close();
+        } catch (IOException ex) {
+            Logger.getLogger(AirportClient.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
     /**
      * Vráti objekt s rotokolom medzi serverom a klientom.
      * 
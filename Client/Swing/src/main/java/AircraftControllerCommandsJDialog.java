@@ -10,6 +10,7 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.ItemEvent;
 import java.awt.event.ItemListener;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -352,7 +353,10 @@ public class AircraftControllerCommandsJDialog extends JDialog {
             public void actionPerformed(ActionEvent e) {
                 try {
                     giveAircraftCommands(aircraft, airportData);
-                    modifiedAircraft.add(aircraft);
+                    synchronized (modifiedAircraft) {
+                        modifiedAircraft.add(aircraft);
+                        modifiedAircraft.notifyAll();
+                    }
                 } catch (RouteNotLoadedException ex) {
                     Logger.getLogger(AircraftControllerCommandsJDialog.class.getName()).log(Level.SEVERE, null, ex);
                 }
@@ -398,9 +402,13 @@ public class AircraftControllerCommandsJDialog extends JDialog {
         }
         if (comboSidRoutePoints.isEnabled()) {
             aircraft.setActualRoute(airport.getRouteByName((String) comboSidRoutePoints.getSelectedItem()));
+            aircraft.setRouteCursor(0);
+            aircraft.setDirectWaypoints(new LinkedList<String>());
         }
         if (comboStarRoutePoints.isEnabled()) {
             aircraft.setActualRoute(airport.getRouteByName((String) comboStarRoutePoints.getSelectedItem()));
+            aircraft.setRouteCursor(0);
+            aircraft.setDirectWaypoints(new LinkedList<String>());
         }
     }
 
@@ -413,10 +421,15 @@ public class AircraftControllerCommandsJDialog extends JDialog {
      */
     private void changeAircraftsActualRoute(Aircraft aircraft) {
         String changedWaypoint = comboNextWaypoint.getSelectedItem().toString();
+        List<String> directWaypoints = new LinkedList<String>();
         if (checkBoxClearList.isSelected()) {
-            aircraft.getActualRoute().getRoutePoints().clear();
+            // Zvyšok trasy letiska sa preskočí a lietadlo letí priamo na zvolený bod
+            aircraft.setRouteCursor(aircraft.getActualRoute().getRoutePoints().size());
+        } else {
+            directWaypoints.addAll(aircraft.getDirectWaypoints());
         }
-        aircraft.getActualRoute().getRoutePoints().add(changedWaypoint);
+        directWaypoints.add(changedWaypoint);
+        aircraft.setDirectWaypoints(directWaypoints);
     }
 
 }
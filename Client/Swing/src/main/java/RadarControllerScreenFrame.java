@@ -13,6 +13,7 @@ import javax.swing.BoxLayout;
 import javax.swing.JButton;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.border.EmptyBorder;
@@ -279,6 +280,15 @@ public class RadarControllerScreenFrame extends JFrame {
             public void componentShown(ComponentEvent e) {
                 Airport airport = airportClient.requestAirportData(airportIcaoCode,
                         radarScreen.getWidth(), radarScreen.getHeight());
+                if (airport == null) {
+                    // Letisko medzitým obsadil iný riaditeľ
+                    JOptionPane.showMessageDialog(RadarControllerScreenFrame.this,
+                            RadarControllerScreenFrame.this.language.getString("language.airport_taken"),
+                            RadarControllerScreenFrame.this.language.getString("language.airport_taken_title"),
+                            JOptionPane.ERROR_MESSAGE);
+                    airportClient.endServerCommunication();
+                    System.exit(0);
+                }
                 radarScreen.setAirportData(airport);
                 aircraftHandler.start();
                 String title = airport.getIcaoCode()
@@ -143,6 +143,7 @@ public class RadarIntroFrame extends JFrame {
                     String hostName = textFieldAddress.getText();
                     int hostPort = Integer.parseInt(settings.getString("settings.port"));
                     airportClient = new AirportClient(hostName, hostPort);
+                    airportClient.requestWireCodec(settings.getString("settings.wire_codec"));
                     requestedList = airportClient.requestAirportsList();
                 } catch (IOException ex) {
 					JOptionPane.showMessageDialog(RadarIntroFrame.this,
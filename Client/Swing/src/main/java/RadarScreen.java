@@ -4,7 +4,6 @@ import java.awt.Cursor;
 import java.awt.Font;
 import java.awt.Frame;
 import java.awt.Graphics;
-import java.awt.Point;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
@@ -19,8 +18,11 @@ import javax.swing.Timer;
 import net.robobalasko.letisko.siet.AircraftHandler;
 import net.robobalasko.letisko.siet.AirportClient;
 import net.robobalasko.letiskoserv.data.WaypointNotLoadedException;
+import net.robobalasko.letiskoserv.guihelper.RadarScreenDataCalculator;
 import net.robobalasko.letiskoserv.lietadla.Aircraft;
+import net.robobalasko.letiskoserv.lietadla.RouteTrail;
 import net.robobalasko.letiskoserv.navigacia.Airport;
+import net.robobalasko.letiskoserv.navigacia.GeoCalculator;
 import net.robobalasko.letiskoserv.navigacia.Route;
 import net.robobalasko.letiskoserv.navigacia.Runway;
 import net.robobalasko.letiskoserv.navigacia.VorWaypoint;
@@ -29,6 +31,9 @@ import net.robobalasko.letiskoserv.navigacia.Waypoint;
 /**
  * Trieda radarovej obrazovky, ktorá vykresľuje aktuálnu situáciu na riadenom letisku.
  *
+ * Server posiela letisko aj lietadlá v skutočných GPS súradniciach. Na pixely ich obrazovka
+ * prepočítava sama podľa svojej aktuálnej veľkosti, pri zmene veľkosti sa prepočítajú znova.
+ *
  * @author rbalasko
  */
 public class RadarScreen extends JComponent {
@@ -68,6 +73,21 @@ public class RadarScreen extends JComponent {
      */
     private Airport airportData;
 
+    /**
+     * Prepočet GPS súradníc na pixely pre aktuálnu veľkosť obrazovky.
+     */
+    private RadarScreenDataCalculator screenCalculator;
+
+    /**
+     * Šírka obrazovky, pre ktorú sú prepočítané pixelové súradnice letiska.
+     */
+    private int projectedWidth;
+
+    /**
+     * Výška obrazovky, pre ktorú sú prepočítané pixelové súradnice letiska.
+     */
+    private int projectedHeight;
+
     public RadarScreen(final Frame parent, RadarScreenOptions screenOptions,
             AircraftHandler aircraftHandler, AirportClient airportClient, List<Aircraft> modifiedAircraft) {
         this.screenOptions = screenOptions;
@@ -83,10 +103,7 @@ public class RadarScreen extends JComponent {
                 if (hoveredAircraft != null) {
                     for (Aircraft aircraft : aircraftList) {
                         if (hoveredAircraft.getCallSign().equals(aircraft.getCallSign())) {
-                            hoveredAircraft.setLatitude(aircraft.getLatitude());
-                            hoveredAircraft.setLongitude(aircraft.getLongitude());
-                            hoveredAircraft.getRouteTrail().clear();
-                            hoveredAircraft.getRouteTrail().addAll(aircraft.getRouteTrail());
+                            hoveredAircraft = aircraft;
                         }
                     }
                 }
@@ -100,10 +117,12 @@ public class RadarScreen extends JComponent {
             public void mouseMoved(MouseEvent e) {
                 final int mX = e.getX();
                 final int mY = e.getY();
+                if (screenCalculator == null) {
+                    return;
+                }
                 for (Aircraft acft : aircraftList) {
                     // Kontrola či je kurzor nad nejakým lietadlom
-                    if (mX >= acft.getLatitude() - 10 && mX <= acft.getLatitude() + 10
-                            && mY >= acft.getLongitude() - 10 && mY <= acft.getLongitude() + 10) {
+                    if (isOverAircraft(acft, mX, mY)) {
                         acft.setIsSelected(true);
                         RadarScreen.this.setCursor(new Cursor(Cursor.HAND_CURSOR));
                     } else {
@@ -119,10 +138,12 @@ public class RadarScreen extends JComponent {
             public void mouseClicked(MouseEvent e) {
                 int mX = e.getX();
                 int mY = e.getY();
+                if (screenCalculator == null) {
+                    return;
+                }
                 for (Aircraft acft : aircraftList) {
                     // Kontrola či je lietadlo kliknuté
-                    if (mX >= acft.getLatitude() - 10 && mX <= acft.getLatitude() + 10
-                            && mY >= acft.getLongitude() - 10 && mY <= acft.getLongitude() + 10) {
+                    if (isOverAircraft(acft, mX, mY)) {
                         hoveredAircraft = acft;
                         AircraftControllerCommandsJDialog atcCommands
                                 = new AircraftControllerCommandsJDialog(parent, acft,
@@ -133,6 +154,56 @@ public class RadarScreen extends JComponent {
         });
     }
 
+    /**
+     * Prepočíta pixelové súradnice letiska, ak sa od posledného prepočtu zmenila veľkosť obrazovky.
+     */
+    private void updateProjection() {
+        if (screenCalculator != null && projectedWidth == getWidth() && projectedHeight == getHeight()) {
+            return;
+        }
+        projectedWidth = getWidth();
+        projectedHeight = getHeight();
+        screenCalculator = new RadarScreenDataCalculator(airportData, projectedWidth, projectedHeight);
+        screenCalculator.calculateAirportGUIData();
+    }
+
+    /**
+     * Prepočíta zemepisnú dĺžku na horizontálnu pozíciu na obrazovke.
+     *
+     * @param longitude Zemepisná dĺžka v stupňoch.
+     *
+     * @return Horizontálna pozícia v pixeloch.
+     */
+    private int projectX(double longitude) {
+        return (int) screenCalculator.calculateGUILongitude(longitude);
+    }
+
+    /**
+     * Prepočíta zemepisnú šírku na vertikálnu pozíciu na obrazovke.
+     *
+     * @param latitude Zemepisná šírka v stupňoch.
+     *
+     * @return Vertikálna pozícia v pixeloch.
+     */
+    private int projectY(double latitude) {
+        return (int) screenCalculator.calculateGUILatitude(latitude);
+    }
+
+    /**
+     * Zistí, či sa bod na obrazovke nachádza nad lietadlom.
+     *
+     * @param acft Lietadlo.
+     * @param mX Horizontálna pozícia bodu.
+     * @param mY Vertikálna pozícia bodu.
+     *
+     * @return True, ak je bod nad lietadlom.
+     */
+    private boolean isOverAircraft(Aircraft acft, int mX, int mY) {
+        int x = projectX(acft.getLongitude());
+        int y = projectY(acft.getLatitude());
+        return mX >= x - 10 && mX <= x + 10 && mY >= y - 10 && mY <= y + 10;
+    }
+
     /**
      * Metóda volaná z metódy {@code paintComponent}, ktorá vykresľuje do radarovej obrazovky všetky letové body, ktoré boli pre letisko načítané.
      *
@@ -277,8 +348,8 @@ public class RadarScreen extends JComponent {
                     safeZoneColor = Color.PINK;
                 }
                 g.setColor(acft.isClearedForDeparture() ? Color.BLUE : Color.PINK);
-                int x = (int) acft.getLatitude();
-                int y = (int) acft.getLongitude();
+                int x = projectX(acft.getLongitude());
+                int y = projectY(acft.getLatitude());
                 g.drawOval(x - 15, y - 15, 30, 30);
                 paintAircraftSeparationError(g, acft, x, y);
                 // Vykreslenie štvorca označujúceho lietadlo
@@ -288,7 +359,7 @@ public class RadarScreen extends JComponent {
                 g.setColor(Color.GREEN);
                 // Smerovú šípku lietadla stačí vykresliť len ak sa už hýbe
                 if (acft.getActualAirSpeed() > 100) {
-                    g.drawLine(x, y, acft.getDirectionLine().x, acft.getDirectionLine().y);
+                    paintDirectionLine(g, acft, x, y);
                 }
                 paintAircraftFlightInfo(g, acft, x, y);
             }
@@ -296,7 +367,30 @@ public class RadarScreen extends JComponent {
     }
 
     /**
-     * Pre všetky lietadlá, ktorá sa nachádzajú na letisku vykresľuje červenú zónu okolo lietadla, v ktorého menšej ako minimálnej blízkosti sa nachádza nejaké iné lietadlo.
+     * Vykreslí smerovú šípku lietadla v smere jeho kurzu.
+     *
+     * Kurz sa prepočíta cez bod pred lietadlom, pretože obrazovka nemá v oboch smeroch rovnakú mierku.
+     *
+     * @param g Grafický objekt, na ktorý sa kreslí.
+     * @param aircraft Lietadlo, ktorého šípka sa má vykresliť.
+     * @param x Horizontálna pozícia lietadla.
+     * @param y Vertikálna pozícia lietadla.
+     */
+    private void paintDirectionLine(Graphics g, Aircraft aircraft, int x, int y) {
+        int directionLineLength = 30;
+        double aheadX = screenCalculator.calculateGUILongitude(GeoCalculator.offsetLongitude(
+                aircraft.getLatitude(), aircraft.getLongitude(), aircraft.getHeading(), 1)) - x;
+        double aheadY = screenCalculator.calculateGUILatitude(GeoCalculator.offsetLatitude(
+                aircraft.getLatitude(), aircraft.getHeading(), 1)) - y;
+        double aheadLength = Math.sqrt(aheadX * aheadX + aheadY * aheadY);
+        if (aheadLength > 0) {
+            g.drawLine(x, y, x + (int) (aheadX * directionLineLength / aheadLength),
+                    y + (int) (aheadY * directionLineLength / aheadLength));
+        }
+    }
+
+    /**
+     * Vykreslí červenú zónu okolo lietadla, ktorému server zistil narušenie separácie od iného lietadla.
      *
      * @param g Grafický objekt, na ktorý sa kreslí.
      * @param aircraft Lietadlo, ktorého narušenie bezpečnej vzdialenosti sa má vykresliť.
@@ -304,16 +398,9 @@ public class RadarScreen extends JComponent {
      * @param y Vertikálna pozícia lietadla.
      */
     private void paintAircraftSeparationError(Graphics g, Aircraft aircraft, int x, int y) {
-        for (Aircraft a : aircraftList) {
-            if (!a.equals(aircraft)) {
-                if (Math.abs(a.getLatitude() - x) < 15
-                        && Math.abs(a.getLongitude() - y) < 15
-                        && Math.abs(a.getActualFlightLevel() - aircraft.getActualFlightLevel()) < 20) {
-                    g.setColor(Color.RED);
-                    g.drawOval(x - 15, y - 15, 30, 30);
-                    g.drawOval((int) a.getLatitude() - 15, (int) a.getLongitude() - 15, 30, 30);
-                }
-            }
+        if (aircraft.isSeparationLost()) {
+            g.setColor(Color.RED);
+            g.drawOval(x - 15, y - 15, 30, 30);
         }
     }
 
@@ -353,17 +440,20 @@ public class RadarScreen extends JComponent {
      * @param g Grafický objekt, na ktorý sa kreslí.
      */
     private void paintRoute(Graphics g) throws WaypointNotLoadedException {
-        Route rte = hoveredAircraft.getActualRoute();
+        int cursor = hoveredAircraft.getRouteCursor();
+        if (cursor >= hoveredAircraft.getRouteLength()) {
+            return;
+        }
         g.setColor(Color.MAGENTA);
-        Waypoint fWpt = airportData.getWaypointByName((String) rte.getRoutePoints().get(0));
-        int acSX = (int) hoveredAircraft.getLatitude();
-        int acSY = (int) hoveredAircraft.getLongitude();
+        Waypoint fWpt = getRouteWaypoint(cursor);
+        int acSX = projectX(hoveredAircraft.getLongitude());
+        int acSY = projectY(hoveredAircraft.getLatitude());
         int fwEX = fWpt.getPixelCoordX();
         int fwEY = fWpt.getPixelCoordY();
         g.drawLine(acSX, acSY, fwEX, fwEY);
-        for (int i = 0; i < rte.getRoutePoints().size() - 1; i++) {
-            Waypoint wptS = airportData.getWaypointByName((String) rte.getRoutePoints().get(i));
-            Waypoint wptE = airportData.getWaypointByName((String) rte.getRoutePoints().get(i + 1));
+        for (int i = cursor; i < hoveredAircraft.getRouteLength() - 1; i++) {
+            Waypoint wptS = getRouteWaypoint(i);
+            Waypoint wptE = getRouteWaypoint(i + 1);
             int wptSX = wptS.getPixelCoordX();
             int wptSY = wptS.getPixelCoordY();
             int wptEX = wptE.getPixelCoordX();
@@ -372,12 +462,31 @@ public class RadarScreen extends JComponent {
         }
     }
 
+    /**
+     * Vráti bod na trase aktuálne zvoleného lietadla.
+     *
+     * @param index Poradie bodu na trase lietadla.
+     *
+     * @return Bod trasy ako {@code Waypoint} objekt.
+     */
+    private Waypoint getRouteWaypoint(int index) throws WaypointNotLoadedException {
+        Route rte = hoveredAircraft.getActualRoute();
+        if (!rte.isResolved()) {
+            rte.resolveWaypoints(airportData);
+        }
+        if (index < rte.getWaypointCount()) {
+            return rte.getWaypoint(index);
+        }
+        return airportData.getWaypointByName(hoveredAircraft.getRoutePoint(index));
+    }
+
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
         g.setColor(Color.BLACK);
         g.fillRect(0, 0, getWidth(), getHeight());
         if (airportData != null) {
+            updateProjection();
             if (screenOptions.isDispDistCircles()) {
                 paintDistanceCircles(g);
             }
@@ -390,8 +499,9 @@ public class RadarScreen extends JComponent {
                 try {
                     paintRoute(g);
                     g.setColor(Color.RED);
-                    for (Point point : hoveredAircraft.getRouteTrail()) {
-                        g.fillRect((int) point.getX(), (int) point.getY(), 2, 2);
+                    for (long point : hoveredAircraft.getRouteTrail().getPackedPoints()) {
+                        g.fillRect(projectX(RouteTrail.unpackLongitude(point)),
+                                projectY(RouteTrail.unpackLatitude(point)), 2, 2);
                     }
                 } catch (WaypointNotLoadedException ex) {
                     Logger.getLogger(RadarScreen.class.getName()).log(Level.SEVERE, null, ex);
@@ -407,6 +517,7 @@ public class RadarScreen extends JComponent {
 
     public void setAirportData(Airport airportData) {
         this.airportData = airportData;
+        this.screenCalculator = null;
     }
 
     public void setHoveredAircraft(Aircraft hoveredAircraft) {
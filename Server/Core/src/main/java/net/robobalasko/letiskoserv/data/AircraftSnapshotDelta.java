@@ -0,0 +1,131 @@
+package net.robobalasko.letiskoserv.data;
+
+import java.io.Serializable;
+import java.util.LinkedList;
+import java.util.List;
+import net.robobalasko.letiskoserv.lietadla.Aircraft;
+
+/**
+ * Trieda opisujúca rozdiel medzi dvoma verziami zoznamu lietadiel na letisku, ktorý server posiela klientovi.
+ *
+ * Rozdiel obsahuje celé objekty len pre novo pridané lietadlá, pre ostatné lietadlá nesie iba zmenené údaje
+ * a pre odstránené lietadlá len ich identifikátory. Ak je základná verzia rovná nule, ide o úplný zoznam
+ * lietadiel a klient musí svoju lokálnu kópiu najprv vymazať.
+ *
+ * @author rbalasko
+ */
+public class AircraftSnapshotDelta implements Serializable {
+
+    /**
+     * Verzia serializovanej podoby triedy.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Verzia zoznamu lietadiel, ktorú klient po aplikovaní rozdielu dosiahne.
+     */
+    private final long version;
+
+    /**
+     * Verzia zoznamu lietadiel, voči ktorej je rozdiel vytvorený.
+     */
+    private final long baseVersion;
+
+    /**
+     * Identifikátory novo pridaných lietadiel v rovnakom poradí ako zoznam {@code addedAircraft}.
+     */
+    private final List<Integer> addedAircraftIds;
+
+    /**
+     * Novo pridané lietadlá.
+     */
+    private final List<Aircraft> addedAircraft;
+
+    /**
+     * Zmeny lietadiel, ktoré klient už pozná.
+     */
+    private final List<AircraftStateChange> changedAircraft;
+
+    /**
+     * Identifikátory lietadiel, ktoré z letiska zmizli.
+     */
+    private final List<Integer> removedAircraftIds;
+
+    /**
+     * Základný konštruktor vytvorí prázdny rozdiel medzi dvoma verziami.
+     *
+     * @param version Verzia, ktorú klient po aplikovaní rozdielu dosiahne.
+     * @param baseVersion Verzia, voči ktorej je rozdiel vytvorený, alebo nula pre úplný zoznam.
+     */
+    public AircraftSnapshotDelta(long version, long baseVersion) {
+        this.version = version;
+        this.baseVersion = baseVersion;
+        this.addedAircraftIds = new LinkedList<Integer>();
+        this.addedAircraft = new LinkedList<Aircraft>();
+        this.changedAircraft = new LinkedList<AircraftStateChange>();
+        this.removedAircraftIds = new LinkedList<Integer>();
+    }
+
+    /**
+     * Pridá do rozdielu novo pridané lietadlo.
+     *
+     * @param aircraftId Identifikátor lietadla v rámci spojenia s klientom.
+     * @param aircraft Celý objekt lietadla.
+     */
+    public void addAircraft(int aircraftId, Aircraft aircraft) {
+        addedAircraftIds.add(aircraftId);
+        addedAircraft.add(aircraft);
+    }
+
+    /**
+     * Pridá do rozdielu zmenu lietadla, ktoré klient už pozná.
+     *
+     * @param change Zmenené údaje lietadla.
+     */
+    public void changeAircraft(AircraftStateChange change) {
+        changedAircraft.add(change);
+    }
+
+    /**
+     * Pridá do rozdielu lietadlo, ktoré z letiska zmizlo.
+     *
+     * @param aircraftId Identifikátor lietadla v rámci spojenia s klientom.
+     */
+    public void removeAircraft(int aircraftId) {
+        removedAircraftIds.add(aircraftId);
+    }
+
+    /**
+     * Vráti hodnotu, či rozdiel obsahuje úplný zoznam lietadiel.
+     *
+     * @return True, ak si klient musí svoju lokálnu kópiu vytvoriť nanovo.
+     */
+    public boolean isFullSnapshot() {
+        return baseVersion == 0;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getBaseVersion() {
+        return baseVersion;
+    }
+
+    public List<Integer> getAddedAircraftIds() {
+        return addedAircraftIds;
+    }
+
+    public List<Aircraft> getAddedAircraft() {
+        return addedAircraft;
+    }
+
+    public List<AircraftStateChange> getChangedAircraft() {
+        return changedAircraft;
+    }
+
+    public List<Integer> getRemovedAircraftIds() {
+        return removedAircraftIds;
+    }
+
+}
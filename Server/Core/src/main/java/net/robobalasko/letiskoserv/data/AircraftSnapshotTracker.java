@@ -0,0 +1,214 @@
+package net.robobalasko.letiskoserv.data;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import net.robobalasko.letiskoserv.lietadla.Aircraft;
+import net.robobalasko.letiskoserv.lietadla.RouteTrail;
+import net.robobalasko.letiskoserv.navigacia.Route;
+import net.robobalasko.letiskoserv.simulacia.AircraftSnapshot;
+
+/**
+ * Trieda, ktorá si pre jedného klienta pamätá posledný odoslaný stav lietadiel
+ * a z aktuálneho zoznamu lietadiel vytvára rozdiely {@code AircraftSnapshotDelta}.
+ *
+ * Nové lietadlá sa do rozdielu vkladajú ako kópie, aby sa rozdiel mohol odoslať aj potom,
+ * čo simulácia lietadlá znova posunie.
+ *
+ * Každé odoslanie zvýši verziu zoznamu. Ak klient potvrdí inú verziu ako tú, ktorú
+ * mu server odoslal naposledy, dostane úplný zoznam lietadiel.
+ *
+ * @author rbalasko
+ */
+class AircraftSnapshotTracker {
+
+    /**
+     * Posledný odoslaný stav každého lietadla, ktoré klient pozná, podľa kľúča lietadla v stave simulácie.
+     */
+    private final Map<Object, SentAircraftState> sentStates;
+
+    /**
+     * Verzia zoznamu lietadiel, ktorá bola klientovi odoslaná naposledy.
+     */
+    private long version;
+
+    /**
+     * Identifikátor, ktorý dostane ďalšie nové lietadlo.
+     */
+    private int nextAircraftId;
+
+    /**
+     * Základný konštruktor vytvorí sledovanie bez odoslaných lietadiel.
+     */
+    AircraftSnapshotTracker() {
+        this.sentStates = new IdentityHashMap<Object, SentAircraftState>();
+        this.version = 0;
+        this.nextAircraftId = 1;
+    }
+
+    /**
+     * Vytvorí rozdiel medzi verziou, ktorú klient potvrdil, a aktuálnym zoznamom lietadiel
+     * a zapamätá si aktuálny stav ako novú odoslanú verziu.
+     *
+     * @param snapshot Posledný zverejnený stav lietadiel na letisku.
+     * @param acknowledgedVersion Verzia, ktorú klient naposledy dostal a aplikoval.
+     *
+     * @return Rozdiel, ktorý sa má klientovi odoslať.
+     */
+    AircraftSnapshotDelta createDelta(AircraftSnapshot snapshot, long acknowledgedVersion) {
+        boolean fullSnapshot = version == 0 || acknowledgedVersion != version;
+        if (fullSnapshot) {
+            sentStates.clear();
+        }
+        AircraftSnapshotDelta delta = new AircraftSnapshotDelta(version + 1, fullSnapshot ? 0 : version);
+        version++;
+        for (int i = 0; i < snapshot.size(); i++) {
+            Aircraft acft = snapshot.getAircraft(i);
+            SentAircraftState state = sentStates.get(snapshot.getKey(i));
+            if (state == null) {
+                state = new SentAircraftState(nextAircraftId++);
+                state.update(acft);
+                sentStates.put(snapshot.getKey(i), state);
+                delta.addAircraft(state.aircraftId, acft);
+            } else {
+                AircraftStateChange change = state.update(acft);
+                if (!change.isEmpty()) {
+                    delta.changeAircraft(change);
+                }
+            }
+            state.seenVersion = version;
+        }
+        Iterator<SentAircraftState> states = sentStates.values().iterator();
+        while (states.hasNext()) {
+            SentAircraftState state = states.next();
+            if (state.seenVersion != version) {
+                delta.removeAircraft(state.aircraftId);
+                states.remove();
+            }
+        }
+        return delta;
+    }
+
+    /**
+     * Vráti verziu zoznamu lietadiel, ktorá bola klientovi odoslaná naposledy.
+     *
+     * @return Verzia zoznamu lietadiel.
+     */
+    long getVersion() {
+        return version;
+    }
+
+    /**
+     * Stav lietadla v poslednej verzii, ktorá bola klientovi odoslaná.
+     */
+    private static class SentAircraftState {
+
+        private final int aircraftId;
+
+        private long seenVersion;
+
+        private double latitude;
+
+        private double longitude;
+
+        private int actualFlightLevel;
+
+        private int finalFlightLevel;
+
+        private int actualAirSpeed;
+
+        private int finalAirSpeed;
+
+        private boolean clearedForDeparture;
+
+        private boolean goingAround;
+
+        private boolean separationLost;
+
+        private double heading;
+
+        private Route actualRoute;
+
+        private List<String> directWaypoints;
+
+        private int routeCursor;
+
+        private int trailResetCount;
+
+        private long trailAppendedCount;
+
+        SentAircraftState(int aircraftId) {
+            this.aircraftId = aircraftId;
+        }
+
+        /**
+         * Porovná aktuálny stav lietadla s posledným odoslaným stavom a zapamätá si ho.
+         *
+         * @param acft Lietadlo, ktorého stav sa porovnáva.
+         *
+         * @return Zmena obsahujúca len údaje, ktoré sa od poslednej verzie zmenili.
+         */
+        AircraftStateChange update(Aircraft acft) {
+            AircraftStateChange change = new AircraftStateChange(aircraftId);
+            if (acft.getLatitude() != latitude || acft.getLongitude() != longitude) {
+                latitude = acft.getLatitude();
+                longitude = acft.getLongitude();
+                change.setPosition(latitude, longitude);
+            }
+            if (acft.getActualFlightLevel() != actualFlightLevel) {
+                actualFlightLevel = acft.getActualFlightLevel();
+                change.setActualFlightLevel(actualFlightLevel);
+            }
+            if (acft.getFinalFlightLevel() != finalFlightLevel) {
+                finalFlightLevel = acft.getFinalFlightLevel();
+                change.setFinalFlightLevel(finalFlightLevel);
+            }
+            if (acft.getActualAirSpeed() != actualAirSpeed) {
+                actualAirSpeed = acft.getActualAirSpeed();
+                change.setActualAirSpeed(actualAirSpeed);
+            }
+            if (acft.getFinalAirSpeed() != finalAirSpeed) {
+                finalAirSpeed = acft.getFinalAirSpeed();
+                change.setFinalAirSpeed(finalAirSpeed);
+            }
+            if (acft.isClearedForDeparture() != clearedForDeparture || acft.isGoingAround() != goingAround
+                    || acft.isSeparationLost() != separationLost) {
+                clearedForDeparture = acft.isClearedForDeparture();
+                goingAround = acft.isGoingAround();
+                separationLost = acft.isSeparationLost();
+                change.setFlags(clearedForDeparture, goingAround, separationLost);
+            }
+            if (acft.getHeading() != heading) {
+                heading = acft.getHeading();
+                change.setHeading(heading);
+            }
+            Route route = acft.getActualRoute();
+            if (route != actualRoute || acft.getDirectWaypoints() != directWaypoints) {
+                // Trasy aj zoznamy pridaných bodov sa nemenia, stačí ich porovnať podľa odkazu
+                actualRoute = route;
+                directWaypoints = acft.getDirectWaypoints();
+                change.setRoute(route, directWaypoints);
+                routeCursor = acft.getRouteCursor();
+                change.setRouteCursor(routeCursor);
+            } else if (acft.getRouteCursor() != routeCursor) {
+                routeCursor = acft.getRouteCursor();
+                change.setRouteCursor(routeCursor);
+            }
+            RouteTrail trail = acft.getRouteTrail();
+            synchronized (trail) {
+                if (trail.getResetCount() != trailResetCount) {
+                    trailResetCount = trail.getResetCount();
+                    trailAppendedCount = trail.getAppendedCount();
+                    change.setTrail(true, trail.getPackedPoints());
+                } else if (trail.getAppendedCount() != trailAppendedCount) {
+                    change.setTrail(false, trail.getPackedPointsSince(trailAppendedCount));
+                    trailAppendedCount = trail.getAppendedCount();
+                }
+            }
+            return change;
+        }
+
+    }
+
+}
@@ -0,0 +1,431 @@
+package net.robobalasko.letiskoserv.data;
+
+import java.io.Serializable;
+import java.util.List;
+import net.robobalasko.letiskoserv.lietadla.Aircraft;
+import net.robobalasko.letiskoserv.lietadla.RouteTrail;
+import net.robobalasko.letiskoserv.navigacia.AirportRouteTypesEnum;
+import net.robobalasko.letiskoserv.navigacia.Route;
+
+/**
+ * Trieda opisujúca zmenu stavu jedného lietadla oproti poslednej verzii, ktorú klient od servera dostal.
+ *
+ * Zmena nesie len tie údaje lietadla, ktoré sa naozaj zmenili. Ktoré to sú, určuje bitová maska
+ * {@code changedFields} zložená z konštánt tejto triedy.
+ *
+ * @author rbalasko
+ */
+public class AircraftStateChange implements Serializable {
+
+    /**
+     * Verzia serializovanej podoby triedy.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Zmenila sa pozícia lietadla.
+     */
+    public static final int POSITION = 1;
+
+    /**
+     * Zmenila sa aktuálna letová hladina lietadla.
+     */
+    public static final int FLIGHT_LEVEL = 1 << 1;
+
+    /**
+     * Zmenila sa požadovaná letová hladina lietadla.
+     */
+    public static final int FINAL_FLIGHT_LEVEL = 1 << 2;
+
+    /**
+     * Zmenila sa aktuálna rýchlosť lietadla.
+     */
+    public static final int AIR_SPEED = 1 << 3;
+
+    /**
+     * Zmenila sa požadovaná rýchlosť lietadla.
+     */
+    public static final int FINAL_AIR_SPEED = 1 << 4;
+
+    /**
+     * Zmenilo sa povolenie odletu, fáza G/A alebo narušenie separácie.
+     */
+    public static final int FLAGS = 1 << 5;
+
+    /**
+     * Zmenil sa kurz lietadla.
+     */
+    public static final int DIRECTION = 1 << 6;
+
+    /**
+     * Zmenila sa aktuálna trasa lietadla alebo jej body.
+     */
+    public static final int ROUTE = 1 << 7;
+
+    /**
+     * Do prejdenej trasy lietadla pribudli nové body.
+     */
+    public static final int TRAIL = 1 << 8;
+
+    /**
+     * Lietadlo preletelo bod na trase a smeruje na ďalší.
+     */
+    public static final int ROUTE_CURSOR = 1 << 9;
+
+    /**
+     * Identifikátor lietadla v rámci spojenia s klientom.
+     */
+    private final int aircraftId;
+
+    /**
+     * Bitová maska údajov, ktoré sa zmenili.
+     */
+    private int changedFields;
+
+    /**
+     * Nová horizontálna pozícia lietadla.
+     */
+    private double latitude;
+
+    /**
+     * Nová vertikálna pozícia lietadla.
+     */
+    private double longitude;
+
+    /**
+     * Nová aktuálna letová hladina.
+     */
+    private int actualFlightLevel;
+
+    /**
+     * Nová požadovaná letová hladina.
+     */
+    private int finalFlightLevel;
+
+    /**
+     * Nová aktuálna rýchlosť v KTAS.
+     */
+    private int actualAirSpeed;
+
+    /**
+     * Nová požadovaná rýchlosť v KTAS.
+     */
+    private int finalAirSpeed;
+
+    /**
+     * Nová hodnota povolenia odletu.
+     */
+    private boolean clearedForDeparture;
+
+    /**
+     * Nová hodnota fázy G/A.
+     */
+    private boolean goingAround;
+
+    /**
+     * Nová hodnota narušenia separácie.
+     */
+    private boolean separationLost;
+
+    /**
+     * Nový zemepisný kurz lietadla.
+     */
+    private double heading;
+
+    /**
+     * Trasa, ktorú lietadlo aktuálne letí.
+     */
+    private Route route;
+
+    /**
+     * Body pridané za koniec aktuálnej trasy lietadla.
+     */
+    private List<String> directWaypoints;
+
+    /**
+     * Index bodu aktuálnej trasy, na ktorý lietadlo smeruje.
+     */
+    private int routeCursor;
+
+    /**
+     * Definuje, či klient musí svoju prejdenú trasu lietadla najprv vymazať.
+     */
+    private boolean trailReset;
+
+    /**
+     * Body prejdenej trasy, ktoré pribudli od poslednej verzie.
+     */
+    private long[] trailPoints;
+
+    /**
+     * Základný konštruktor vytvorí prázdnu zmenu pre lietadlo so zadaným identifikátorom.
+     *
+     * @param aircraftId Identifikátor lietadla v rámci spojenia s klientom.
+     */
+    public AircraftStateChange(int aircraftId) {
+        this.aircraftId = aircraftId;
+        this.changedFields = 0;
+    }
+
+    /**
+     * Aplikuje zmenené údaje na lokálnu kópiu lietadla.
+     *
+     * @param aircraft Lietadlo, ktorého údaje sa majú aktualizovať.
+     */
+    public void applyTo(Aircraft aircraft) {
+        if (hasChanged(POSITION)) {
+            aircraft.setLatitude(latitude);
+            aircraft.setLongitude(longitude);
+        }
+        if (hasChanged(FLIGHT_LEVEL)) {
+            aircraft.setActualFlightLevel(actualFlightLevel);
+        }
+        if (hasChanged(FINAL_FLIGHT_LEVEL)) {
+            aircraft.setFinalFlightLevel(finalFlightLevel);
+        }
+        if (hasChanged(AIR_SPEED)) {
+            aircraft.setActualAirSpeed(actualAirSpeed);
+        }
+        if (hasChanged(FINAL_AIR_SPEED)) {
+            aircraft.setFinalAirSpeed(finalAirSpeed);
+        }
+        if (hasChanged(FLAGS)) {
+            aircraft.setClearedForDeparture(clearedForDeparture);
+            aircraft.setGoingAround(goingAround);
+            aircraft.setSeparationLost(separationLost);
+        }
+        if (hasChanged(DIRECTION)) {
+            aircraft.setHeading(heading);
+        }
+        if (hasChanged(ROUTE)) {
+            if (route.getRouteType() == AirportRouteTypesEnum.SID) {
+                aircraft.setSidRoute(route);
+            } else {
+                aircraft.setStarRoute(route);
+            }
+            aircraft.setActualRoute(route);
+            aircraft.setDirectWaypoints(directWaypoints);
+        }
+        if (hasChanged(ROUTE_CURSOR)) {
+            aircraft.setRouteCursor(routeCursor);
+        }
+        if (hasChanged(TRAIL)) {
+            RouteTrail trail = aircraft.getRouteTrail();
+            synchronized (trail) {
+                if (trailReset) {
+                    trail.clear();
+                }
+                trail.addAll(trailPoints);
+            }
+        }
+    }
+
+    /**
+     * Vráti hodnotu, či sa zadaný údaj lietadla zmenil.
+     *
+     * @param field Konštanta údaju z tejto triedy.
+     *
+     * @return True, ak zmena daný údaj obsahuje.
+     */
+    public boolean hasChanged(int field) {
+        return (changedFields & field) != 0;
+    }
+
+    /**
+     * Vráti hodnotu, či zmena neobsahuje žiadny zmenený údaj.
+     *
+     * @return True, ak sa na lietadle nič nezmenilo.
+     */
+    public boolean isEmpty() {
+        return changedFields == 0;
+    }
+
+    /**
+     * Vráti identifikátor lietadla v rámci spojenia s klientom.
+     *
+     * @return Identifikátor lietadla.
+     */
+    public int getAircraftId() {
+        return aircraftId;
+    }
+
+    /**
+     * Vráti bitovú masku zmenených údajov.
+     *
+     * @return Bitová maska z konštánt tejto triedy.
+     */
+    public int getChangedFields() {
+        return changedFields;
+    }
+
+    /**
+     * Zaznamená novú pozíciu lietadla.
+     *
+     * @param latitude Horizontálna pozícia lietadla.
+     * @param longitude Vertikálna pozícia lietadla.
+     */
+    public void setPosition(double latitude, double longitude) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        changedFields |= POSITION;
+    }
+
+    /**
+     * Zaznamená novú aktuálnu letovú hladinu.
+     *
+     * @param actualFlightLevel Aktuálna letová hladina.
+     */
+    public void setActualFlightLevel(int actualFlightLevel) {
+        this.actualFlightLevel = actualFlightLevel;
+        changedFields |= FLIGHT_LEVEL;
+    }
+
+    /**
+     * Zaznamená novú požadovanú letovú hladinu.
+     *
+     * @param finalFlightLevel Požadovaná letová hladina.
+     */
+    public void setFinalFlightLevel(int finalFlightLevel) {
+        this.finalFlightLevel = finalFlightLevel;
+        changedFields |= FINAL_FLIGHT_LEVEL;
+    }
+
+    /**
+     * Zaznamená novú aktuálnu rýchlosť.
+     *
+     * @param actualAirSpeed Aktuálna rýchlosť v KTAS.
+     */
+    public void setActualAirSpeed(int actualAirSpeed) {
+        this.actualAirSpeed = actualAirSpeed;
+        changedFields |= AIR_SPEED;
+    }
+
+    /**
+     * Zaznamená novú požadovanú rýchlosť.
+     *
+     * @param finalAirSpeed Požadovaná rýchlosť v KTAS.
+     */
+    public void setFinalAirSpeed(int finalAirSpeed) {
+        this.finalAirSpeed = finalAirSpeed;
+        changedFields |= FINAL_AIR_SPEED;
+    }
+
+    /**
+     * Zaznamená nové povolenie odletu, fázu G/A a narušenie separácie.
+     *
+     * @param clearedForDeparture Povolenie odletu.
+     * @param goingAround Fáza G/A.
+     * @param separationLost Narušenie separácie od iného lietadla.
+     */
+    public void setFlags(boolean clearedForDeparture, boolean goingAround, boolean separationLost) {
+        this.clearedForDeparture = clearedForDeparture;
+        this.goingAround = goingAround;
+        this.separationLost = separationLost;
+        changedFields |= FLAGS;
+    }
+
+    /**
+     * Zaznamená nový zemepisný kurz lietadla.
+     *
+     * @param heading Kurz lietadla v stupňoch.
+     */
+    public void setHeading(double heading) {
+        this.heading = heading;
+        changedFields |= DIRECTION;
+    }
+
+    /**
+     * Zaznamená novú aktuálnu trasu lietadla.
+     *
+     * @param route Trasa, ktorú lietadlo letí.
+     * @param directWaypoints Body pridané za koniec trasy.
+     */
+    public void setRoute(Route route, List<String> directWaypoints) {
+        this.route = route;
+        this.directWaypoints = directWaypoints;
+        changedFields |= ROUTE;
+    }
+
+    /**
+     * Zaznamená bod aktuálnej trasy, na ktorý lietadlo smeruje.
+     *
+     * @param routeCursor Index ďalšieho bodu na trase.
+     */
+    public void setRouteCursor(int routeCursor) {
+        this.routeCursor = routeCursor;
+        changedFields |= ROUTE_CURSOR;
+    }
+
+    /**
+     * Zaznamená nové body prejdenej trasy lietadla.
+     *
+     * @param trailReset Definuje, či sa má prejdená trasa na strane klienta najprv vymazať.
+     * @param trailPoints Body, ktoré do prejdenej trasy pribudli.
+     */
+    public void setTrail(boolean trailReset, long[] trailPoints) {
+        this.trailReset = trailReset;
+        this.trailPoints = trailPoints;
+        changedFields |= TRAIL;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public int getActualFlightLevel() {
+        return actualFlightLevel;
+    }
+
+    public int getFinalFlightLevel() {
+        return finalFlightLevel;
+    }
+
+    public int getActualAirSpeed() {
+        return actualAirSpeed;
+    }
+
+    public int getFinalAirSpeed() {
+        return finalAirSpeed;
+    }
+
+    public boolean isClearedForDeparture() {
+        return clearedForDeparture;
+    }
+
+    public boolean isGoingAround() {
+        return goingAround;
+    }
+
+    public boolean isSeparationLost() {
+        return separationLost;
+    }
+
+    public double getHeading() {
+        return heading;
+    }
+
+    public Route getRoute() {
+        return route;
+    }
+
+    public List<String> getDirectWaypoints() {
+        return directWaypoints;
+    }
+
+    public int getRouteCursor() {
+        return routeCursor;
+    }
+
+    public boolean isTrailReset() {
+        return trailReset;
+    }
+
+    public long[] getTrailPoints() {
+        return trailPoints;
+    }
+
+}
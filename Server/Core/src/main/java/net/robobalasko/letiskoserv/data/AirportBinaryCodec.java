@@ -0,0 +1,599 @@
+package net.robobalasko.letiskoserv.data;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import net.robobalasko.letiskoserv.lietadla.Aircraft;
+import net.robobalasko.letiskoserv.lietadla.RouteTrail;
+import net.robobalasko.letiskoserv.lietadla.AircraftTypeEnum;
+import net.robobalasko.letiskoserv.lietadla.CallsignAllocator;
+import net.robobalasko.letiskoserv.navigacia.AirportRouteTypesEnum;
+import net.robobalasko.letiskoserv.navigacia.Route;
+
+/**
+ * Binárny formát pre správy, ktoré si klient a server vymieňajú počas riadenia letiska najčastejšie.
+ *
+ * Obsah rámca začína jedným bajtom s typom správy a za ním nasleduje záznam s pevným poradím údajov,
+ * ktorý sa číta a zapisuje priamo cez {@code ByteBuffer}. Volací znak a trasy lietadla sa posielajú
+ * len raz, keď klient lietadlo ešte nepozná, ďalej sa na lietadlo odkazuje len jeho identifikátorom.
+ * Volací znak zo zásobníkov {@code CallsignAllocator} sa posiela ako jeho štvorbajtový identifikátor.
+ * Typy správ sa nikdy nezhodujú s prvým bajtom Java serializácie ({@code 0xAC}), preto je možné oba
+ * formáty na strane príjemcu rozlíšiť podľa prvého bajtu rámca.
+ *
+ * @author rbalasko
+ */
+public final class AirportBinaryCodec {
+
+    /**
+     * Správa s celým číslom (kód požiadavky alebo odpovede, rozmer obrazovky).
+     */
+    private static final byte TYPE_INTEGER = 1;
+
+    /**
+     * Správa s dlhým celým číslom (potvrdená verzia zoznamu lietadiel).
+     */
+    private static final byte TYPE_LONG = 2;
+
+    /**
+     * Správa s rozdielom v zozname lietadiel.
+     */
+    private static final byte TYPE_SNAPSHOT_DELTA = 3;
+
+    /**
+     * Správa so zoznamom celých lietadiel.
+     */
+    private static final byte TYPE_AIRCRAFT_LIST = 4;
+
+    /**
+     * Odkaz na aktuálnu trasu lietadla, ktorá je jeho odletovou trasou.
+     */
+    private static final byte ACTUAL_ROUTE_SID = 0;
+
+    /**
+     * Odkaz na aktuálnu trasu lietadla, ktorá je jeho príletovou trasou.
+     */
+    private static final byte ACTUAL_ROUTE_STAR = 1;
+
+    /**
+     * Aktuálna trasa lietadla, ktorá nie je jeho odletovou ani príletovou trasou, napr. nová trasa
+     * od riadiaceho. Za odkazom nasleduje celá trasa.
+     */
+    private static final byte ACTUAL_ROUTE_OTHER = 2;
+
+    /**
+     * Hodnota, ktorou sa zapisuje chýbajúci objekt alebo reťazec.
+     */
+    private static final int NULL_VALUE = -1;
+
+    /**
+     * Počiatočná veľkosť buffera pre zakódovanú správu.
+     */
+    private static final int INITIAL_BUFFER_SIZE = 256;
+
+    /**
+     * Kódovanie reťazcov v binárnom formáte.
+     */
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * Trieda obsahuje len statické metódy, preto nie je možné vytvoriť jej inštanciu.
+     */
+    private AirportBinaryCodec() {
+    }
+
+    /**
+     * Zistí, či je možné správu zakódovať v binárnom formáte.
+     *
+     * @param message Objekt správy.
+     *
+     * @return True, ak binárny formát daný typ správy podporuje.
+     */
+    public static boolean isSupported(Object message) {
+        if (message instanceof Integer || message instanceof Long || message instanceof AircraftSnapshotDelta) {
+            return true;
+        }
+        if (message instanceof List) {
+            for (Object item : (List<?>) message) {
+                if (!(item instanceof Aircraft)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Zakóduje správu do rámca, ktorý začína štvorbajtovou dĺžkou obsahu.
+     *
+     * @param message Objekt správy, ktorý musí spĺňať {@code isSupported}.
+     *
+     * @return Buffer s hlavičkou a obsahom správy nastavený na čítanie.
+     *
+     * @throws IOException Ak binárny formát daný typ správy nepodporuje.
+     */
+    public static ByteBuffer encodeFrame(Object message) throws IOException {
+        FrameWriter writer = new FrameWriter();
+        writer.ensure(AirportMessageCodec.HEADER_LENGTH);
+        writer.buffer.position(AirportMessageCodec.HEADER_LENGTH);
+        if (message instanceof Integer) {
+            writer.ensure(5);
+            writer.buffer.put(TYPE_INTEGER).putInt((Integer) message);
+        } else if (message instanceof Long) {
+            writer.ensure(9);
+            writer.buffer.put(TYPE_LONG).putLong((Long) message);
+        } else if (message instanceof AircraftSnapshotDelta) {
+            writer.ensure(1);
+            writer.buffer.put(TYPE_SNAPSHOT_DELTA);
+            writeSnapshotDelta(writer, (AircraftSnapshotDelta) message);
+        } else if (message instanceof List && isSupported(message)) {
+            List<?> aircraft = (List<?>) message;
+            writer.ensure(5);
+            writer.buffer.put(TYPE_AIRCRAFT_LIST).putInt(aircraft.size());
+            for (Object acft : aircraft) {
+                writeAircraft(writer, (Aircraft) acft);
+            }
+        } else {
+            throw new IOException("Unsupported binary message: " + message);
+        }
+        ByteBuffer frame = writer.buffer;
+        frame.putInt(0, frame.position() - AirportMessageCodec.HEADER_LENGTH);
+        frame.flip();
+        return frame;
+    }
+
+    /**
+     * Dekóduje obsah jedného binárneho rámca.
+     *
+     * @param payload Buffer nastavený na začiatok obsahu rámca a obmedzený na jeho koniec.
+     *
+     * @return Objekt prijatej správy.
+     *
+     * @throws IOException Ak obsah rámca nie je platná binárna správa.
+     */
+    public static Object decode(ByteBuffer payload) throws IOException {
+        try {
+            byte type = payload.get();
+            switch (type) {
+                case TYPE_INTEGER:
+                    return payload.getInt();
+                case TYPE_LONG:
+                    return payload.getLong();
+                case TYPE_SNAPSHOT_DELTA:
+                    return readSnapshotDelta(payload);
+                case TYPE_AIRCRAFT_LIST:
+                    int count = readCount(payload, 1);
+                    List<Aircraft> aircraft = new LinkedList<Aircraft>();
+                    for (int i = 0; i < count; i++) {
+                        aircraft.add(readAircraft(payload));
+                    }
+                    return aircraft;
+                default:
+                    throw new IOException("Unknown binary message type: " + type);
+            }
+        } catch (BufferUnderflowException ex) {
+            throw new IOException("Truncated binary message.", ex);
+        } catch (IndexOutOfBoundsException ex) {
+            throw new IOException("Malformed binary message.", ex);
+        }
+    }
+
+    /**
+     * Zapíše rozdiel v zozname lietadiel.
+     */
+    private static void writeSnapshotDelta(FrameWriter writer, AircraftSnapshotDelta delta) {
+        writer.ensure(20);
+        writer.buffer.putLong(delta.getVersion());
+        writer.buffer.putLong(delta.getBaseVersion());
+        writer.buffer.putInt(delta.getRemovedAircraftIds().size());
+        for (Integer aircraftId : delta.getRemovedAircraftIds()) {
+            writer.ensure(4);
+            writer.buffer.putInt(aircraftId);
+        }
+        writer.ensure(4);
+        writer.buffer.putInt(delta.getAddedAircraft().size());
+        Iterator<Integer> addedIds = delta.getAddedAircraftIds().iterator();
+        for (Aircraft acft : delta.getAddedAircraft()) {
+            writer.ensure(4);
+            writer.buffer.putInt(addedIds.next());
+            writeAircraft(writer, acft);
+        }
+        writer.ensure(4);
+        writer.buffer.putInt(delta.getChangedAircraft().size());
+        for (AircraftStateChange change : delta.getChangedAircraft()) {
+            writeStateChange(writer, change);
+        }
+    }
+
+    /**
+     * Prečíta rozdiel v zozname lietadiel.
+     */
+    private static AircraftSnapshotDelta readSnapshotDelta(ByteBuffer payload) throws IOException {
+        long version = payload.getLong();
+        long baseVersion = payload.getLong();
+        AircraftSnapshotDelta delta = new AircraftSnapshotDelta(version, baseVersion);
+        int removed = readCount(payload, 4);
+        for (int i = 0; i < removed; i++) {
+            delta.removeAircraft(payload.getInt());
+        }
+        int added = readCount(payload, 4);
+        for (int i = 0; i < added; i++) {
+            int aircraftId = payload.getInt();
+            delta.addAircraft(aircraftId, readAircraft(payload));
+        }
+        int changed = readCount(payload, 8);
+        for (int i = 0; i < changed; i++) {
+            delta.changeAircraft(readStateChange(payload));
+        }
+        return delta;
+    }
+
+    /**
+     * Zapíše zmenu lietadla. Za identifikátorom a maskou nasledujú len zmenené údaje v pevnom poradí.
+     */
+    private static void writeStateChange(FrameWriter writer, AircraftStateChange change) {
+        writer.ensure(8);
+        writer.buffer.putInt(change.getAircraftId());
+        writer.buffer.putInt(change.getChangedFields());
+        if (change.hasChanged(AircraftStateChange.POSITION)) {
+            writer.ensure(16);
+            writer.buffer.putDouble(change.getLatitude()).putDouble(change.getLongitude());
+        }
+        if (change.hasChanged(AircraftStateChange.FLIGHT_LEVEL)) {
+            writer.ensure(4);
+            writer.buffer.putInt(change.getActualFlightLevel());
+        }
+        if (change.hasChanged(AircraftStateChange.FINAL_FLIGHT_LEVEL)) {
+            writer.ensure(4);
+            writer.buffer.putInt(change.getFinalFlightLevel());
+        }
+        if (change.hasChanged(AircraftStateChange.AIR_SPEED)) {
+            writer.ensure(4);
+            writer.buffer.putInt(change.getActualAirSpeed());
+        }
+        if (change.hasChanged(AircraftStateChange.FINAL_AIR_SPEED)) {
+            writer.ensure(4);
+            writer.buffer.putInt(change.getFinalAirSpeed());
+        }
+        if (change.hasChanged(AircraftStateChange.FLAGS)) {
+            writer.ensure(1);
+            writer.buffer.put(flags(change.isClearedForDeparture(), change.isGoingAround(), false,
+                    change.isSeparationLost()));
+        }
+        if (change.hasChanged(AircraftStateChange.DIRECTION)) {
+            writer.ensure(8);
+            writer.buffer.putDouble(change.getHeading());
+        }
+        if (change.hasChanged(AircraftStateChange.ROUTE)) {
+            writeRoute(writer, change.getRoute());
+            writeStrings(writer, change.getDirectWaypoints());
+        }
+        if (change.hasChanged(AircraftStateChange.ROUTE_CURSOR)) {
+            writer.ensure(4);
+            writer.buffer.putInt(change.getRouteCursor());
+        }
+        if (change.hasChanged(AircraftStateChange.TRAIL)) {
+            writer.ensure(1);
+            writer.buffer.put((byte) (change.isTrailReset() ? 1 : 0));
+            writePoints(writer, change.getTrailPoints());
+        }
+    }
+
+    /**
+     * Prečíta zmenu lietadla.
+     */
+    private static AircraftStateChange readStateChange(ByteBuffer payload) throws IOException {
+        AircraftStateChange change = new AircraftStateChange(payload.getInt());
+        int changedFields = payload.getInt();
+        if ((changedFields & AircraftStateChange.POSITION) != 0) {
+            change.setPosition(payload.getDouble(), payload.getDouble());
+        }
+        if ((changedFields & AircraftStateChange.FLIGHT_LEVEL) != 0) {
+            change.setActualFlightLevel(payload.getInt());
+        }
+        if ((changedFields & AircraftStateChange.FINAL_FLIGHT_LEVEL) != 0) {
+            change.setFinalFlightLevel(payload.getInt());
+        }
+        if ((changedFields & AircraftStateChange.AIR_SPEED) != 0) {
+            change.setActualAirSpeed(payload.getInt());
+        }
+        if ((changedFields & AircraftStateChange.FINAL_AIR_SPEED) != 0) {
+            change.setFinalAirSpeed(payload.getInt());
+        }
+        if ((changedFields & AircraftStateChange.FLAGS) != 0) {
+            byte flags = payload.get();
+            change.setFlags((flags & 1) != 0, (flags & 2) != 0, (flags & 8) != 0);
+        }
+        if ((changedFields & AircraftStateChange.DIRECTION) != 0) {
+            change.setHeading(payload.getDouble());
+        }
+        if ((changedFields & AircraftStateChange.ROUTE) != 0) {
+            Route route = readRoute(payload);
+            change.setRoute(route, readStrings(payload));
+        }
+        if ((changedFields & AircraftStateChange.ROUTE_CURSOR) != 0) {
+            change.setRouteCursor(payload.getInt());
+        }
+        if ((changedFields & AircraftStateChange.TRAIL) != 0) {
+            boolean trailReset = payload.get() != 0;
+            change.setTrail(trailReset, readPoints(payload));
+        }
+        return change;
+    }
+
+    /**
+     * Zapíše celé lietadlo aj s jeho trasami a prejdenou trasou.
+     */
+    private static void writeAircraft(FrameWriter writer, Aircraft acft) {
+        // Volací znak zo zásobníkov si príjemca zostaví z identifikátora, iný sa posiela ako reťazec
+        int callSignId = CallsignAllocator.getPoolId(acft.getCallSign());
+        writer.ensure(4);
+        writer.buffer.putInt(callSignId);
+        if (callSignId == CallsignAllocator.NO_ID) {
+            writeString(writer, acft.getCallSign());
+        }
+        writer.ensure(1);
+        writer.buffer.put(ordinal(acft.getAircraftType()));
+        writeString(writer, acft.getDepAirport());
+        writeString(writer, acft.getArrAirport());
+        writeRoute(writer, acft.getSidRoute());
+        writeRoute(writer, acft.getStarRoute());
+        writer.ensure(1);
+        Route actualRoute = acft.getActualRoute();
+        if (actualRoute == null) {
+            writer.buffer.put((byte) NULL_VALUE);
+        } else if (actualRoute == acft.getSidRoute()) {
+            writer.buffer.put(ACTUAL_ROUTE_SID);
+        } else if (actualRoute == acft.getStarRoute()) {
+            writer.buffer.put(ACTUAL_ROUTE_STAR);
+        } else {
+            writer.buffer.put(ACTUAL_ROUTE_OTHER);
+            writeRoute(writer, actualRoute);
+        }
+        writer.ensure(4);
+        writer.buffer.putInt(acft.getRouteCursor());
+        writeStrings(writer, acft.getDirectWaypoints());
+        writer.ensure(49);
+        writer.buffer.putDouble(acft.getLatitude());
+        writer.buffer.putDouble(acft.getLongitude());
+        writer.buffer.putInt(acft.getActualFlightLevel());
+        writer.buffer.putInt(acft.getFinalFlightLevel());
+        writer.buffer.putInt(acft.getActualAirSpeed());
+        writer.buffer.putInt(acft.getFinalAirSpeed());
+        writer.buffer.put(flags(acft.isClearedForDeparture(), acft.isGoingAround(), acft.isIsSelected(),
+                acft.isSeparationLost()));
+        writer.buffer.putDouble(acft.getHeading());
+        RouteTrail trail = acft.getRouteTrail();
+        writer.ensure(4);
+        writer.buffer.putInt(trail.getCapacity());
+        writePoints(writer, trail.getPackedPoints());
+    }
+
+    /**
+     * Prečíta celé lietadlo.
+     */
+    private static Aircraft readAircraft(ByteBuffer payload) throws IOException {
+        Aircraft acft = new Aircraft();
+        int callSignId = payload.getInt();
+        if (callSignId == CallsignAllocator.NO_ID) {
+            acft.setCallSign(readString(payload));
+        } else {
+            String callSign = CallsignAllocator.getPoolCallSign(callSignId);
+            if (callSign == null) {
+                throw new IOException("Invalid call sign id: " + callSignId);
+            }
+            acft.setCallSign(callSign);
+        }
+        byte aircraftType = payload.get();
+        acft.setAircraftType(aircraftType == NULL_VALUE ? null : AircraftTypeEnum.values()[aircraftType]);
+        acft.setDepAirport(readString(payload));
+        acft.setArrAirport(readString(payload));
+        acft.setSidRoute(readRoute(payload));
+        acft.setStarRoute(readRoute(payload));
+        byte actualRoute = payload.get();
+        if (actualRoute == ACTUAL_ROUTE_SID) {
+            acft.setActualRoute(acft.getSidRoute());
+        } else if (actualRoute == ACTUAL_ROUTE_STAR) {
+            acft.setActualRoute(acft.getStarRoute());
+        } else if (actualRoute == ACTUAL_ROUTE_OTHER) {
+            acft.setActualRoute(readRoute(payload));
+        } else if (actualRoute != NULL_VALUE) {
+            throw new IOException("Invalid actual route reference: " + actualRoute);
+        }
+        acft.setRouteCursor(payload.getInt());
+        acft.setDirectWaypoints(readStrings(payload));
+        acft.setLatitude(payload.getDouble());
+        acft.setLongitude(payload.getDouble());
+        acft.setActualFlightLevel(payload.getInt());
+        acft.setFinalFlightLevel(payload.getInt());
+        acft.setActualAirSpeed(payload.getInt());
+        acft.setFinalAirSpeed(payload.getInt());
+        byte flags = payload.get();
+        acft.setClearedForDeparture((flags & 1) != 0);
+        acft.setGoingAround((flags & 2) != 0);
+        acft.setIsSelected((flags & 4) != 0);
+        acft.setSeparationLost((flags & 8) != 0);
+        acft.setHeading(payload.getDouble());
+        int trailCapacity = payload.getInt();
+        if (trailCapacity < 0) {
+            throw new IOException("Invalid trail capacity: " + trailCapacity);
+        }
+        // Kapacitu trasa zníži na najväčšiu povolenú, nech odosielateľ pošle čokoľvek
+        acft.getRouteTrail().setCapacity(trailCapacity);
+        acft.getRouteTrail().addAll(readPoints(payload));
+        return acft;
+    }
+
+    /**
+     * Zapíše trasu lietadla.
+     */
+    private static void writeRoute(FrameWriter writer, Route route) {
+        writer.ensure(1);
+        if (route == null) {
+            writer.buffer.put((byte) NULL_VALUE);
+            return;
+        }
+        writer.buffer.put(ordinal(route.getRouteType()));
+        writer.ensure(4);
+        writer.buffer.putInt(route.getRunwayNumber());
+        writeString(writer, route.getRouteName());
+        writeStrings(writer, route.getRoutePoints());
+    }
+
+    /**
+     * Prečíta trasu lietadla.
+     */
+    private static Route readRoute(ByteBuffer payload) throws IOException {
+        AirportRouteTypesEnum routeType = readRouteType(payload);
+        if (routeType == null) {
+            return null;
+        }
+        int runwayNumber = payload.getInt();
+        String routeName = readString(payload);
+        return new Route(runwayNumber, routeName, routeType, readStrings(payload));
+    }
+
+    /**
+     * Prečíta typ trasy zapísaný ako poradové číslo.
+     */
+    private static AirportRouteTypesEnum readRouteType(ByteBuffer payload) throws IOException {
+        byte routeType = payload.get();
+        return routeType == NULL_VALUE ? null : AirportRouteTypesEnum.values()[routeType];
+    }
+
+    /**
+     * Zapíše reťazec ako dĺžku v bajtoch a jeho obsah v UTF-8.
+     */
+    private static void writeString(FrameWriter writer, String value) {
+        if (value == null) {
+            writer.ensure(2);
+            writer.buffer.putShort((short) NULL_VALUE);
+            return;
+        }
+        byte[] bytes = value.getBytes(UTF_8);
+        writer.ensure(2 + bytes.length);
+        writer.buffer.putShort((short) bytes.length);
+        writer.buffer.put(bytes);
+    }
+
+    /**
+     * Prečíta reťazec.
+     */
+    private static String readString(ByteBuffer payload) {
+        short length = payload.getShort();
+        if (length == NULL_VALUE) {
+            return null;
+        }
+        String value = new String(payload.array(), payload.arrayOffset() + payload.position(), length, UTF_8);
+        payload.position(payload.position() + length);
+        return value;
+    }
+
+    /**
+     * Zapíše zoznam reťazcov.
+     */
+    private static void writeStrings(FrameWriter writer, List<String> values) {
+        writer.ensure(4);
+        writer.buffer.putInt(values.size());
+        for (String value : values) {
+            writeString(writer, value);
+        }
+    }
+
+    /**
+     * Prečíta zoznam reťazcov.
+     */
+    private static List<String> readStrings(ByteBuffer payload) throws IOException {
+        int count = readCount(payload, 2);
+        List<String> values = new LinkedList<String>();
+        for (int i = 0; i < count; i++) {
+            values.add(readString(payload));
+        }
+        return values;
+    }
+
+    /**
+     * Zapíše zbalené body prejdenej trasy, každý bod ako jedno číslo.
+     */
+    private static void writePoints(FrameWriter writer, long[] points) {
+        writer.ensure(4 + points.length * 8);
+        writer.buffer.putInt(points.length);
+        for (long point : points) {
+            writer.buffer.putLong(point);
+        }
+    }
+
+    /**
+     * Prečíta zbalené body prejdenej trasy.
+     */
+    private static long[] readPoints(ByteBuffer payload) throws IOException {
+        long[] points = new long[readCount(payload, 8)];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = payload.getLong();
+        }
+        return points;
+    }
+
+    /**
+     * Prečíta počet prvkov a overí, že sa toľko prvkov ešte môže v obsahu rámca nachádzať.
+     * Počet sa preto nikdy nepoužije na alokáciu väčšiu, ako je samotný rámec.
+     *
+     * @param payload Obsah rámca.
+     * @param minItemLength Najmenší počet bajtov, ktoré zaberá jeden prvok.
+     *
+     * @return Počet prvkov.
+     *
+     * @throws IOException Ak je počet záporný alebo by sa prvky do zvyšku rámca nezmestili.
+     */
+    private static int readCount(ByteBuffer payload, int minItemLength) throws IOException {
+        int count = payload.getInt();
+        if (count < 0 || (long) count * minItemLength > payload.remaining()) {
+            throw new IOException("Invalid item count: " + count);
+        }
+        return count;
+    }
+
+    /**
+     * Zloží príznaky lietadla do jedného bajtu.
+     */
+    private static byte flags(boolean clearedForDeparture, boolean goingAround, boolean selected,
+            boolean separationLost) {
+        return (byte) ((clearedForDeparture ? 1 : 0) | (goingAround ? 2 : 0) | (selected ? 4 : 0)
+                | (separationLost ? 8 : 0));
+    }
+
+    /**
+     * Vráti poradové číslo konštanty enumu alebo {@code NULL_VALUE}, ak konštanta chýba.
+     */
+    private static byte ordinal(Enum<?> value) {
+        return (byte) (value == null ? NULL_VALUE : value.ordinal());
+    }
+
+    /**
+     * Buffer pre zapisovanú správu, ktorý sa podľa potreby zväčšuje.
+     */
+    private static final class FrameWriter {
+
+        private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+
+        /**
+         * Zabezpečí, aby sa do buffera zmestil zadaný počet ďalších bajtov.
+         *
+         * @param bytes Počet bajtov, ktoré sa idú zapísať.
+         */
+        void ensure(int bytes) {
+            if (buffer.remaining() < bytes) {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+                buffer.flip();
+                bigger.put(buffer);
+                buffer = bigger;
+            }
+        }
+
+    }
+
+}
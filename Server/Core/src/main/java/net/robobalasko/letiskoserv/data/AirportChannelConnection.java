@@ -0,0 +1,288 @@
+package net.robobalasko.letiskoserv.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Trieda opisujúca jedno neblokujúce spojenie s klientom, ktoré obsluhuje {@code AirportSelectorWorker}.
+ *
+ * Spojenie skladá prijaté bajty do celých rámcov, ktoré potom odovzdáva relácii {@code AirportServiceSession},
+ * a odosiela správy relácie z fronty rámcov vždy, keď je kanál pripravený na zápis.
+ *
+ * @author rbalasko
+ */
+class AirportChannelConnection implements AirportServiceConnection {
+
+    /**
+     * Počiatočná veľkosť buffera pre prijaté dáta.
+     */
+    private static final int INITIAL_READ_BUFFER = 8 * 1024;
+
+    /**
+     * Kanál, cez ktorý spojenie s klientom komunikuje.
+     */
+    private final SocketChannel channel;
+
+    /**
+     * I/O vlákno, ktoré spojenie obsluhuje.
+     */
+    private final AirportSelectorWorker worker;
+
+    /**
+     * Fronta rámcov čakajúcich na odoslanie klientovi.
+     */
+    private final Queue<ByteBuffer> writeQueue;
+
+    /**
+     * Počet rámcov vo fronte, ktoré ešte neboli celé zapísané do kanála.
+     */
+    private final AtomicInteger queuedFrames;
+
+    /**
+     * Buffer s prijatými, zatiaľ nespracovanými dátami.
+     */
+    private ByteBuffer readBuffer;
+
+    /**
+     * Kľúč, ktorým je kanál zaregistrovaný v selektore I/O vlákna.
+     */
+    private SelectionKey key;
+
+    /**
+     * Relácia, ktorá spracúva správy od klienta.
+     */
+    private AirportServiceSession session;
+
+    /**
+     * Údaj, či už bolo spojenie uzatvorené.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Údaj, či sa má spojenie uzatvoriť hneď po odoslaní všetkých rámcov vo fronte.
+     */
+    private boolean closing;
+
+    /**
+     * Údaj, či sa fronta rámcov preplnila. Frontu potom zahodí a spojenie uzatvorí I/O vlákno.
+     */
+    private volatile boolean overflowed;
+
+    /**
+     * Definuje, či sa správy klientovi kódujú v binárnom formáte.
+     */
+    private volatile boolean binaryCodec;
+
+    /**
+     * Základný konštruktor nastavuje kanál klienta a I/O vlákno, ktoré ho obsluhuje.
+     *
+     * @param channel Neblokujúci kanál pripojeného klienta.
+     * @param worker I/O vlákno, ktoré spojenie obsluhuje.
+     */
+    AirportChannelConnection(SocketChannel channel, AirportSelectorWorker worker) {
+        this.channel = channel;
+        this.worker = worker;
+        this.writeQueue = new ConcurrentLinkedQueue<ByteBuffer>();
+        this.queuedFrames = new AtomicInteger();
+        this.readBuffer = ByteBuffer.allocate(INITIAL_READ_BUFFER);
+    }
+
+    /**
+     * Nastaví spojeniu kľúč v selektore a reláciu, ktorej sa budú odovzdávať prijaté správy.
+     *
+     * @param key Kľúč, ktorým je kanál zaregistrovaný v selektore.
+     * @param session Relácia obsluhujúca klienta.
+     */
+    void attach(SelectionKey key, AirportServiceSession session) {
+        this.key = key;
+        this.session = session;
+    }
+
+    /**
+     * Prečíta z kanála všetky dostupné dáta a každý celý rámec odovzdá relácii.
+     *
+     * @throws IOException Ak sa čítanie z kanála nepodarí.
+     * @throws ClassNotFoundException Ak sa nepodarí nájsť triedu prijatého objektu.
+     */
+    void read() throws IOException, ClassNotFoundException {
+        int read = channel.read(readBuffer);
+        if (read < 0) {
+            closeNow();
+            return;
+        }
+        readBuffer.flip();
+        while (!closed && !closing && readBuffer.remaining() >= AirportMessageCodec.HEADER_LENGTH) {
+            int length = readBuffer.getInt(readBuffer.position());
+            AirportMessageCodec.checkFrameLength(length);
+            if (readBuffer.remaining() < AirportMessageCodec.HEADER_LENGTH + length) {
+                ensureReadCapacity(AirportMessageCodec.HEADER_LENGTH + length);
+                return;
+            }
+            readBuffer.position(readBuffer.position() + AirportMessageCodec.HEADER_LENGTH);
+            Object message = AirportMessageCodec.decode(readBuffer.array(),
+                    readBuffer.arrayOffset() + readBuffer.position(), length);
+            readBuffer.position(readBuffer.position() + length);
+            session.messageReceived(message);
+        }
+        readBuffer.compact();
+    }
+
+    /**
+     * Zväčší buffer pre prijaté dáta, ak sa do neho nezmestí celý rámec,
+     * a pripraví ho na ďalšie čítanie z kanála.
+     *
+     * @param frameLength Celková dĺžka rámca aj s hlavičkou.
+     */
+    private void ensureReadCapacity(int frameLength) {
+        if (readBuffer.capacity() < frameLength) {
+            ByteBuffer bigger = ByteBuffer.allocate(frameLength);
+            bigger.put(readBuffer);
+            readBuffer = bigger;
+        } else {
+            readBuffer.compact();
+        }
+    }
+
+    /**
+     * Zaradí správu do fronty na odoslanie a požiada I/O vlákno o jej zápis do kanála.
+     *
+     * Ak vo fronte už čaká {@code MAX_QUEUED_FRAMES} rámcov, klient neprijíma dáta. Spojenie sa označí
+     * ako preplnené a I/O vlákno frontu zahodí a spojenie uzatvorí.
+     *
+     * @param message Objekt správy, ktorý sa má klientovi odoslať.
+     *
+     * @throws IOException Ak sa správu nepodarí zakódovať, je spojenie už uzatvorené alebo je fronta plná.
+     */
+    @Override
+    public void send(Object message) throws IOException {
+        if (closed || overflowed) {
+            throw new IOException("The connection has already been closed.");
+        }
+        ByteBuffer frame = AirportMessageCodec.encode(message, binaryCodec);
+        if (queuedFrames.incrementAndGet() > AirportMessageCodec.MAX_QUEUED_FRAMES) {
+            queuedFrames.decrementAndGet();
+            overflowed = true;
+            close();
+            throw new IOException("The client does not receive the sent messages.");
+        }
+        writeQueue.add(frame);
+        if (worker.isWorkerThread()) {
+            flush();
+        } else {
+            worker.requestFlush(this);
+        }
+    }
+
+    /**
+     * Zistí, či vo fronte ešte čaká rámec, ktorý nebol celý zapísaný do kanála.
+     *
+     * @return True, ak rámec čaká na zápis, false inak.
+     */
+    @Override
+    public boolean isWritePending() {
+        return queuedFrames.get() > 0;
+    }
+
+    /**
+     * Nastaví formát, v ktorom sa kódujú ďalšie správy klientovi.
+     *
+     * @param binaryCodec True pre binárny formát, false pre Java serializáciu.
+     */
+    @Override
+    public void setBinaryCodec(boolean binaryCodec) {
+        this.binaryCodec = binaryCodec;
+    }
+
+    /**
+     * Zapíše do kanála čo najviac rámcov z fronty. Ak sa kanál zaplní,
+     * zaregistruje záujem o zápis a zvyšok dopíše pri ďalšej príležitosti.
+     *
+     * Metóda sa volá len z I/O vlákna.
+     *
+     * @throws IOException Ak sa zápis do kanála nepodarí.
+     */
+    void flush() throws IOException {
+        if (closed) {
+            return;
+        }
+        if (overflowed) {
+            closeNow();
+            return;
+        }
+        ByteBuffer frame;
+        while ((frame = writeQueue.peek()) != null) {
+            channel.write(frame);
+            if (frame.hasRemaining()) {
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                return;
+            }
+            writeQueue.poll();
+            queuedFrames.decrementAndGet();
+        }
+        if (closing) {
+            closeNow();
+        } else {
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * Uzatvorí spojenie s klientom. Ak ešte vo fronte čakajú rámce na odoslanie,
+     * spojenie sa uzatvorí až po ich zapísaní do kanála, preplnené spojenie sa uzatvorí hneď.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        if (!worker.isWorkerThread()) {
+            worker.requestClose(this);
+            return;
+        }
+        if (overflowed) {
+            closeNow();
+            return;
+        }
+        closing = true;
+        try {
+            flush();
+        } catch (IOException ex) {
+            closeNow();
+        }
+    }
+
+    /**
+     * Okamžite uzatvorí kanál, zruší jeho registráciu v selektore, zahodí neodoslané rámce
+     * a upozorní reláciu na koniec spojenia.
+     *
+     * Metóda sa volá len z I/O vlákna.
+     */
+    void closeNow() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        while (writeQueue.poll() != null) {
+            queuedFrames.decrementAndGet();
+        }
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            Logger.getLogger(AirportChannelConnection.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        if (session != null) {
+            session.connectionClosed();
+        }
+    }
+
+}
@@ -9,13 +9,13 @@ import java.util.logging.Logger;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import net.robobalasko.letiskoserv.guihelper.RadarScreenDataCalculator;
 import net.robobalasko.letiskoserv.navigacia.Airport;
 import net.robobalasko.letiskoserv.navigacia.AirportRouteTypesEnum;
 import net.robobalasko.letiskoserv.navigacia.InvalidGPSCoordinatesException;
 import net.robobalasko.letiskoserv.navigacia.InvalidRouteDataException;
 import net.robobalasko.letiskoserv.navigacia.InvalidRunwayDataException;
 import net.robobalasko.letiskoserv.navigacia.InvalidWaypointDataException;
+import net.robobalasko.letiskoserv.navigacia.Route;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
@@ -69,16 +69,19 @@ public class AirportLoader {
      *
      * Pri zadaní {@code icaoCode} ako {@code lzib} bude metóda hľadať v zložke súbor {@code lzib.xml}
      *
+     * Súradnice letiska, dráh a bodov zostanú v skutočných GPS hodnotách. Na pixely radarovej
+     * obrazovky ich prepočíta až klient podľa veľkosti svojej obrazovky.
+     *
      * @param icaoCode Kód letiska, ktorého xml súbor sa má načítať
-     * @param radarScreenSize Pole obsahujúce výšku a šírku zobrazenia radaru.
      *
      * @return Objekt typu {@code Airport} obsahujúci všetky informácie načítané zo súboru
      *
      * @throws InvalidRunwayDataException Vyhodená, ak už práve pridávaná dráha na letisku existuje.
-     * @throws InvalidRouteDataException Vyhodená, ak už práve pridávaná letová trasa na letisku existuje.
+     * @throws InvalidRouteDataException Vyhodená, ak už práve pridávaná letová trasa na letisku existuje
+     *         alebo ak trasa vedie cez bod, ktorý letisko nedefinuje.
      * @throws InvalidWaypointDataException Vyhodená, ak už práve pridávaný letový body na letisku existuje.
      */
-    public Airport loadAirport(String icaoCode, int[] radarScreenSize)
+    public Airport loadAirport(String icaoCode)
             throws InvalidRunwayDataException, InvalidRouteDataException, InvalidWaypointDataException {
         Airport loadedAirport = new Airport();
         try {
@@ -96,6 +99,7 @@ public class AirportLoader {
             parseAirportWaypoins(doc, loadedAirport);
             parseAirportSidRoutes(doc, loadedAirport);
             parseAirportStarRoutes(doc, loadedAirport);
+            resolveAirportRoutes(loadedAirport);
         } catch (SAXException ex) {
             Logger.getLogger(AirportLoader.class.getName()).log(Level.SEVERE,
                     "Unexpected parser error.", ex);
@@ -109,9 +113,6 @@ public class AirportLoader {
             Logger.getLogger(AirportLoader.class.getName()).log(Level.SEVERE,
                     "The GPS coordinates that you tried to set were not valid.", ex);
         }
-        RadarScreenDataCalculator rsdc
-                = new RadarScreenDataCalculator(loadedAirport, radarScreenSize[0], radarScreenSize[1]);
-        rsdc.calculateAirportGUIData();
         return loadedAirport;
     }
     
@@ -240,7 +241,8 @@ public class AirportLoader {
                     Element sid = (Element) sids.item(j);
                     String routeName = sid.getAttribute("id");
                     String[] routeWaypoints = sid.getAttribute("route").split(",");
-                    loadedAirport.setRoute(runwayNumber, routeName, routeWaypoints, AirportRouteTypesEnum.SID);
+                    loadedAirport.setRoute(runwayNumber, routeName, routeWaypoints,
+                            AirportRouteTypesEnum.SID, parseRouteWeight(sid));
                 }
             }
         }
@@ -268,10 +270,61 @@ public class AirportLoader {
                     Element sid = (Element) stars.item(j);
                     String routeName = sid.getAttribute("id");
                     String[] routeWaypoints = sid.getAttribute("route").split(",");
-                    loadedAirport.setRoute(runwayNumber, routeName, routeWaypoints, AirportRouteTypesEnum.STAR);
+                    loadedAirport.setRoute(runwayNumber, routeName, routeWaypoints,
+                            AirportRouteTypesEnum.STAR, parseRouteWeight(sid));
                 }
             }
         }
     }
 
+    /**
+     * Prečíta nepovinnú váhu trasy z atribútu {@code weight}, podľa ktorej generátor lietadiel
+     * vyberá trasu spomedzi trás rovnakého typu.
+     *
+     * @param route Element trasy.
+     *
+     * @return Váha trasy, 1 ak ju element neurčuje.
+     *
+     * @throws InvalidRouteDataException Vyhodená, ak váha nie je nezáporné číslo.
+     */
+    private double parseRouteWeight(Element route) throws InvalidRouteDataException {
+        String weight = route.getAttribute("weight");
+        if (weight.isEmpty()) {
+            return 1;
+        }
+        try {
+            double parsed = Double.parseDouble(weight);
+            if (parsed >= 0) {
+                return parsed;
+            }
+        } catch (NumberFormatException ex) {
+            // Spracuje sa spolu so zápornou váhou
+        }
+        Logger.getLogger(AirportLoader.class.getName()).log(Level.SEVERE,
+                "The route {0} has an invalid weight {1}.",
+                new Object[]{route.getAttribute("id"), weight});
+        throw new InvalidRouteDataException();
+    }
+
+    /**
+     * Preloží body všetkých trás letiska na objekty bodov, aby ich simulácia nemusela vyhľadávať podľa názvu.
+     *
+     * @param loadedAirport Objekt vygenerovaného letiska, ktorého trasy sa majú preložiť.
+     *
+     * @throws InvalidRouteDataException Vyhodená, ak niektorá trasa vedie cez bod,
+     *         ktorý sa v zozname bodov letiska nenachádza.
+     */
+    private void resolveAirportRoutes(Airport loadedAirport) throws InvalidRouteDataException {
+        for (Route route : loadedAirport.getRoutes()) {
+            try {
+                route.resolveWaypoints(loadedAirport);
+            } catch (WaypointNotLoadedException ex) {
+                Logger.getLogger(AirportLoader.class.getName()).log(Level.SEVERE,
+                        "The route {0} contains a waypoint which is not defined by the airport.",
+                        route.getRouteName());
+                throw new InvalidRouteDataException();
+            }
+        }
+    }
+
 }
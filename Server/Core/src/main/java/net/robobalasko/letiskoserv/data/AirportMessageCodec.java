@@ -0,0 +1,203 @@
+package net.robobalasko.letiskoserv.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Trieda, ktorá zabezpečuje rámcovanie správ posielaných medzi klientom a serverom.
+ *
+ * Každá správa je na sieti poslaná ako samostatný rámec, ktorý začína
+ * štvorbajtovou dĺžkou a za ňou nasleduje samotný obsah správy. Vďaka tomu
+ * môže server čítať správy po kúskoch cez neblokujúce kanály a zároveň
+ * ich vie rovnako čítať aj klasické blokujúce vlákno.
+ *
+ * Obsah rámca je buď objekt v Java serializácii, alebo správa v binárnom formáte
+ * {@code AirportBinaryCodec}, ak sa naň klient so serverom pri pripojení dohodli.
+ * Príjemca oba formáty rozlíši podľa prvého bajtu obsahu.
+ *
+ * @author rbalasko
+ */
+public final class AirportMessageCodec {
+
+    /**
+     * Počet bajtov hlavičky rámca, v ktorej je zapísaná dĺžka správy.
+     */
+    public static final int HEADER_LENGTH = 4;
+
+    /**
+     * Maximálna povolená dĺžka jednej správy v bajtoch.
+     */
+    public static final int MAX_FRAME_LENGTH = 4 * 1024 * 1024;
+
+    /**
+     * Maximálny počet rámcov, ktoré môžu naraz čakať na odoslanie jednému klientovi.
+     * Klient, ktorý nestíha prijímať ani toľko rámcov, sa odpojí.
+     */
+    public static final int MAX_QUEUED_FRAMES = 64;
+
+    /**
+     * Názov formátu správ, ktorý používa Java serializáciu.
+     */
+    public static final String CODEC_SERIALIZATION = "serialization";
+
+    /**
+     * Názov binárneho formátu správ {@code AirportBinaryCodec}.
+     */
+    public static final String CODEC_BINARY = "binary";
+
+    /**
+     * Prvý bajt obsahu rámca v Java serializácii.
+     */
+    private static final byte SERIALIZATION_MAGIC = (byte) 0xAC;
+
+    /**
+     * Trieda obsahuje len statické metódy, preto nie je možné vytvoriť jej inštanciu.
+     */
+    private AirportMessageCodec() {
+    }
+
+    /**
+     * Zakóduje objekt správy do rámca pripraveného na odoslanie cez kanál.
+     *
+     * @param message Objekt správy, ktorý sa má odoslať.
+     *
+     * @return Buffer s hlavičkou a obsahom správy nastavený na čítanie.
+     *
+     * @throws IOException Ak sa objekt správy nepodarí serializovať.
+     */
+    public static ByteBuffer encode(Object message) throws IOException {
+        return encode(message, false);
+    }
+
+    /**
+     * Zakóduje objekt správy do rámca pripraveného na odoslanie cez kanál.
+     *
+     * @param message Objekt správy, ktorý sa má odoslať.
+     * @param binaryCodec Definuje, či sa má správa, ak je to možné, zakódovať v binárnom formáte.
+     *
+     * @return Buffer s hlavičkou a obsahom správy nastavený na čítanie.
+     *
+     * @throws IOException Ak sa objekt správy nepodarí zakódovať.
+     */
+    public static ByteBuffer encode(Object message, boolean binaryCodec) throws IOException {
+        if (binaryCodec && AirportBinaryCodec.isSupported(message)) {
+            return AirportBinaryCodec.encodeFrame(message);
+        }
+        byte[] payload = serialize(message);
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_LENGTH + payload.length);
+        frame.putInt(payload.length);
+        frame.put(payload);
+        frame.flip();
+        return frame;
+    }
+
+    /**
+     * Dekóduje obsah jedného rámca späť na objekt správy.
+     *
+     * @param payload Pole s obsahom rámca.
+     * @param offset Pozícia v poli, kde obsah rámca začína.
+     * @param length Dĺžka obsahu rámca.
+     *
+     * @return Objekt prijatej správy.
+     *
+     * @throws IOException Ak obsah rámca nie je platná správa.
+     * @throws ClassNotFoundException Ak sa nepodarí nájsť triedu prijatého objektu.
+     */
+    public static Object decode(byte[] payload, int offset, int length)
+            throws IOException, ClassNotFoundException {
+        if (length > 0 && payload[offset] != SERIALIZATION_MAGIC) {
+            return AirportBinaryCodec.decode(ByteBuffer.wrap(payload, offset, length));
+        }
+        ObjectInputStream input = new ObjectInputStream(
+                new ByteArrayInputStream(payload, offset, length));
+        try {
+            return input.readObject();
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * Zapíše správu ako jeden rámec do blokujúceho výstupného streamu.
+     *
+     * @param output Stream, do ktorého sa správa zapíše.
+     * @param message Objekt správy, ktorý sa má odoslať.
+     *
+     * @throws IOException Ak sa správu nepodarí zapísať.
+     */
+    public static void writeMessage(DataOutputStream output, Object message) throws IOException {
+        writeMessage(output, message, false);
+    }
+
+    /**
+     * Zapíše správu ako jeden rámec do blokujúceho výstupného streamu.
+     *
+     * @param output Stream, do ktorého sa správa zapíše.
+     * @param message Objekt správy, ktorý sa má odoslať.
+     * @param binaryCodec Definuje, či sa má správa, ak je to možné, zakódovať v binárnom formáte.
+     *
+     * @throws IOException Ak sa správu nepodarí zapísať.
+     */
+    public static void writeMessage(DataOutputStream output, Object message, boolean binaryCodec)
+            throws IOException {
+        ByteBuffer frame = encode(message, binaryCodec);
+        output.write(frame.array(), frame.arrayOffset() + frame.position(), frame.remaining());
+        output.flush();
+    }
+
+    /**
+     * Prečíta jeden celý rámec z blokujúceho vstupného streamu a vráti jeho správu.
+     *
+     * @param input Stream, z ktorého sa rámec číta.
+     *
+     * @return Objekt prijatej správy.
+     *
+     * @throws IOException Ak sa rámec nepodarí prečítať alebo má neplatnú dĺžku.
+     * @throws ClassNotFoundException Ak sa nepodarí nájsť triedu prijatého objektu.
+     */
+    public static Object readMessage(DataInputStream input)
+            throws IOException, ClassNotFoundException {
+        int length = input.readInt();
+        checkFrameLength(length);
+        byte[] payload = new byte[length];
+        input.readFully(payload);
+        return decode(payload, 0, length);
+    }
+
+    /**
+     * Skontroluje, či dĺžka prijatého rámca spadá do povoleného rozsahu.
+     *
+     * @param length Dĺžka rámca prečítaná z jeho hlavičky.
+     *
+     * @throws IOException Ak je dĺžka rámca záporná alebo väčšia ako {@code MAX_FRAME_LENGTH}.
+     */
+    public static void checkFrameLength(int length) throws IOException {
+        if (length < 0 || length > MAX_FRAME_LENGTH) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+    }
+
+    /**
+     * Serializuje objekt správy do poľa bajtov.
+     *
+     * @param message Objekt správy.
+     *
+     * @return Pole bajtov so serializovaným objektom.
+     *
+     * @throws IOException Ak sa objekt nepodarí serializovať.
+     */
+    private static byte[] serialize(Object message) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        ObjectOutputStream output = new ObjectOutputStream(bytes);
+        output.writeObject(message);
+        output.close();
+        return bytes.toByteArray();
+    }
+
+}
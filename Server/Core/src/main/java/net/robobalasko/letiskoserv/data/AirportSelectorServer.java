@@ -0,0 +1,123 @@
+package net.robobalasko.letiskoserv.data;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Neblokujúci letiskový server postavený na {@code java.nio.channels}.
+ *
+ * Namiesto samostatného vlákna pre každého klienta prijíma server spojenia cez jeden
+ * {@code ServerSocketChannel} a rozdeľuje ich postupne medzi malý počet I/O vlákien
+ * {@code AirportSelectorWorker}, z ktorých každé obsluhuje svoje kanály cez vlastný selektor.
+ * Takto server zvládne tisíce súčasne pripojených radarov bez zbytočného prepínania vlákien.
+ *
+ * @author rbalasko
+ */
+public class AirportSelectorServer {
+
+    /**
+     * Kanál, na ktorom server prijíma nových klientov.
+     */
+    private final ServerSocketChannel serverChannel;
+
+    /**
+     * Selektor, cez ktorý server čaká na nové spojenia.
+     */
+    private final Selector acceptSelector;
+
+    /**
+     * I/O vlákna, medzi ktoré sa rozdeľujú spojenia klientov.
+     */
+    private final AirportSelectorWorker[] workers;
+
+    /**
+     * Index I/O vlákna, ktoré dostane ďalšieho klienta.
+     */
+    private int nextWorker;
+
+    /**
+     * Základný konštruktor otvorí kanál servera na zadanom porte a pripraví I/O vlákna.
+     *
+     * @param port Port, na ktorom server počúva.
+     * @param ioThreads Počet I/O vlákien obsluhujúcich spojenia klientov.
+     * @param serverService Hlavný letiskový server, ktorý pre nových klientov vytvára relácie.
+     *
+     * @throws IOException Ak sa nepodarí otvoriť kanál servera alebo selektory.
+     */
+    public AirportSelectorServer(int port, int ioThreads, AirportServerService serverService) throws IOException {
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.socket().setReuseAddress(true);
+        this.serverChannel.socket().bind(new InetSocketAddress(port));
+        this.serverChannel.configureBlocking(false);
+        this.acceptSelector = Selector.open();
+        this.serverChannel.register(acceptSelector, SelectionKey.OP_ACCEPT);
+        this.workers = new AirportSelectorWorker[Math.max(1, ioThreads)];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new AirportSelectorWorker(serverService, i);
+        }
+        this.nextWorker = 0;
+    }
+
+    /**
+     * Naštartuje I/O vlákna a v aktuálnom vlákne prijíma nových klientov,
+     * ktorých rovnomerne rozdeľuje medzi I/O vlákna.
+     *
+     * @throws IOException Ak nastane chyba pri čakaní na nové spojenia.
+     */
+    public void acceptClients() throws IOException {
+        for (AirportSelectorWorker worker : workers) {
+            worker.start();
+        }
+        while (serverChannel.isOpen()) {
+            acceptSelector.select();
+            Iterator<SelectionKey> keys = acceptSelector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                if (key.isValid() && key.isAcceptable()) {
+                    acceptClient();
+                }
+            }
+        }
+        acceptSelector.close();
+    }
+
+    /**
+     * Prijme všetkých čakajúcich klientov a odovzdá ich I/O vláknam.
+     */
+    private void acceptClient() {
+        SocketChannel channel;
+        try {
+            while ((channel = serverChannel.accept()) != null) {
+                channel.socket().setTcpNoDelay(true);
+                workers[nextWorker].register(channel);
+                nextWorker = (nextWorker + 1) % workers.length;
+            }
+        } catch (IOException ex) {
+            Logger.getLogger(AirportSelectorServer.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    /**
+     * Zastaví server, uzatvorí kanál servera aj všetky spojenia s klientmi.
+     */
+    public void shutdown() {
+        try {
+            serverChannel.close();
+            acceptSelector.wakeup();
+        } catch (IOException ex) {
+            Logger.getLogger(AirportSelectorServer.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        for (AirportSelectorWorker worker : workers) {
+            worker.stop();
+        }
+    }
+
+}
@@ -0,0 +1,247 @@
+package net.robobalasko.letiskoserv.data;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * I/O vlákno neblokujúceho servera, ktoré cez jeden selektor obsluhuje veľké množstvo spojení s klientmi.
+ *
+ * Nové kanály, požiadavky na zápis a uzatvorenie spojení z iných vlákien sa do vlákna dostávajú
+ * cez fronty, ktoré vlákno spracuje vždy po prebudení selektora. So selektorom a kľúčmi
+ * tak pracuje výhradne toto vlákno.
+ *
+ * @author rbalasko
+ */
+class AirportSelectorWorker implements Runnable {
+
+    /**
+     * Selektor, cez ktorý vlákno čaká na udalosti všetkých svojich kanálov.
+     */
+    private final Selector selector;
+
+    /**
+     * Hlavný letiskový server, ktorý pre nových klientov vytvára relácie.
+     */
+    private final AirportServerService serverService;
+
+    /**
+     * Novo prijaté kanály čakajúce na registráciu v selektore.
+     */
+    private final Queue<SocketChannel> pendingChannels;
+
+    /**
+     * Spojenia, ktoré majú z iných vlákien pripravené rámce na odoslanie.
+     */
+    private final Queue<AirportChannelConnection> pendingFlushes;
+
+    /**
+     * Spojenia, ktoré sa majú na žiadosť iných vlákien uzatvoriť.
+     */
+    private final Queue<AirportChannelConnection> pendingCloses;
+
+    /**
+     * Vlákno, na ktorom tento objekt beží.
+     */
+    private final Thread thread;
+
+    /**
+     * Údaj, či vlákno práve beží alebo nie.
+     */
+    private volatile boolean running;
+
+    /**
+     * Základný konštruktor otvorí selektor a pripraví vlákno, na ktorom bude obsluha spojení bežať.
+     *
+     * @param serverService Hlavný letiskový server, ktorý pre nových klientov vytvára relácie.
+     * @param number Poradové číslo I/O vlákna, ktoré sa použije v jeho názve.
+     *
+     * @throws IOException Ak sa nepodarí otvoriť selektor.
+     */
+    AirportSelectorWorker(AirportServerService serverService, int number) throws IOException {
+        this.selector = Selector.open();
+        this.serverService = serverService;
+        this.pendingChannels = new ConcurrentLinkedQueue<SocketChannel>();
+        this.pendingFlushes = new ConcurrentLinkedQueue<AirportChannelConnection>();
+        this.pendingCloses = new ConcurrentLinkedQueue<AirportChannelConnection>();
+        this.thread = new Thread(this, "airport-io-" + number);
+    }
+
+    /**
+     * Naštartuje I/O vlákno.
+     */
+    void start() {
+        running = true;
+        thread.start();
+    }
+
+    /**
+     * Zastaví I/O vlákno.
+     */
+    void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    /**
+     * Vráti hodnotu, či metódu volá práve toto I/O vlákno.
+     *
+     * @return True, ak je aktuálne vlákno I/O vláknom tohto objektu.
+     */
+    boolean isWorkerThread() {
+        return Thread.currentThread() == thread;
+    }
+
+    /**
+     * Odovzdá vláknu nový kanál klienta na obsluhu.
+     *
+     * @param channel Kanál nového klienta.
+     */
+    void register(SocketChannel channel) {
+        pendingChannels.add(channel);
+        selector.wakeup();
+    }
+
+    /**
+     * Požiada vlákno o zapísanie rámcov, ktoré spojeniu pripravilo iné vlákno.
+     *
+     * @param connection Spojenie s rámcami na odoslanie.
+     */
+    void requestFlush(AirportChannelConnection connection) {
+        pendingFlushes.add(connection);
+        selector.wakeup();
+    }
+
+    /**
+     * Požiada vlákno o uzatvorenie spojenia.
+     *
+     * @param connection Spojenie, ktoré sa má uzatvoriť.
+     */
+    void requestClose(AirportChannelConnection connection) {
+        pendingCloses.add(connection);
+        selector.wakeup();
+    }
+
+    /**
+     * Hlavná slučka I/O vlákna, ktorá čaká na udalosti selektora a obsluhuje pripravené kanály.
+     */
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                selector.select();
+                registerPendingChannels();
+                processPendingRequests();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    handleKey(key);
+                }
+            } catch (IOException ex) {
+                Logger.getLogger(AirportSelectorWorker.class.getName()).log(Level.SEVERE, null, ex);
+            }
+        }
+        closeAllChannels();
+    }
+
+    /**
+     * Zaregistruje v selektore všetky novo prijaté kanály a vytvorí pre ne relácie.
+     */
+    private void registerPendingChannels() {
+        SocketChannel channel;
+        while ((channel = pendingChannels.poll()) != null) {
+            AirportChannelConnection connection = new AirportChannelConnection(channel, this);
+            try {
+                channel.configureBlocking(false);
+                SelectionKey key = channel.register(selector, SelectionKey.OP_READ, connection);
+                connection.attach(key, createSession(connection));
+            } catch (IOException ex) {
+                Logger.getLogger(AirportSelectorWorker.class.getName()).log(Level.SEVERE, null, ex);
+                connection.closeNow();
+            }
+        }
+    }
+
+    /**
+     * Vytvorí reláciu, ktorá obsluhuje nového klienta.
+     *
+     * @param connection Spojenie nového klienta.
+     *
+     * @return Relácia obsluhujúca klienta.
+     */
+    AirportServiceSession createSession(AirportChannelConnection connection) {
+        return serverService.createSession(connection);
+    }
+
+    /**
+     * Spracuje požiadavky na zápis a uzatvorenie spojení, ktoré prišli z iných vlákien.
+     */
+    private void processPendingRequests() {
+        AirportChannelConnection connection;
+        while ((connection = pendingFlushes.poll()) != null) {
+            try {
+                connection.flush();
+            } catch (IOException ex) {
+                connection.closeNow();
+            }
+        }
+        while ((connection = pendingCloses.poll()) != null) {
+            connection.close();
+        }
+    }
+
+    /**
+     * Obslúži jeden pripravený kanál podľa udalostí, ktoré selektor pre kľúč ohlásil.
+     *
+     * Chyba pri obsluhe jedného klienta uzatvorí len jeho spojenie, ostatné kanály vlákna ďalej fungujú.
+     *
+     * @param key Kľúč pripraveného kanála.
+     */
+    private void handleKey(SelectionKey key) {
+        AirportChannelConnection connection = (AirportChannelConnection) key.attachment();
+        try {
+            if (key.isWritable()) {
+                connection.flush();
+            }
+            if (key.isValid() && key.isReadable()) {
+                connection.read();
+            }
+        } catch (CancelledKeyException ex) {
+            connection.closeNow();
+        } catch (IOException ex) {
+            Logger.getLogger(AirportSelectorWorker.class.getName()).log(Level.FINE,
+                    "The client connection has been closed.", ex);
+            connection.closeNow();
+        } catch (ClassNotFoundException ex) {
+            Logger.getLogger(AirportSelectorWorker.class.getName()).log(Level.SEVERE, null, ex);
+            connection.closeNow();
+        } catch (RuntimeException ex) {
+            Logger.getLogger(AirportSelectorWorker.class.getName()).log(Level.SEVERE,
+                    "Unexpected message from the client.", ex);
+            connection.closeNow();
+        }
+    }
+
+    /**
+     * Pri zastavení vlákna uzatvorí všetky kanály a samotný selektor.
+     */
+    private void closeAllChannels() {
+        for (SelectionKey key : selector.keys()) {
+            ((AirportChannelConnection) key.attachment()).closeNow();
+        }
+        try {
+            selector.close();
+        } catch (IOException ex) {
+            Logger.getLogger(AirportSelectorWorker.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+}
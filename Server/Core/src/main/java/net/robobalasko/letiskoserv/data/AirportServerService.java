@@ -3,116 +3,275 @@ package net.robobalasko.letiskoserv.data;
 import java.io.File;
 import java.io.IOException;
 import java.net.ServerSocket;
-import java.util.LinkedList;
+import java.net.URL;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.ResourceBundle;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import net.robobalasko.letiskoserv.lietadla.Aircraft;
+import net.robobalasko.letiskoserv.lietadla.RouteTrail;
 import net.robobalasko.letiskoserv.navigacia.Airport;
+import net.robobalasko.letiskoserv.navigacia.InvalidRouteDataException;
+import net.robobalasko.letiskoserv.navigacia.InvalidRunwayDataException;
+import net.robobalasko.letiskoserv.navigacia.InvalidWaypointDataException;
+import net.robobalasko.letiskoserv.simulacia.AirportSimulation;
+import net.robobalasko.letiskoserv.simulacia.SimulationEngine;
+import net.robobalasko.letiskoserv.simulacia.SimulationRandom;
+import net.robobalasko.letiskoserv.simulacia.WorldRegistry;
 
 /**
  * Trieda definujúca hlavný letiskový server, ktorý
  * sa stará o načítanie xml súborov zo zložiek a potom
- * po jednom vytvára žiadajúcim klientom o priepojenie
- * nové vlákna, v ktorých s nimi komunikuje a obsluhuje riadenie.
- * 
+ * obsluhuje žiadajúcich klientov o priepojenie, s ktorými
+ * komunikuje a obsluhuje riadenie.
+ *
+ * Podľa nastavenia {@code settings.server_mode} server buď vytvára
+ * pre každého klienta samostatné vlákno ({@code thread}), alebo všetkých
+ * klientov obsluhuje cez neblokujúce kanály a malý počet I/O vlákien ({@code selector}).
+ *
+ * Server pri štarte načíta všetky letiská a jeden {@code SimulationEngine} ich posúva v pevnom
+ * kroku {@code settings.refresh_interval} nezávisle od komunikácie s klientmi, aj keď ich nikto neriadi.
+ * Hodinové počty odletov a príletov a kapacita riadenej oblasti sa dajú pre jednotlivé letiská
+ * zmeniť nastavením s ICAO kódom letiska na konci, napr. {@code settings.departures_per_hour.lzib}.
+ * Nastavenie {@code settings.schedule_file} určuje letový plán, ktorého odlety letiská prehrávajú
+ * popri náhodnej prevádzke. Súbor sa hľadá najskôr medzi zdrojmi servera, napr.
+ * {@code schedules/sample.xml}, a potom na disku.
+ * Ak je zadané {@code settings.random_seed}, simulácia beží v deterministickom režime s týmto semenom,
+ * inak sa semeno vyberie podľa času a zaznamená do logu, aby sa dal beh zopakovať.
+ *
  * @author rbalasko
  */
 public class AirportServerService {
-    
+
+    /**
+     * Režim servera, v ktorom má každý klient vlastné vlákno.
+     */
+    public static final String MODE_THREAD = "thread";
+
+    /**
+     * Režim servera, v ktorom klientov obsluhuje neblokujúci selektor.
+     */
+    public static final String MODE_SELECTOR = "selector";
+
     /**
      * Súbor s aktuálnym prekladom.
      */
     private final ResourceBundle language;
-    
+
     /**
      * Subor s globálnymi nastaveniami.
      */
     private final ResourceBundle settings;
-    
-    /**
-     * Socket hlavného letiskového servera.
-     */
-    private final ServerSocket airportServer;
-    
+
     /**
      * Načítavač dostupných xml súborov letísk.
      */
     private final AirportLoader airportLoader;
-    
+
     /**
-     * Zoznam pripojených letísk.
+     * Register letísk, ku ktorým sa je momentálne možné pripojiť.
      */
-    private final List<Airport> connectedAirports;
-    
+    private final AirportSlotRegistry airportSlots;
+
     /**
-     * Zoznam vygenerovaných lietadiel na všetkých letiskách,
-     * ktoré momentálne server spravuje.
+     * Register letísk, ktoré sa simulujú.
      */
-    private final List<List<Aircraft>> generatedAircraft;
-    
+    private final WorldRegistry world;
+
+    /**
+     * Engine, ktorý posúva simulácie všetkých pripojených letísk.
+     */
+    private final SimulationEngine simulationEngine;
+
     /**
      * Počet aktuálne pripojených klientov k serveru.
      */
     private int connectedClients;
-    
+
+    /**
+     * Vlákna, ktoré odosielajú lietadlá klientom prihláseným na ich odber.
+     */
+    private final ExecutorService radarFeedExecutor;
+
     /**
      * Základný konštruktor nastavuje atribútom hodnoty, vytvorí socket pre
      * hlavný letiskový server a po úspešnom načítaní letísk zo zložky čaká
      * na pripojenie sa klientov.
-     * 
+     *
      * @param xmlDir Zložka, v ktorej sa nachádzajú xml súbory letísk.
      * @param language Jazykový súbor s prekladmi.
-     * 
+     *
      * @throws IOException Ak sa nepodarí vytvoriť nový socket pre server.
      */
     public AirportServerService(File xmlDir, ResourceBundle language) throws IOException {
         this.language = language;
         this.settings = ResourceBundle.getBundle("config/settings");
         this.connectedClients = 0;
-        // Zapne server a vytvorí hlavný socket
-        System.out.println(language.getString("server.starting"));
-        airportServer = new ServerSocket(Integer.parseInt(settings.getString("settings.server_port")));
-        System.out.println(airportServer.getInetAddress().toString());
         // Inicializuje triedu, ktorá číta letiská
+        System.out.println(language.getString("server.starting"));
         System.out.println(language.getString("server.welcome"));
         this.airportLoader = new AirportLoader(xmlDir);
-        // Inicializuje hlavný zoznam pripojených letísk
-        this.connectedAirports = new LinkedList<Airport>();
-        // Inicializuje hlavný zoznam lietadiel na letiskách
-        this.generatedAircraft = new LinkedList<List<Aircraft>>();
-        // Čaká na pripájanie klientov
-        System.out.println(language.getString("server.waiting_for_clients"));
-        acceptClients();
+        // Pri zadanom semene sa simulácia spustí v deterministickom režime
+        String seedSetting = settings.getString("settings.random_seed").trim();
+        boolean deterministic = !seedSetting.isEmpty();
+        long seed = deterministic ? Long.parseLong(seedSetting) : System.nanoTime() ^ System.currentTimeMillis();
+        Logger.getLogger(AirportServerService.class.getName()).log(Level.INFO,
+                "The simulation random seed is {0}, deterministic mode is {1}.",
+                new Object[]{Long.toString(seed), deterministic ? "on" : "off"});
+        SimulationRandom random = new SimulationRandom(seed);
+        int trailLength = Integer.parseInt(settings.getString("settings.trail_length"));
+        // Trasy lietadiel prijaté od klientov nesmú byť dlhšie ako trasy, ktoré udržiava simulácia
+        RouteTrail.setMaxCapacity(trailLength);
+        // Inicializuje register simulovaných letísk
+        this.world = new WorldRegistry(random.stream("callsigns"));
+        this.simulationEngine = new SimulationEngine(world,
+                Long.parseLong(settings.getString("settings.refresh_interval")),
+                Double.parseDouble(settings.getString("settings.simulation_speed")),
+                Long.parseLong(settings.getString("settings.trail_interval")),
+                trailLength,
+                Integer.parseInt(settings.getString("settings.simulation_threads")),
+                Long.parseLong(settings.getString("settings.probe_interval")),
+                Integer.parseInt(settings.getString("settings.probe_horizon")),
+                random, deterministic);
+        // Načíta všetky letiská, riadiaci sa môžu pripojiť len k tým, ktoré sa podarilo načítať
+        this.airportSlots = new AirportSlotRegistry(loadWorldAirports());
+        // Spustí simuláciu letovej prevádzky nezávislú od klientov
+        this.simulationEngine.start();
+        int ioThreads = Integer.parseInt(settings.getString("settings.io_threads"));
+        this.radarFeedExecutor = Executors.newFixedThreadPool(ioThreads, new ThreadFactory() {
+            private final AtomicInteger threadNumber = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                return new Thread(runnable, "airport-radar-feed-" + threadNumber.incrementAndGet());
+            }
+        });
+        // Zapne server a čaká na pripájanie klientov
+        int port = Integer.parseInt(settings.getString("settings.server_port"));
+        if (MODE_THREAD.equals(settings.getString("settings.server_mode"))) {
+            acceptClients(new ServerSocket(port));
+        } else {
+            AirportSelectorServer selectorServer = new AirportSelectorServer(port, ioThreads, this);
+            System.out.println(language.getString("server.waiting_for_clients"));
+            selectorServer.acceptClients();
+        }
+    }
+
+    /**
+     * Načíta všetky letiská zo zložky a zaregistruje ich simulácie. Letiská sa simulujú
+     * od štartu servera bez ohľadu na to, či ich niekto riadi.
+     *
+     * @return ICAO kódy letísk, ktoré sa podarilo načítať.
+     */
+    private List<String> loadWorldAirports() {
+        List<String> loadedAirports = new ArrayList<String>();
+        for (String icaoCode : airportLoader.listAvailAirports()) {
+            try {
+                Airport airport = airportLoader.loadAirport(icaoCode);
+                AirportSimulation simulation = new AirportSimulation(icaoCode, airport, simulationEngine,
+                        Double.parseDouble(getAirportSetting("settings.departures_per_hour", icaoCode)),
+                        Double.parseDouble(getAirportSetting("settings.arrivals_per_hour", icaoCode)),
+                        Integer.parseInt(getAirportSetting("settings.sector_capacity", icaoCode)),
+                        openSchedule(icaoCode));
+                if (world.register(simulation)) {
+                    loadedAirports.add(icaoCode);
+                }
+            } catch (InvalidRunwayDataException ex) {
+                Logger.getLogger(AirportServerService.class.getName()).log(Level.SEVERE, null, ex);
+            } catch (InvalidRouteDataException ex) {
+                Logger.getLogger(AirportServerService.class.getName()).log(Level.SEVERE, null, ex);
+            } catch (InvalidWaypointDataException ex) {
+                Logger.getLogger(AirportServerService.class.getName()).log(Level.SEVERE, null, ex);
+            }
+        }
+        Logger.getLogger(AirportServerService.class.getName()).log(Level.INFO,
+                "{0} airports have been loaded into the simulation.", loadedAirports.size());
+        return loadedAirports;
+    }
+
+    /**
+     * Otvorí letový plán letiska podľa nastavenia {@code settings.schedule_file}.
+     *
+     * @param icaoCode ICAO kód letiska.
+     *
+     * @return Čitateľ odletov letiska alebo null, ak letisko letový plán nemá alebo sa ho nepodarilo otvoriť.
+     */
+    private FlightScheduleReader openSchedule(String icaoCode) {
+        String scheduleFile = getAirportSetting("settings.schedule_file", icaoCode).trim();
+        if (scheduleFile.isEmpty()) {
+            return null;
+        }
+        try {
+            URL source = ClassLoader.getSystemResource(scheduleFile);
+            if (source == null) {
+                source = new File(scheduleFile).toURI().toURL();
+            }
+            return new FlightScheduleReader(source, icaoCode);
+        } catch (IOException ex) {
+            Logger.getLogger(AirportServerService.class.getName()).log(Level.SEVERE,
+                    "The flight schedule " + scheduleFile + " could not be opened.", ex);
+            return null;
+        }
+    }
+
+    /**
+     * Vráti nastavenie letiska. Ak letisko nemá vlastnú hodnotu nastavenia, vráti spoločnú hodnotu.
+     *
+     * @param key Kľúč spoločného nastavenia.
+     * @param icaoCode ICAO kód letiska.
+     *
+     * @return Hodnota nastavenia.
+     */
+    private String getAirportSetting(String key, String icaoCode) {
+        String airportKey = key + "." + icaoCode.toLowerCase();
+        return settings.getString(settings.containsKey(airportKey) ? airportKey : key);
     }
-    
+
     /**
      * Akceptuje klientov žiadajúcich o pripojenie
      * a vytvára pre nich samostatné vlákna, v ktorým
      * počas komunikácie so serverom bežia
-     * 
+     *
+     * @param airportServer Socket hlavného letiskového servera.
+     *
      * @throws IOException Ak nie je možné vytvoriť nové vlákno pre klienta
      */
-    private void acceptClients() throws IOException {
-        List<String> availAirports = airportLoader.listAvailAirports();
+    private void acceptClients(ServerSocket airportServer) throws IOException {
+        System.out.println(airportServer.getInetAddress().toString());
+        System.out.println(language.getString("server.waiting_for_clients"));
         while (true) {
-            generatedAircraft.add(new LinkedList<Aircraft>());
             AirportServerServiceThread arptServThread
-                    = new AirportServerServiceThread(
-                            airportServer.accept(),
-                            availAirports,
-                            language,
-                            settings,
-                            connectedClients,
-                            airportLoader,
-                            generatedAircraft,
-                            connectedAirports);
-            connectedClients++;
+                    = new AirportServerServiceThread(airportServer.accept(), this);
             arptServThread.start();
             Logger.getLogger(AirportServerService.class.getName()).log(Level.INFO,
                     "The server has started a new thread communicating with a client nr. {0}", connectedClients);
         }
     }
 
+    /**
+     * Vytvorí pre nového klienta reláciu, ktorá obsluhuje jeho komunikáciu so serverom.
+     *
+     * Metódu volá vlákno klienta aj I/O vlákna neblokujúceho servera, preto je synchronizovaná.
+     *
+     * @param connection Spojenie, cez ktoré relácia odosiela správy klientovi.
+     *
+     * @return Nová relácia pre pripojeného klienta.
+     */
+    synchronized AirportServiceSession createSession(AirportServiceConnection connection) {
+        AirportServiceSession session = new AirportServiceSession(
+                connection,
+                airportSlots,
+                language,
+                settings,
+                connectedClients,
+                simulationEngine,
+                radarFeedExecutor);
+        connectedClients++;
+        return session;
+    }
+
 }
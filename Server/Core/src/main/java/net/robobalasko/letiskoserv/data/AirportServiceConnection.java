@@ -0,0 +1,45 @@
+package net.robobalasko.letiskoserv.data;
+
+import java.io.IOException;
+
+/**
+ * Rozhranie spojenia s klientom, cez ktoré relácia {@code AirportServiceSession}
+ * odosiela klientovi správy bez ohľadu na to, či spojenie obsluhuje
+ * samostatné vlákno alebo neblokujúci selektor.
+ *
+ * @author rbalasko
+ */
+public interface AirportServiceConnection {
+
+    /**
+     * Odošle klientovi jednu správu.
+     *
+     * Metóda musí byť bezpečne volateľná z ľubovoľného vlákna a nesmie čakať na zápis do siete,
+     * správa sa len zaradí do fronty spojenia.
+     *
+     * @param message Objekt správy, ktorý sa má klientovi odoslať.
+     *
+     * @throws IOException Ak sa správu nepodarí odoslať.
+     */
+    void send(Object message) throws IOException;
+
+    /**
+     * Zistí, či spojenie ešte neodoslalo niektorú zo správ, ktoré mu relácia odovzdala.
+     *
+     * @return True, ak aspoň jedna správa ešte čaká na zápis, false inak.
+     */
+    boolean isWritePending();
+
+    /**
+     * Nastaví, či sa majú ďalšie správy klientovi kódovať v binárnom formáte {@code AirportBinaryCodec}.
+     *
+     * @param binaryCodec True pre binárny formát, false pre Java serializáciu.
+     */
+    void setBinaryCodec(boolean binaryCodec);
+
+    /**
+     * Uzatvorí spojenie s klientom.
+     */
+    void close();
+
+}
@@ -62,6 +62,21 @@ public class AirportServiceProtocol {
      */
     public static final int RCVD_MODACFT_DATA = 12;
 
+    /**
+     * Požiadavka na odoslanie rozdielu v lietadlách na radare oproti verzii, ktorú klient potvrdil.
+     */
+    public static final int SEND_AIRCFT_DELTA = 13;
+
+    /**
+     * Požiadavka na dohodnutie formátu, v ktorom si klient a server posielajú správy.
+     */
+    public static final int SEND_WIRE_CODEC = 14;
+
+    /**
+     * Požiadavka na pravidelné odosielanie lietadiel na radare pri každom kroku simulácie bez ďalších požiadaviek klienta.
+     */
+    public static final int SUBSCRIBE_AIRCFT_DATA = 15;
+
     /**
      * Aktuálny stav komunikácie medzi vláknom a klientom.
      */
@@ -0,0 +1,543 @@
+package net.robobalasko.letiskoserv.data;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ResourceBundle;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import net.robobalasko.letiskoserv.lietadla.Aircraft;
+import net.robobalasko.letiskoserv.navigacia.Airport;
+import net.robobalasko.letiskoserv.simulacia.AirportSimulation;
+import net.robobalasko.letiskoserv.simulacia.SimulationEngine;
+import net.robobalasko.letiskoserv.simulacia.SimulationListener;
+
+/**
+ * Trieda obsluhujúca komunikáciu jedného klienta so serverom podľa protokolu {@code AirportServiceProtocol}.
+ *
+ * Relácia nečíta dáta zo siete sama, ale dostáva od spojenia už celé prijaté správy cez metódu {@code messageReceived}
+ * a odpovede posiela cez rozhranie {@code AirportServiceConnection}. Vďaka tomu ju môže obsluhovať samostatné vlákno
+ * {@code AirportServerServiceThread} aj neblokujúci server {@code AirportSelectorServer}.
+ *
+ * Relácia simuláciu letiska nevytvára ani neposúva. Všetky letiská načíta server pri štarte a posúva
+ * ich nezávisle od siete {@code SimulationEngine}, relácia sa k simulácii letiska len pripojí.
+ * Pri žiadosti klienta relácia len odošle aktuálny stav lietadiel. Ak sa klient prihlási na odber
+ * lietadiel, relácia mu po každom kroku simulácie odošle rozdiely v lietadlách. Správy od klienta
+ * a odosielanie odberu sa preto spracúvajú synchronizovane na objekte relácie. Spojenie správy len
+ * zaradí do svojej fronty, relácia preto pri odosielaní nečaká na zápis do siete.
+ *
+ * @author rbalasko
+ */
+public class AirportServiceSession {
+
+    /**
+     * Relácia nečaká na žiadny doplňujúci údaj k požiadavke.
+     */
+    private static final int EXPECT_REQUEST = 0;
+
+    /**
+     * Relácia čaká na šírku radarovej obrazovky klienta.
+     */
+    private static final int EXPECT_SCREEN_WIDTH = 1;
+
+    /**
+     * Relácia čaká na výšku radarovej obrazovky klienta.
+     */
+    private static final int EXPECT_SCREEN_HEIGHT = 2;
+
+    /**
+     * Relácia čaká na ICAO kód letiska, ktoré si klient vybral.
+     */
+    private static final int EXPECT_AIRPORT_ICAO = 3;
+
+    /**
+     * Relácia čaká na zoznam lietadiel modifikovaných riadiacim.
+     */
+    private static final int EXPECT_MODIFIED_AIRCRAFT = 4;
+
+    /**
+     * Relácia čaká na verziu zoznamu lietadiel, ktorú klient naposledy dostal.
+     */
+    private static final int EXPECT_ACKNOWLEDGED_VERSION = 5;
+
+    /**
+     * Relácia čaká na názov formátu správ, ktorý chce klient používať.
+     */
+    private static final int EXPECT_WIRE_CODEC = 6;
+
+    /**
+     * Poradové číslo klienta pripojeného k serveru.
+     */
+    private final int clientNumber;
+
+    /**
+     * Súbor s jazykovým prekladom.
+     */
+    private final ResourceBundle language;
+
+    /**
+     * Súbor s nastaveniami aplikácie.
+     */
+    private final ResourceBundle settings;
+
+    /**
+     * Spojenie, cez ktoré relácia odosiela správy klientovi.
+     */
+    private final AirportServiceConnection connection;
+
+    /**
+     * Protokol komunikácie medzi klientom a serverom.
+     */
+    private final AirportServiceProtocol protocol;
+
+    /**
+     * Register voľných a obsadených letísk zdieľaný všetkými reláciami.
+     */
+    private final AirportSlotRegistry airportSlots;
+
+    /**
+     * ICAO kód letiska, ktoré má klient zapnuté.
+     */
+    private String requestedArptIcao;
+
+    /**
+     * Nájomný lístok letiska, ktoré klient obsadil, alebo null.
+     */
+    private AirportSlotRegistry.Lease airportLease;
+
+    /**
+     * Dáta letiska, ktoré má klient zapnuté.
+     */
+    private Airport loadedAirport;
+
+    /**
+     * Engine, ktorý posúva simulácie všetkých pripojených letísk.
+     */
+    private final SimulationEngine simulationEngine;
+
+    /**
+     * Simulácia letiska, ktoré má klient zapnuté.
+     */
+    private AirportSimulation simulation;
+
+    /**
+     * Doplňujúci údaj, na ktorý relácia práve čaká od klienta.
+     */
+    private int expectedPayload;
+
+    /**
+     * Posledný stav lietadiel odoslaný klientovi, z ktorého sa vytvárajú rozdiely.
+     */
+    private final AircraftSnapshotTracker snapshotTracker;
+
+    /**
+     * Vlákna, ktoré odosielajú lietadlá klientom prihláseným na ich odber.
+     */
+    private final ExecutorService radarFeedExecutor;
+
+    /**
+     * Objekt upozorňovaný na kroky simulácie, ak je klient prihlásený na odber lietadiel.
+     */
+    private SimulationListener radarFeed;
+
+    /**
+     * Príznak, že odoslanie lietadiel klientovi už čaká vo fronte. Ak klient nestíha prijímať,
+     * ďalšie kroky simulácie sa zlúčia do jedného odoslania.
+     */
+    private final AtomicBoolean radarFeedPending;
+
+    /**
+     * Príznak, že sa odoslanie lietadiel vynechalo, lebo klient ešte neprijal predchádzajúce správy.
+     * Keď ich klient prijme, dostane namiesto rozdielu celý zoznam lietadiel.
+     */
+    private boolean radarFeedBehind;
+
+    /**
+     * Základný konštruktor nastavuje všetky potrebné atribúty pre reláciu komunikujúcu s klientom.
+     *
+     * @param connection Spojenie, cez ktoré relácia odosiela správy klientovi
+     * @param airportSlots Register voľných a obsadených letísk
+     * @param language Súbor s jazykovým prekladom
+     * @param settings Súbor s nastaveniami aplikácie
+     * @param clientNumber Poradové číslo klienta na serveri (identifikačný údaj)
+     * @param simulationEngine Engine, ktorý posúva simulácie všetkých pripojených letísk
+     * @param radarFeedExecutor Vlákna odosielajúce lietadlá klientom prihláseným na ich odber
+     */
+    public AirportServiceSession(
+            AirportServiceConnection connection,
+            AirportSlotRegistry airportSlots,
+            ResourceBundle language,
+            ResourceBundle settings,
+            int clientNumber,
+            SimulationEngine simulationEngine,
+            ExecutorService radarFeedExecutor) {
+        this.clientNumber = clientNumber;
+        this.language = language;
+        this.settings = settings;
+        this.connection = connection;
+        this.protocol = new AirportServiceProtocol();
+        this.airportSlots = airportSlots;
+        this.simulationEngine = simulationEngine;
+        this.expectedPayload = EXPECT_REQUEST;
+        this.snapshotTracker = new AircraftSnapshotTracker();
+        this.radarFeedExecutor = radarFeedExecutor;
+        this.radarFeedPending = new AtomicBoolean();
+    }
+
+    /**
+     * Spracuje jednu správu prijatú od klienta podľa aktuálneho stavu protokolu.
+     *
+     * Klient posiela najprv kód požiadavky a pri niektorých požiadavkách za ním ďalšie správy s údajmi
+     * (rozmer obrazovky, ICAO kód letiska, zoznam modifikovaných lietadiel). Relácia si preto pamätá,
+     * na aký doplňujúci údaj práve čaká.
+     *
+     * @param message Objekt prijatej správy.
+     *
+     * @throws IOException Ak sa nepodarí odoslať odpoveď klientovi.
+     */
+    public synchronized void messageReceived(Object message) throws IOException {
+        switch (expectedPayload) {
+            case EXPECT_SCREEN_WIDTH:
+                // Simulácia beží v zemepisných súradniciach, rozmer obrazovky si prepočíta klient sám
+                expectedPayload = EXPECT_SCREEN_HEIGHT;
+                return;
+            case EXPECT_SCREEN_HEIGHT:
+                expectedPayload = EXPECT_REQUEST;
+                protocol.setState(AirportServiceProtocol.RCVD_GUISCR_DATA);
+                return;
+            case EXPECT_AIRPORT_ICAO:
+                expectedPayload = EXPECT_REQUEST;
+                sendAirportData((String) message);
+                return;
+            case EXPECT_MODIFIED_AIRCRAFT:
+                expectedPayload = EXPECT_REQUEST;
+                receiveModifiedAircraft(message);
+                return;
+            case EXPECT_WIRE_CODEC:
+                expectedPayload = EXPECT_REQUEST;
+                selectWireCodec((String) message);
+                return;
+            case EXPECT_ACKNOWLEDGED_VERSION:
+                expectedPayload = EXPECT_REQUEST;
+                clientRadarControllingRequest((Long) message);
+                return;
+            default:
+                requestReceived((Integer) message);
+        }
+    }
+
+    /**
+     * Spracuje kód požiadavky od klienta podľa aktuálneho stavu protokolu.
+     *
+     * @param requestFlag Kód požiadavky od klienta.
+     *
+     * @throws IOException Ak sa nepodarí odoslať odpoveď klientovi.
+     */
+    private void requestReceived(int requestFlag) throws IOException {
+        if (requestFlag == AirportServiceProtocol.END_COM) {
+            endCommunication();
+            return;
+        }
+        switch (protocol.getState()) {
+            case AirportServiceProtocol.WAITING:
+                // Odoslanie zoznamu letísk, ku ktorým sa je možné pripojiť
+                if (requestFlag == AirportServiceProtocol.SEND_AIRPRT_LIST) {
+                    System.out.println("Prišla žiadosť! Odosielam zoznam voľných letísk...");
+                    connection.send(airportSlots.getAvailableAirports());
+
+                    System.out.println("Mením stav protokolu...");
+                    protocol.setState(AirportServiceProtocol.SENT_AIRPRT_LIST);
+                } else if (requestFlag == AirportServiceProtocol.SEND_WIRE_CODEC) {
+                    expectedPayload = EXPECT_WIRE_CODEC;
+                }
+                break;
+            case AirportServiceProtocol.SENT_AIRPRT_LIST:
+                // Prijatie veľkosti radarovej obrazovky klienta
+                if (requestFlag == AirportServiceProtocol.SENT_GUISCR_DATA) {
+                    expectedPayload = EXPECT_SCREEN_WIDTH;
+                } else {
+                    protocol.setState(AirportServiceProtocol.RCVD_GUISCR_DATA);
+                }
+                break;
+            case AirportServiceProtocol.RCVD_GUISCR_DATA:
+                if (requestFlag == AirportServiceProtocol.SEND_AIRPRT_DATA) {
+                    System.out.println("Prišla žiadosť o letisko! Čakám na jeho kód...");
+                    expectedPayload = EXPECT_AIRPORT_ICAO;
+                }
+                break;
+            case AirportServiceProtocol.SENT_AIRPRT_DATA:
+                if (requestFlag == AirportServiceProtocol.SEND_AIRCFT_DATA) {
+                    clientRadarControllingRequest(null);
+                } else if (requestFlag == AirportServiceProtocol.SEND_AIRCFT_DELTA) {
+                    expectedPayload = EXPECT_ACKNOWLEDGED_VERSION;
+                } else if (requestFlag == AirportServiceProtocol.SUBSCRIBE_AIRCFT_DATA) {
+                    subscribeRadarFeed();
+                } else if (requestFlag == AirportServiceProtocol.RCVD_MODACFT_DATA) {
+                    expectedPayload = EXPECT_MODIFIED_AIRCRAFT;
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Dohodne s klientom formát ďalších správ. Klientovi sa odošle názov formátu, ktorý server prijal,
+     * a ak ide o binárny formát, všetky ďalšie správy sa už kódujú v ňom. Neznámy formát znamená
+     * návrat k Java serializácii.
+     *
+     * @param requestedCodec Názov formátu, ktorý klient žiada.
+     *
+     * @throws IOException Ak sa nepodarí odoslať odpoveď klientovi.
+     */
+    private void selectWireCodec(String requestedCodec) throws IOException {
+        boolean binaryCodec = AirportMessageCodec.CODEC_BINARY.equals(requestedCodec);
+        connection.send(binaryCodec ? AirportMessageCodec.CODEC_BINARY : AirportMessageCodec.CODEC_SERIALIZATION);
+        connection.setBinaryCodec(binaryCodec);
+        Logger.getLogger(AirportServiceSession.class.getName()).log(Level.INFO,
+                "The client nr. {0} uses the {1} wire codec.",
+                new Object[]{clientNumber, binaryCodec ? AirportMessageCodec.CODEC_BINARY
+                        : AirportMessageCodec.CODEC_SERIALIZATION});
+    }
+
+    /**
+     * Odošle klientovi objekt s načítaným letiskom, o ktoré požiadal.
+     *
+     * @param icaoCode ICAO kód letiska, ktoré si klient vybral.
+     *
+     * @throws IOException Ak sa nepodarí odoslať dáta letiska klientovi.
+     */
+    private void sendAirportData(String icaoCode) throws IOException {
+        System.out.println("Klient žiada o: " + icaoCode);
+        AirportSlotRegistry.Lease lease = null;
+        if (icaoCode != null && simulationEngine.getWorld().getSimulation(icaoCode) != null) {
+            lease = airportSlots.claim(icaoCode);
+        }
+        if (lease == null) {
+            Logger.getLogger(AirportServiceSession.class.getName()).log(Level.WARNING,
+                    "Airport {0} is not available for client {1}", new Object[]{icaoCode, clientNumber});
+            connection.send(null);
+            return;
+        }
+        try {
+            requestedArptIcao = icaoCode;
+            simulation = simulationEngine.getWorld().getSimulation(requestedArptIcao);
+            loadedAirport = simulation.getAirport();
+
+            System.out.println("Odosielam objekt žiadaného letiska!");
+            connection.send(loadedAirport);
+
+            airportLease = lease;
+            lease = null;
+            simulation.addSnapshotReader();
+            System.out.println("Označil som letisko " + requestedArptIcao + " ako obsadené!");
+
+            System.out.println("Mením stav protokolu...");
+            protocol.setState(AirportServiceProtocol.SENT_AIRPRT_DATA);
+        } finally {
+            // Letisko, ktoré sa nepodarilo odoslať, sa hneď uvoľní
+            airportSlots.release(lease);
+        }
+    }
+
+    /**
+     * Odošle klientovi aktuálny stav lietadiel na jeho letisku. Simuláciu táto žiadosť neposúva,
+     * klient dostane stav po naposledy vykonanom kroku simulácie.
+     *
+     * @param acknowledgedVersion Verzia zoznamu lietadiel, ktorú klient potvrdil, alebo null,
+     * ak klient žiada o celý zoznam lietadiel.
+     *
+     * @throws IOException Ak sa nepodarí odoslanie dát klientnovi.
+     */
+    private void clientRadarControllingRequest(Long acknowledgedVersion) throws IOException {
+        sendAircraftToClient(acknowledgedVersion);
+    }
+
+    /**
+     * Prihlási klienta na odber lietadiel. Po každom kroku simulácie jeho letiska sa klientovi
+     * odošle rozdiel oproti naposledy odoslanej verzii lietadiel.
+     */
+    private void subscribeRadarFeed() {
+        if (radarFeed != null) {
+            return;
+        }
+        radarFeed = new SimulationListener() {
+            @Override
+            public void simulationStepped(AirportSimulation simulation, long tick) {
+                scheduleRadarFeedPush();
+            }
+        };
+        simulation.addSimulationListener(radarFeed);
+        scheduleRadarFeedPush();
+        Logger.getLogger(AirportServiceSession.class.getName()).log(Level.INFO,
+                "The client nr. {0} has subscribed to the radar feed.", clientNumber);
+    }
+
+    /**
+     * Naplánuje odoslanie lietadiel klientovi prihlásenému na ich odber, ak už nejaké nečaká vo fronte.
+     *
+     * Volá sa z vlákna simulácie, preto samotné odoslanie prebehne na vláknach {@code radarFeedExecutor}.
+     */
+    private void scheduleRadarFeedPush() {
+        if (!radarFeedPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            radarFeedExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    radarFeedPending.set(false);
+                    pushAircraftToClient();
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            radarFeedPending.set(false);
+        }
+    }
+
+    /**
+     * Odošle lietadlá klientovi prihlásenému na ich odber.
+     *
+     * Klient po tom, čo dostane rozdiel, nič nepotvrdzuje. Spojenie doručí rámce v poradí, preto sa každý
+     * ďalší rozdiel vytvára voči naposledy odoslanej verzii. Ak spojenie ešte neodoslalo predchádzajúce
+     * správy, odoslanie sa vynechá, aby sa rámce pomalému klientovi nehromadili v pamäti. Po najbližšom
+     * kroku simulácie, keď už spojenie nič neodosiela, dostane klient celý zoznam lietadiel.
+     */
+    private synchronized void pushAircraftToClient() {
+        if (radarFeed == null) {
+            return;
+        }
+        if (protocol.getState() != AirportServiceProtocol.SENT_AIRPRT_DATA) {
+            cancelRadarFeed();
+            return;
+        }
+        if (connection.isWritePending()) {
+            radarFeedBehind = true;
+            return;
+        }
+        try {
+            // Potvrdená verzia 0 znamená, že klient nemá žiadnu verziu, a dostane celý zoznam
+            clientRadarControllingRequest(radarFeedBehind ? 0 : snapshotTracker.getVersion());
+            radarFeedBehind = false;
+        } catch (IOException ex) {
+            Logger.getLogger(AirportServiceSession.class.getName()).log(Level.FINE,
+                    "The radar feed could not be sent to the client.", ex);
+            cancelRadarFeed();
+            connection.close();
+        } catch (RuntimeException ex) {
+            Logger.getLogger(AirportServiceSession.class.getName()).log(Level.SEVERE, null, ex);
+            cancelRadarFeed();
+            connection.close();
+        }
+    }
+
+    /**
+     * Zruší odber lietadiel, ak je naň klient prihlásený.
+     */
+    private void cancelRadarFeed() {
+        if (radarFeed != null) {
+            simulation.removeSimulationListener(radarFeed);
+            radarFeed = null;
+        }
+    }
+
+    /**
+     * Prevezme od klienta zoznam lietadiel, ktoré riadiaci modifikoval. Zoznam sa najprv celý
+     * overí, aby sa pri chybnej správe neaplikovala len časť príkazov.
+     *
+     * @param message Prijatá správa so zoznamom modifikovaných lietadiel.
+     *
+     * @throws IOException Ak správa nie je zoznam lietadiel.
+     */
+    private void receiveModifiedAircraft(Object message) throws IOException {
+        if (!(message instanceof List)) {
+            throw new IOException("Unexpected modified aircraft message: " + message);
+        }
+        List<?> items = (List<?>) message;
+        List<Aircraft> modifiedAircraft = new ArrayList<Aircraft>(items.size());
+        for (Object item : items) {
+            if (!(item instanceof Aircraft)) {
+                throw new IOException("Unexpected item in the modified aircraft list: " + item);
+            }
+            modifiedAircraft.add((Aircraft) item);
+        }
+        // Klient môže poslať viac príkazov naraz, ak riadiaci zmenil viac lietadiel rýchlo za sebou
+        for (Aircraft ac : modifiedAircraft) {
+            simulation.modifyControlledAircraft(ac);
+        }
+    }
+
+    /**
+     * Ukončí komunikáciu s klientom na jeho žiadosť, uvoľní letisko a potvrdí klientovi koniec spojenia.
+     *
+     * @throws IOException Ak sa nepodarí odoslať potvrdenie klientovi.
+     */
+    private void endCommunication() throws IOException {
+        System.out.println("Server posial žiadosť o ukončenie komunikácie...");
+        cancelRadarFeed();
+        releaseAirport();
+        protocol.setState(AirportServiceProtocol.END_COM);
+        connection.send(AirportServiceProtocol.END_COM);
+        connection.close();
+        System.out.println("Komunikácia skončila...");
+    }
+
+    /**
+     * Upozorní reláciu, že spojenie s klientom bolo ukončené.
+     *
+     * Ak sa klient odpojil bez žiadosti o ukončenie komunikácie, uvoľní sa letisko, ktoré obsadzoval.
+     */
+    public synchronized void connectionClosed() {
+        cancelRadarFeed();
+        if (protocol.getState() != AirportServiceProtocol.END_COM) {
+            releaseAirport();
+            protocol.setState(AirportServiceProtocol.END_COM);
+        }
+    }
+
+    /**
+     * Vráti letisko, ktoré klient obsadzoval, späť do zoznamu dostupných letísk. Simulácia letiska
+     * beží ďalej bez riadiaceho.
+     */
+    private void releaseAirport() {
+        if (airportLease != null) {
+            simulation.removeSnapshotReader();
+        }
+        if (airportSlots.release(airportLease)) {
+            System.out.println("Letisko " + requestedArptIcao + " bolo uvoľnené...");
+        }
+        airportLease = null;
+    }
+
+    /**
+     * Vráti aktuálny stav protokolu komunikácie s klientom.
+     *
+     * @return Objekt protokolu.
+     */
+    public AirportServiceProtocol getProtocol() {
+        return protocol;
+    }
+
+    /**
+     * Odošle klientovi lietadlá, ktoré sa na danom letisku nachádzajú. Ak klient potvrdil verziu zoznamu,
+     * odošle sa mu len rozdiel oproti nej, inak celý zoznam lietadiel.
+     *
+     * Lietadlá sa berú z posledného stavu, ktorý simulácia zverejnila, takže pomalý klient
+     * nezdržiava kroky simulácie.
+     *
+     * @param acknowledgedVersion Verzia zoznamu lietadiel, ktorú klient potvrdil, alebo null pre celý zoznam.
+     *
+     * @throws IOException Ak sa nepodarí odoslanie / prijatie dát klientnovi.
+     */
+    private void sendAircraftToClient(Long acknowledgedVersion) throws IOException {
+        if (acknowledgedVersion == null) {
+            connection.send(simulation.copyAircraft());
+        } else {
+            connection.send(snapshotTracker.createDelta(simulation.getSnapshot(), acknowledgedVersion));
+        }
+    }
+
+}
@@ -0,0 +1,202 @@
+package net.robobalasko.letiskoserv.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Register letísk, ku ktorým sa môžu klienti pripojiť, a letísk, ktoré už niektorý klient obsadil.
+ *
+ * Obsadenie letiska je jedna atomická operácia nad {@code ConcurrentHashMap}, takže ani pri súčasnom
+ * prihlásení viacerých klientov nemôžu dvaja klienti obsadiť to isté letisko. Klient, ktorý letisko
+ * obsadil, dostane nájomný lístok a letisko uvoľní len s ním. Oneskorené uvoľnenie starej relácie
+ * tak neuvoľní letisko, ktoré medzitým obsadil niekto iný.
+ *
+ * Zoznam voľných letísk sa po každej zmene vytvorí znova ako nemenný zoznam. Odoslanie zoznamu
+ * klientom je tak len prečítanie jednej referencie bez zamykania.
+ *
+ * @author rbalasko
+ */
+public class AirportSlotRegistry {
+
+    /**
+     * Všetky letiská, ktoré server načítal, v pôvodnom poradí.
+     */
+    private final List<String> airports;
+
+    /**
+     * Nájomné lístky obsadených letísk podľa ICAO kódu.
+     */
+    private final ConcurrentMap<String, Lease> leases;
+
+    /**
+     * Počítadlo, z ktorého dostávajú nájomné lístky svoje čísla.
+     */
+    private final AtomicLong leaseCounter;
+
+    /**
+     * Posledný vytvorený nemenný zoznam voľných letísk.
+     */
+    private volatile List<String> availableSnapshot;
+
+    /**
+     * Základný konštruktor vytvorí register, v ktorom sú všetky letiská voľné.
+     *
+     * @param airports ICAO kódy letísk, ktoré server načítal.
+     */
+    public AirportSlotRegistry(Collection<String> airports) {
+        this.airports = Collections.unmodifiableList(new ArrayList<String>(airports));
+        this.leases = new ConcurrentHashMap<String, Lease>();
+        this.leaseCounter = new AtomicLong();
+        this.availableSnapshot = this.airports;
+    }
+
+    /**
+     * Obsadí letisko pre klienta.
+     *
+     * @param icaoCode ICAO kód letiska.
+     *
+     * @return Nájomný lístok letiska alebo null, ak letisko neexistuje alebo ho už obsadil iný klient.
+     */
+    public Lease claim(String icaoCode) {
+        if (icaoCode == null || !airports.contains(icaoCode)) {
+            return null;
+        }
+        Lease lease = new Lease(icaoCode, leaseCounter.incrementAndGet());
+        if (leases.putIfAbsent(icaoCode, lease) != null) {
+            return null;
+        }
+        refreshSnapshot();
+        return lease;
+    }
+
+    /**
+     * Uvoľní letisko obsadené daným nájomným lístkom.
+     *
+     * @param lease Nájomný lístok, ktorý klient dostal pri obsadení letiska.
+     *
+     * @return True, ak bolo letisko uvoľnené, false ak lístok už neplatí.
+     */
+    public boolean release(Lease lease) {
+        if (lease == null || !leases.remove(lease.getIcaoCode(), lease)) {
+            return false;
+        }
+        refreshSnapshot();
+        return true;
+    }
+
+    /**
+     * Zistí, či je letisko obsadené.
+     *
+     * @param icaoCode ICAO kód letiska.
+     *
+     * @return True, ak letisko obsadil niektorý klient, false inak.
+     */
+    public boolean isClaimed(String icaoCode) {
+        return leases.containsKey(icaoCode);
+    }
+
+    /**
+     * Vráti zoznam letísk, ku ktorým sa je momentálne možné pripojiť.
+     *
+     * @return Nemenný zoznam ICAO kódov voľných letísk.
+     */
+    public List<String> getAvailableAirports() {
+        return availableSnapshot;
+    }
+
+    /**
+     * Vytvorí nový zoznam voľných letísk. Súbežné zmeny môžu zoznam vytvoriť v ľubovoľnom poradí,
+     * preto sa po zápise overí, či sa medzitým obsadenie nezmenilo, a prípadne sa zoznam vytvorí znova.
+     */
+    private void refreshSnapshot() {
+        List<String> snapshot;
+        do {
+            List<String> available = new ArrayList<String>(airports.size());
+            for (String airport : airports) {
+                if (!leases.containsKey(airport)) {
+                    available.add(airport);
+                }
+            }
+            snapshot = Collections.unmodifiableList(available);
+            availableSnapshot = snapshot;
+        } while (!matchesLeases(snapshot));
+    }
+
+    /**
+     * Zistí, či zoznam voľných letísk zodpovedá aktuálnemu obsadeniu letísk.
+     *
+     * @param snapshot Zoznam voľných letísk.
+     *
+     * @return True, ak zoznam obsahuje práve všetky neobsadené letiská, false inak.
+     */
+    private boolean matchesLeases(List<String> snapshot) {
+        return snapshot.size() + leases.size() == airports.size() && !containsClaimed(snapshot);
+    }
+
+    /**
+     * Zistí, či zoznam voľných letísk obsahuje niektoré obsadené letisko.
+     *
+     * @param snapshot Zoznam voľných letísk.
+     *
+     * @return True, ak je niektoré letisko zo zoznamu obsadené, false inak.
+     */
+    private boolean containsClaimed(List<String> snapshot) {
+        for (String airport : snapshot) {
+            if (leases.containsKey(airport)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Nájomný lístok obsadeného letiska.
+     */
+    public static final class Lease {
+
+        /**
+         * ICAO kód obsadeného letiska.
+         */
+        private final String icaoCode;
+
+        /**
+         * Poradové číslo lístka.
+         */
+        private final long id;
+
+        private Lease(String icaoCode, long id) {
+            this.icaoCode = icaoCode;
+            this.id = id;
+        }
+
+        /**
+         * Vráti ICAO kód obsadeného letiska.
+         *
+         * @return ICAO kód letiska.
+         */
+        public String getIcaoCode() {
+            return icaoCode;
+        }
+
+        /**
+         * Vráti poradové číslo lístka.
+         *
+         * @return Číslo lístka.
+         */
+        public long getId() {
+            return id;
+        }
+
+        @Override
+        public String toString() {
+            return icaoCode + "#" + id;
+        }
+
+    }
+
+}
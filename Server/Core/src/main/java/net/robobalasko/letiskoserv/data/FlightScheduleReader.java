@@ -0,0 +1,214 @@
+package net.robobalasko.letiskoserv.data;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import net.robobalasko.letiskoserv.lietadla.AircraftTypeEnum;
+import net.robobalasko.letiskoserv.lietadla.ScheduledFlight;
+
+/**
+ * Trieda, ktorá postupne číta odlety jedného letiska z xml súboru letového plánu.
+ *
+ * Súbor obsahuje koreňový element {@code <schedule>} a v ňom elementy {@code <flight>} zoradené
+ * podľa času odletu, napr.
+ * {@code <flight time="07:05" callsign="SVK101" type="A320" from="LZIB" to="LZKZ" sid="NUBRA 1Z" />}.
+ * Čas je v tvare {@code HH:MM} alebo {@code HH:MM:SS} od spustenia simulácie. Atribúty {@code sid},
+ * {@code star}, {@code level} a {@code speed} sú nepovinné, chýbajúce hodnoty vyberie generátor
+ * lietadiel náhodne.
+ *
+ * Súbor sa číta prúdovo cez StAX až vtedy, keď si simulácia pýta ďalší let, a čitateľ si drží len
+ * jeden načítaný let dopredu. Ani letový plán so stovkami tisíc letov tak nie je celý v pamäti.
+ * Každé letisko má vlastného čitateľa, ktorý lety ostatných letísk preskočí.
+ *
+ * @author rbalasko
+ */
+public class FlightScheduleReader {
+
+    /**
+     * Počet sekúnd v minúte a minút v hodine.
+     */
+    private static final int SIXTY = 60;
+
+    /**
+     * ICAO kód letiska, ktorého odlety sa čítajú, písaný veľkými písmenami.
+     */
+    private final String airportIcao;
+
+    /**
+     * Prúd so súborom letového plánu.
+     */
+    private final InputStream input;
+
+    /**
+     * Čitateľ xml prúdu.
+     */
+    private final XMLStreamReader reader;
+
+    /**
+     * Ďalší načítaný let, ktorý ešte nebol vybratý.
+     */
+    private ScheduledFlight nextFlight;
+
+    /**
+     * Čas odletu posledného načítaného letu.
+     */
+    private double lastDepartureTime;
+
+    /**
+     * Príznak, že súbor bol prečítaný celý alebo sa ho nepodarilo čítať ďalej.
+     */
+    private boolean finished;
+
+    /**
+     * Základný konštruktor otvorí súbor letového plánu. Lety sa začnú čítať až pri prvom dopyte.
+     *
+     * @param source Adresa súboru letového plánu.
+     * @param airportIcao ICAO kód letiska, ktorého odlety sa majú čítať.
+     *
+     * @throws IOException Ak sa súbor nepodarí otvoriť.
+     */
+    public FlightScheduleReader(URL source, String airportIcao) throws IOException {
+        this.airportIcao = airportIcao.toUpperCase();
+        this.input = source.openStream();
+        try {
+            this.reader = XMLInputFactory.newInstance().createXMLStreamReader(input);
+        } catch (XMLStreamException ex) {
+            input.close();
+            throw new IOException(ex);
+        }
+    }
+
+    /**
+     * Vráti ďalší odlet letiska bez toho, aby ho vybral.
+     *
+     * @return Ďalší let alebo null, ak už letový plán žiadne odlety letiska nemá.
+     */
+    public ScheduledFlight peek() {
+        if (nextFlight == null && !finished) {
+            nextFlight = readNextFlight();
+        }
+        return nextFlight;
+    }
+
+    /**
+     * Vyberie ďalší odlet letiska.
+     *
+     * @return Ďalší let alebo null, ak už letový plán žiadne odlety letiska nemá.
+     */
+    public ScheduledFlight next() {
+        ScheduledFlight flight = peek();
+        nextFlight = null;
+        return flight;
+    }
+
+    /**
+     * Zatvorí súbor letového plánu. Ďalšie lety sa už nenačítajú.
+     */
+    public void close() {
+        finished = true;
+        try {
+            reader.close();
+        } catch (XMLStreamException ex) {
+            Logger.getLogger(FlightScheduleReader.class.getName()).log(Level.WARNING, null, ex);
+        }
+        try {
+            input.close();
+        } catch (IOException ex) {
+            Logger.getLogger(FlightScheduleReader.class.getName()).log(Level.WARNING, null, ex);
+        }
+    }
+
+    /**
+     * Číta súbor až po najbližší platný odlet letiska. Na konci súboru alebo pri chybe
+     * v štruktúre xml súbor zatvorí.
+     *
+     * @return Načítaný let alebo null, ak súbor ďalší odlet letiska nemá.
+     */
+    private ScheduledFlight readNextFlight() {
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT
+                        || !"flight".equals(reader.getLocalName())
+                        || !airportIcao.equalsIgnoreCase(reader.getAttributeValue(null, "from"))) {
+                    continue;
+                }
+                ScheduledFlight flight = parseFlight();
+                if (flight != null) {
+                    return flight;
+                }
+            }
+        } catch (XMLStreamException ex) {
+            Logger.getLogger(FlightScheduleReader.class.getName()).log(Level.SEVERE,
+                    "The flight schedule could not be read any further.", ex);
+        }
+        close();
+        return null;
+    }
+
+    /**
+     * Vytvorí let z atribútov aktuálneho elementu {@code <flight>}.
+     *
+     * @return Let alebo null, ak element nemá platné povinné údaje.
+     */
+    private ScheduledFlight parseFlight() {
+        String callSign = reader.getAttributeValue(null, "callsign");
+        String time = reader.getAttributeValue(null, "time");
+        String type = reader.getAttributeValue(null, "type");
+        String arrAirport = reader.getAttributeValue(null, "to");
+        try {
+            if (callSign == null || callSign.isEmpty() || time == null || type == null || arrAirport == null) {
+                throw new IllegalArgumentException();
+            }
+            double departureTime = parseTime(time);
+            AircraftTypeEnum aircraftType = AircraftTypeEnum.valueOf(type);
+            if (departureTime < lastDepartureTime) {
+                Logger.getLogger(FlightScheduleReader.class.getName()).log(Level.WARNING,
+                        "The flight {0} is out of time order, it will depart as soon as possible.", callSign);
+            }
+            lastDepartureTime = Math.max(lastDepartureTime, departureTime);
+            return new ScheduledFlight(departureTime, callSign, aircraftType, airportIcao, arrAirport.toUpperCase(),
+                    reader.getAttributeValue(null, "sid"), reader.getAttributeValue(null, "star"),
+                    parseOptionalInt(reader.getAttributeValue(null, "level")),
+                    parseOptionalInt(reader.getAttributeValue(null, "speed")));
+        } catch (IllegalArgumentException ex) {
+            // Sem patrí aj NumberFormatException a neznámy typ lietadla
+            Logger.getLogger(FlightScheduleReader.class.getName()).log(Level.WARNING,
+                    "The flight {0} at line {1} has invalid data and has been skipped.",
+                    new Object[]{callSign, reader.getLocation().getLineNumber()});
+            return null;
+        }
+    }
+
+    /**
+     * Prevedie čas v tvare {@code HH:MM} alebo {@code HH:MM:SS} na sekundy.
+     */
+    private static double parseTime(String time) {
+        String[] parts = time.split(":");
+        if (parts.length < 2 || parts.length > 3) {
+            throw new IllegalArgumentException(time);
+        }
+        int seconds = 0;
+        for (int i = 0; i < 3; i++) {
+            int part = i < parts.length ? Integer.parseInt(parts[i].trim()) : 0;
+            if (part < 0 || (i > 0 && part >= SIXTY)) {
+                throw new IllegalArgumentException(time);
+            }
+            seconds = seconds * SIXTY + part;
+        }
+        return seconds;
+    }
+
+    /**
+     * Prevedie nepovinný celočíselný atribút, chýbajúci atribút je 0.
+     */
+    private static int parseOptionalInt(String value) {
+        return value == null || value.isEmpty() ? 0 : Integer.parseInt(value.trim());
+    }
+
+}
@@ -1,8 +1,8 @@
 package net.robobalasko.letiskoserv.lietadla;
 
-import java.awt.Point;
 import java.io.Serializable;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import net.robobalasko.letiskoserv.navigacia.AirportRouteTypesEnum;
 import net.robobalasko.letiskoserv.navigacia.Route;
@@ -52,12 +52,23 @@ public class Aircraft implements Serializable {
     private Route actualRoute;
 
     /**
-     * Horizontalna pozicia lietadla na radare.
+     * Index bodu aktuálnej trasy, na ktorý lietadlo práve smeruje. Body pred ním už lietadlo preletelo.
+     */
+    private int routeCursor;
+
+    /**
+     * Názvy bodov, ktoré sa letia po poslednom bode aktuálnej trasy. Pridáva ich riadiaci
+     * alebo nevydarené pristátie. Zoznam sa nemení, pri zmene sa nahradí novým zoznamom.
+     */
+    private List<String> directWaypoints;
+
+    /**
+     * Zemepisná šírka lietadla v stupňoch WGS84.
      */
     private double latitude;
 
     /**
-     * Vertikalna pozicia lietadla na radare.
+     * Zemepisná dĺžka lietadla v stupňoch WGS84.
      */
     private double longitude;
 
@@ -88,16 +99,16 @@ public class Aircraft implements Serializable {
     private boolean isSelected;
 
     /**
-     * Zoznam všetkých koordinátov, ktoré boli zaznamenané
+     * Posledné koordináty, ktoré boli zaznamenané
      * serverom ako prejdená trasa lietadla.
      */
-    private final List<Point> routeTrail;
+    private final RouteTrail routeTrail;
 
     /**
-     * Koordinát, ktorý udáva smer pre zobrazenie smerovej
-     * šípky lietadla na radarovej obrazovke.
+     * Zemepisný kurz lietadla v stupňoch, podľa ktorého klient kreslí
+     * smerovú šípku lietadla na radarovej obrazovke.
      */
-    private final Point directionLine;
+    private double heading;
 
     /**
      * Definuje, či dané lietadlo už dostalo povolenie na odlet.
@@ -109,24 +120,62 @@ public class Aircraft implements Serializable {
      */
     private boolean goingAround;
 
+    /**
+     * Definuje, či sa dané lietadlo nachádza bližšie k inému lietadlu,
+     * ako dovoľuje minimálna separácia.
+     */
+    private boolean separationLost;
+
     /**
      * Základný konštruktor vytvára nový objekt lietadla,
      * ktorému nastaví zoznam pre zaznamenávanie koordinátov
-     * prejdenej trasy a objekt {@code Point} pre zaznamenanie
-     * pozície smerovej šípky lietadla.
+     * prejdenej trasy.
      * 
      * Všetky ostatné parametre objektu lietadla potom nastavuje
      * server pri vytváraní nového objektu lietadla pre riadené letisko.
      */
     public Aircraft() {
-        routeTrail = new LinkedList<Point>();
-        directionLine = new Point();
+        routeTrail = new RouteTrail();
         clearedForDeparture = false;
+        directWaypoints = Collections.emptyList();
+    }
+
+    /**
+     * Vytvorí kópiu lietadla s aktuálnym stavom, ktorú je možné odoslať klientovi
+     * bez toho, aby sa menila spolu so simulovaným lietadlom.
+     *
+     * Trasy lietadla sa nemenia, kópia ich preto zdieľa s pôvodným lietadlom.
+     *
+     * @param aircraft Lietadlo, ktoré sa má skopírovať.
+     */
+    public Aircraft(Aircraft aircraft) {
+        this.aircraftType = aircraft.aircraftType;
+        this.callSign = aircraft.callSign;
+        this.depAirport = aircraft.depAirport;
+        this.arrAirport = aircraft.arrAirport;
+        this.sidRoute = aircraft.sidRoute;
+        this.starRoute = aircraft.starRoute;
+        this.actualRoute = aircraft.actualRoute;
+        this.routeCursor = aircraft.routeCursor;
+        this.directWaypoints = aircraft.directWaypoints;
+        this.latitude = aircraft.latitude;
+        this.longitude = aircraft.longitude;
+        this.finalFlightLevel = aircraft.finalFlightLevel;
+        this.actualFlightLevel = aircraft.actualFlightLevel;
+        this.finalAirSpeed = aircraft.finalAirSpeed;
+        this.actualAirSpeed = aircraft.actualAirSpeed;
+        this.isSelected = aircraft.isSelected;
+        this.routeTrail = new RouteTrail(aircraft.routeTrail);
+        this.heading = aircraft.heading;
+        this.clearedForDeparture = aircraft.clearedForDeparture;
+        this.goingAround = aircraft.goingAround;
+        this.separationLost = aircraft.separationLost;
     }
 
     /**
      * Vráti reťazec obsahujúci všetky body, ktoré sa nachádzajú
-     * na odletovej / príletovej trase lietadla.
+     * na odletovej / príletovej trase lietadla. Pri aktuálnej trase
+     * lietadla obsahuje len body, ktoré lietadlo ešte nepreletelo.
      * 
      * @param routeType Typ trasy, ktorej body sa majú vrátiť.
      * 
@@ -136,14 +185,49 @@ public class Aircraft implements Serializable {
         Route route = (routeType == AirportRouteTypesEnum.SID)
                 ? getSidRoute() : getStarRoute();
         String listedRoute = "";
-        for (int i = 0; i < route.getRoutePoints().size(); i++) {
-            listedRoute += route.getRoutePoints().get(i);
-            if (i != route.getRoutePoints().size() - 1) {
+        if (route != actualRoute) {
+            for (int i = 0; i < route.getRoutePoints().size(); i++) {
+                listedRoute += route.getRoutePoints().get(i);
+                if (i != route.getRoutePoints().size() - 1) {
+                    listedRoute += " -> ";
+                }
+            }
+            return listedRoute;
+        }
+        for (int i = routeCursor; i < getRouteLength(); i++) {
+            listedRoute += getRoutePoint(i);
+            if (i != getRouteLength() - 1) {
                 listedRoute += " -> ";
             }
         }
         return listedRoute;
     }
+
+    /**
+     * Vráti počet bodov, ktoré lietadlo letí, teda bodov aktuálnej trasy
+     * spolu s bodmi pridanými za jej koniec.
+     * 
+     * @return Počet bodov trasy lietadla.
+     */
+    public int getRouteLength() {
+        return actualRoute.getRoutePoints().size() + directWaypoints.size();
+    }
+
+    /**
+     * Vráti názov bodu na trase lietadla. Indexy za koncom aktuálnej trasy
+     * patria bodom pridaným za jej koniec.
+     * 
+     * @param index Poradie bodu na trase lietadla.
+     * 
+     * @return Názov bodu.
+     */
+    public String getRoutePoint(int index) {
+        int routeSize = actualRoute.getRoutePoints().size();
+        if (index < routeSize) {
+            return actualRoute.getRoutePoints().get(index);
+        }
+        return directWaypoints.get(index - routeSize);
+    }
     
     /**
      * Vráti hodnotu, či je lietadlo vo fázy letu, kedy sa
@@ -153,7 +237,7 @@ public class Aircraft implements Serializable {
      */
     public boolean isAircraftLanding() {
         return actualRoute.getRouteType() == AirportRouteTypesEnum.STAR
-                && actualRoute.getRoutePoints().size() <= 1;
+                && getRouteLength() - routeCursor <= 1;
     }
 
     /**
@@ -296,36 +380,36 @@ public class Aircraft implements Serializable {
     }
 
     /**
-     * Vráti vertikálnu pozíciu lietadla vo vzdušnom priestore.
+     * Vráti zemepisnú šírku lietadla.
      * 
-     * @return Vertikálna pozícia lietadla vo vzdušnom priestore. 
+     * @return Zemepisná šírka lietadla v stupňoch.
      */
     public double getLatitude() {
         return latitude;
     }
 
     /**
-     * Nastavuje vertikálnu pozíciu lietadla vo vzdušnom priestore.
+     * Nastavuje zemepisnú šírku lietadla.
      * 
-     * @param latitude Vertikálna pozícia lietadla vo vzdušnom priestore. 
+     * @param latitude Zemepisná šírka lietadla v stupňoch.
      */
     public void setLatitude(double latitude) {
         this.latitude = latitude;
     }
 
     /**
-     * Vráti horizontálnu pozíciu lietadla vo vzdušnom priestore
+     * Vráti zemepisnú dĺžku lietadla.
      * 
-     * @return Horizontálna pozícia lietadla vo vzdušnom priestore. 
+     * @return Zemepisná dĺžka lietadla v stupňoch.
      */
     public double getLongitude() {
         return longitude;
     }
 
     /**
-     * Nastavuje horizontálnu pozíciu lietadla vo vzdušnom priestore.
+     * Nastavuje zemepisnú dĺžku lietadla.
      * 
-     * @param longitude Hodnota horizontálnej pozície lietadla.
+     * @param longitude Zemepisná dĺžka lietadla v stupňoch.
      */
     public void setLongitude(double longitude) {
         this.longitude = longitude;
@@ -422,22 +506,31 @@ public class Aircraft implements Serializable {
     }
 
     /**
-     * Vráti zoznam všetkých bodov, ktoré boli zaznamená
+     * Vráti posledné body, ktoré boli zaznamenané
      * na trase, ktorú lietadlo už preletelo.
      * 
-     * @return Spájaný zoznam s koordinátmi preletenej trasy.
+     * @return Kruhový zásobník s koordinátmi preletenej trasy.
      */
-    public List<Point> getRouteTrail() {
+    public RouteTrail getRouteTrail() {
         return routeTrail;
     }
 
     /**
-     * Vráti bod, na ktorý smeruje smerová šípka lietadla.
+     * Vráti zemepisný kurz lietadla.
      * 
-     * @return koordináty smerovej šípky lietadla.
+     * @return Kurz lietadla v stupňoch od severu v smere hodinových ručičiek.
      */
-    public Point getDirectionLine() {
-        return directionLine;
+    public double getHeading() {
+        return heading;
+    }
+
+    /**
+     * Nastavuje zemepisný kurz lietadla.
+     * 
+     * @param heading Kurz lietadla v stupňoch od severu v smere hodinových ručičiek.
+     */
+    public void setHeading(double heading) {
+        this.heading = heading;
     }
 
     /**
@@ -476,4 +569,60 @@ public class Aircraft implements Serializable {
         this.goingAround = goingAround;
     }
 
+    /**
+     * Vráti hodnotu, či je narušená separácia lietadla od iného lietadla.
+     * 
+     * @return True, ak je iné lietadlo bližšie, ako dovoľuje minimálna separácia.
+     */
+    public boolean isSeparationLost() {
+        return separationLost;
+    }
+
+    /**
+     * Nastavuje, či je narušená separácia lietadla od iného lietadla.
+     * 
+     * @param separationLost True, ak je iné lietadlo bližšie, ako dovoľuje minimálna separácia.
+     */
+    public void setSeparationLost(boolean separationLost) {
+        this.separationLost = separationLost;
+    }
+
+    /**
+     * Vráti index bodu aktuálnej trasy, na ktorý lietadlo práve smeruje.
+     * 
+     * @return Index ďalšieho bodu na aktuálnej trase.
+     */
+    public int getRouteCursor() {
+        return routeCursor;
+    }
+
+    /**
+     * Nastavuje index bodu aktuálnej trasy, na ktorý lietadlo smeruje.
+     * 
+     * @param routeCursor Index ďalšieho bodu na aktuálnej trase.
+     */
+    public void setRouteCursor(int routeCursor) {
+        this.routeCursor = routeCursor;
+    }
+
+    /**
+     * Vráti body pridané za koniec aktuálnej trasy lietadla.
+     * 
+     * @return Nemodifikovateľný zoznam názvov bodov.
+     */
+    public List<String> getDirectWaypoints() {
+        return directWaypoints;
+    }
+
+    /**
+     * Nastavuje body, ktoré lietadlo poletí po poslednom bode aktuálnej trasy.
+     * 
+     * @param directWaypoints Zoznam názvov bodov.
+     */
+    public void setDirectWaypoints(List<String> directWaypoints) {
+        this.directWaypoints = directWaypoints.isEmpty()
+                ? Collections.<String>emptyList()
+                : Collections.unmodifiableList(new ArrayList<String>(directWaypoints));
+    }
+
 }
@@ -1,14 +1,29 @@
 package net.robobalasko.letiskoserv.lietadla;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import net.robobalasko.letiskoserv.navigacia.Airport;
 import net.robobalasko.letiskoserv.navigacia.AirportRouteTypesEnum;
 import net.robobalasko.letiskoserv.navigacia.Route;
+import net.robobalasko.letiskoserv.navigacia.RouteNotLoadedException;
 
 /**
  * Trieda, ktorá pre každé radarové stanovište náhodne generuje lietadlá.
  *
+ * Aerolínky a trasy sa vyberajú podľa svojich váh z tabuliek aliasovej metódy, ktoré sa zostavia
+ * vopred pre každé letisko a typ trasy. Letiská odletu a príletu sa vyberajú rovnomerne z polí
+ * ostatných letísk, ktoré majú odletové, resp. príletové trasy, a vyhľadávajú podľa ICAO kódu v mape. Vygenerovanie lietadla tak trvá konštantný
+ * čas bez ohľadu na počet letísk a trás a vždy skončí, aj keď sa simuluje jediné letisko. Keď sa
+ * zmení zoznam simulovaných letísk, simulácia tabuľky prestaví metódou {@code setConnectedAirports}.
+ *
  * @author rbalasko
  */
 public class AircraftGenerator {
@@ -19,9 +34,35 @@ public class AircraftGenerator {
     private final String airportICAO;
 
     /**
-     * Zoznam letísk, po ktorých môžu lietadla medzi radarmi lietať.
+     * Letiská okrem letiska generátora, ktoré majú príletové trasy a môžu byť cieľom odletu.
+     */
+    private Airport[] destinationAirports;
+
+    /**
+     * Letiská okrem letiska generátora, ktoré majú odletové trasy a môžu byť východiskom príletu.
+     */
+    private Airport[] originAirports;
+
+    /**
+     * Údaj, či má letisko generátora odletové trasy a odlet má kam letieť.
+     */
+    private boolean departuresPossible;
+
+    /**
+     * Údaj, či má letisko generátora príletové trasy a prílet má odkiaľ prísť.
+     */
+    private boolean arrivalsPossible;
+
+    /**
+     * Letiská, po ktorých môžu lietadlá lietať, vrátane letiska generátora podľa ICAO kódu
+     * písaného veľkými písmenami.
      */
-    private final List<Airport> connectedAirports;
+    private Map<String, Airport> airportsByIcao;
+
+    /**
+     * Tabuľky pre výber trasy podľa ICAO kódu letiska písaného veľkými písmenami a typu trasy.
+     */
+    private Map<String, Map<AirportRouteTypesEnum, RouteTable>> routeTables;
 
     /**
      * Letisko, s ktorým generátor pracuje po svojom zapnutí.
@@ -40,6 +81,16 @@ public class AircraftGenerator {
      */
     private final AirlineIcaoCodeEnum[] airlineIcaoCodes;
 
+    /**
+     * Tabuľka pre výber aerolínky podľa jej váhy v premávke.
+     */
+    private final AliasTable airlineTable;
+
+    /**
+     * Prideľovač volacích znakov zdieľaný všetkými letiskami.
+     */
+    private final CallsignAllocator callsignAllocator;
+
     /**
      * Genetárot náhodných čísel, ktorý sa využíva
      * pre náhodné generovanie skoro vo všetkých metódach triedy.
@@ -53,15 +104,85 @@ public class AircraftGenerator {
      * @param airportICAO ICAO kód letiska, pre ktoré tento generátor generuje letiská
      * @param loadedAirport Letisko, s ktorým generátor pracuje po zapnutí
      * @param connectedAirports Letiská, ktoré su dostupné pre lety
+     * @param callsignAllocator Prideľovač volacích znakov zdieľaný všetkými letiskami
+     * @param random Generátor náhodných čísel letiska
      */
     public AircraftGenerator(String airportICAO, Airport loadedAirport,
-            List<Airport> connectedAirports) {
+            List<Airport> connectedAirports, CallsignAllocator callsignAllocator, Random random) {
         this.airportICAO = airportICAO;
         this.loadedAirport = loadedAirport;
-        this.connectedAirports = connectedAirports;
         this.aircraftTypes = AircraftTypeEnum.values();
         this.airlineIcaoCodes = AirlineIcaoCodeEnum.values();
-        this.rand = new Random();
+        double[] airlineWeights = new double[airlineIcaoCodes.length];
+        for (int i = 0; i < airlineIcaoCodes.length; i++) {
+            airlineWeights[i] = airlineIcaoCodes[i].getWeight();
+        }
+        this.airlineTable = new AliasTable(airlineWeights);
+        this.callsignAllocator = callsignAllocator;
+        this.rand = random;
+        setConnectedAirports(connectedAirports);
+    }
+
+    /**
+     * Prestaví tabuľky letísk a trás podľa nového zoznamu letísk, po ktorých môžu lietadlá lietať.
+     * Letisko generátora sa do tabuliek zaradí vždy, aj keď v zozname nie je. Letisko bez príletových
+     * trás nebude cieľom odletov a letisko bez odletových trás nebude východiskom príletov.
+     *
+     * @param connectedAirports Letiská, ktoré sú dostupné pre lety.
+     */
+    public final void setConnectedAirports(List<Airport> connectedAirports) {
+        List<Airport> others = new ArrayList<Airport>(connectedAirports.size());
+        Map<String, Airport> byIcao = new HashMap<String, Airport>();
+        Map<String, Map<AirportRouteTypesEnum, RouteTable>> tables =
+                new HashMap<String, Map<AirportRouteTypesEnum, RouteTable>>();
+        byIcao.put(key(airportICAO), loadedAirport);
+        tables.put(key(airportICAO), buildRouteTables(loadedAirport));
+        for (Airport airport : connectedAirports) {
+            String icao = key(airport.getIcaoCode());
+            if (byIcao.containsKey(icao)) {
+                continue;
+            }
+            others.add(airport);
+            byIcao.put(icao, airport);
+            tables.put(icao, buildRouteTables(airport));
+        }
+        // Poradie letísk nesmie závisieť od poradia ich načítania, inak by rovnaké semeno nedalo rovnakú prevádzku
+        Collections.sort(others, new Comparator<Airport>() {
+            @Override
+            public int compare(Airport first, Airport second) {
+                return first.getIcaoCode().compareToIgnoreCase(second.getIcaoCode());
+            }
+        });
+        List<Airport> destinations = new ArrayList<Airport>(others.size());
+        List<Airport> origins = new ArrayList<Airport>(others.size());
+        for (Airport airport : others) {
+            Map<AirportRouteTypesEnum, RouteTable> airportTables = tables.get(key(airport.getIcaoCode()));
+            if (airportTables.containsKey(AirportRouteTypesEnum.STAR)) {
+                destinations.add(airport);
+            }
+            if (airportTables.containsKey(AirportRouteTypesEnum.SID)) {
+                origins.add(airport);
+            }
+        }
+        Map<AirportRouteTypesEnum, RouteTable> ownTables = tables.get(key(airportICAO));
+        boolean ownSids = ownTables.containsKey(AirportRouteTypesEnum.SID);
+        boolean ownStars = ownTables.containsKey(AirportRouteTypesEnum.STAR);
+        this.destinationAirports = destinations.toArray(new Airport[destinations.size()]);
+        this.originAirports = origins.toArray(new Airport[origins.size()]);
+        this.departuresPossible = ownSids && (!destinations.isEmpty() || ownStars);
+        this.arrivalsPossible = ownStars && (!origins.isEmpty() || ownSids);
+        this.airportsByIcao = byIcao;
+        this.routeTables = tables;
+        if (!departuresPossible) {
+            Logger.getLogger(AircraftGenerator.class.getName()).log(Level.WARNING,
+                    "The airport {0} lacks the routes for departures, no departures will be generated.",
+                    airportICAO);
+        }
+        if (!arrivalsPossible) {
+            Logger.getLogger(AircraftGenerator.class.getName()).log(Level.WARNING,
+                    "The airport {0} lacks the routes for arrivals, no arrivals will be generated.",
+                    airportICAO);
+        }
     }
 
     /**
@@ -73,45 +194,126 @@ public class AircraftGenerator {
      *
      * @param commercial Definuje, či sa má generovať komerčný let.
      *
-     * @return Vytvorené lietadlo ako {@code Aircraft} objekt.
+     * @return Vytvorené lietadlo ako {@code Aircraft} objekt alebo null, ak nie je voľný volací znak
+     *         alebo letisko nemá odletové trasy ani cieľ s príletovými trasami.
      */
     public Aircraft generateRandomAircraft(boolean commercial) {
+        if (!departuresPossible) {
+            return null;
+        }
+        String callSign = generateRandomCallsign(commercial);
+        if (callSign == null) {
+            return null;
+        }
         Aircraft aircraft = new Aircraft();
         aircraft.setAircraftType(aircraftTypes[rand.nextInt(aircraftTypes.length)]);
-        aircraft.setCallSign(generateRandomCallsign(commercial));
+        aircraft.setCallSign(callSign);
         aircraft.setDepAirport(airportICAO);
-        aircraft.setArrAirport(generateRandomArrAirport());
+        aircraft.setArrAirport(generateRandomConnectedAirport(destinationAirports));
         aircraft.setFinalFlightLevel(generateRandomRequestedFlightLevel(commercial));
         aircraft.setActualFlightLevel(0);
         aircraft.setFinalAirSpeed(generateRandomRequestedSpeed(commercial));
         aircraft.setActualAirSpeed(0);
         aircraft.setSidRoute(generateRandomRoute(loadedAirport, AirportRouteTypesEnum.SID));
-        Airport destAirport = getDestinationAirport(aircraft);
+        Airport destAirport = getConnectedAirport(aircraft.getArrAirport());
         aircraft.setStarRoute(generateRandomRoute(destAirport, AirportRouteTypesEnum.STAR));
         aircraft.setActualRoute(aircraft.getSidRoute());
         return aircraft;
     }
 
     /**
-     * Vygeneruje pre generované lietadlo náhodný volací znak.
+     * Generuje náhodné lietadlo, ktoré prilieta na letisko generátora z iného letiska.
+     *
+     * Lietadlo už letí v požadovanej výške a rýchlosti, má povolenie na odlet a jeho aktuálnou
+     * trasou je náhodná príletová trasa letiska. Polohu mu nastaví simulácia podľa prvého bodu trasy.
+     *
+     * @param commercial Definuje, či sa má generovať komerčný let.
+     *
+     * @return Vytvorené lietadlo ako {@code Aircraft} objekt alebo null, ak nie je voľný volací znak
+     *         alebo letisko nemá príletové trasy ani východisko s odletovými trasami.
+     */
+    public Aircraft generateArrivingAircraft(boolean commercial) {
+        if (!arrivalsPossible) {
+            return null;
+        }
+        String callSign = generateRandomCallsign(commercial);
+        if (callSign == null) {
+            return null;
+        }
+        Aircraft aircraft = new Aircraft();
+        aircraft.setAircraftType(aircraftTypes[rand.nextInt(aircraftTypes.length)]);
+        aircraft.setCallSign(callSign);
+        aircraft.setDepAirport(generateRandomConnectedAirport(originAirports));
+        aircraft.setArrAirport(airportICAO);
+        aircraft.setFinalFlightLevel(generateRandomRequestedFlightLevel(commercial));
+        aircraft.setActualFlightLevel(aircraft.getFinalFlightLevel());
+        aircraft.setFinalAirSpeed(generateRandomRequestedSpeed(commercial));
+        aircraft.setActualAirSpeed(aircraft.getFinalAirSpeed());
+        Airport depAirport = getConnectedAirport(aircraft.getDepAirport());
+        aircraft.setSidRoute(generateRandomRoute(depAirport, AirportRouteTypesEnum.SID));
+        aircraft.setStarRoute(generateRandomRoute(loadedAirport, AirportRouteTypesEnum.STAR));
+        aircraft.setActualRoute(aircraft.getStarRoute());
+        aircraft.setClearedForDeparture(true);
+        return aircraft;
+    }
+
+    /**
+     * Vytvorí lietadlo letu z letového plánu, ktoré odlieta z letiska generátora.
+     *
+     * Údaje, ktoré letový plán neurčuje, sa vyberú náhodne ako pri komerčnom lete. Let sa nevytvorí,
+     * ak letisko príletu nie je pripojené, niektorá zadaná trasa na letisku neexistuje alebo volací
+     * znak už má iné lietadlo.
+     *
+     * @param flight Let z letového plánu.
+     *
+     * @return Vytvorené lietadlo ako {@code Aircraft} objekt alebo null, ak let nie je možné vytvoriť.
+     */
+    public Aircraft generateScheduledAircraft(ScheduledFlight flight) {
+        Airport destAirport = getConnectedAirport(flight.getArrAirport());
+        Route sidRoute = findScheduledRoute(loadedAirport, flight.getSidRoute(), AirportRouteTypesEnum.SID);
+        Route starRoute = destAirport == null ? null
+                : findScheduledRoute(destAirport, flight.getStarRoute(), AirportRouteTypesEnum.STAR);
+        if (sidRoute == null || starRoute == null) {
+            Logger.getLogger(AircraftGenerator.class.getName()).log(Level.WARNING,
+                    "The scheduled flight {0} has an unknown destination or route and has been skipped.",
+                    flight.getCallSign());
+            return null;
+        }
+        if (!callsignAllocator.reserve(flight.getCallSign())) {
+            Logger.getLogger(AircraftGenerator.class.getName()).log(Level.WARNING,
+                    "The call sign of the scheduled flight {0} is already in use, the flight has been skipped.",
+                    flight.getCallSign());
+            return null;
+        }
+        Aircraft aircraft = new Aircraft();
+        aircraft.setAircraftType(flight.getAircraftType());
+        aircraft.setCallSign(flight.getCallSign());
+        aircraft.setDepAirport(airportICAO);
+        aircraft.setArrAirport(destAirport.getIcaoCode());
+        aircraft.setFinalFlightLevel(flight.getFlightLevel() > 0
+                ? flight.getFlightLevel() : generateRandomRequestedFlightLevel(true));
+        aircraft.setActualFlightLevel(0);
+        aircraft.setFinalAirSpeed(flight.getAirSpeed() > 0
+                ? flight.getAirSpeed() : generateRandomRequestedSpeed(true));
+        aircraft.setActualAirSpeed(0);
+        aircraft.setSidRoute(sidRoute);
+        aircraft.setStarRoute(starRoute);
+        aircraft.setActualRoute(sidRoute);
+        return aircraft;
+    }
+
+    /**
+     * Pridelí generovanému lietadlu voľný volací znak. Aerolínka komerčného letu sa vyberá
+     * podľa jej váhy v premávke.
      *
      * @param commercial Určuje či sa má generovať typ znaku pre komerčné lietadlo.
      *
-     * @return Vygynerovaný volací znak ako reťazec.
+     * @return Volací znak ako reťazec alebo null, ak nie je voľný.
      */
     private String generateRandomCallsign(boolean commercial) {
-        int randNum = rand.nextInt(airlineIcaoCodes.length);
-        String sign = (commercial)
-                ? airlineIcaoCodes[randNum].toString()
-                : "OM-";
-        for (int i = 0; i < 3; i++) {
-            if (commercial) {
-                sign += rand.nextInt(9);
-            } else {
-                sign += (char) (rand.nextInt(('Z' - 'A') + 1) + 'A');
-            }
-        }
-        return sign;
+        return commercial
+                ? callsignAllocator.allocate(airlineIcaoCodes[airlineTable.sample(rand)])
+                : callsignAllocator.allocateGeneralAviation();
     }
 
     /**
@@ -154,57 +356,115 @@ public class AircraftGenerator {
     }
 
     /**
-     * So zoznamu všetkých letísk vyberie náhodné letisko príletu.
-     * 
-     * @return Reťazec s ICAO kódom letiska príletu.
+     * Vyberie náhodné iné letisko, než je letisko generátora. Ak také letisko nie je,
+     * vráti letisko generátora, lietadlo potom letí okruh späť na svoje letisko.
+     *
+     * @param candidates Letiská, ktoré majú trasy potrebné pre let.
+     *
+     * @return Reťazec s ICAO kódom letiska príletu alebo odletu.
      */
-    private String generateRandomArrAirport() {
-        int random = rand.nextInt(connectedAirports.size());
-        String generatedICAO = null;
-        while ((generatedICAO = connectedAirports.get(random).getIcaoCode()).equals(airportICAO)) {
-            random = rand.nextInt(connectedAirports.size());
+    private String generateRandomConnectedAirport(Airport[] candidates) {
+        if (candidates.length == 0) {
+            return loadedAirport.getIcaoCode();
         }
-        return generatedICAO;
+        return candidates[rand.nextInt(candidates.length)].getIcaoCode();
     }
 
     /**
-     * So zoznamu všetkých trás pre letisko vygeneruje náhodnú trasu
-     * podľa špecifikovaného typu trasy.
+     * Vyberie pre letisko náhodnú trasu podľa špecifikovaného typu trasy a váh trás.
+     * 
+     * Trasy letiska sa nemenia, lietadlo preto dostane priamo zdieľaný objekt trasy.
      * 
      * @param airport Letisko, z ktorého trás sa má trasa vybrať.
      * @param routeType Typ trasy aká sa má vygenerovať.
      * 
-     * @return Vygenerovaná trasa ako {@code Route} objekt.
+     * @return Vygenerovaná trasa ako {@code Route} objekt alebo null, ak letisko trasu daného typu nemá.
      */
     private Route generateRandomRoute(Airport airport,
             AirportRouteTypesEnum routeType) {
-        Route generatedRoute = null;
-        List<Route> availableRoutes = airport.getRoutes();
-        int random = rand.nextInt(availableRoutes.size());
-        while ((generatedRoute = availableRoutes.get(random))
-                .getRouteType() != routeType) {
-            random = rand.nextInt(availableRoutes.size());
-        }
-        return generatedRoute;
+        RouteTable table = routeTables.get(key(airport.getIcaoCode())).get(routeType);
+        return table == null ? null : table.routes[table.alias.sample(rand)];
     }
 
     /**
-     * Získa objekt letiska destinácie podľa ICAO kódu,
-     * ktorý má lietadlo zapísaný vo svojom pláne.
+     * Nájde trasu letiska zadanú v letovom pláne. Ak ju letový plán neurčuje, vyberie náhodnú trasu.
      *
-     * @param aircraft Objekt lietadla, na ktorom sa destinácia vyhľadáva.
+     * @param airport Letisko, ktorému trasa patrí.
+     * @param routeName Názov trasy alebo null.
+     * @param routeType Typ trasy.
+     *
+     * @return Trasa alebo null, ak letisko trasu s týmto názvom a typom nemá.
+     */
+    private Route findScheduledRoute(Airport airport, String routeName, AirportRouteTypesEnum routeType) {
+        if (routeName == null || routeName.isEmpty()) {
+            return generateRandomRoute(airport, routeType);
+        }
+        try {
+            Route route = airport.getRouteByName(routeName);
+            return route.getRouteType() == routeType ? route : null;
+        } catch (RouteNotLoadedException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Získa objekt letiska podľa ICAO kódu, ktorý má lietadlo zapísaný vo svojom pláne.
+     *
+     * @param icaoCode ICAO kód letiska odletu alebo príletu.
      *
      * @return Letisko ako {@code Airport} objekt.
      */
-    private Airport getDestinationAirport(Aircraft aircraft) {
-        Airport airport = null;
-        for (Airport arpt : connectedAirports) {
-            String icao = arpt.getIcaoCode();
-            if (aircraft.getArrAirport().equals(icao)) {
-                airport = arpt;
+    private Airport getConnectedAirport(String icaoCode) {
+        return airportsByIcao.get(key(icaoCode));
+    }
+
+    /**
+     * Zostaví tabuľky pre výber trasy letiska pre všetky typy trás, ktoré letisko má.
+     *
+     * @param airport Letisko.
+     *
+     * @return Tabuľky podľa typu trasy.
+     */
+    private static Map<AirportRouteTypesEnum, RouteTable> buildRouteTables(Airport airport) {
+        Map<AirportRouteTypesEnum, RouteTable> tables =
+                new EnumMap<AirportRouteTypesEnum, RouteTable>(AirportRouteTypesEnum.class);
+        for (AirportRouteTypesEnum routeType : AirportRouteTypesEnum.values()) {
+            List<Route> routes = airport.getRoutesByType(routeType);
+            if (!routes.isEmpty()) {
+                tables.put(routeType, new RouteTable(routes));
             }
         }
-        return airport;
+        return tables;
+    }
+
+    private static String key(String icaoCode) {
+        return icaoCode.toUpperCase();
+    }
+
+    /**
+     * Trasy jedného typu na jednom letisku spolu s tabuľkou pre ich výber podľa váh.
+     */
+    private static final class RouteTable {
+
+        /**
+         * Trasy v poradí stĺpcov tabuľky.
+         */
+        private final Route[] routes;
+
+        /**
+         * Tabuľka pre výber trasy podľa jej váhy.
+         */
+        private final AliasTable alias;
+
+        RouteTable(List<Route> routes) {
+            this.routes = routes.toArray(new Route[routes.size()]);
+            double[] weights = new double[this.routes.length];
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] = this.routes[i].getWeight();
+            }
+            this.alias = new AliasTable(weights);
+        }
+
     }
 
 }
@@ -11,25 +11,44 @@ public enum AirlineIcaoCodeEnum {
 	/**
          * American Airlines
          */
-	AAL,
+	AAL(1),
         /**
          * British Airways
          */
-	BAW,
+	BAW(2),
         /**
          * České aerolínie
          */
-	CSA,
+	CSA(3),
         /**
          * Deutsche Lufthansa
          */
-	DLH,
+	DLH(3),
         /**
          * Air Slovakia
          */
-	SVK,
+	SVK(4),
         /**
          * United Airlines
          */
-	UAL,
+	UAL(1);
+
+        /**
+         * Relatívna váha aerolínky v premávke, podľa ktorej generátor vyberá
+         * aerolínku komerčného letu.
+         */
+        private final double weight;
+
+        private AirlineIcaoCodeEnum(double weight) {
+                this.weight = weight;
+        }
+
+        /**
+         * Vráti relatívnu váhu aerolínky v premávke.
+         *
+         * @return Váha aerolínky.
+         */
+        public double getWeight() {
+                return weight;
+        }
 }
@@ -0,0 +1,97 @@
+package net.robobalasko.letiskoserv.lietadla;
+
+import java.util.Random;
+
+/**
+ * Tabuľka pre výber náhodného prvku podľa váh aliasovou metódou (Vose).
+ *
+ * Tabuľka má pre každý prvok jeden stĺpec. Stĺpec s pravdepodobnosťou {@code probability}
+ * vráti svoj prvok, inak prvok zo svojho aliasu. Výber prvku tak potrebuje len dve náhodné
+ * čísla a trvá konštantný čas bez ohľadu na počet prvkov, zostavenie tabuľky trvá lineárny čas.
+ *
+ * @author rbalasko
+ */
+final class AliasTable {
+
+    /**
+     * Pravdepodobnosť, s ktorou stĺpec vráti svoj vlastný prvok.
+     */
+    private final double[] probability;
+
+    /**
+     * Prvok, ktorý stĺpec vráti, ak nevráti svoj vlastný.
+     */
+    private final int[] alias;
+
+    /**
+     * Základný konštruktor zostaví tabuľku zo zadaných váh. Záporná váha sa berie ako nulová,
+     * ak sú všetky váhy nulové, prvky sa vyberajú rovnomerne.
+     *
+     * @param weights Váhy prvkov, aspoň jedna.
+     */
+    AliasTable(double[] weights) {
+        int count = weights.length;
+        this.probability = new double[count];
+        this.alias = new int[count];
+        double total = 0;
+        for (double weight : weights) {
+            total += Math.max(weight, 0);
+        }
+
+        double[] scaled = new double[count];
+        int[] small = new int[count];
+        int[] large = new int[count];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < count; i++) {
+            scaled[i] = total > 0 ? Math.max(weights[i], 0) * count / total : 1;
+            if (scaled[i] < 1) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+        // Každý malý stĺpec sa doplní zvyškom niektorého veľkého stĺpca
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1;
+            if (scaled[more] < 1) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        // Zvyšné stĺpce sú plné, malé tu zostanú len pre zaokrúhľovacie chyby
+        while (largeCount > 0) {
+            probability[large[--largeCount]] = 1;
+        }
+        while (smallCount > 0) {
+            probability[small[--smallCount]] = 1;
+        }
+    }
+
+    /**
+     * Vyberie náhodný prvok podľa váh.
+     *
+     * @param random Generátor náhodných čísel.
+     *
+     * @return Index prvku v poli váh.
+     */
+    int sample(Random random) {
+        int column = random.nextInt(probability.length);
+        return random.nextDouble() < probability[column] ? column : alias[column];
+    }
+
+    /**
+     * Vráti počet prvkov tabuľky.
+     *
+     * @return Počet prvkov.
+     */
+    int size() {
+        return probability.length;
+    }
+
+}
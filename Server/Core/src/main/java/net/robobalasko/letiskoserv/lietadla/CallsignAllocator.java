@@ -0,0 +1,363 @@
+package net.robobalasko.letiskoserv.lietadla;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Prideľovač volacích znakov, ktorý zaručuje, že žiadne dve lietadlá na serveri nemajú rovnaký
+ * volací znak.
+ *
+ * Každá aerolínka má vlastný zásobník čísel letov 000 - 999 a všeobecné letectvo zásobník
+ * registrácií OM-AAA - OM-ZZZ. Zásobníky sa pri vytvorení náhodne zamiešajú, pridelenie
+ * volacieho znaku preto len vyberie posledné voľné číslo zásobníka. Uvoľnené číslo sa vráti
+ * na náhodné miesto medzi voľné čísla, aby sa rovnaký volací znak hneď znova nepridelil.
+ * Pridelenie, vyhradenie konkrétneho volacieho znaku aj uvoľnenie tak trvá konštantný čas.
+ *
+ * Každý volací znak zo zásobníkov má aj celočíselný identifikátor, ktorý sa dá z volacieho znaku
+ * vypočítať a späť, bez vyhľadávania v tabuľke a bez inštancie prideľovača. Identifikátor je preto
+ * možné posielať klientom namiesto reťazca a používať ako kľúč. Volací znak mimo zásobníkov,
+ * napr. z letového plánu, dostane pri vyhradení identifikátor za identifikátormi zásobníkov.
+ *
+ * Prideľovač je zdieľaný simuláciami všetkých letísk, jeho metódy sú preto synchronizované.
+ *
+ * @author rbalasko
+ */
+public class CallsignAllocator {
+
+    /**
+     * Identifikátor reťazca, ktorý nie je volacím znakom prideľovača.
+     */
+    public static final int NO_ID = -1;
+
+    /**
+     * Počet bitov identifikátora, ktoré určujú číslo v zásobníku.
+     */
+    private static final int NUMBER_BITS = 16;
+
+    /**
+     * Počet číslic čísla letu komerčného volacieho znaku.
+     */
+    private static final int COMMERCIAL_DIGITS = 3;
+
+    /**
+     * Počet písmen registrácie lietadla všeobecného letectva.
+     */
+    private static final int GENERAL_AVIATION_LETTERS = 3;
+
+    /**
+     * Počet písmen abecedy, z ktorých sa skladá registrácia.
+     */
+    private static final int ALPHABET = 'Z' - 'A' + 1;
+
+    /**
+     * Predpona volacích znakov lietadiel všeobecného letectva.
+     */
+    private static final String GENERAL_AVIATION_PREFIX = "OM-";
+
+    /**
+     * Predpona volacích znakov podľa zásobníka, posledný zásobník patrí všeobecnému letectvu.
+     */
+    private static final String[] PREFIXES;
+
+    /**
+     * Zásobníky podľa predpony volacieho znaku.
+     */
+    private static final Map<String, Integer> POOLS_BY_PREFIX;
+
+    /**
+     * Identifikátor prvého volacieho znaku mimo zásobníkov.
+     */
+    private static final int FIRST_FOREIGN_ID;
+
+    static {
+        AirlineIcaoCodeEnum[] airlines = AirlineIcaoCodeEnum.values();
+        PREFIXES = new String[airlines.length + 1];
+        POOLS_BY_PREFIX = new HashMap<String, Integer>();
+        for (int pool = 0; pool < PREFIXES.length; pool++) {
+            PREFIXES[pool] = pool < airlines.length ? airlines[pool].toString() : GENERAL_AVIATION_PREFIX;
+            POOLS_BY_PREFIX.put(PREFIXES[pool], pool);
+        }
+        FIRST_FOREIGN_ID = PREFIXES.length << NUMBER_BITS;
+    }
+
+    /**
+     * Zásobníky podľa predpony, na začiatku každého sú zamiešané voľné čísla.
+     */
+    private final int[][] pools;
+
+    /**
+     * Pozícia každého čísla v jeho zásobníku.
+     */
+    private final int[][] positions;
+
+    /**
+     * Počet voľných čísel na začiatku každého zásobníka.
+     */
+    private final int[] freeCounts;
+
+    /**
+     * Príznak pridelených čísel podľa zásobníka a čísla.
+     */
+    private final boolean[][] allocated;
+
+    /**
+     * Identifikátory vyhradených volacích znakov mimo zásobníkov.
+     */
+    private final Map<String, Integer> foreignIds;
+
+    /**
+     * Vyhradené volacie znaky mimo zásobníkov podľa identifikátora.
+     */
+    private final Map<Integer, String> foreignCallSigns;
+
+    /**
+     * Identifikátor, ktorý dostane ďalší vyhradený volací znak mimo zásobníkov.
+     */
+    private int nextForeignId;
+
+    /**
+     * Generátor náhodných čísel pre miešanie zásobníkov.
+     */
+    private final Random random;
+
+    /**
+     * Základný konštruktor pripraví zamiešané zásobníky pre všetky aerolínky a všeobecné letectvo.
+     *
+     * @param random Generátor náhodných čísel pre miešanie zásobníkov.
+     */
+    public CallsignAllocator(Random random) {
+        int poolCount = PREFIXES.length;
+        this.pools = new int[poolCount][];
+        this.positions = new int[poolCount][];
+        this.freeCounts = new int[poolCount];
+        this.allocated = new boolean[poolCount][];
+        this.foreignIds = new HashMap<String, Integer>();
+        this.foreignCallSigns = new HashMap<Integer, String>();
+        this.nextForeignId = FIRST_FOREIGN_ID;
+        this.random = random;
+        for (int pool = 0; pool < poolCount; pool++) {
+            int size = poolSize(pool);
+            pools[pool] = new int[size];
+            positions[pool] = new int[size];
+            allocated[pool] = new boolean[size];
+            for (int number = 0; number < size; number++) {
+                pools[pool][number] = number;
+                positions[pool][number] = number;
+            }
+            // Fisher-Yates zamiešanie zásobníka
+            for (int i = size - 1; i > 0; i--) {
+                swap(pool, i, random.nextInt(i + 1));
+            }
+            freeCounts[pool] = size;
+        }
+    }
+
+    /**
+     * Pridelí voľný volací znak komerčného letu aerolínky.
+     *
+     * @param airline Aerolínka letu.
+     *
+     * @return Volací znak alebo null, ak aerolínka už nemá voľné číslo letu.
+     */
+    public synchronized String allocate(AirlineIcaoCodeEnum airline) {
+        return allocate(airline.ordinal());
+    }
+
+    /**
+     * Pridelí voľný volací znak lietadla všeobecného letectva.
+     *
+     * @return Volací znak alebo null, ak už nie je voľná žiadna registrácia.
+     */
+    public synchronized String allocateGeneralAviation() {
+        return allocate(PREFIXES.length - 1);
+    }
+
+    /**
+     * Vráti volací znak lietadla, ktoré opustilo simuláciu, medzi voľné volacie znaky.
+     *
+     * @param callSign Volací znak lietadla.
+     *
+     * @return True, ak bol volací znak pridelený a uvoľnil sa, false inak.
+     */
+    public synchronized boolean release(String callSign) {
+        int id = getPoolId(callSign);
+        if (id == NO_ID) {
+            Integer foreignId = foreignIds.remove(callSign);
+            if (foreignId == null) {
+                return false;
+            }
+            foreignCallSigns.remove(foreignId);
+            return true;
+        }
+        int pool = id >>> NUMBER_BITS;
+        int number = id & ((1 << NUMBER_BITS) - 1);
+        if (!allocated[pool][number]) {
+            return false;
+        }
+        allocated[pool][number] = false;
+        // Číslo je za voľnými číslami, presunie sa na ich koniec a potom na náhodné miesto medzi ne
+        int free = freeCounts[pool]++;
+        swap(pool, free, positions[pool][number]);
+        swap(pool, free, random.nextInt(free + 1));
+        return true;
+    }
+
+    /**
+     * Vyhradí konkrétny volací znak, napr. let z letového plánu, aby ho prideľovač nepridelil
+     * inému lietadlu. Volací znak sa po opustení simulácie uvoľní rovnako ako pridelený.
+     *
+     * @param callSign Volací znak lietadla.
+     *
+     * @return True, ak bol volací znak voľný, false ak je už pridelený alebo vyhradený.
+     */
+    public synchronized boolean reserve(String callSign) {
+        int id = getPoolId(callSign);
+        if (id == NO_ID) {
+            if (callSign == null || foreignIds.containsKey(callSign) || nextForeignId == Integer.MAX_VALUE) {
+                return false;
+            }
+            foreignIds.put(callSign, nextForeignId);
+            foreignCallSigns.put(nextForeignId, callSign);
+            nextForeignId++;
+            return true;
+        }
+        int pool = id >>> NUMBER_BITS;
+        int number = id & ((1 << NUMBER_BITS) - 1);
+        if (allocated[pool][number]) {
+            return false;
+        }
+        // Číslo sa vymení s posledným voľným číslom, čím sa ocitne za voľnými číslami
+        swap(pool, positions[pool][number], --freeCounts[pool]);
+        allocated[pool][number] = true;
+        return true;
+    }
+
+    /**
+     * Vráti celočíselný identifikátor prideleného alebo vyhradeného volacieho znaku.
+     *
+     * @param callSign Volací znak.
+     *
+     * @return Identifikátor alebo {@code NO_ID}, ak reťazec nie je volacím znakom zo zásobníkov
+     *         ani vyhradeným volacím znakom mimo nich.
+     */
+    public synchronized int getId(String callSign) {
+        int id = getPoolId(callSign);
+        if (id == NO_ID) {
+            Integer foreignId = foreignIds.get(callSign);
+            return foreignId == null ? NO_ID : foreignId;
+        }
+        return id;
+    }
+
+    /**
+     * Zostaví volací znak z jeho celočíselného identifikátora.
+     *
+     * @param id Identifikátor volacieho znaku.
+     *
+     * @return Volací znak alebo null, ak identifikátor nepatrí žiadnemu volaciemu znaku prideľovača.
+     */
+    public synchronized String getCallSign(int id) {
+        return id >= FIRST_FOREIGN_ID ? foreignCallSigns.get(id) : getPoolCallSign(id);
+    }
+
+    /**
+     * Vypočíta identifikátor volacieho znaku zo zásobníkov. Výpočet nepotrebuje inštanciu
+     * prideľovača, a preto dáva rovnaký výsledok na serveri aj u klienta.
+     *
+     * @param callSign Volací znak.
+     *
+     * @return Identifikátor alebo {@code NO_ID}, ak reťazec nie je volacím znakom zo zásobníkov.
+     */
+    public static int getPoolId(String callSign) {
+        if (callSign == null || callSign.length() < 3) {
+            return NO_ID;
+        }
+        Integer pool = POOLS_BY_PREFIX.get(callSign.substring(0, 3));
+        if (pool == null) {
+            return NO_ID;
+        }
+        boolean commercial = pool < PREFIXES.length - 1;
+        int length = commercial ? COMMERCIAL_DIGITS : GENERAL_AVIATION_LETTERS;
+        if (callSign.length() != PREFIXES[pool].length() + length) {
+            return NO_ID;
+        }
+        int number = 0;
+        for (int i = PREFIXES[pool].length(); i < callSign.length(); i++) {
+            char c = callSign.charAt(i);
+            if (commercial && c >= '0' && c <= '9') {
+                number = number * 10 + (c - '0');
+            } else if (!commercial && c >= 'A' && c <= 'Z') {
+                number = number * ALPHABET + (c - 'A');
+            } else {
+                return NO_ID;
+            }
+        }
+        return (pool << NUMBER_BITS) | number;
+    }
+
+    /**
+     * Zostaví volací znak zo zásobníkov z jeho identifikátora. Výpočet nepotrebuje inštanciu
+     * prideľovača.
+     *
+     * @param id Identifikátor volacieho znaku, napr. prijatý od druhej strany spojenia.
+     *
+     * @return Volací znak alebo null, ak identifikátor nepatrí žiadnemu volaciemu znaku zo zásobníkov.
+     */
+    public static String getPoolCallSign(int id) {
+        int pool = id >>> NUMBER_BITS;
+        int number = id & ((1 << NUMBER_BITS) - 1);
+        if (id < 0 || pool >= PREFIXES.length || number >= poolSize(pool)) {
+            return null;
+        }
+        boolean commercial = pool < PREFIXES.length - 1;
+        int length = commercial ? COMMERCIAL_DIGITS : GENERAL_AVIATION_LETTERS;
+        int base = commercial ? 10 : ALPHABET;
+        char[] sign = new char[length];
+        for (int i = length - 1; i >= 0; i--) {
+            sign[i] = (char) ((commercial ? '0' : 'A') + number % base);
+            number /= base;
+        }
+        return PREFIXES[pool] + new String(sign);
+    }
+
+    /**
+     * Pridelí posledné voľné číslo zásobníka.
+     */
+    private String allocate(int pool) {
+        if (freeCounts[pool] == 0) {
+            return null;
+        }
+        int number = pools[pool][--freeCounts[pool]];
+        allocated[pool][number] = true;
+        return getPoolCallSign((pool << NUMBER_BITS) | number);
+    }
+
+    /**
+     * Vymení dve pozície v zásobníku a aktualizuje pozície ich čísel.
+     */
+    private void swap(int pool, int first, int second) {
+        int[] values = pools[pool];
+        int value = values[first];
+        values[first] = values[second];
+        values[second] = value;
+        positions[pool][values[first]] = first;
+        positions[pool][values[second]] = second;
+    }
+
+    /**
+     * Vráti počet čísel v zásobníku.
+     */
+    private static int poolSize(int pool) {
+        return pool < PREFIXES.length - 1 ? power(10, COMMERCIAL_DIGITS) : power(ALPHABET, GENERAL_AVIATION_LETTERS);
+    }
+
+    private static int power(int base, int exponent) {
+        int result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= base;
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,322 @@
+package net.robobalasko.letiskoserv.lietadla;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+/**
+ * Prejdená trasa lietadla uložená v kruhovom zásobníku s pevnou kapacitou.
+ *
+ * Každý bod je zbalený do jedného čísla typu {@code long}, horných 32 bitov obsahuje
+ * zemepisnú šírku a dolných 32 bitov zemepisnú dĺžku v milióntinách stupňa. Po zaplnení zásobníka
+ * nový bod prepíše najstarší, takže pamäť ani dáta posielané klientom nerastú s dĺžkou letu.
+ *
+ * Trasa počíta všetky body, ktoré do nej kedy pribudli, a každé vymazanie. Podľa týchto
+ * počítadiel sa klientom posielajú len body pridané od poslednej odoslanej verzie.
+ *
+ * @author rbalasko
+ */
+public class RouteTrail implements Serializable {
+
+    /**
+     * Verzia serializovanej podoby triedy.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Predvolený počet bodov, ktoré si trasa pamätá.
+     */
+    public static final int DEFAULT_CAPACITY = 20;
+
+    /**
+     * Predvolená najväčšia kapacita trasy, kým ju server nenastaví podľa svojich nastavení.
+     */
+    public static final int DEFAULT_MAX_CAPACITY = 1000;
+
+    /**
+     * Počet milióntin stupňa v jednom stupni, v ktorých sa ukladajú súradnice bodov.
+     */
+    private static final double MICRODEGREES = 1000000.0;
+
+    /**
+     * Najväčšia kapacita trasy. Kapacita prijatá od druhej strany spojenia sa na ňu zníži,
+     * aby si odosielateľ nemohol vynútiť alokáciu ľubovoľne veľkého zásobníka.
+     */
+    private static volatile int maxCapacity = DEFAULT_MAX_CAPACITY;
+
+    /**
+     * Zbalené body trasy v kruhovom poradí.
+     */
+    private transient long[] points;
+
+    /**
+     * Index najstaršieho bodu v poli {@code points}.
+     */
+    private transient int head;
+
+    /**
+     * Počet bodov uložených v trase.
+     */
+    private transient int size;
+
+    /**
+     * Počet bodov, ktoré do trasy pribudli od jej posledného vymazania.
+     */
+    private transient long appendedCount;
+
+    /**
+     * Počet vymazaní trasy.
+     */
+    private transient int resetCount;
+
+    /**
+     * Vytvorí prázdnu trasu s predvolenou kapacitou.
+     */
+    public RouteTrail() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Vytvorí prázdnu trasu so zadanou kapacitou.
+     *
+     * @param capacity Počet bodov, ktoré si trasa pamätá.
+     */
+    public RouteTrail(int capacity) {
+        this.points = new long[limitCapacity(capacity)];
+    }
+
+    /**
+     * Vytvorí kópiu trasy.
+     *
+     * @param trail Trasa, ktorá sa má skopírovať.
+     */
+    public RouteTrail(RouteTrail trail) {
+        synchronized (trail) {
+            this.points = trail.points.clone();
+            this.head = trail.head;
+            this.size = trail.size;
+            this.appendedCount = trail.appendedCount;
+            this.resetCount = trail.resetCount;
+        }
+    }
+
+    /**
+     * Pridá na koniec trasy nový bod. Ak je trasa plná, najstarší bod sa zahodí.
+     * Bod zhodný s posledným bodom trasy sa nepridá.
+     *
+     * @param latitude Zemepisná šírka bodu v stupňoch.
+     * @param longitude Zemepisná dĺžka bodu v stupňoch.
+     */
+    public synchronized void add(double latitude, double longitude) {
+        long packed = pack(latitude, longitude);
+        if (size > 0 && points[(head + size - 1) % points.length] == packed) {
+            return;
+        }
+        append(packed);
+    }
+
+    /**
+     * Pridá na koniec trasy zbalené body v poradí, v akom sú v poli.
+     *
+     * @param packedPoints Zbalené body.
+     */
+    public synchronized void addAll(long[] packedPoints) {
+        for (long packed : packedPoints) {
+            append(packed);
+        }
+    }
+
+    /**
+     * Vymaže všetky body trasy.
+     */
+    public synchronized void clear() {
+        head = 0;
+        size = 0;
+        appendedCount = 0;
+        resetCount++;
+    }
+
+    /**
+     * Zmení kapacitu trasy. Ak sa do novej kapacity všetky body nezmestia, zostanú len najnovšie.
+     * Kapacita väčšia ako {@code getMaxCapacity} sa na ňu zníži.
+     *
+     * @param capacity Nový počet bodov, ktoré si trasa pamätá.
+     */
+    public synchronized void setCapacity(int capacity) {
+        capacity = limitCapacity(capacity);
+        if (capacity == points.length) {
+            return;
+        }
+        long[] latest = getPackedPoints(0);
+        int kept = Math.min(latest.length, capacity);
+        points = new long[capacity];
+        System.arraycopy(latest, latest.length - kept, points, 0, kept);
+        head = 0;
+        size = kept;
+    }
+
+    /**
+     * Vráti zbalené body trasy od najstaršieho po najnovší.
+     *
+     * @return Kópia bodov trasy.
+     */
+    public synchronized long[] getPackedPoints() {
+        return getPackedPoints(0);
+    }
+
+    /**
+     * Vráti zbalené body, ktoré do trasy pribudli potom, ako v nej bolo zadaný počet bodov.
+     * Body, ktoré sa už v trase nenachádzajú, sa vynechajú.
+     *
+     * @param sinceAppended Počet bodov pridaných od vymazania trasy v čase poslednej odoslanej verzie.
+     *
+     * @return Kópia nových bodov od najstaršieho po najnovší.
+     */
+    public synchronized long[] getPackedPointsSince(long sinceAppended) {
+        long newPoints = appendedCount - sinceAppended;
+        return getPackedPoints(size - (int) Math.min(Math.max(newPoints, 0), size));
+    }
+
+    /**
+     * Vráti počet bodov uložených v trase.
+     *
+     * @return Počet bodov.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Vráti počet bodov, ktoré si trasa pamätá.
+     *
+     * @return Kapacita trasy.
+     */
+    public synchronized int getCapacity() {
+        return points.length;
+    }
+
+    /**
+     * Nastaví najväčšiu kapacitu, ktorú môže mať ktorákoľvek trasa. Server ju nastavuje
+     * na dĺžku prejdenej trasy zo svojich nastavení.
+     *
+     * @param capacity Najväčší počet bodov trasy, aspoň 1.
+     */
+    public static void setMaxCapacity(int capacity) {
+        maxCapacity = Math.max(1, capacity);
+    }
+
+    /**
+     * Vráti najväčšiu kapacitu, ktorú môže mať ktorákoľvek trasa.
+     *
+     * @return Najväčší počet bodov trasy.
+     */
+    public static int getMaxCapacity() {
+        return maxCapacity;
+    }
+
+    /**
+     * Vráti počet bodov, ktoré do trasy pribudli od jej posledného vymazania.
+     *
+     * @return Počet pridaných bodov.
+     */
+    public synchronized long getAppendedCount() {
+        return appendedCount;
+    }
+
+    /**
+     * Vráti počet vymazaní trasy.
+     *
+     * @return Počet vymazaní.
+     */
+    public synchronized int getResetCount() {
+        return resetCount;
+    }
+
+    /**
+     * Zbalí pozíciu bodu do jedného čísla.
+     *
+     * @param latitude Zemepisná šírka bodu v stupňoch.
+     * @param longitude Zemepisná dĺžka bodu v stupňoch.
+     *
+     * @return Zbalený bod.
+     */
+    public static long pack(double latitude, double longitude) {
+        long microLatitude = Math.round(latitude * MICRODEGREES);
+        long microLongitude = Math.round(longitude * MICRODEGREES);
+        return (microLatitude << 32) | (microLongitude & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Vráti zemepisnú šírku zbaleného bodu.
+     *
+     * @param packed Zbalený bod.
+     *
+     * @return Zemepisná šírka v stupňoch.
+     */
+    public static double unpackLatitude(long packed) {
+        return (int) (packed >> 32) / MICRODEGREES;
+    }
+
+    /**
+     * Vráti zemepisnú dĺžku zbaleného bodu.
+     *
+     * @param packed Zbalený bod.
+     *
+     * @return Zemepisná dĺžka v stupňoch.
+     */
+    public static double unpackLongitude(long packed) {
+        return (int) packed / MICRODEGREES;
+    }
+
+    private static int limitCapacity(int capacity) {
+        return Math.min(Math.max(1, capacity), maxCapacity);
+    }
+
+    private void append(long packed) {
+        if (size < points.length) {
+            points[(head + size) % points.length] = packed;
+            size++;
+        } else {
+            points[head] = packed;
+            head = (head + 1) % points.length;
+        }
+        appendedCount++;
+    }
+
+    private long[] getPackedPoints(int from) {
+        long[] copy = new long[size - from];
+        for (int i = from; i < size; i++) {
+            copy[i - from] = points[(head + i) % points.length];
+        }
+        return copy;
+    }
+
+    /**
+     * Zapíše len kapacitu a uložené body trasy, nie celé pole zásobníka.
+     */
+    private synchronized void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(points.length);
+        out.writeLong(appendedCount);
+        out.writeInt(resetCount);
+        long[] packedPoints = getPackedPoints(0);
+        out.writeInt(packedPoints.length);
+        for (long packed : packedPoints) {
+            out.writeLong(packed);
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        points = new long[limitCapacity(in.readInt())];
+        long appended = in.readLong();
+        resetCount = in.readInt();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            append(in.readLong());
+        }
+        appendedCount = appended;
+    }
+
+}
@@ -0,0 +1,165 @@
+package net.robobalasko.letiskoserv.lietadla;
+
+/**
+ * Let z letového plánu, ktorý simulácia vypustí v zadanom čase namiesto náhodne vygenerovaného lietadla.
+ *
+ * Objekt sa po vytvorení nemení.
+ *
+ * @author rbalasko
+ */
+public class ScheduledFlight {
+
+    /**
+     * Čas odletu v sekundách letu od spustenia simulácie.
+     */
+    private final double departureTime;
+
+    /**
+     * Volací znak lietadla.
+     */
+    private final String callSign;
+
+    /**
+     * Typ lietadla.
+     */
+    private final AircraftTypeEnum aircraftType;
+
+    /**
+     * ICAO kód letiska odletu.
+     */
+    private final String depAirport;
+
+    /**
+     * ICAO kód letiska príletu.
+     */
+    private final String arrAirport;
+
+    /**
+     * Názov odletovej trasy alebo null, ak sa má trasa vybrať náhodne.
+     */
+    private final String sidRoute;
+
+    /**
+     * Názov príletovej trasy alebo null, ak sa má trasa vybrať náhodne.
+     */
+    private final String starRoute;
+
+    /**
+     * Požadovaná letová hladina alebo 0, ak sa má vybrať náhodne.
+     */
+    private final int flightLevel;
+
+    /**
+     * Požadovaná rýchlosť v uzloch alebo 0, ak sa má vybrať náhodne.
+     */
+    private final int airSpeed;
+
+    /**
+     * Základný konštruktor nastavuje všetky údaje letu.
+     *
+     * @param departureTime Čas odletu v sekundách letu od spustenia simulácie.
+     * @param callSign Volací znak lietadla.
+     * @param aircraftType Typ lietadla.
+     * @param depAirport ICAO kód letiska odletu.
+     * @param arrAirport ICAO kód letiska príletu.
+     * @param sidRoute Názov odletovej trasy alebo null pre náhodnú trasu.
+     * @param starRoute Názov príletovej trasy alebo null pre náhodnú trasu.
+     * @param flightLevel Požadovaná letová hladina alebo 0 pre náhodnú hladinu.
+     * @param airSpeed Požadovaná rýchlosť v uzloch alebo 0 pre náhodnú rýchlosť.
+     */
+    public ScheduledFlight(double departureTime, String callSign, AircraftTypeEnum aircraftType,
+            String depAirport, String arrAirport, String sidRoute, String starRoute,
+            int flightLevel, int airSpeed) {
+        this.departureTime = departureTime;
+        this.callSign = callSign;
+        this.aircraftType = aircraftType;
+        this.depAirport = depAirport;
+        this.arrAirport = arrAirport;
+        this.sidRoute = sidRoute;
+        this.starRoute = starRoute;
+        this.flightLevel = flightLevel;
+        this.airSpeed = airSpeed;
+    }
+
+    /**
+     * Vráti čas odletu.
+     *
+     * @return Čas v sekundách letu od spustenia simulácie.
+     */
+    public double getDepartureTime() {
+        return departureTime;
+    }
+
+    /**
+     * Vráti volací znak lietadla.
+     *
+     * @return Volací znak.
+     */
+    public String getCallSign() {
+        return callSign;
+    }
+
+    /**
+     * Vráti typ lietadla.
+     *
+     * @return Typ lietadla.
+     */
+    public AircraftTypeEnum getAircraftType() {
+        return aircraftType;
+    }
+
+    /**
+     * Vráti ICAO kód letiska odletu.
+     *
+     * @return ICAO kód letiska.
+     */
+    public String getDepAirport() {
+        return depAirport;
+    }
+
+    /**
+     * Vráti ICAO kód letiska príletu.
+     *
+     * @return ICAO kód letiska.
+     */
+    public String getArrAirport() {
+        return arrAirport;
+    }
+
+    /**
+     * Vráti názov odletovej trasy.
+     *
+     * @return Názov trasy alebo null, ak sa má trasa vybrať náhodne.
+     */
+    public String getSidRoute() {
+        return sidRoute;
+    }
+
+    /**
+     * Vráti názov príletovej trasy.
+     *
+     * @return Názov trasy alebo null, ak sa má trasa vybrať náhodne.
+     */
+    public String getStarRoute() {
+        return starRoute;
+    }
+
+    /**
+     * Vráti požadovanú letovú hladinu.
+     *
+     * @return Letová hladina alebo 0, ak sa má vybrať náhodne.
+     */
+    public int getFlightLevel() {
+        return flightLevel;
+    }
+
+    /**
+     * Vráti požadovanú rýchlosť.
+     *
+     * @return Rýchlosť v uzloch alebo 0, ak sa má vybrať náhodne.
+     */
+    public int getAirSpeed() {
+        return airSpeed;
+    }
+
+}
@@ -0,0 +1,221 @@
+package net.robobalasko.letiskoserv.lietadla;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Random;
+import net.robobalasko.letiskoserv.data.FlightScheduleReader;
+
+/**
+ * Generátor letovej prevádzky jedného letiska, ktorý vytvára odlety a prílety v zadaných
+ * hodinových počtoch.
+ *
+ * Časy medzi po sebe idúcimi odletmi aj príletmi sa losujú z exponenciálneho rozdelenia, takže
+ * lietadlá prichádzajú ako Poissonov proces so zadanou priemernou intenzitou. Časy sa počítajú
+ * na hodinách simulácie v sekundách letu, ktoré simulácia posúva po každom kroku, a nezávisia
+ * od toho, ako často si klienti stav letiska pýtajú.
+ *
+ * Lietadlo, ktorého čas nastal, čaká v poradí, kým ho simulácia nevypustí. Simulácia ho vypustí
+ * len vtedy, keď je v riadenej oblasti letiska menej lietadiel ako {@code sectorCapacity}, odlet
+ * navyše len pri voľnej dráhe. Pri preťaženom letisku tak počet čakajúcich lietadiel ukazuje,
+ * o koľko požiadavka prevyšuje kapacitu.
+ *
+ * Ak má letisko letový plán, generátor k náhodnej prevádzke pridáva aj jeho odlety v poradí
+ * podľa času. Z plánu sa číta vždy len najbližší let, lety, ktorých čas nastal, čakajú v poradí
+ * pred náhodnými odletmi. Pri nulových hodinových počtoch tak simulácia presne prehráva letový plán.
+ *
+ * @author rbalasko
+ */
+public class TrafficGenerator {
+
+    /**
+     * Počet sekúnd v hodine.
+     */
+    private static final double SECONDS_PER_HOUR = 3600;
+
+    /**
+     * Generátor, ktorý vytvára jednotlivé lietadlá.
+     */
+    private final AircraftGenerator aircraftGenerator;
+
+    /**
+     * Priemerný počet odletov za sekundu letu.
+     */
+    private final double departureRate;
+
+    /**
+     * Priemerný počet príletov za sekundu letu.
+     */
+    private final double arrivalRate;
+
+    /**
+     * Najväčší počet lietadiel v riadenej oblasti letiska, pri ktorom sa ešte vypustí ďalšie lietadlo.
+     */
+    private final int sectorCapacity;
+
+    /**
+     * Letový plán odletov letiska alebo null, ak letisko letový plán nemá.
+     */
+    private final FlightScheduleReader schedule;
+
+    /**
+     * Lety z letového plánu, ktorých čas nastal a ešte neboli vypustené.
+     */
+    private final Deque<ScheduledFlight> scheduledDepartures;
+
+    /**
+     * Generátor náhodných čísel pre časy medzi lietadlami a druh letu.
+     */
+    private final Random random;
+
+    /**
+     * Hodiny simulácie v sekundách letu.
+     */
+    private double clock;
+
+    /**
+     * Čas ďalšieho odletu na hodinách simulácie.
+     */
+    private double nextDepartureTime;
+
+    /**
+     * Čas ďalšieho príletu na hodinách simulácie.
+     */
+    private double nextArrivalTime;
+
+    /**
+     * Počet odletov, ktorých čas nastal a ešte neboli vypustené.
+     */
+    private int pendingDepartures;
+
+    /**
+     * Počet príletov, ktorých čas nastal a ešte neboli vypustené.
+     */
+    private int pendingArrivals;
+
+    /**
+     * Základný konštruktor pripraví generátor s hodinami simulácie na nule.
+     *
+     * @param aircraftGenerator Generátor, ktorý vytvára jednotlivé lietadlá letiska.
+     * @param departuresPerHour Priemerný počet odletov za hodinu letu, 0 pre letisko bez odletov.
+     * @param arrivalsPerHour Priemerný počet príletov za hodinu letu, 0 pre letisko bez príletov.
+     * @param sectorCapacity Najväčší počet lietadiel v riadenej oblasti letiska.
+     * @param schedule Letový plán odletov letiska alebo null, ak letisko letový plán nemá.
+     * @param random Generátor náhodných čísel.
+     */
+    public TrafficGenerator(AircraftGenerator aircraftGenerator, double departuresPerHour,
+            double arrivalsPerHour, int sectorCapacity, FlightScheduleReader schedule, Random random) {
+        this.aircraftGenerator = aircraftGenerator;
+        this.departureRate = departuresPerHour / SECONDS_PER_HOUR;
+        this.arrivalRate = arrivalsPerHour / SECONDS_PER_HOUR;
+        this.sectorCapacity = sectorCapacity;
+        this.schedule = schedule;
+        this.scheduledDepartures = new ArrayDeque<ScheduledFlight>();
+        this.random = random;
+        this.nextDepartureTime = nextInterval(departureRate);
+        this.nextArrivalTime = nextInterval(arrivalRate);
+    }
+
+    /**
+     * Posunie hodiny simulácie a zaradí do poradia všetky odlety a prílety, ktorých čas nastal.
+     *
+     * @param seconds Čas letu v sekundách, o ktorý sa hodiny posunú.
+     */
+    public void advance(double seconds) {
+        clock += seconds;
+        while (nextDepartureTime <= clock) {
+            pendingDepartures++;
+            nextDepartureTime += nextInterval(departureRate);
+        }
+        while (nextArrivalTime <= clock) {
+            pendingArrivals++;
+            nextArrivalTime += nextInterval(arrivalRate);
+        }
+        if (schedule != null) {
+            for (ScheduledFlight flight = schedule.peek(); flight != null && flight.getDepartureTime() <= clock;
+                    flight = schedule.peek()) {
+                scheduledDepartures.add(schedule.next());
+            }
+        }
+    }
+
+    /**
+     * Vypustí ďalší čakajúci odlet, ak to kapacita riadenej oblasti dovoľuje.
+     *
+     * @param sectorSize Počet lietadiel v riadenej oblasti letiska.
+     *
+     * @return Nové lietadlo stojace pred odletom alebo null, ak žiadny odlet nečaká, oblasť je plná
+     *         alebo nie je voľný volací znak.
+     */
+    public Aircraft nextDeparture(int sectorSize) {
+        if (sectorSize >= sectorCapacity) {
+            return null;
+        }
+        // Lety z letového plánu majú prednosť, neplatný let sa zahodí a vypustí sa ďalší
+        while (!scheduledDepartures.isEmpty()) {
+            Aircraft aircraft = aircraftGenerator.generateScheduledAircraft(scheduledDepartures.poll());
+            if (aircraft != null) {
+                return aircraft;
+            }
+        }
+        if (pendingDepartures == 0) {
+            return null;
+        }
+        Aircraft aircraft = aircraftGenerator.generateRandomAircraft(random.nextInt(2) > 0);
+        if (aircraft != null) {
+            pendingDepartures--;
+        }
+        return aircraft;
+    }
+
+    /**
+     * Vypustí ďalší čakajúci prílet, ak to kapacita riadenej oblasti dovoľuje.
+     *
+     * @param sectorSize Počet lietadiel v riadenej oblasti letiska.
+     *
+     * @return Nové prilietajúce lietadlo alebo null, ak žiadny prílet nečaká, oblasť je plná
+     *         alebo nie je voľný volací znak.
+     */
+    public Aircraft nextArrival(int sectorSize) {
+        if (pendingArrivals == 0 || sectorSize >= sectorCapacity) {
+            return null;
+        }
+        Aircraft aircraft = aircraftGenerator.generateArrivingAircraft(random.nextInt(2) > 0);
+        if (aircraft != null) {
+            pendingArrivals--;
+        }
+        return aircraft;
+    }
+
+    /**
+     * Vráti počet odletov, ktorých čas nastal a ešte neboli vypustené, vrátane letov z letového plánu.
+     *
+     * @return Počet čakajúcich odletov.
+     */
+    public int getPendingDepartures() {
+        return pendingDepartures + scheduledDepartures.size();
+    }
+
+    /**
+     * Vráti počet príletov, ktorých čas nastal a ešte neboli vypustené.
+     *
+     * @return Počet čakajúcich príletov.
+     */
+    public int getPendingArrivals() {
+        return pendingArrivals;
+    }
+
+    /**
+     * Vylosuje čas do ďalšieho lietadla z exponenciálneho rozdelenia.
+     *
+     * @param rate Priemerný počet lietadiel za sekundu letu.
+     *
+     * @return Čas v sekundách letu, nekonečno pre nulovú intenzitu.
+     */
+    private double nextInterval(double rate) {
+        if (rate <= 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return -Math.log(1 - random.nextDouble()) / rate;
+    }
+
+}
@@ -1,9 +1,14 @@
 package net.robobalasko.letiskoserv.navigacia;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -17,6 +22,10 @@ import net.robobalasko.letiskoserv.data.WaypointNotLoadedException;
  * a taktiež radarová obrazovka v klientskej časti vykresľuje potrebné
  * dráhy a navigačné body pre možnosť riadenia prevádzky na letisku.
  * 
+ * Okrem zoznamov dráh, trás a bodov si letisko drží aj indexy podľa názvu
+ * a typu trasy, takže vyhľadávanie a kontrola duplicít pri načítaní
+ * trvajú konštantný čas bez ohľadu na počet bodov letiska.
+ * 
  * @author rbalasko
  */
 public class Airport implements Serializable {
@@ -76,6 +85,26 @@ public class Airport implements Serializable {
      */
     private final List<Waypoint> waypoints;
 
+    /**
+     * Index dráh letiska podľa ich čísla.
+     */
+    private final Map<Integer, Runway> runwaysByNumber;
+
+    /**
+     * Index trás letiska podľa ich názvu.
+     */
+    private final Map<String, Route> routesByName;
+
+    /**
+     * Trasy letiska rozdelené podľa typu trasy.
+     */
+    private final Map<AirportRouteTypesEnum, List<Route>> routesByType;
+
+    /**
+     * Index navigačných bodov letiska podľa ich názvu.
+     */
+    private final Map<String, Waypoint> waypointsByName;
+
     /**
      * Horizontálna pozícia letiska na radarovej obrazovke.
      */
@@ -112,9 +141,16 @@ public class Airport implements Serializable {
      * priamo objekt, ktorý číta dáta letiska z XML súboru.
      */
     public Airport() {
-        runways = new LinkedList<Runway>();
-        routes = new LinkedList<Route>();
-        waypoints = new LinkedList<Waypoint>();
+        runways = new ArrayList<Runway>();
+        routes = new ArrayList<Route>();
+        waypoints = new ArrayList<Waypoint>();
+        runwaysByNumber = new HashMap<Integer, Runway>();
+        routesByName = new HashMap<String, Route>();
+        routesByType = new EnumMap<AirportRouteTypesEnum, List<Route>>(AirportRouteTypesEnum.class);
+        for (AirportRouteTypesEnum routeType : AirportRouteTypesEnum.values()) {
+            routesByType.put(routeType, new ArrayList<Route>());
+        }
+        waypointsByName = new HashMap<String, Waypoint>();
         runwayBlocked = false;
         aircraftBlockingRunway = "";
     }
@@ -131,12 +167,11 @@ public class Airport implements Serializable {
      */
     public Waypoint getWaypointByName(String name)
             throws WaypointNotLoadedException {
-        for (Waypoint wpt : waypoints) {
-            if (wpt.getName().equals(name)) {
-                return wpt;
-            }
+        Waypoint wpt = waypointsByName.get(name);
+        if (wpt == null) {
+            throw new WaypointNotLoadedException();
         }
-        throw new WaypointNotLoadedException();
+        return wpt;
     }
 
     /**
@@ -151,12 +186,11 @@ public class Airport implements Serializable {
      */
     public Route getRouteByName(String name)
             throws RouteNotLoadedException {
-        for (Route rte : routes) {
-            if (rte.getRouteName().equals(name)) {
-                return rte;
-            }
+        Route rte = routesByName.get(name);
+        if (rte == null) {
+            throw new RouteNotLoadedException();
         }
-        throw new RouteNotLoadedException();
+        return rte;
     }
 
     /**
@@ -168,17 +202,18 @@ public class Airport implements Serializable {
      * sa náhodný bod zo všetkých bodov (žiadny sa nevynechá).
      * 
      * @param excludePoint Názov bodu, ktorý sa má vynechať.
+     * @param random Generátor náhodných čísel simulácie letiska.
      * 
      * @return Náhodne vybratý bod ako {@code Waypoint} objekt.
      */
-    public Waypoint getRandomWaypoint(String excludePoint) {
-        int rand = (new Random()).nextInt(waypoints.size());
+    public Waypoint getRandomWaypoint(String excludePoint, Random random) {
+        int rand = random.nextInt(waypoints.size());
         if (excludePoint == null) {
             return waypoints.get(rand);
         }
         Waypoint wpt;
         while ((wpt = waypoints.get(rand)).getName().equals(excludePoint)) {
-            rand = (new Random()).nextInt(waypoints.size());
+            rand = random.nextInt(waypoints.size());
         }
         return wpt;
     }
@@ -193,14 +228,23 @@ public class Airport implements Serializable {
      */
     public LinkedList getSpecificRoutes(AirportRouteTypesEnum routeType) {
         LinkedList<String> sidRoutes = new LinkedList<String>();
-        for (Route rte : routes) {
-            if (rte.getRouteType() == routeType) {
-                sidRoutes.add(rte.getRouteName());
-            }
+        for (Route rte : routesByType.get(routeType)) {
+            sidRoutes.add(rte.getRouteName());
         }
         return sidRoutes;
     }
 
+    /**
+     * Vráti trasy letiska zadaného typu.
+     * 
+     * @param routeType Typ trás, ktoré sa majú vrátiť.
+     * 
+     * @return Nemodifikovateľný zoznam trás zadaného typu.
+     */
+    public List<Route> getRoutesByType(AirportRouteTypesEnum routeType) {
+        return Collections.unmodifiableList(routesByType.get(routeType));
+    }
+
     /**
      * Vráti textovú reprezentáciu objektu letiska
      * vo formáte, napr. LZIB - Letisko M. R. Štefánika, Bratislava
@@ -343,7 +387,7 @@ public class Airport implements Serializable {
     /**
      * Vráti zoznam všetkých dráh letiska.
      *
-     * @return Spájaný zoznam objektov {@code Runway}.
+     * @return Zoznam objektov {@code Runway}.
      */
     public List<Runway> getRunways() {
         return runways;
@@ -365,7 +409,9 @@ public class Airport implements Serializable {
         if (checkRunwayExistence(runwayNumber)) {
             throw new InvalidRunwayDataException();
         }
-        this.runways.add(new Runway(runwayNumber, runwayLength, runwayLat, runwayLon));
+        Runway runway = new Runway(runwayNumber, runwayLength, runwayLat, runwayLon);
+        this.runways.add(runway);
+        this.runwaysByNumber.put(runwayNumber, runway);
     }
 
     /**
@@ -376,21 +422,13 @@ public class Airport implements Serializable {
      * @return True ak dráha neexistuje, False ak áno.
      */
     private boolean checkRunwayExistence(int runwayNumber) {
-        boolean runwayExists = false;
-        for (Runway rwy : runways) {
-            if (rwy.getRunwayNumber() == runwayNumber) {
-                runwayExists = true;
-                break;
-            }
-        }
-
-        return runwayExists;
+        return runwaysByNumber.containsKey(runwayNumber);
     }
 
     /**
      * Získa zoznam všetkých trás, ktorá vedú od / do letiska.
      *
-     * @return Spájaný zoznam objektov {@code Route}.
+     * @return Zoznam objektov {@code Route}.
      */
     public List<Route> getRoutes() {
         return routes;
@@ -408,12 +446,32 @@ public class Airport implements Serializable {
      */
     public void setRoute(int runwayNumber, String routeName,
             String[] routeWaypoints, AirportRouteTypesEnum routeType) throws InvalidRouteDataException {
+        setRoute(runwayNumber, routeName, routeWaypoints, routeType, 1);
+    }
+
+    /**
+     * Pridá novú trasu so zadanou váhou v premávke do zoznamu trás, kontroluje aj, či práve
+     * pridávaná trasa v zozname neexistuje.
+     *
+     * @param runwayNumber Číslo dráhy, ku ktorej pridávaná trasa patrí.
+     * @param routeName Identifikačný názov pridávanej trasy.
+     * @param routeWaypoints Zoznam cestovných bodov, cez ktoré trasa vedie.
+     * @param routeType Typ trasy.
+     * @param weight Relatívna váha trasy medzi trasami rovnakého typu.
+     *
+     * @throws InvalidRouteDataException Vyhodená ak už zadávaná trasa v zozname existuje
+     */
+    public void setRoute(int runwayNumber, String routeName, String[] routeWaypoints,
+            AirportRouteTypesEnum routeType, double weight) throws InvalidRouteDataException {
         if (checkRouteExistence(routeName)) {
             throw new InvalidRouteDataException();
         }
         List<String> rteWpts = new LinkedList<String>();
         rteWpts.addAll(Arrays.asList(routeWaypoints));
-        routes.add(new Route(runwayNumber, routeName, routeType, rteWpts));
+        Route route = new Route(runwayNumber, routeName, routeType, rteWpts, weight);
+        routes.add(route);
+        routesByName.put(routeName, route);
+        routesByType.get(routeType).add(route);
     }
 
     /**
@@ -424,21 +482,13 @@ public class Airport implements Serializable {
      * @return True ak dráha existuje, False inak.
      */
     private boolean checkRouteExistence(String routeName) {
-        boolean routeExists = false;
-        for (Route route : routes) {
-            if (route.getRouteName().equals(routeName)) {
-                routeExists = true;
-                break;
-            }
-        }
-
-        return routeExists;
+        return routesByName.containsKey(routeName);
     }
 
     /**
      * Získa zoznam všetkých trasových bodov letiska.
      *
-     * @return Spájaný zoznam objektov {@code Waypoint}
+     * @return Zoznam objektov {@code Waypoint}
      */
     public List<Waypoint> getWaypoinst() {
         return waypoints;
@@ -457,7 +507,7 @@ public class Airport implements Serializable {
         if (checkWaypointExistence(name)) {
             throw new InvalidWaypointDataException();
         }
-        this.waypoints.add(new Waypoint(name, latitude, longitude));
+        addWaypoint(new Waypoint(name, latitude, longitude));
     }
 
     /**
@@ -472,16 +522,26 @@ public class Airport implements Serializable {
      * @throws InvalidWaypointDataException Vyhodená ak sa zadávaný bod už nachádza v zozname letových bodov letiska.
      */
     public void setWaypoint(String name, double latitude, double longitude, double frequency) throws InvalidWaypointDataException {
-        if (checkRouteExistence(name)) {
+        if (checkWaypointExistence(name)) {
             throw new InvalidWaypointDataException();
         }
         try {
-            this.waypoints.add(new VorWaypoint(name, latitude, longitude, frequency));
+            addWaypoint(new VorWaypoint(name, latitude, longitude, frequency));
         } catch (InvalidFrequencyException ex) {
             Logger.getLogger(Airport.class.getName()).log(Level.SEVERE, null, ex);
         }
     }
 
+    /**
+     * Pridá bod do zoznamu bodov letiska a do indexu bodov podľa názvu.
+     *
+     * @param wpt Pridávaný bod.
+     */
+    private void addWaypoint(Waypoint wpt) {
+        this.waypoints.add(wpt);
+        this.waypointsByName.put(wpt.getName(), wpt);
+    }
+
     /**
      * Kontroluje, či sa zadaný trasový bod už náhodou nenachádza v zoznam trasových bodov letiska.
      *
@@ -490,15 +550,7 @@ public class Airport implements Serializable {
      * @return True ak sa bod nachádza v zoznam, False inak.
      */
     private boolean checkWaypointExistence(String waypointName) {
-        boolean waypointExists = false;
-        for (Waypoint wpt : waypoints) {
-            if (wpt.getName().equals(waypointName)) {
-                waypointExists = true;
-                break;
-            }
-        }
-
-        return waypointExists;
+        return waypointsByName.containsKey(waypointName);
     }
 
     /**
@@ -0,0 +1,91 @@
+package net.robobalasko.letiskoserv.navigacia;
+
+/**
+ * Výpočty vzdialeností a kurzov medzi zemepisnými súradnicami v stupňoch WGS84.
+ *
+ * Riadená oblasť letiska má len niekoľko desiatok námorných míľ, preto sa okolie bodu počíta
+ * ako rovina dotýkajúca sa Zeme. Jeden stupeň zemepisnej šírky má 60 námorných míľ a stupeň
+ * zemepisnej dĺžky sa skracuje kosínusom zemepisnej šírky.
+ *
+ * @author rbalasko
+ */
+public final class GeoCalculator {
+
+    /**
+     * Počet námorných míľ v jednom stupni zemepisnej šírky.
+     */
+    public static final double NM_PER_DEGREE = 60.0;
+
+    private GeoCalculator() {
+    }
+
+    /**
+     * Vypočíta vzdialenosť medzi dvoma bodmi.
+     *
+     * @param fromLatitude Zemepisná šírka prvého bodu.
+     * @param fromLongitude Zemepisná dĺžka prvého bodu.
+     * @param toLatitude Zemepisná šírka druhého bodu.
+     * @param toLongitude Zemepisná dĺžka druhého bodu.
+     *
+     * @return Vzdialenosť v námorných míľach.
+     */
+    public static double distance(double fromLatitude, double fromLongitude,
+            double toLatitude, double toLongitude) {
+        double north = (toLatitude - fromLatitude) * NM_PER_DEGREE;
+        double east = (toLongitude - fromLongitude) * nmPerLongitudeDegree((fromLatitude + toLatitude) / 2);
+        return Math.sqrt(north * north + east * east);
+    }
+
+    /**
+     * Vypočíta kurz z prvého bodu na druhý.
+     *
+     * @param fromLatitude Zemepisná šírka prvého bodu.
+     * @param fromLongitude Zemepisná dĺžka prvého bodu.
+     * @param toLatitude Zemepisná šírka druhého bodu.
+     * @param toLongitude Zemepisná dĺžka druhého bodu.
+     *
+     * @return Kurz v stupňoch od severu v smere hodinových ručičiek v rozsahu [0,360).
+     */
+    public static double bearing(double fromLatitude, double fromLongitude,
+            double toLatitude, double toLongitude) {
+        double north = (toLatitude - fromLatitude) * NM_PER_DEGREE;
+        double east = (toLongitude - fromLongitude) * nmPerLongitudeDegree((fromLatitude + toLatitude) / 2);
+        double bearing = Math.toDegrees(Math.atan2(east, north));
+        return bearing < 0 ? bearing + 360 : bearing;
+    }
+
+    /**
+     * Vypočíta zemepisnú šírku bodu, ktorý leží v zadanej vzdialenosti a kurze od východzieho bodu.
+     *
+     * @param latitude Zemepisná šírka východzieho bodu.
+     * @param bearing Kurz v stupňoch.
+     * @param distance Vzdialenosť v námorných míľach.
+     *
+     * @return Zemepisná šírka nového bodu.
+     */
+    public static double offsetLatitude(double latitude, double bearing, double distance) {
+        return latitude + distance * Math.cos(Math.toRadians(bearing)) / NM_PER_DEGREE;
+    }
+
+    /**
+     * Vypočíta zemepisnú dĺžku bodu, ktorý leží v zadanej vzdialenosti a kurze od východzieho bodu.
+     *
+     * @param latitude Zemepisná šírka východzieho bodu.
+     * @param longitude Zemepisná dĺžka východzieho bodu.
+     * @param bearing Kurz v stupňoch.
+     * @param distance Vzdialenosť v námorných míľach.
+     *
+     * @return Zemepisná dĺžka nového bodu.
+     */
+    public static double offsetLongitude(double latitude, double longitude, double bearing, double distance) {
+        return longitude + distance * Math.sin(Math.toRadians(bearing)) / nmPerLongitudeDegree(latitude);
+    }
+
+    /**
+     * Vráti počet námorných míľ v jednom stupni zemepisnej dĺžky na zadanej zemepisnej šírke.
+     */
+    private static double nmPerLongitudeDegree(double latitude) {
+        return NM_PER_DEGREE * Math.cos(Math.toRadians(latitude));
+    }
+
+}
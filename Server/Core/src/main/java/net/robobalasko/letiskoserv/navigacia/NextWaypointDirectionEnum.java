@@ -1,43 +0,0 @@
-package net.robobalasko.letiskoserv.navigacia;
-
-/**
- * Enum definujúci smery (svetové strany), na ktorých
- * sa môžu body letovej trasy voči lietadlu nachádzať.
- * 
- * @author rbalasko
- */
-public enum NextWaypointDirectionEnum {
-    /**
-     * Bod sa voči lietadlu nachádza na severe.
-     */
-    N,
-    /**
-     * Bod sa voči lietadlu nachádza na severovýchode.
-     */
-    NE,
-    /**
-     * Bod sa voči lietadlu nachádza na východe.
-     */
-    E,
-    /**
-     * Bod sa voči lietadlu nachádza na juhovýchode.
-     */
-    SE,
-    /**
-     * Bod sa voči lietadlu nachádza na juhu.
-     */
-    S,
-    /**
-     * Bod sa voči lietadlu nachádza na juhozápade.
-     */
-    SW,
-    /**
-     * Bod sa voči lietadlu nachádza na západe.
-     */
-    W,
-    /**
-     * Bod sa voči lietadlu nachádza na severozápade.
-     */
-    NW,
-
-}
@@ -1,12 +1,23 @@
 package net.robobalasko.letiskoserv.navigacia;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import net.robobalasko.letiskoserv.data.WaypointNotLoadedException;
 
 /**
  * Trieda definujúca cestovnú trasu, po ktorej lietadlo na radare letí
  * a taktiež ju je možné z radaru zobraziť.
  *
+ * Názvy bodov trasy sa pri načítaní letiska preložia na pole odkazov na objekty
+ * {@code Waypoint}, aby simulácia pri každom kroku nemusela body vyhľadávať podľa názvu.
+ * Lietadlo si na trase pamätá len index bodu, na ktorý práve smeruje.
+ *
+ * Trasa sa po vytvorení nemení, preto jeden objekt trasy letiska zdieľajú všetky lietadlá,
+ * ktoré ju letia, ako aj vlákna simulácie a odosielania dát klientom. Body, ktoré lietadlu
+ * pridá riadiaci alebo nevydarené pristátie, si drží lietadlo samo.
+ *
  * @author rbalasko
  */
 public class Route implements Serializable {
@@ -29,7 +40,19 @@ public class Route implements Serializable {
     /**
      * Zoznam názvov všetkých bodov, kotré sa na trase nachádzajú.
      */
-    private List<String> routePoints;
+    private final List<String> routePoints;
+
+    /**
+     * Relatívna váha trasy, podľa ktorej generátor lietadiel vyberá trasu spomedzi trás
+     * rovnakého typu na letisku.
+     */
+    private final double weight;
+
+    /**
+     * Body trasy preložené na objekty v rovnakom poradí ako ich názvy, null ak trasa
+     * ešte nebola preložená.
+     */
+    private transient volatile Waypoint[] waypoints;
 
     /**
      * Základný konštruktor nastavuje trase číslo dráhy, ku ktorej patrí,
@@ -42,10 +65,83 @@ public class Route implements Serializable {
      */
     public Route(int runwayNumber, String routeName,
             AirportRouteTypesEnum routeType, List<String> routePoints) {
+        this(runwayNumber, routeName, routeType, routePoints, 1);
+    }
+
+    /**
+     * Konštruktor nastavuje trase okrem údajov základného konštruktora aj jej váhu v premávke.
+     *
+     * @param runwayNumber Číslo dráhy, ku ktorej trasa patrí.
+     * @param routeName Identifikačný názov trasy.
+     * @param routeType Typ trasy (SID / STAR).
+     * @param routePoints Letové body, ktoré sa na trase nachádzajú.
+     * @param weight Relatívna váha trasy medzi trasami rovnakého typu.
+     */
+    public Route(int runwayNumber, String routeName,
+            AirportRouteTypesEnum routeType, List<String> routePoints, double weight) {
         this.runwayNumber = runwayNumber;
         this.routeName = routeName;
         this.routeType = routeType;
-        this.routePoints = routePoints;
+        this.routePoints = Collections.unmodifiableList(new ArrayList<String>(routePoints));
+        this.weight = weight;
+    }
+
+    /**
+     * Preloží názvy bodov trasy na objekty bodov zadaného letiska.
+     * Ak je trasa už preložená, nerobí nič.
+     *
+     * @param airport Letisko, ktorého body sa na trase nachádzajú.
+     *
+     * @throws WaypointNotLoadedException Ak sa niektorý bod trasy na letisku nenachádza.
+     */
+    public void resolveWaypoints(Airport airport) throws WaypointNotLoadedException {
+        if (waypoints != null) {
+            return;
+        }
+        Waypoint[] resolved = new Waypoint[routePoints.size()];
+        int index = 0;
+        for (String name : routePoints) {
+            resolved[index++] = airport.getWaypointByName(name);
+        }
+        waypoints = resolved;
+    }
+
+    /**
+     * Vráti hodnotu, či sú body trasy preložené na objekty.
+     *
+     * @return True, ak je možné body čítať metódou {@code getWaypoint}.
+     */
+    public boolean isResolved() {
+        return waypoints != null;
+    }
+
+    /**
+     * Vráti preložený bod trasy.
+     *
+     * @param index Poradie bodu na trase.
+     *
+     * @return Objekt bodu.
+     */
+    public Waypoint getWaypoint(int index) {
+        return waypoints[index];
+    }
+
+    /**
+     * Vráti počet preložených bodov trasy. Trasa musí byť preložená.
+     *
+     * @return Počet bodov.
+     */
+    public int getWaypointCount() {
+        return waypoints.length;
+    }
+
+    /**
+     * Vráti číslo dráhy, ku ktorej trasa patrí.
+     *
+     * @return Číslo dráhy.
+     */
+    public int getRunwayNumber() {
+        return runwayNumber;
     }
 
     /**
@@ -67,19 +163,19 @@ public class Route implements Serializable {
     }
 
     /**
-     * Nastavuje zoznam bodov, ktoré ležia na trase
+     * Vráti relatívnu váhu trasy medzi trasami rovnakého typu.
      *
-     * @param routePoints Zoznam bodov, ktoré sa majú pre trasu nastaviť.
+     * @return Váha trasy, 1 ak ju letisko neurčuje.
      */
-    public void setRoutePoints(List<String> routePoints) {
-        this.routePoints = routePoints;
+    public double getWeight() {
+        return weight;
     }
 
     /**
      * Vráti zoznam bodov, ktoré sa na trase nachádzajú.
-     * @return Zoznam bodov na trase.
+     * @return Nemodifikovateľný zoznam bodov na trase.
      */
-    public List getRoutePoints() {
+    public List<String> getRoutePoints() {
         return routePoints;
     }
 
@@ -0,0 +1,105 @@
+package net.robobalasko.letiskoserv.simulacia;
+
+/**
+ * Dvojica lietadiel, medzi ktorými krok simulácie zistil narušenie minimálnej separácie
+ * alebo ho predpovedala sonda {@code ConflictProbe}.
+ *
+ * @author rbalasko
+ */
+public final class AircraftConflict {
+
+    /**
+     * Volací znak prvého lietadla.
+     */
+    private final String firstCallSign;
+
+    /**
+     * Volací znak druhého lietadla.
+     */
+    private final String secondCallSign;
+
+    /**
+     * Vodorovná vzdialenosť lietadiel v námorných míľach.
+     */
+    private final double distance;
+
+    /**
+     * Rozdiel letových hladín lietadiel.
+     */
+    private final int verticalSeparation;
+
+    /**
+     * Čas letu v sekundách, za ktorý k narušeniu separácie dôjde.
+     */
+    private final double timeToConflict;
+
+    /**
+     * Základný konštruktor vytvorí konflikt dvoch lietadiel.
+     *
+     * @param firstCallSign Volací znak prvého lietadla.
+     * @param secondCallSign Volací znak druhého lietadla.
+     * @param distance Vodorovná vzdialenosť lietadiel v námorných míľach.
+     * @param verticalSeparation Rozdiel letových hladín lietadiel.
+     * @param timeToConflict Čas letu v sekundách do narušenia separácie, 0 pre narušenie, ktoré už nastalo.
+     */
+    AircraftConflict(String firstCallSign, String secondCallSign, double distance, int verticalSeparation,
+            double timeToConflict) {
+        this.firstCallSign = firstCallSign;
+        this.secondCallSign = secondCallSign;
+        this.distance = distance;
+        this.verticalSeparation = verticalSeparation;
+        this.timeToConflict = timeToConflict;
+    }
+
+    /**
+     * Vráti volací znak prvého lietadla.
+     *
+     * @return Volací znak.
+     */
+    public String getFirstCallSign() {
+        return firstCallSign;
+    }
+
+    /**
+     * Vráti volací znak druhého lietadla.
+     *
+     * @return Volací znak.
+     */
+    public String getSecondCallSign() {
+        return secondCallSign;
+    }
+
+    /**
+     * Vráti vodorovnú vzdialenosť lietadiel.
+     *
+     * @return Vzdialenosť v námorných míľach.
+     */
+    public double getDistance() {
+        return distance;
+    }
+
+    /**
+     * Vráti rozdiel letových hladín lietadiel.
+     *
+     * @return Rozdiel letových hladín.
+     */
+    public int getVerticalSeparation() {
+        return verticalSeparation;
+    }
+
+    /**
+     * Vráti čas letu, za ktorý k narušeniu separácie dôjde. Vzdialenosť a rozdiel letových hladín
+     * platia pre tento okamih.
+     *
+     * @return Čas v sekundách, 0 pre narušenie, ktoré už nastalo.
+     */
+    public double getTimeToConflict() {
+        return timeToConflict;
+    }
+
+    @Override
+    public String toString() {
+        return firstCallSign + "/" + secondCallSign;
+    }
+
+}
@@ -0,0 +1,161 @@
+package net.robobalasko.letiskoserv.simulacia;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.robobalasko.letiskoserv.lietadla.Aircraft;
+
+/**
+ * Nemenný stav lietadiel jedného letiska po niektorom kroku simulácie.
+ *
+ * Simulácia po každom kroku a po každej zmene od riadiaceho vytvorí kópie svojich lietadiel
+ * a zverejní ich ako nový stav. Relácie klientov tak čítajú lietadlá bez zámku simulácie
+ * a zverejnené kópie sa už nikdy nemenia.
+ *
+ * Každá kópia má priradený kľúč, ktorý je pre to isté lietadlo rovnaký vo všetkých stavoch
+ * a dá sa porovnávať podľa identity. Podľa neho sa medzi stavmi hľadajú zmeny lietadiel.
+ *
+ * @author rbalasko
+ */
+public final class AircraftSnapshot {
+
+    /**
+     * Stav bez lietadiel.
+     */
+    static final AircraftSnapshot EMPTY = new AircraftSnapshot(0, new Object[0], new Aircraft[0],
+            Collections.<AircraftConflict>emptyList(), Collections.<AircraftConflict>emptyList());
+
+    /**
+     * Poradové číslo kroku simulácie, po ktorom stav vznikol.
+     */
+    private final long tick;
+
+    /**
+     * Kľúče lietadiel v poradí ich kópií.
+     */
+    private final Object[] keys;
+
+    /**
+     * Kópie lietadiel.
+     */
+    private final Aircraft[] aircraft;
+
+    /**
+     * Kópie lietadiel podľa volacieho znaku.
+     */
+    private final Map<String, Aircraft> aircraftByCallSign;
+
+    /**
+     * Dvojice lietadiel s narušenou separáciou.
+     */
+    private final List<AircraftConflict> conflicts;
+
+    /**
+     * Dvojice lietadiel, ktorým hrozí narušenie separácie podľa poslednej predpovede.
+     */
+    private final List<AircraftConflict> predictedConflicts;
+
+    /**
+     * Základný konštruktor vytvorí stav z kľúčov a kópií lietadiel.
+     *
+     * @param tick Poradové číslo kroku simulácie.
+     * @param keys Kľúče lietadiel.
+     * @param aircraft Kópie lietadiel v poradí kľúčov.
+     * @param conflicts Nemodifikovateľný zoznam dvojíc lietadiel s narušenou separáciou.
+     * @param predictedConflicts Nemodifikovateľný zoznam predpovedaných konfliktov.
+     */
+    AircraftSnapshot(long tick, Object[] keys, Aircraft[] aircraft, List<AircraftConflict> conflicts,
+            List<AircraftConflict> predictedConflicts) {
+        this.tick = tick;
+        this.keys = keys;
+        this.aircraft = aircraft;
+        this.conflicts = conflicts;
+        this.predictedConflicts = predictedConflicts;
+        this.aircraftByCallSign = new HashMap<String, Aircraft>(aircraft.length * 2);
+        for (Aircraft acft : aircraft) {
+            aircraftByCallSign.put(acft.getCallSign(), acft);
+        }
+    }
+
+    /**
+     * Vráti poradové číslo kroku simulácie, po ktorom stav vznikol.
+     *
+     * @return Číslo kroku.
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Vráti počet lietadiel v stave.
+     *
+     * @return Počet lietadiel.
+     */
+    public int size() {
+        return aircraft.length;
+    }
+
+    /**
+     * Vráti kľúč lietadla, ktorý je rovnaký pre to isté lietadlo vo všetkých stavoch.
+     *
+     * @param index Poradie lietadla v stave.
+     *
+     * @return Kľúč lietadla porovnateľný podľa identity.
+     */
+    public Object getKey(int index) {
+        return keys[index];
+    }
+
+    /**
+     * Vráti kópiu lietadla. Kópia sa nesmie meniť.
+     *
+     * @param index Poradie lietadla v stave.
+     *
+     * @return Kópia lietadla.
+     */
+    public Aircraft getAircraft(int index) {
+        return aircraft[index];
+    }
+
+    /**
+     * Vráti kópie všetkých lietadiel v stave.
+     *
+     * @return Nemodifikovateľný zoznam kópií lietadiel.
+     */
+    public List<Aircraft> getAircraft() {
+        return Collections.unmodifiableList(Arrays.asList(aircraft));
+    }
+
+    /**
+     * Nájde lietadlo podľa volacieho znaku.
+     *
+     * @param callSign Volací znak lietadla.
+     *
+     * @return Kópia lietadla alebo null, ak sa v stave nenachádza.
+     */
+    public Aircraft findAircraft(String callSign) {
+        return aircraftByCallSign.get(callSign);
+    }
+
+    /**
+     * Vráti dvojice lietadiel, ktorým krok simulácie zistil narušenie separácie.
+     *
+     * @return Nemodifikovateľný zoznam konfliktov.
+     */
+    public List<AircraftConflict> getConflicts() {
+        return conflicts;
+    }
+
+    /**
+     * Vráti dvojice lietadiel, ktorým podľa poslednej dokončenej predpovede hrozí narušenie
+     * separácie. Predpoveď sa počíta na pozadí, preto môže pochádzať z niektorého zo skorších krokov.
+     *
+     * @return Nemodifikovateľný zoznam predpovedaných konfliktov zoradený podľa času do konfliktu.
+     */
+    public List<AircraftConflict> getPredictedConflicts() {
+        return predictedConflicts;
+    }
+
+}
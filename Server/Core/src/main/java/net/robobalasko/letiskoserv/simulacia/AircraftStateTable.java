@@ -0,0 +1,310 @@
+package net.robobalasko.letiskoserv.simulacia;
+
+import java.util.Arrays;
+import net.robobalasko.letiskoserv.lietadla.Aircraft;
+
+/**
+ * Tabuľka stavu lietadiel jedného letiska uložená po stĺpcoch v primitívnych poliach.
+ *
+ * Každé lietadlo dostane pri pridaní číslo slotu, ktoré sa nemení, kým lietadlo zo simulácie
+ * neodíde. Uvoľnené sloty sa ukladajú do zoznamu voľných slotov a použijú sa pre ďalšie lietadlá,
+ * takže obsadené sloty zostávajú husto vedľa seba. Krok simulácie prechádza jednotlivé polia
+ * v tesných cykloch bez volania metód objektov lietadiel.
+ *
+ * Objekty {@code Aircraft} slúžia už len na prenos stavu klientom a ako nosič trasy a prejdenej
+ * trasy lietadla. Ich údaje sa z tabuľky aktualizujú metódou {@code publish}.
+ *
+ * @author rbalasko
+ */
+final class AircraftStateTable {
+
+    /**
+     * Príznak lietadla, ktoré dostalo povolenie na odlet.
+     */
+    static final byte CLEARED_FOR_DEPARTURE = 1;
+
+    /**
+     * Príznak lietadla, ktoré nemohlo pristáť a opakuje priblíženie.
+     */
+    static final byte GOING_AROUND = 2;
+
+    /**
+     * Príznak lietadla, ktorému posledný krok simulácie zistil narušenie separácie.
+     */
+    static final byte SEPARATION_LOST = 4;
+
+    /**
+     * Hodnota v stĺpci {@code passageStep} pre lietadlo, ktoré nemá naplánovaný prelet bodu.
+     */
+    static final long NO_PASSAGE = -1;
+
+    /**
+     * Počiatočný počet slotov tabuľky.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Objekty lietadiel v jednotlivých slotoch, null pre voľný slot.
+     */
+    Aircraft[] aircraft;
+
+    /**
+     * Zemepisné šírky lietadiel v stupňoch.
+     */
+    double[] latitude;
+
+    /**
+     * Zemepisné dĺžky lietadiel v stupňoch.
+     */
+    double[] longitude;
+
+    /**
+     * Aktuálne letové hladiny lietadiel.
+     */
+    int[] actualFlightLevel;
+
+    /**
+     * Konečné letové hladiny pridelené lietadlám.
+     */
+    int[] finalFlightLevel;
+
+    /**
+     * Aktuálne rýchlosti lietadiel v uzloch.
+     */
+    int[] actualAirSpeed;
+
+    /**
+     * Konečné rýchlosti pridelené lietadlám v uzloch.
+     */
+    int[] finalAirSpeed;
+
+    /**
+     * Príznaky lietadiel {@code CLEARED_FOR_DEPARTURE}, {@code GOING_AROUND} a {@code SEPARATION_LOST}.
+     */
+    byte[] flags;
+
+    /**
+     * Zemepisné kurzy lietadiel v stupňoch.
+     */
+    double[] heading;
+
+    /**
+     * Indexy bodov aktuálnej trasy, na ktoré lietadlá smerujú.
+     */
+    int[] routeCursor;
+
+    /**
+     * Vzdialenosti v námorných míľach, ktoré lietadlám zostávajú do bodu, na ktorý smerujú.
+     */
+    double[] legRemaining;
+
+    /**
+     * Zmeny zemepisnej šírky lietadiel v stupňoch na námornú míľu letu po aktuálnom úseku trasy.
+     */
+    double[] legLatitudeRate;
+
+    /**
+     * Zmeny zemepisnej dĺžky lietadiel v stupňoch na námornú míľu letu po aktuálnom úseku trasy.
+     */
+    double[] legLongitudeRate;
+
+    /**
+     * Kroky letiska, v ktorých sa má vyhodnotiť prelet bodu trasy, alebo {@code NO_PASSAGE}.
+     */
+    long[] passageStep;
+
+    /**
+     * Zásobník voľných slotov pod hranicou {@code highWater}.
+     */
+    private int[] freeSlots;
+
+    /**
+     * Počet voľných slotov v zásobníku.
+     */
+    private int freeCount;
+
+    /**
+     * Počet slotov, ktoré boli niekedy obsadené. Cykly prechádzajú sloty od nuly po túto hranicu.
+     */
+    private int highWater;
+
+    /**
+     * Počet lietadiel v tabuľke.
+     */
+    private int size;
+
+    /**
+     * Základný konštruktor vytvorí prázdnu tabuľku.
+     */
+    AircraftStateTable() {
+        aircraft = new Aircraft[INITIAL_CAPACITY];
+        latitude = new double[INITIAL_CAPACITY];
+        longitude = new double[INITIAL_CAPACITY];
+        actualFlightLevel = new int[INITIAL_CAPACITY];
+        finalFlightLevel = new int[INITIAL_CAPACITY];
+        actualAirSpeed = new int[INITIAL_CAPACITY];
+        finalAirSpeed = new int[INITIAL_CAPACITY];
+        flags = new byte[INITIAL_CAPACITY];
+        heading = new double[INITIAL_CAPACITY];
+        routeCursor = new int[INITIAL_CAPACITY];
+        legRemaining = new double[INITIAL_CAPACITY];
+        legLatitudeRate = new double[INITIAL_CAPACITY];
+        legLongitudeRate = new double[INITIAL_CAPACITY];
+        passageStep = new long[INITIAL_CAPACITY];
+        freeSlots = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Pridá lietadlo do tabuľky a prevezme z neho jeho aktuálny stav.
+     *
+     * @param acft Lietadlo, ktoré vstupuje do simulácie.
+     *
+     * @return Slot, ktorý lietadlo dostalo.
+     */
+    int add(Aircraft acft) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (highWater == aircraft.length) {
+                grow();
+            }
+            slot = highWater++;
+        }
+        aircraft[slot] = acft;
+        latitude[slot] = acft.getLatitude();
+        longitude[slot] = acft.getLongitude();
+        actualFlightLevel[slot] = acft.getActualFlightLevel();
+        finalFlightLevel[slot] = acft.getFinalFlightLevel();
+        actualAirSpeed[slot] = acft.getActualAirSpeed();
+        finalAirSpeed[slot] = acft.getFinalAirSpeed();
+        flags[slot] = 0;
+        setFlag(slot, CLEARED_FOR_DEPARTURE, acft.isClearedForDeparture());
+        setFlag(slot, GOING_AROUND, acft.isGoingAround());
+        heading[slot] = acft.getHeading();
+        routeCursor[slot] = acft.getRouteCursor();
+        legRemaining[slot] = 0;
+        legLatitudeRate[slot] = 0;
+        legLongitudeRate[slot] = 0;
+        passageStep[slot] = NO_PASSAGE;
+        size++;
+        return slot;
+    }
+
+    /**
+     * Odstráni lietadlo z tabuľky. Pred odstránením sa jeho stav zapíše do objektu lietadla.
+     *
+     * @param slot Slot lietadla.
+     *
+     * @return Odstránené lietadlo.
+     */
+    Aircraft remove(int slot) {
+        publish(slot);
+        Aircraft acft = aircraft[slot];
+        aircraft[slot] = null;
+        passageStep[slot] = NO_PASSAGE;
+        freeSlots[freeCount++] = slot;
+        size--;
+        return acft;
+    }
+
+    /**
+     * Zapíše stav lietadla z tabuľky do jeho objektu.
+     *
+     * @param slot Slot lietadla.
+     */
+    void publish(int slot) {
+        Aircraft acft = aircraft[slot];
+        acft.setLatitude(latitude[slot]);
+        acft.setLongitude(longitude[slot]);
+        acft.setActualFlightLevel(actualFlightLevel[slot]);
+        acft.setFinalFlightLevel(finalFlightLevel[slot]);
+        acft.setActualAirSpeed(actualAirSpeed[slot]);
+        acft.setFinalAirSpeed(finalAirSpeed[slot]);
+        acft.setClearedForDeparture(hasFlag(slot, CLEARED_FOR_DEPARTURE));
+        acft.setGoingAround(hasFlag(slot, GOING_AROUND));
+        acft.setSeparationLost(hasFlag(slot, SEPARATION_LOST));
+        acft.setHeading(heading[slot]);
+        acft.setRouteCursor(routeCursor[slot]);
+    }
+
+    /**
+     * Zapíše stav všetkých lietadiel z tabuľky do ich objektov.
+     */
+    void publishAll() {
+        for (int slot = 0; slot < highWater; slot++) {
+            if (aircraft[slot] != null) {
+                publish(slot);
+            }
+        }
+    }
+
+    /**
+     * Zistí, či má lietadlo nastavený príznak.
+     *
+     * @param slot Slot lietadla.
+     * @param flag Príznak {@code CLEARED_FOR_DEPARTURE}, {@code GOING_AROUND} alebo {@code SEPARATION_LOST}.
+     *
+     * @return True, ak je príznak nastavený, false inak.
+     */
+    boolean hasFlag(int slot, byte flag) {
+        return (flags[slot] & flag) != 0;
+    }
+
+    /**
+     * Nastaví alebo zruší príznak lietadla.
+     *
+     * @param slot Slot lietadla.
+     * @param flag Príznak {@code CLEARED_FOR_DEPARTURE}, {@code GOING_AROUND} alebo {@code SEPARATION_LOST}.
+     * @param value Nová hodnota príznaku.
+     */
+    void setFlag(int slot, byte flag, boolean value) {
+        if (value) {
+            flags[slot] |= flag;
+        } else {
+            flags[slot] &= ~flag;
+        }
+    }
+
+    /**
+     * Vráti počet slotov, ktoré boli niekedy obsadené. Voľné sloty pod touto hranicou majú
+     * v poli {@code aircraft} hodnotu null.
+     *
+     * @return Horná hranica obsadených slotov.
+     */
+    int getHighWater() {
+        return highWater;
+    }
+
+    /**
+     * Vráti počet lietadiel v tabuľke.
+     *
+     * @return Počet lietadiel.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Zdvojnásobí kapacitu všetkých polí tabuľky.
+     */
+    private void grow() {
+        int capacity = aircraft.length * 2;
+        aircraft = Arrays.copyOf(aircraft, capacity);
+        latitude = Arrays.copyOf(latitude, capacity);
+        longitude = Arrays.copyOf(longitude, capacity);
+        actualFlightLevel = Arrays.copyOf(actualFlightLevel, capacity);
+        finalFlightLevel = Arrays.copyOf(finalFlightLevel, capacity);
+        actualAirSpeed = Arrays.copyOf(actualAirSpeed, capacity);
+        finalAirSpeed = Arrays.copyOf(finalAirSpeed, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        heading = Arrays.copyOf(heading, capacity);
+        routeCursor = Arrays.copyOf(routeCursor, capacity);
+        legRemaining = Arrays.copyOf(legRemaining, capacity);
+        legLatitudeRate = Arrays.copyOf(legLatitudeRate, capacity);
+        legLongitudeRate = Arrays.copyOf(legLongitudeRate, capacity);
+        passageStep = Arrays.copyOf(passageStep, capacity);
+        freeSlots = Arrays.copyOf(freeSlots, capacity);
+    }
+
+}
@@ -0,0 +1,1268 @@
+package net.robobalasko.letiskoserv.simulacia;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import net.robobalasko.letiskoserv.data.EmptyRouteException;
+import net.robobalasko.letiskoserv.data.FlightScheduleReader;
+import net.robobalasko.letiskoserv.data.WaypointNotLoadedException;
+import net.robobalasko.letiskoserv.lietadla.Aircraft;
+import net.robobalasko.letiskoserv.lietadla.AircraftGenerator;
+import net.robobalasko.letiskoserv.lietadla.CallsignAllocator;
+import net.robobalasko.letiskoserv.lietadla.TrafficGenerator;
+import net.robobalasko.letiskoserv.navigacia.Airport;
+import net.robobalasko.letiskoserv.navigacia.AirportRouteTypesEnum;
+import net.robobalasko.letiskoserv.navigacia.GPSCoordinates;
+import net.robobalasko.letiskoserv.navigacia.GeoCalculator;
+import net.robobalasko.letiskoserv.navigacia.Route;
+import net.robobalasko.letiskoserv.navigacia.RouteNotLoadedException;
+import net.robobalasko.letiskoserv.navigacia.Waypoint;
+
+/**
+ * Simulácia letovej prevádzky na jednom pripojenom letisku. Generuje lietadlá a riadi ich let
+ * podľa letových plánov, sleduje výšky, rýchlosti a obsadenosť dráhy.
+ *
+ * Odlety a prílety vytvára {@code TrafficGenerator} podľa hodinových počtov letiska na hodinách
+ * simulácie. Prilietajúce lietadlo sa objaví pri prvom bode príletovej trasy rovnako ako
+ * lietadlo predané z iného letiska.
+ *
+ * Stav letiska mení len jeho actor {@code SimulationActor}. Kroky od {@code SimulationEngine},
+ * zmeny od riadiaceho, lietadlá predané z iných letísk aj prihlásenia na odber krokov prichádzajú
+ * do schránky actora ako správy a vykonávajú sa postupne na spoločnej skupine vlákien enginu.
+ * Stav letiska preto nepotrebuje zámky a predávajúce letisko nikdy nečaká na prijímajúce.
+ *
+ * Lietadlá, ktoré počas kroku opustia riadenú oblasť letiska, sa neodovzdávajú hneď. Simulácia
+ * si ich odloží a engine ich po skončení kroku všetkých letísk odovzdá letiskám príletu v pevnom
+ * poradí, takže výsledok kroku nezávisí od toho, v akom poradí vlákna letiská posunuli.
+ *
+ * Simulácia pracuje v zemepisných súradniciach WGS84 a rýchlostiach v uzloch, nezávisle od veľkosti
+ * radarovej obrazovky klientov. Na pixely obrazovky ich prepočítava až klient pri vykresľovaní.
+ *
+ * Kroky simulácie pracujú s tabuľkou {@code AircraftStateTable}, v ktorej sú polohy, výšky,
+ * rýchlosti a príznaky lietadiel uložené v primitívnych poliach. Objekty lietadiel
+ * sa z tabuľky aktualizujú na konci každého kroku. Relácie klientov čítajú nemenné kópie
+ * lietadiel {@code AircraftSnapshot}, ktoré actor zverejní po každom kroku a po každej zmene.
+ * Kópie sa vytvárajú len vtedy, keď letisko sleduje aspoň jeden klient, letiská bez riadiaceho
+ * tak v krokoch lietadlá nekopírujú.
+ * Súčasťou stavu sú aj dvojice lietadiel s narušenou separáciou, ktoré na konci kroku nájde
+ * {@code ConflictDetector}, takže klienti ich nemusia hľadať sami.
+ *
+ * Keď lietadlo začne letieť nový úsek trasy, simulácia si zapamätá, o koľko sa mení jeho poloha
+ * na míľu letu, a podľa najvyššej rýchlosti, ktorú môže mať, vypočíta krok, v ktorom najskôr
+ * doletí na bod trasy. Prelet bodu sa naplánuje do časového kolesa {@code TimingWheel}.
+ * Lietadlá medzi bodmi sa v každom kroku len posunú po úseku, bez hľadania bodu a výpočtu kurzu.
+ * Prechod na ďalší bod, predanie inému letisku aj pristátie sa vyhodnotia až pri udalosti
+ * z kolesa. Ak lietadlo v tom kroku bod ešte nedosiahlo, prelet sa naplánuje znova.
+ *
+ * Pohyb, zrýchlenie aj stúpanie lietadiel sú dané za sekundu letu a v každom kroku sa násobia časom
+ * letu, ktorý krok predstavuje. Lietadlá preto letia rovnako pri ľubovoľnej dĺžke kroku.
+ *
+ * Každých niekoľko krokov simulácia skopíruje lietadlá s ich zostávajúcimi trasami do sondy
+ * {@code ConflictProbe}, ktorá na vláknach enginu pre sondy predpovedá konflikty na niekoľko
+ * minút letu dopredu. Krok na predpoveď nečaká. Kým predchádzajúca predpoveď beží, ďalšia sa
+ * nespustí, a výsledok sa do stavu letiska dostane ako správa pre actora.
+ *
+ * @author rbalasko
+ */
+public class AirportSimulation {
+
+    /**
+     * Rýchlosť v uzloch, od ktorej sa lietadlo odlepí od dráhy a začne sa pohybovať po trase.
+     */
+    static final int ROTATION_SPEED = 100;
+
+    /**
+     * Vzdialenosť od letiska v námorných míľach, v ktorej lietadlo blokuje dráhu pre odlety.
+     */
+    private static final double RUNWAY_AREA_NM = 6;
+
+    /**
+     * Vzdialenosť od letiska v námorných míľach, v ktorej môže lietadlo dostať povolenie na pristátie.
+     */
+    private static final double LANDING_DISTANCE_NM = 6;
+
+    /**
+     * Najväčšia vzdialenosť v námorných míľach, o ktorú sa predané lietadlo objaví vedľa prvého
+     * bodu príletovej trasy.
+     */
+    private static final double HAND_OFF_SPREAD_NM = 0.5;
+
+    /**
+     * Rezerva v uzloch, o ktorú môže lietadlo náhodným zrýchlením prekročiť povolenú rýchlosť.
+     * Prelet bodu sa plánuje podľa rýchlosti zvýšenej o túto rezervu, aby nebol neskôr, ako lietadlo
+     * na bod doletí.
+     */
+    private static final int PASSAGE_SPEED_MARGIN = 5;
+
+    /**
+     * Počet sekúnd v hodine, v ktorej je udaná rýchlosť lietadiel v uzloch.
+     */
+    private static final double SECONDS_PER_HOUR = 3600;
+
+    /**
+     * Zmena rýchlosti v uzloch alebo výšky v letových hladinách za sekundu letu, od ktorej sa
+     * náhodná zmena lietadla odvíja.
+     */
+    private static final double MIN_CHANGE_RATE = 0.25;
+
+    /**
+     * Rozsah náhodnej zmeny rýchlosti alebo výšky lietadla za sekundu letu, ktorá sa k {@code MIN_CHANGE_RATE}
+     * pripočíta pri zrýchľovaní a stúpaní a odpočíta inak.
+     */
+    private static final double CHANGE_RATE_SPREAD = 1.0;
+
+    /**
+     * Log príkazov riadiacich v deterministickom režime. Každý záznam obsahuje číslo kroku, na začiatku
+     * ktorého sa príkaz vykonal, a všetky údaje príkazu, takže spolu so semenom simulácie stačí
+     * na zopakovanie behu.
+     */
+    public static final Logger COMMAND_LOG = Logger.getLogger(AirportSimulation.class.getName() + ".commands");
+
+    /**
+     * ICAO kód simulovaného letiska.
+     */
+    private final String icaoCode;
+
+    /**
+     * Dáta simulovaného letiska.
+     */
+    private final Airport loadedAirport;
+
+    /**
+     * Generátor jednotlivých lietadiel letiska.
+     */
+    private final AircraftGenerator aircraftGenerator;
+
+    /**
+     * Generátor odletov a príletov letiska.
+     */
+    private final TrafficGenerator trafficGenerator;
+
+    /**
+     * Engine, ktorý simuláciu posúva a cez ktorý sa hľadajú ostatné letiská.
+     */
+    private final SimulationEngine engine;
+
+    /**
+     * Stav lietadiel, s ktorým pracujú kroky simulácie.
+     */
+    private final AircraftStateTable table;
+
+    /**
+     * Sloty lietadiel v tabuľke stavu podľa identifikátora volacieho znaku z {@code CallsignAllocator}.
+     */
+    private final Map<Integer, Integer> slotsByCallSignId;
+
+    /**
+     * Čas letu v sekundách, ktorý uplynie za jeden krok simulácie.
+     */
+    private final double stepSeconds;
+
+    /**
+     * Prúd náhodných čísel letiska pre pohyb lietadiel.
+     */
+    private final SimulationRandom random;
+
+    /**
+     * Objekty upozorňované na každý krok simulácie.
+     */
+    private final List<SimulationListener> listeners;
+
+    /**
+     * Actor, ktorý vykonáva všetky zmeny stavu letiska.
+     */
+    private final SimulationActor actor;
+
+    /**
+     * Detekcia narušenia separácie medzi lietadlami letiska.
+     */
+    private final ConflictDetector conflictDetector;
+
+    /**
+     * Dvojice lietadiel s narušenou separáciou zistené posledným krokom.
+     */
+    private List<AircraftConflict> conflicts;
+
+    /**
+     * Sonda, ktorá predpovedá konflikty lietadiel letiska.
+     */
+    private final ConflictProbe conflictProbe;
+
+    /**
+     * Príznak, že sonda práve predpovedá konflikty a nesmie sa meniť.
+     */
+    private final AtomicBoolean probeRunning;
+
+    /**
+     * Dvojice lietadiel, ktorým posledná dokončená predpoveď hrozí narušenie separácie.
+     */
+    private List<AircraftConflict> predictedConflicts;
+
+    /**
+     * Časové koleso, v ktorom sú naplánované prelety bodov trás lietadiel.
+     */
+    private final TimingWheel passages;
+
+    /**
+     * Lietadlá, ktoré počas posledného kroku opustili riadenú oblasť letiska a čakajú na odovzdanie
+     * letisku príletu. Zapisuje do nich krok simulácie, engine ich vyberá až po skončení kroku.
+     */
+    private final List<Aircraft> outboundHandOffs;
+
+    /**
+     * Príkazy riadiacich, ktoré v deterministickom režime čakajú na začiatok ďalšieho kroku.
+     */
+    private final List<Aircraft> pendingCommands;
+
+    /**
+     * Posledný zverejnený stav lietadiel.
+     */
+    private volatile AircraftSnapshot snapshot;
+
+    /**
+     * Počet klientov, ktorí čítajú zverejnený stav lietadiel.
+     */
+    private final AtomicInteger snapshotReaders;
+
+    /**
+     * Poradové číslo posledného vykonaného kroku simulácie.
+     */
+    private long lastTick;
+
+    /**
+     * Základný konštruktor pripraví simuláciu letiska bez lietadiel.
+     *
+     * @param icaoCode ICAO kód letiska, ktoré si klient vybral.
+     * @param loadedAirport Načítané dáta letiska.
+     * @param engine Engine, ktorý bude simuláciu posúvať. Lietadlá lietajú na letiská z jeho registra.
+     * @param departuresPerHour Priemerný počet odletov z letiska za hodinu letu.
+     * @param arrivalsPerHour Priemerný počet príletov na letisko za hodinu letu.
+     * @param sectorCapacity Najväčší počet lietadiel v riadenej oblasti letiska, pri ktorom ešte
+     * vznikne nový odlet alebo prílet.
+     * @param schedule Letový plán odletov z letiska alebo null, ak letisko letový plán nemá.
+     */
+    public AirportSimulation(String icaoCode, Airport loadedAirport, SimulationEngine engine,
+            double departuresPerHour, double arrivalsPerHour, int sectorCapacity,
+            FlightScheduleReader schedule) {
+        this.icaoCode = icaoCode;
+        this.loadedAirport = loadedAirport;
+        this.engine = engine;
+        this.table = new AircraftStateTable();
+        this.slotsByCallSignId = new HashMap<Integer, Integer>();
+        this.random = engine.createRandom(icaoCode.toUpperCase());
+        // Prevádzka má vlastný prúd, aby zmena pohybu lietadiel nezmenila vygenerované lietadlá
+        SimulationRandom trafficRandom = engine.createRandom(icaoCode.toUpperCase() + ".traffic");
+        this.aircraftGenerator = new AircraftGenerator(icaoCode, loadedAirport, engine.getWorld().getAirports(),
+                engine.getWorld().getCallsignAllocator(), trafficRandom);
+        this.trafficGenerator = new TrafficGenerator(aircraftGenerator, departuresPerHour, arrivalsPerHour,
+                sectorCapacity, schedule, trafficRandom);
+        this.stepSeconds = engine.getStepSeconds();
+        this.listeners = new ArrayList<SimulationListener>();
+        this.actor = new SimulationActor(icaoCode, engine.getWorkers());
+        this.outboundHandOffs = new ArrayList<Aircraft>();
+        this.pendingCommands = new ArrayList<Aircraft>();
+        this.conflictDetector = new ConflictDetector(loadedAirport.getGpsCoordinates().getLatitude());
+        this.conflicts = Collections.emptyList();
+        this.conflictProbe = new ConflictProbe(loadedAirport.getGpsCoordinates().getLatitude(), stepSeconds,
+                engine.getProbeHorizonTicks());
+        this.probeRunning = new AtomicBoolean();
+        this.predictedConflicts = Collections.emptyList();
+        this.passages = new TimingWheel();
+        this.snapshot = AircraftSnapshot.EMPTY;
+        this.snapshotReaders = new AtomicInteger();
+    }
+
+    /**
+     * Vloží do schránky actora ďalší krok simulácie.
+     *
+     * @param tick Poradové číslo kroku simulácie.
+     * @param sampleTrail Či sa má do prejdenej trasy lietadiel zaznamenať ich aktuálna pozícia.
+     * @param barrier Počítadlo, ktoré sa zníži po skončení kroku, aj keď krok zlyhá.
+     */
+    void requestStep(final long tick, final boolean sampleTrail, final CountDownLatch barrier) {
+        actor.tell(new Runnable() {
+            @Override
+            public void run() {
+                long stepStart = System.nanoTime();
+                try {
+                    step(tick, sampleTrail);
+                } finally {
+                    engine.stepFinished(AirportSimulation.this, tick, System.nanoTime() - stepStart);
+                    barrier.countDown();
+                }
+            }
+        });
+    }
+
+    /**
+     * Odovzdá lietadlá, ktoré v poslednom kroku opustili riadenú oblasť, letiskám príletu.
+     * Engine metódu volá až potom, čo kroky všetkých letísk skončili, a pred ďalším krokom.
+     */
+    void exchangeHandOffs() {
+        for (Aircraft aircraft : outboundHandOffs) {
+            AirportSimulation destination = engine.getWorld().getSimulation(aircraft.getArrAirport());
+            if (destination != null) {
+                destination.acceptHandOff(aircraft);
+            } else {
+                releaseCallSign(aircraft);
+            }
+        }
+        outboundHandOffs.clear();
+    }
+
+    /**
+     * Vykoná jeden krok simulácie letiska a upozorní na neho všetky zaregistrované objekty.
+     *
+     * Lietadlo, ktorého trasu nie je možné ďalej letieť, sa zo simulácie odstráni, aby
+     * nezastavilo prevádzku ostatných lietadiel.
+     *
+     * @param tick Poradové číslo kroku simulácie.
+     * @param sampleTrail Či sa má do prejdenej trasy lietadiel zaznamenať ich aktuálna pozícia.
+     */
+    private void step(long tick, boolean sampleTrail) {
+        lastTick = tick;
+        applyPendingCommands(tick);
+        long passageStep = passages.advance();
+        trafficGenerator.advance(stepSeconds);
+        if (checkRunwayClear()) {
+            Aircraft departure = trafficGenerator.nextDeparture(table.size());
+            if (departure != null) {
+                try {
+                    generateDepartingAircraft(departure);
+                } catch (WaypointNotLoadedException ex) {
+                    Logger.getLogger(AirportSimulation.class.getName()).log(Level.SEVERE, null, ex);
+                }
+            }
+        }
+        for (Aircraft arrival = trafficGenerator.nextArrival(table.size()); arrival != null;
+                arrival = trafficGenerator.nextArrival(table.size())) {
+            try {
+                generateArrivingAircraft(arrival);
+            } catch (EmptyRouteException ex) {
+                Logger.getLogger(AirportSimulation.class.getName()).log(Level.SEVERE, null, ex);
+            } catch (WaypointNotLoadedException ex) {
+                Logger.getLogger(AirportSimulation.class.getName()).log(Level.SEVERE, null, ex);
+            }
+        }
+        if (checkRunwayClear()) {
+            loadedAirport.setRunwayBlocked(false);
+            loadedAirport.setAircraftBlockingRunway("");
+        }
+
+        // Pohyb lietadiel po úsekoch ich trás
+        int highWater = table.getHighWater();
+        for (int slot = 0; slot < highWater; slot++) {
+            if (table.aircraft[slot] != null
+                    && table.hasFlag(slot, AircraftStateTable.CLEARED_FOR_DEPARTURE)) {
+                moveAircraft(slot, sampleTrail);
+            }
+        }
+
+        // Prelety bodov trás naplánované na tento krok
+        int passageCount = passages.getExpiredCount();
+        for (int i = 0; i < passageCount; i++) {
+            int slot = passages.getExpired(i);
+            if (table.aircraft[slot] == null || table.passageStep[slot] != passageStep) {
+                // Udalosť zrušená novším naplánovaním alebo odchodom lietadla
+                continue;
+            }
+            table.passageStep[slot] = AircraftStateTable.NO_PASSAGE;
+            try {
+                passWaypoint(slot);
+            } catch (EmptyRouteException ex) {
+                dropAircraft(slot, ex);
+            } catch (WaypointNotLoadedException ex) {
+                dropAircraft(slot, ex);
+            }
+        }
+        accelerateAircraft();
+        climbAircraft();
+
+        // Povolenie na pristátie alebo opakované priblíženie
+        boolean runwayClear = checkRunwayClear();
+        for (int slot = 0; slot < highWater; slot++) {
+            if (table.aircraft[slot] == null
+                    || !table.hasFlag(slot, AircraftStateTable.CLEARED_FOR_DEPARTURE)) {
+                continue;
+            }
+            Aircraft acft = table.aircraft[slot];
+            if (isClearedToLand(slot, runwayClear)) {
+                loadedAirport.setRunwayBlocked(true);
+                loadedAirport.setAircraftBlockingRunway(acft.getCallSign());
+            } else {
+                if (isAircraftLanding(slot) && isWithinLandingDistance(slot)) {
+                    if (loadedAirport.isRunwayBlocked()
+                            && !loadedAirport.getAircraftBlockingRunway().equals(acft.getCallSign())) {
+                        boolean atRouteEnd = table.routeCursor[slot] >= acft.getRouteLength();
+                        List<String> directWaypoints = new ArrayList<String>(acft.getDirectWaypoints());
+                        directWaypoints.add(loadedAirport.getRandomWaypoint(icaoCode.toUpperCase(), random).getName());
+                        acft.setDirectWaypoints(directWaypoints);
+                        table.setFlag(slot, AircraftStateTable.GOING_AROUND, true);
+                        if (atRouteEnd) {
+                            // Lietadlo čakalo na pristátie na konci trasy, pokračuje na pridaný bod
+                            startLegOrDrop(slot);
+                        }
+                    }
+                }
+            }
+        }
+        conflicts = conflictDetector.detect(table);
+        if (tick % engine.getProbeIntervalTicks() == 0) {
+            startConflictProbe();
+        }
+        table.publishAll();
+        publishSnapshot();
+        for (SimulationListener listener : listeners) {
+            listener.simulationStepped(this, tick);
+        }
+    }
+
+    /**
+     * Postaví nové lietadlo na dráhu letiska, kde čaká na odlet.
+     *
+     * @param acft Nové lietadlo od generátora prevádzky.
+     *
+     * @throws WaypointNotLoadedException Ak sa v bodoch letiska nepodarí nájsť samotné letisko.
+     */
+    private void generateDepartingAircraft(Aircraft acft) throws WaypointNotLoadedException {
+        GPSCoordinates airportGps;
+        try {
+            airportGps = loadedAirport.getWaypointByName(icaoCode.toUpperCase()).getGpsCoordinates();
+        } catch (WaypointNotLoadedException ex) {
+            // Lietadlo do simulácie nevstúpi, jeho volací znak sa musí vrátiť
+            releaseCallSign(acft);
+            throw ex;
+        }
+        System.out.println("Vygenerovalo sa nové lietadlo...");
+        acft.setLatitude(airportGps.getLatitude());
+        acft.setLongitude(airportGps.getLongitude());
+        addAircraft(acft);
+        loadedAirport.setRunwayBlocked(true);
+    }
+
+    /**
+     * Pridá do simulácie nové lietadlo, ktoré prilieta na letisko z iného letiska.
+     *
+     * @param acft Nové lietadlo od generátora prevádzky.
+     *
+     * @throws EmptyRouteException Ak príletová trasa lietadla nemá žiadne body.
+     * @throws WaypointNotLoadedException Ak sa prvý bod príletovej trasy nepodarí nájsť.
+     */
+    private void generateArrivingAircraft(Aircraft acft)
+            throws EmptyRouteException, WaypointNotLoadedException {
+        boolean placed = false;
+        try {
+            placeAtStarEntry(acft);
+            placed = true;
+        } finally {
+            if (!placed) {
+                // Lietadlo do simulácie nevstúpi, jeho volací znak sa musí vrátiť
+                releaseCallSign(acft);
+            }
+        }
+        addAircraft(acft);
+    }
+
+    /**
+     * Pridá lietadlo do simulácie.
+     *
+     * @param acft Lietadlo, ktoré vstupuje do riadenej oblasti letiska.
+     */
+    private void addAircraft(Aircraft acft) {
+        acft.getRouteTrail().setCapacity(engine.getTrailLength());
+        int slot = table.add(acft);
+        int callSignId = engine.getWorld().getCallsignAllocator().getId(acft.getCallSign());
+        if (callSignId != CallsignAllocator.NO_ID) {
+            slotsByCallSignId.put(callSignId, slot);
+        }
+        startLegOrDrop(slot);
+    }
+
+    /**
+     * Odstráni lietadlo zo simulácie.
+     *
+     * @param slot Slot lietadla v tabuľke stavu.
+     *
+     * @return Odstránené lietadlo s posledným stavom z tabuľky.
+     */
+    private Aircraft removeAircraft(int slot) {
+        Aircraft acft = table.remove(slot);
+        Integer callSignId = engine.getWorld().getCallsignAllocator().getId(acft.getCallSign());
+        if (Integer.valueOf(slot).equals(slotsByCallSignId.get(callSignId))) {
+            slotsByCallSignId.remove(callSignId);
+        }
+        return acft;
+    }
+
+    /**
+     * Vráti volací znak lietadla, ktoré opustilo simuláciu servera, medzi voľné volacie znaky.
+     *
+     * @param acft Lietadlo, ktoré pristálo alebo bolo zo simulácie odstránené.
+     */
+    private void releaseCallSign(Aircraft acft) {
+        engine.getWorld().getCallsignAllocator().release(acft.getCallSign());
+    }
+
+    /**
+     * Odstráni zo simulácie lietadlo, ktorého trasu nie je možné ďalej letieť.
+     *
+     * @param slot Slot lietadla v tabuľke stavu.
+     * @param cause Dôvod, pre ktorý lietadlo nemôže pokračovať v lete.
+     */
+    private void dropAircraft(int slot, Exception cause) {
+        if (table.aircraft[slot] == null) {
+            // Lietadlo už simuláciu opustilo, napr. pri neúspešnom predaní inému letisku
+            return;
+        }
+        Aircraft acft = removeAircraft(slot);
+        releaseCallSign(acft);
+        Logger.getLogger(AirportSimulation.class.getName()).log(Level.WARNING,
+                "The aircraft " + acft.getCallSign() + " has been removed from the " + icaoCode
+                + " simulation, its route cannot be flown.", cause);
+    }
+
+    /**
+     * Zverejní kópie aktuálneho stavu lietadiel pre relácie klientov. Ak stav nikto nečíta,
+     * lietadlá sa nekopírujú a zverejní sa prázdny stav.
+     */
+    private void publishSnapshot() {
+        if (snapshotReaders.get() == 0) {
+            snapshot = AircraftSnapshot.EMPTY;
+            return;
+        }
+        int size = table.size();
+        Object[] keys = new Object[size];
+        Aircraft[] copies = new Aircraft[size];
+        int highWater = table.getHighWater();
+        int i = 0;
+        for (int slot = 0; slot < highWater; slot++) {
+            Aircraft acft = table.aircraft[slot];
+            if (acft != null) {
+                keys[i] = acft;
+                copies[i++] = new Aircraft(acft);
+            }
+        }
+        snapshot = new AircraftSnapshot(lastTick, keys, copies, conflicts, predictedConflicts);
+    }
+
+    /**
+     * Skopíruje lietadlá, ktoré dostali povolenie na odlet, spolu so zostávajúcimi bodmi ich trás
+     * do sondy a spustí predpoveď konfliktov na vláknach enginu pre sondy. Ak predchádzajúca
+     * predpoveď ešte beží, nová sa nespustí.
+     */
+    private void startConflictProbe() {
+        if (!probeRunning.compareAndSet(false, true)) {
+            return;
+        }
+        conflictProbe.clear();
+        int highWater = table.getHighWater();
+        for (int slot = 0; slot < highWater; slot++) {
+            Aircraft acft = table.aircraft[slot];
+            if (acft == null || !table.hasFlag(slot, AircraftStateTable.CLEARED_FOR_DEPARTURE)) {
+                continue;
+            }
+            conflictProbe.addAircraft(acft.getCallSign(), table.latitude[slot], table.longitude[slot],
+                    table.actualAirSpeed[slot], table.finalAirSpeed[slot],
+                    table.actualFlightLevel[slot], table.finalFlightLevel[slot]);
+            Route actualRoute = acft.getActualRoute();
+            try {
+                for (int cursor = table.routeCursor[slot]; cursor < acft.getRouteLength(); cursor++) {
+                    GPSCoordinates waypoint = getRouteWaypoint(acft, actualRoute, cursor).getGpsCoordinates();
+                    conflictProbe.addRoutePoint(waypoint.getLatitude(), waypoint.getLongitude());
+                }
+            } catch (EmptyRouteException ex) {
+                // Predpoveď pokračuje s bodmi trasy, ktoré sa podarilo nájsť
+            } catch (WaypointNotLoadedException ex) {
+                // Predpoveď pokračuje s bodmi trasy, ktoré sa podarilo nájsť
+            }
+        }
+        if (conflictProbe.size() < 2) {
+            predictedConflicts = Collections.emptyList();
+            probeRunning.set(false);
+            return;
+        }
+        try {
+            engine.getProbeExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        final List<AircraftConflict> predicted = conflictProbe.probe();
+                        actor.tell(new Runnable() {
+                            @Override
+                            public void run() {
+                                predictedConflicts = predicted;
+                            }
+                        });
+                    } finally {
+                        probeRunning.set(false);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            // Engine sa zastavuje, predpoveď sa už nespustí
+            probeRunning.set(false);
+        }
+    }
+
+    /**
+     * Prihlási klienta, ktorý bude čítať zverejnený stav lietadiel. Kým nie je prihlásený žiadny
+     * klient, simulácia stav nezverejňuje. Prvý prihlásený klient dostane aktuálny stav hneď,
+     * ako ho actor zverejní, bez čakania na ďalší krok.
+     */
+    public void addSnapshotReader() {
+        if (snapshotReaders.incrementAndGet() == 1) {
+            actor.tell(new Runnable() {
+                @Override
+                public void run() {
+                    publishSnapshot();
+                }
+            });
+        }
+    }
+
+    /**
+     * Odhlási klienta, ktorý čítal zverejnený stav lietadiel.
+     */
+    public void removeSnapshotReader() {
+        snapshotReaders.decrementAndGet();
+    }
+
+    /**
+     * Vráti posledný zverejnený stav lietadiel na letisku. Čítanie nečaká na actora simulácie.
+     * Ak letisko nesleduje žiadny klient prihlásený cez {@code addSnapshotReader}, stav je prázdny.
+     *
+     * @return Nemenný stav lietadiel.
+     */
+    public AircraftSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Vráti zoznam lietadiel z posledného zverejneného stavu, ktorý je možné odoslať klientovi,
+     * zatiaľ čo simulácia pokračuje.
+     *
+     * @return Zoznam kópií lietadiel.
+     */
+    public List<Aircraft> copyAircraft() {
+        return new LinkedList<Aircraft>(snapshot.getAircraft());
+    }
+
+    /**
+     * Nájde lietadlo na tomto letisku podľa volacieho znaku v poslednom zverejnenom stave.
+     *
+     * @param callSign Volací znak lietadla.
+     *
+     * @return Kópia lietadla alebo null, ak sa na letisku nenachádza.
+     */
+    public Aircraft findAircraft(String callSign) {
+        return snapshot.findAircraft(callSign);
+    }
+
+    /**
+     * Vráti ICAO kód simulovaného letiska.
+     *
+     * @return ICAO kód letiska.
+     */
+    public String getIcaoCode() {
+        return icaoCode;
+    }
+
+    /**
+     * Vráti dáta simulovaného letiska.
+     *
+     * @return Objekt letiska.
+     */
+    public Airport getAirport() {
+        return loadedAirport;
+    }
+
+    /**
+     * Prestaví vo vlákne actora tabuľky generátora lietadiel podľa nového zoznamu simulovaných letísk.
+     *
+     * @param airports Letiská, na ktoré môžu lietadlá z tohto letiska lietať a z ktorých môžu prilietať.
+     */
+    void connectedAirportsChanged(final List<Airport> airports) {
+        actor.tell(new Runnable() {
+            @Override
+            public void run() {
+                aircraftGenerator.setConnectedAirports(airports);
+            }
+        });
+    }
+
+    /**
+     * Zaregistruje objekt, ktorý bude upozorňovaný na každý krok simulácie. Objekt sa zaregistruje
+     * až vo vlákne actora, prvé upozornenie preto dostane po najbližšom kroku.
+     *
+     * @param listener Upozorňovaný objekt.
+     */
+    public void addSimulationListener(final SimulationListener listener) {
+        actor.tell(new Runnable() {
+            @Override
+            public void run() {
+                listeners.add(listener);
+            }
+        });
+    }
+
+    /**
+     * Zruší upozorňovanie objektu na kroky simulácie. Upozornenie z kroku, ktorý už prebieha,
+     * môže objekt ešte dostať.
+     *
+     * @param listener Upozorňovaný objekt.
+     */
+    public void removeSimulationListener(final SimulationListener listener) {
+        actor.tell(new Runnable() {
+            @Override
+            public void run() {
+                listeners.remove(listener);
+            }
+        });
+    }
+
+    /**
+     * Skontroluje, či sa v blízkosti dráhy alebo rovno na nej nenachádza práve žiadne lietadlo, aby mohlo byť vytovrené nové.
+     *
+     * @return True, ak je lietadlo mimo dráhy, false inak.
+     */
+    private boolean checkRunwayClear() {
+        Aircraft[] aircraft = table.aircraft;
+        int[] flightLevel = table.actualFlightLevel;
+        int highWater = table.getHighWater();
+        for (int slot = 0; slot < highWater; slot++) {
+            if (aircraft[slot] != null
+                    && flightLevel[slot] <= 50
+                    && distanceFromAirport(slot) <= RUNWAY_AREA_NM) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Získa bod na trase lietadla podľa jeho poradia.
+     *
+     * Trasy letísk sú preložené na objekty bodov už pri načítaní letiska, bod trasy sa preto len prečíta
+     * z poľa. Body pridané za koniec trasy sa vyhľadajú v indexe bodov letiska podľa názvu.
+     *
+     * @param acft Lietadlo, ktorého bod na trase sa má získať.
+     * @param acftRoute Trasa, ktorú lietadlo letí.
+     * @param cursor Poradie bodu na trase lietadla.
+     *
+     * @return Bod, na ktorý lietadlo bude smerovať ako {@code Waypoint} objekt.
+     *
+     * @throws EmptyRouteException Vyhodená ak sa na trase lietadla už nenachádzajú žiadne ďalšie body.
+     * @throws WaypointNotLoadedException Vyhodená ak sa bod na trase lietadla nepodarilo nájsť.
+     */
+    private Waypoint getRouteWaypoint(Aircraft acft, Route acftRoute, int cursor)
+            throws EmptyRouteException, WaypointNotLoadedException {
+        if (cursor < acftRoute.getWaypointCount()) {
+            return acftRoute.getWaypoint(cursor);
+        }
+        int direct = cursor - acftRoute.getWaypointCount();
+        if (direct >= acft.getDirectWaypoints().size()) {
+            throw new EmptyRouteException();
+        }
+        Airport airport = getRouteAirport(acft, acftRoute.getRouteType());
+        if (airport == null) {
+            throw new WaypointNotLoadedException();
+        }
+        return airport.getWaypointByName(acft.getDirectWaypoints().get(direct));
+    }
+
+    /**
+     * Vráti letisko, ktorého body lietadlo na trase zadaného typu letí.
+     *
+     * @param acft Lietadlo.
+     * @param routeType Typ trasy lietadla.
+     *
+     * @return Letisko odletu pre odletovú trasu, letisko pristátia pre príletovú trasu
+     *         alebo null, ak letisko pristátia nie je pripojené.
+     */
+    private Airport getRouteAirport(Aircraft acft, AirportRouteTypesEnum routeType) {
+        return (routeType == AirportRouteTypesEnum.SID) ? loadedAirport : getDestinationAirport(acft);
+    }
+
+    /**
+     * Vráti hodnotu, či lietadlo letí posledný úsek príletovej trasy a pripravuje sa na pristátie.
+     *
+     * @param slot Slot lietadla.
+     *
+     * @return True, ak je lietadlo pripravené pristávať.
+     */
+    private boolean isAircraftLanding(int slot) {
+        Aircraft acft = table.aircraft[slot];
+        return acft.getActualRoute().getRouteType() == AirportRouteTypesEnum.STAR
+                && acft.getRouteLength() - table.routeCursor[slot] <= 1;
+    }
+
+    private boolean isWithinLandingDistance(int slot) {
+        return distanceFromAirport(slot) <= LANDING_DISTANCE_NM;
+    }
+
+    private boolean isClearedToLand(int slot, boolean runwayClear) {
+        return runwayClear
+                && table.actualAirSpeed[slot] < 180
+                && isAircraftLanding(slot)
+                && isWithinLandingDistance(slot);
+    }
+
+    /**
+     * Vypočíta vzdialenosť lietadla od vzťažného bodu letiska.
+     *
+     * @param slot Slot lietadla.
+     *
+     * @return Vzdialenosť v námorných míľach.
+     */
+    private double distanceFromAirport(int slot) {
+        GPSCoordinates airportGps = loadedAirport.getGpsCoordinates();
+        return GeoCalculator.distance(table.latitude[slot], table.longitude[slot],
+                airportGps.getLatitude(), airportGps.getLongitude());
+    }
+
+    /**
+     * Vypočíta vzdialenosť, ktorú lietadlo preletí za jeden krok simulácie.
+     *
+     * Lietadlo pomalšie ako {@code ROTATION_SPEED} sa ešte rozbieha po dráhe a jeho poloha sa nemení.
+     *
+     * @param airSpeed Rýchlosť lietadla v uzloch.
+     *
+     * @return Vzdialenosť v námorných míľach.
+     */
+    private double getStepDistance(int airSpeed) {
+        if (airSpeed < ROTATION_SPEED) {
+            return 0;
+        }
+        return airSpeed * stepSeconds / SECONDS_PER_HOUR;
+    }
+
+    /**
+     * Pohyb lietadla po aktuálnom úseku trasy ku nasledujúcemu bodu.
+     *
+     * Lietadlo letí po priamke ku bodu rýchlosťou v uzloch. Ak by ho za krok preletelo,
+     * zastaví sa na bode a na ďalší bod trasy pokračuje až po vyhodnotení preletu.
+     *
+     * @param slot Slot lietadla, ktoré sa má pohnúť
+     * @param sampleTrail Či sa má do prejdenej trasy lietadla zaznamenať jeho nová pozícia
+     */
+    private void moveAircraft(int slot, boolean sampleTrail) {
+        double step = Math.min(getStepDistance(table.actualAirSpeed[slot]), table.legRemaining[slot]);
+        table.latitude[slot] += step * table.legLatitudeRate[slot];
+        table.longitude[slot] += step * table.legLongitudeRate[slot];
+        table.legRemaining[slot] -= step;
+
+        if (sampleTrail) {
+            table.aircraft[slot].getRouteTrail().add(table.latitude[slot], table.longitude[slot]);
+        }
+    }
+
+    /**
+     * Vyhodnotí naplánovaný prelet bodu trasy.
+     *
+     * Ak lietadlo bod dosiahlo, postaví sa presne na neho a začne letieť ďalší úsek trasy. Ak už
+     * na trase nie sú ďalšie body, lietadlo sa predá letisku pristátia alebo pristane. Lietadlo,
+     * ktoré bod ešte nedosiahlo, dostane nový čas preletu. Lietadlo bez povolenia na odlet
+     * nedostane nový čas, kým povolenie nedostane.
+     *
+     * @param slot Slot lietadla.
+     *
+     * @throws EmptyRouteException Vyhodená ak sa už v cestovnej trase lietadla nenachádzajú ďalšie body, ale napriek tomu bol pokus o odobratie bodu.
+     * @throws WaypointNotLoadedException Vyhodená ak sa v zozname bodov, ktoré sú na trase lietadla nepodarilo nájsť požadovaný bod.
+     */
+    private void passWaypoint(int slot) throws EmptyRouteException, WaypointNotLoadedException {
+        if (!table.hasFlag(slot, AircraftStateTable.CLEARED_FOR_DEPARTURE)) {
+            return;
+        }
+        Aircraft acft = table.aircraft[slot];
+        Route actualRoute = acft.getActualRoute();
+        int cursor = table.routeCursor[slot];
+        if (cursor >= acft.getRouteLength()) {
+            if (acft.getDepAirport().equals(icaoCode)
+                    && actualRoute.getRouteType() == AirportRouteTypesEnum.SID) {
+                // Ak už v zozname nie sú ďalšie body a lietadlo je stále riadené
+                // DEP radarom, prehodíme ho na letisko pristátia
+                handOffAircraft(slot);
+            } else {
+                // Ak už v zozname nie sú ďalšie body a lietadlo je na letisku
+                // pristátia, môže pristáť, predá sa TWR riadeniu...
+                acft.getRouteTrail().clear();
+                removeAircraft(slot);
+                releaseCallSign(acft);
+                loadedAirport.setRunwayBlocked(true);
+                loadedAirport.setAircraftBlockingRunway(acft.getCallSign());
+            }
+            return;
+        }
+        if (table.legRemaining[slot] > 0) {
+            schedulePassage(slot);
+            return;
+        }
+        GPSCoordinates nextWpt = getRouteWaypoint(acft, actualRoute, cursor).getGpsCoordinates();
+        table.latitude[slot] = nextWpt.getLatitude();
+        table.longitude[slot] = nextWpt.getLongitude();
+        table.routeCursor[slot] = cursor + 1;
+        startLeg(slot);
+    }
+
+    /**
+     * Pripraví let lietadla z jeho aktuálnej polohy na bod trasy, na ktorý smeruje, a naplánuje
+     * jeho prelet. Lietadlo, ktoré je už za posledným bodom trasy, sa vyhodnotí v ďalšom kroku.
+     *
+     * @param slot Slot lietadla.
+     *
+     * @throws EmptyRouteException Vyhodená ak sa na trase lietadla už nenachádzajú žiadne ďalšie body.
+     * @throws WaypointNotLoadedException Vyhodená ak sa bod na trase lietadla nepodarilo nájsť.
+     */
+    private void startLeg(int slot) throws EmptyRouteException, WaypointNotLoadedException {
+        Aircraft acft = table.aircraft[slot];
+        int cursor = table.routeCursor[slot];
+        table.legRemaining[slot] = 0;
+        table.legLatitudeRate[slot] = 0;
+        table.legLongitudeRate[slot] = 0;
+        if (cursor < acft.getRouteLength()) {
+            GPSCoordinates nextWpt = getRouteWaypoint(acft, acft.getActualRoute(), cursor).getGpsCoordinates();
+            double latitude = table.latitude[slot];
+            double longitude = table.longitude[slot];
+            double distance = GeoCalculator.distance(latitude, longitude,
+                    nextWpt.getLatitude(), nextWpt.getLongitude());
+            if (distance > 0) {
+                table.heading[slot] = GeoCalculator.bearing(latitude, longitude,
+                        nextWpt.getLatitude(), nextWpt.getLongitude());
+                table.legRemaining[slot] = distance;
+                table.legLatitudeRate[slot] = (nextWpt.getLatitude() - latitude) / distance;
+                table.legLongitudeRate[slot] = (nextWpt.getLongitude() - longitude) / distance;
+            }
+        }
+        schedulePassage(slot);
+    }
+
+    /**
+     * Pripraví let lietadla na bod trasy, na ktorý smeruje. Lietadlo, ktorého trasu nie je možné
+     * letieť, sa zo simulácie odstráni.
+     *
+     * @param slot Slot lietadla.
+     */
+    private void startLegOrDrop(int slot) {
+        try {
+            startLeg(slot);
+        } catch (EmptyRouteException ex) {
+            dropAircraft(slot, ex);
+        } catch (WaypointNotLoadedException ex) {
+            dropAircraft(slot, ex);
+        }
+    }
+
+    /**
+     * Naplánuje prelet bodu trasy na krok, v ktorom lietadlo na bod najskôr doletí. Čas sa počíta
+     * z vyššej z aktuálnej a povolenej rýchlosti lietadla, najmenej však z {@code ROTATION_SPEED},
+     * takže prelet sa vyhodnotí skôr alebo presne vtedy, keď lietadlo na bod doletí.
+     *
+     * @param slot Slot lietadla.
+     */
+    private void schedulePassage(int slot) {
+        int airSpeed = Math.max(ROTATION_SPEED, Math.max(table.actualAirSpeed[slot], table.finalAirSpeed[slot]));
+        long steps = (long) Math.ceil(table.legRemaining[slot] / getStepDistance(airSpeed + PASSAGE_SPEED_MARGIN));
+        long passageStep = passages.getCurrentStep() + Math.max(1, steps);
+        table.passageStep[slot] = passageStep;
+        passages.schedule(slot, passageStep);
+    }
+
+    /**
+     * Zrýchlenie lietadiel, ktoré dostali povolenie na odlet, o 0,25-1,25 KTAS za sekundu letu
+     * až kým nedosiahnu svoju maximálnu povolenú rýchlosť letu.
+     */
+    private void accelerateAircraft() {
+        Aircraft[] aircraft = table.aircraft;
+        byte[] flags = table.flags;
+        int[] actualAirSpeed = table.actualAirSpeed;
+        int[] finalAirSpeed = table.finalAirSpeed;
+        int highWater = table.getHighWater();
+        for (int slot = 0; slot < highWater; slot++) {
+            if (aircraft[slot] == null || (flags[slot] & AircraftStateTable.CLEARED_FOR_DEPARTURE) == 0) {
+                continue;
+            }
+            if (actualAirSpeed[slot] < finalAirSpeed[slot]) {
+                actualAirSpeed[slot] = actualAirSpeed[slot] + randomChange(true);
+            } else {
+                actualAirSpeed[slot] = actualAirSpeed[slot] + randomChange(false);
+            }
+        }
+    }
+
+    /**
+     * Stúpanie lietadiel, ktoré dostali povolenie na odlet, o 0,25-1,25 letovej hladiny za sekundu
+     * letu až kým nedosiahnu svoju maximálnu povolenú výšku letu.
+     */
+    private void climbAircraft() {
+        Aircraft[] aircraft = table.aircraft;
+        byte[] flags = table.flags;
+        int[] actualFlightLevel = table.actualFlightLevel;
+        int[] finalFlightLevel = table.finalFlightLevel;
+        int[] actualAirSpeed = table.actualAirSpeed;
+        int highWater = table.getHighWater();
+        for (int slot = 0; slot < highWater; slot++) {
+            if (aircraft[slot] == null || (flags[slot] & AircraftStateTable.CLEARED_FOR_DEPARTURE) == 0) {
+                continue;
+            }
+            int flightLevel = actualFlightLevel[slot];
+            if (flightLevel < finalFlightLevel[slot]
+                    && actualAirSpeed[slot] > 100) {
+                actualFlightLevel[slot] = flightLevel + randomChange(true);
+            }
+            if (flightLevel > finalFlightLevel[slot]) {
+                actualFlightLevel[slot] = flightLevel + randomChange(false);
+            }
+        }
+    }
+
+    /**
+     * Vypočíta náhodnú zmenu rýchlosti alebo výšky lietadla za jeden krok simulácie.
+     *
+     * Zmena za sekundu letu je {@code MIN_CHANGE_RATE} zväčšená, resp. zmenšená o náhodnú časť
+     * {@code CHANGE_RATE_SPREAD}. Necelá časť zmeny za krok sa pripočíta s pravdepodobnosťou
+     * podľa svojej veľkosti, takže priemerná zmena za sekundu nezávisí od dĺžky kroku.
+     *
+     * @param increasing True pre zrýchľovanie alebo stúpanie, false inak.
+     *
+     * @return Zmena v uzloch alebo letových hladinách.
+     */
+    private int randomChange(boolean increasing) {
+        double spread = random.nextDouble() * CHANGE_RATE_SPREAD;
+        double change = (MIN_CHANGE_RATE + (increasing ? spread : -spread)) * stepSeconds;
+        double whole = Math.floor(change);
+        return (int) whole + (random.nextDouble() < change - whole ? 1 : 0);
+    }
+
+    /**
+     * Získa objekt letiska destinácie podľa ICAO kódu, ktorý má lietadlo zapísaný vo svojom pláne.
+     *
+     * @param aircraft Objekt lietadla, na ktorom sa destinácia vyhľadáva
+     *
+     * @return Letisko ako {@code Airport} objekt alebo null, ak letisko destinácie nie je pripojené
+     */
+    private Airport getDestinationAirport(Aircraft aircraft) {
+        AirportSimulation destination = engine.getWorld().getSimulation(aircraft.getArrAirport());
+        return destination == null ? null : destination.getAirport();
+    }
+
+    /**
+     * Predá lietadlo po odchode z riadenej oblasti jedného letiska do riadenej oblasti druhého letiska, kde má určené pristátie.
+     *
+     * Ak letisko pristátia už nie je pripojené, lietadlo opustí riadenú oblasť a zo simulácie sa odstráni.
+     *
+     * @param slot Slot lietadla, ktoré sa má predať príletovému radaru.
+     */
+    private void handOffAircraft(int slot)
+            throws EmptyRouteException, WaypointNotLoadedException {
+        Aircraft aircraft = table.aircraft[slot];
+        AirportSimulation destination = engine.getWorld().getSimulation(aircraft.getArrAirport());
+        aircraft.setDirectWaypoints(Collections.<String>emptyList());
+        if (destination == this) {
+            aircraft.setActualRoute(aircraft.getStarRoute());
+            table.routeCursor[slot] = 0;
+            startLeg(slot);
+            return;
+        }
+        System.out.println("Mažem lietadlo...");
+        removeAircraft(slot);
+        if (destination == null) {
+            releaseCallSign(aircraft);
+            return;
+        }
+        boolean placed = false;
+        try {
+            placeAtStarEntry(aircraft);
+            placed = true;
+        } finally {
+            if (!placed) {
+                // Lietadlo už nie je v tabuľke, dropAircraft ho nenájde a volací znak neuvoľní
+                releaseCallSign(aircraft);
+            }
+        }
+        outboundHandOffs.add(aircraft);
+    }
+
+    /**
+     * Nastaví lietadlu príletovú trasu a postaví ho náhodne vedľa jej prvého bodu.
+     * Lietadlo sa objaví pri prvom bode príletovej trasy a smeruje rovno na druhý.
+     *
+     * @param aircraft Lietadlo, ktoré vstupuje do riadenej oblasti letiska príletu.
+     *
+     * @throws EmptyRouteException Ak príletová trasa lietadla nemá žiadne body.
+     * @throws WaypointNotLoadedException Ak sa prvý bod príletovej trasy nepodarí nájsť.
+     */
+    private void placeAtStarEntry(Aircraft aircraft)
+            throws EmptyRouteException, WaypointNotLoadedException {
+        GPSCoordinates firstSTARWpt = getRouteWaypoint(aircraft, aircraft.getStarRoute(), 0).getGpsCoordinates();
+        double spreadBearing = random.nextDouble() * 360;
+        double spreadDistance = random.nextDouble() * HAND_OFF_SPREAD_NM;
+        aircraft.setActualRoute(aircraft.getStarRoute());
+        aircraft.setLatitude(GeoCalculator.offsetLatitude(firstSTARWpt.getLatitude(),
+                spreadBearing, spreadDistance));
+        aircraft.setLongitude(GeoCalculator.offsetLongitude(firstSTARWpt.getLatitude(),
+                firstSTARWpt.getLongitude(), spreadBearing, spreadDistance));
+        aircraft.setRouteCursor(1);
+    }
+
+    /**
+     * Prevezme lietadlo, ktoré sem predal odletový radar iného letiska. Lietadlo sa do simulácie
+     * pridá vo vlákne actora pred jej ďalším krokom, ktorý engine naplánuje až po odovzdaní.
+     *
+     * @param aircraft Lietadlo, ktoré prilieta na toto letisko.
+     */
+    void acceptHandOff(final Aircraft aircraft) {
+        actor.tell(new Runnable() {
+            @Override
+            public void run() {
+                addAircraft(aircraft);
+            }
+        });
+    }
+
+    /**
+     * Ak riadiaci zmenil trasu lietadla alebo body pridané za jej koniec, nastaví ich lietadlu.
+     *
+     * Trasy letísk sa nemenia, lietadlo preto dostane trasu letiska s rovnakým názvom,
+     * ako má trasa od klienta. Lietadlo nikdy nevráti na bod, ktorý už preletelo, okrem prípadu,
+     * keď riadiaci nahradil pridané body novými. Vtedy pokračuje najskôr od konca trasy letiska.
+     *
+     * @param slot Slot lietadla v tabuľke stavu.
+     * @param aircraft Lietadlo s údajmi, ktoré nastavil riadiaci.
+     */
+    private void modifyRoute(int slot, Aircraft aircraft) {
+        Aircraft acft = table.aircraft[slot];
+        Route actualRoute = acft.getActualRoute();
+        Route requestedRoute = aircraft.getActualRoute();
+        List<String> requestedDirects = aircraft.getDirectWaypoints();
+        boolean sameRoute = requestedRoute.getRouteType() == actualRoute.getRouteType()
+                && requestedRoute.getRouteName().equals(actualRoute.getRouteName());
+        if (sameRoute && requestedDirects.equals(acft.getDirectWaypoints())) {
+            return;
+        }
+        Route route = actualRoute;
+        try {
+            Airport airport = getRouteAirport(acft, requestedRoute.getRouteType());
+            if (airport == null) {
+                throw new WaypointNotLoadedException();
+            }
+            if (!sameRoute) {
+                route = airport.getRouteByName(requestedRoute.getRouteName());
+            }
+            for (String name : requestedDirects) {
+                airport.getWaypointByName(name);
+            }
+        } catch (WaypointNotLoadedException ex) {
+            Logger.getLogger(AirportSimulation.class.getName()).log(Level.WARNING,
+                    "The route of the aircraft " + acft.getCallSign() + " contains an unknown waypoint.", ex);
+            return;
+        } catch (RouteNotLoadedException ex) {
+            Logger.getLogger(AirportSimulation.class.getName()).log(Level.WARNING,
+                    "The route " + requestedRoute.getRouteName() + " is not defined by the airport.", ex);
+            return;
+        }
+        int cursor = table.routeCursor[slot];
+        int routeSize = route.getRoutePoints().size();
+        if (!sameRoute) {
+            cursor = aircraft.getRouteCursor();
+        } else if (startsWith(requestedDirects, acft.getDirectWaypoints())) {
+            cursor = Math.max(aircraft.getRouteCursor(), cursor);
+        } else {
+            cursor = Math.max(aircraft.getRouteCursor(), Math.min(cursor, routeSize));
+        }
+        if (route.getRouteType() == AirportRouteTypesEnum.SID) {
+            acft.setSidRoute(route);
+        } else {
+            acft.setStarRoute(route);
+        }
+        acft.setActualRoute(route);
+        acft.setDirectWaypoints(requestedDirects);
+        table.routeCursor[slot] = Math.max(0, Math.min(cursor, acft.getRouteLength()));
+    }
+
+    /**
+     * Zistí, či zoznam začína všetkými prvkami druhého zoznamu.
+     *
+     * @param list Zoznam, ktorý sa kontroluje.
+     * @param prefix Očakávaný začiatok zoznamu.
+     *
+     * @return True, ak zoznam začína zadanými prvkami.
+     */
+    private static boolean startsWith(List<String> list, List<String> prefix) {
+        return list.size() >= prefix.size() && list.subList(0, prefix.size()).equals(prefix);
+    }
+
+    /**
+     * Modifikuje zoznam lietadiel, ktoré sa nachádzajú na letisku a v lietadle, ktorého atribúty boli modifikované riadiacim v klientskej časti aktualizuje údaje na tie čo klient nastavil.
+     *
+     * Zmena sa vykoná vo vlákne actora a hneď potom sa zverejní nový stav lietadiel. V deterministickom
+     * režime sa zmena vykoná až na začiatku ďalšieho kroku letiska a zapíše sa do {@code COMMAND_LOG}.
+     *
+     * @param aircraft Lietadlo, ktorého atribúty sa majú zmeniť.
+     */
+    public void modifyControlledAircraft(final Aircraft aircraft) {
+        actor.tell(new Runnable() {
+            @Override
+            public void run() {
+                if (engine.isDeterministic()) {
+                    pendingCommands.add(aircraft);
+                } else if (applyCommand(aircraft)) {
+                    publishSnapshot();
+                }
+            }
+        });
+    }
+
+    /**
+     * Vykoná príkazy riadiaceho, ktoré čakajú na začiatok kroku, a každý zapíše s číslom kroku do
+     * {@code COMMAND_LOG}. Zmenený stav sa zverejní až na konci kroku.
+     *
+     * @param tick Poradové číslo kroku, na začiatku ktorého sa príkazy vykonávajú.
+     */
+    private void applyPendingCommands(long tick) {
+        for (Aircraft aircraft : pendingCommands) {
+            Route route = aircraft.getActualRoute();
+            COMMAND_LOG.log(Level.INFO, "tick=" + tick + " airport=" + icaoCode.toUpperCase()
+                    + " callsign=" + aircraft.getCallSign() + " type=" + aircraft.getAircraftType()
+                    + " speed=" + aircraft.getFinalAirSpeed() + " level=" + aircraft.getFinalFlightLevel()
+                    + " cleared=" + aircraft.isClearedForDeparture()
+                    + " route=" + (route == null ? null : route.getRouteType() + ":" + route.getRouteName())
+                    + " direct=" + aircraft.getDirectWaypoints() + " cursor=" + aircraft.getRouteCursor());
+            applyCommand(aircraft);
+        }
+        pendingCommands.clear();
+    }
+
+    /**
+     * Aktualizuje lietadlo letiska podľa údajov, ktoré nastavil riadiaci. Volá sa z vlákna actora.
+     *
+     * @param aircraft Lietadlo s údajmi od riadiaceho.
+     *
+     * @return True, ak sa lietadlo na letisku našlo a stav sa zmenil, false inak.
+     */
+    private boolean applyCommand(Aircraft aircraft) {
+        Integer slot = slotsByCallSignId.get(engine.getWorld().getCallsignAllocator().getId(aircraft.getCallSign()));
+        if (slot == null || table.aircraft[slot].getAircraftType() != aircraft.getAircraftType()) {
+            return false;
+        }
+        table.finalAirSpeed[slot] = aircraft.getFinalAirSpeed();
+        table.finalFlightLevel[slot] = aircraft.getFinalFlightLevel();
+        modifyRoute(slot, aircraft);
+        table.setFlag(slot, AircraftStateTable.CLEARED_FOR_DEPARTURE, aircraft.isClearedForDeparture());
+        // Zmena trasy, rýchlosti alebo povolenia mení aj úsek a čas preletu bodu
+        startLegOrDrop(slot);
+        if (table.aircraft[slot] != null) {
+            table.publish(slot);
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,337 @@
+package net.robobalasko.letiskoserv.simulacia;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import net.robobalasko.letiskoserv.lietadla.Aircraft;
+import net.robobalasko.letiskoserv.navigacia.GeoCalculator;
+
+/**
+ * Krátkodobé upozornenie na konflikt (STCA), ktoré po každom kroku simulácie hľadá dvojice lietadiel
+ * bližšie, ako dovoľuje minimálna separácia.
+ *
+ * Lietadlá sa rozdelia do buniek mriežky, ktorej bunka má vodorovne rozmer minimálnej separácie
+ * a zvislo rozsah {@code SEPARATION_FL} letových hladín. Bunky sa ukladajú do hašovacej tabuľky
+ * so zreťazením cez primitívne polia, takže detekcia nepotrebuje vytvárať objekty pre každé lietadlo.
+ * Lietadlo sa porovnáva len s lietadlami vo svojej a susedných bunkách, pri rozptýlenej premávke
+ * je preto počet porovnaní úmerný počtu lietadiel, nie jeho štvorcu.
+ *
+ * Lietadlá, ktoré ešte nedostali povolenie na odlet, stoja na zemi a do detekcie sa nezapočítavajú.
+ *
+ * @author rbalasko
+ */
+final class ConflictDetector {
+
+    /**
+     * Minimálna vodorovná separácia lietadiel v námorných míľach.
+     */
+    static final double SEPARATION_NM = 3;
+
+    /**
+     * Minimálna zvislá separácia lietadiel v letových hladinách.
+     */
+    static final int SEPARATION_FL = 20;
+
+    /**
+     * Najmenší počet riadkov hašovacej tabuľky buniek.
+     */
+    private static final int MIN_BUCKETS = 16;
+
+    /**
+     * Počet námorných míľ v stupni zemepisnej dĺžky na zemepisnej šírke letiska.
+     */
+    private final double nmPerLongitudeDegree;
+
+    /**
+     * Prvé lietadlo v každom riadku hašovacej tabuľky, -1 pre prázdny riadok.
+     */
+    private int[] bucketHeads;
+
+    /**
+     * Ďalšie lietadlo v tom istom riadku hašovacej tabuľky podľa slotu lietadla.
+     */
+    private int[] nextInBucket;
+
+    /**
+     * Poloha lietadiel na sever od rovníka v námorných míľach podľa slotu.
+     */
+    private double[] north;
+
+    /**
+     * Poloha lietadiel na východ od nultého poludníka v námorných míľach podľa slotu.
+     */
+    private double[] east;
+
+    /**
+     * Príznak lietadiel, ktoré sa zúčastňujú detekcie, podľa slotu.
+     */
+    private boolean[] active;
+
+    /**
+     * Severná súradnica bunky mriežky podľa slotu.
+     */
+    private int[] cellNorth;
+
+    /**
+     * Východná súradnica bunky mriežky podľa slotu.
+     */
+    private int[] cellEast;
+
+    /**
+     * Výšková súradnica bunky mriežky podľa slotu.
+     */
+    private int[] cellLevel;
+
+    /**
+     * Slot prvého lietadla každej nájdenej dvojice.
+     */
+    private int[] pairFirst;
+
+    /**
+     * Slot druhého lietadla každej nájdenej dvojice.
+     */
+    private int[] pairSecond;
+
+    /**
+     * Vodorovná vzdialenosť lietadiel každej nájdenej dvojice v námorných míľach.
+     */
+    private double[] pairDistance;
+
+    /**
+     * Základný konštruktor pripraví detekciu pre riadenú oblasť letiska.
+     *
+     * @param airportLatitude Zemepisná šírka letiska, podľa ktorej sa prepočítava zemepisná dĺžka na míle.
+     */
+    ConflictDetector(double airportLatitude) {
+        this.nmPerLongitudeDegree = GeoCalculator.NM_PER_DEGREE * Math.cos(Math.toRadians(airportLatitude));
+        this.bucketHeads = new int[MIN_BUCKETS];
+        this.nextInBucket = new int[0];
+        this.north = new double[0];
+        this.east = new double[0];
+        this.active = new boolean[0];
+        this.cellNorth = new int[0];
+        this.cellEast = new int[0];
+        this.cellLevel = new int[0];
+        this.pairFirst = new int[MIN_BUCKETS];
+        this.pairSecond = new int[MIN_BUCKETS];
+        this.pairDistance = new double[MIN_BUCKETS];
+    }
+
+    /**
+     * Prepočíta zemepisnú šírku na vzdialenosť na sever od rovníka.
+     *
+     * @param latitude Zemepisná šírka v stupňoch.
+     *
+     * @return Vzdialenosť v námorných míľach.
+     */
+    double toNorth(double latitude) {
+        return latitude * GeoCalculator.NM_PER_DEGREE;
+    }
+
+    /**
+     * Prepočíta zemepisnú dĺžku na vzdialenosť na východ od nultého poludníka v rovine letiska.
+     *
+     * @param longitude Zemepisná dĺžka v stupňoch.
+     *
+     * @return Vzdialenosť v námorných míľach.
+     */
+    double toEast(double longitude) {
+        return longitude * nmPerLongitudeDegree;
+    }
+
+    /**
+     * Nájde všetky dvojice lietadiel s narušenou separáciou a lietadlám v nich nastaví príznak
+     * {@code SEPARATION_LOST}. Ostatným lietadlám príznak zruší.
+     *
+     * @param table Tabuľka stavu lietadiel po kroku simulácie.
+     *
+     * @return Nemodifikovateľný zoznam konfliktov.
+     */
+    List<AircraftConflict> detect(AircraftStateTable table) {
+        int highWater = table.getHighWater();
+        ensureCapacity(highWater);
+        Aircraft[] aircraft = table.aircraft;
+        for (int slot = 0; slot < highWater; slot++) {
+            active[slot] = aircraft[slot] != null
+                    && table.hasFlag(slot, AircraftStateTable.CLEARED_FOR_DEPARTURE);
+            if (aircraft[slot] != null) {
+                table.setFlag(slot, AircraftStateTable.SEPARATION_LOST, false);
+            }
+            if (active[slot]) {
+                north[slot] = toNorth(table.latitude[slot]);
+                east[slot] = toEast(table.longitude[slot]);
+            }
+        }
+
+        int[] flightLevel = table.actualFlightLevel;
+        int pairs = findPairs(highWater, active, north, east, flightLevel);
+        if (pairs == 0) {
+            return Collections.<AircraftConflict>emptyList();
+        }
+        List<AircraftConflict> conflicts = new ArrayList<AircraftConflict>(pairs);
+        for (int pair = 0; pair < pairs; pair++) {
+            int first = pairFirst[pair];
+            int second = pairSecond[pair];
+            table.setFlag(first, AircraftStateTable.SEPARATION_LOST, true);
+            table.setFlag(second, AircraftStateTable.SEPARATION_LOST, true);
+            conflicts.add(new AircraftConflict(aircraft[first].getCallSign(), aircraft[second].getCallSign(),
+                    pairDistance[pair], Math.abs(flightLevel[first] - flightLevel[second]), 0));
+        }
+        return Collections.unmodifiableList(conflicts);
+    }
+
+    /**
+     * Nájde dvojice lietadiel s narušenou separáciou v zadaných poliach polôh. Dvojice sa dajú
+     * po volaní prečítať cez {@link #getPairFirst(int)}, {@link #getPairSecond(int)}
+     * a {@link #getPairDistance(int)}, kým sa metóda nezavolá znova.
+     *
+     * @param count Počet slotov v poliach.
+     * @param active Príznak lietadiel, ktoré sa zúčastňujú detekcie.
+     * @param north Poloha lietadiel na sever od rovníka v námorných míľach.
+     * @param east Poloha lietadiel na východ od nultého poludníka v námorných míľach.
+     * @param flightLevel Letová hladina lietadiel.
+     *
+     * @return Počet nájdených dvojíc.
+     */
+    int findPairs(int count, boolean[] active, double[] north, double[] east, int[] flightLevel) {
+        ensureCapacity(count);
+        int size = 0;
+        for (int slot = 0; slot < count; slot++) {
+            if (active[slot]) {
+                size++;
+            }
+        }
+        clearBuckets(size);
+        int mask = bucketHeads.length - 1;
+        for (int slot = 0; slot < count; slot++) {
+            if (!active[slot]) {
+                continue;
+            }
+            cellNorth[slot] = (int) Math.floor(north[slot] / SEPARATION_NM);
+            cellEast[slot] = (int) Math.floor(east[slot] / SEPARATION_NM);
+            cellLevel[slot] = (int) Math.floor(flightLevel[slot] / (double) SEPARATION_FL);
+            int bucket = hash(cellNorth[slot], cellEast[slot], cellLevel[slot]) & mask;
+            nextInBucket[slot] = bucketHeads[bucket];
+            bucketHeads[bucket] = slot;
+        }
+
+        int pairs = 0;
+        for (int slot = 0; slot < count; slot++) {
+            if (!active[slot]) {
+                continue;
+            }
+            for (int dn = -1; dn <= 1; dn++) {
+                for (int de = -1; de <= 1; de++) {
+                    for (int dl = -1; dl <= 1; dl++) {
+                        int cn = cellNorth[slot] + dn;
+                        int ce = cellEast[slot] + de;
+                        int cl = cellLevel[slot] + dl;
+                        for (int other = bucketHeads[hash(cn, ce, cl) & mask]; other >= 0;
+                                other = nextInBucket[other]) {
+                            // Každú dvojicu stačí porovnať raz a len v bunke, v ktorej druhé lietadlo naozaj je
+                            if (other <= slot || cellNorth[other] != cn || cellEast[other] != ce
+                                    || cellLevel[other] != cl) {
+                                continue;
+                            }
+                            if (Math.abs(flightLevel[slot] - flightLevel[other]) >= SEPARATION_FL) {
+                                continue;
+                            }
+                            double northDistance = north[slot] - north[other];
+                            double eastDistance = east[slot] - east[other];
+                            double distance = Math.sqrt(northDistance * northDistance + eastDistance * eastDistance);
+                            if (distance >= SEPARATION_NM) {
+                                continue;
+                            }
+                            if (pairs == pairFirst.length) {
+                                pairFirst = Arrays.copyOf(pairFirst, pairs * 2);
+                                pairSecond = Arrays.copyOf(pairSecond, pairs * 2);
+                                pairDistance = Arrays.copyOf(pairDistance, pairs * 2);
+                            }
+                            pairFirst[pairs] = slot;
+                            pairSecond[pairs] = other;
+                            pairDistance[pairs] = distance;
+                            pairs++;
+                        }
+                    }
+                }
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * Vráti slot prvého lietadla dvojice z posledného hľadania.
+     *
+     * @param pair Poradie dvojice.
+     *
+     * @return Slot lietadla.
+     */
+    int getPairFirst(int pair) {
+        return pairFirst[pair];
+    }
+
+    /**
+     * Vráti slot druhého lietadla dvojice z posledného hľadania.
+     *
+     * @param pair Poradie dvojice.
+     *
+     * @return Slot lietadla.
+     */
+    int getPairSecond(int pair) {
+        return pairSecond[pair];
+    }
+
+    /**
+     * Vráti vodorovnú vzdialenosť lietadiel dvojice z posledného hľadania.
+     *
+     * @param pair Poradie dvojice.
+     *
+     * @return Vzdialenosť v námorných míľach.
+     */
+    double getPairDistance(int pair) {
+        return pairDistance[pair];
+    }
+
+    /**
+     * Zväčší polia podľa slotov tak, aby pokryli zadaný počet slotov.
+     *
+     * @param count Počet slotov.
+     */
+    private void ensureCapacity(int count) {
+        if (nextInBucket.length < count) {
+            nextInBucket = new int[count];
+            north = new double[count];
+            east = new double[count];
+            active = new boolean[count];
+            cellNorth = new int[count];
+            cellEast = new int[count];
+            cellLevel = new int[count];
+        }
+    }
+
+    /**
+     * Vyprázdni hašovaciu tabuľku. Tabuľka má aspoň dvakrát viac riadkov ako lietadiel,
+     * aby boli zreťazenia krátke.
+     *
+     * @param size Počet lietadiel.
+     */
+    private void clearBuckets(int size) {
+        int buckets = MIN_BUCKETS;
+        while (buckets < size * 2) {
+            buckets <<= 1;
+        }
+        if (bucketHeads.length != buckets) {
+            bucketHeads = new int[buckets];
+        }
+        Arrays.fill(bucketHeads, -1);
+    }
+
+    /**
+     * Vypočíta haš bunky mriežky.
+     */
+    private static int hash(int cellNorth, int cellEast, int cellLevel) {
+        return (cellNorth * 73856093) ^ (cellEast * 19349663) ^ (cellLevel * 83492791);
+    }
+
+}
@@ -0,0 +1,384 @@
+package net.robobalasko.letiskoserv.simulacia;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Strednodobá sonda konfliktov, ktorá predpovedá narušenie separácie lietadiel na niekoľko minút
+ * letu dopredu.
+ *
+ * Simulácia do sondy na konci kroku skopíruje polohy, rýchlosti a výšky lietadiel spolu so zostávajúcimi
+ * bodmi ich trás. Sonda potom mimo vlákna actora posúva všetky lietadlá naraz po krokoch simulácie,
+ * pričom rýchlosť a výška sa menia o stredné hodnoty náhodných zmien z {@code accelerateAircraft}
+ * a {@code climbAircraft}. Po každých {@code SAMPLE_SECONDS} sekundách letu sa pozície lietadiel porovnajú
+ * mriežkou {@code ConflictDetector} a pre každú dvojicu sa zapamätá prvý okamih, v ktorom
+ * by separáciu narušila.
+ *
+ * Stav lietadiel je uložený v primitívnych poliach podľa poradia lietadla, takže zmena rýchlostí
+ * a výšok prebieha v jednoduchých cykloch cez polia bez vytvárania objektov. Lietadlo, ktoré
+ * prejde všetky body svojej trasy, pristane alebo opustí riadenú oblasť a ďalej sa nesleduje.
+ * Dvojice, ktorých separácia je narušená už pri kópii stavu, hlási {@code ConflictDetector}
+ * a sonda ich vynecháva.
+ *
+ * Sonda nie je bezpečná pre viac vlákien. Simulácia ju plní až potom, čo predchádzajúca
+ * predpoveď skončila.
+ *
+ * @author rbalasko
+ */
+final class ConflictProbe {
+
+    /**
+     * Čas letu v sekundách medzi dvoma porovnaniami pozícií lietadiel.
+     */
+    private static final double SAMPLE_SECONDS = 16;
+
+    /**
+     * Stredné zrýchlenie lietadla v uzloch za sekundu letu, kým nedosiahne povolenú rýchlosť.
+     */
+    private static final double MEAN_ACCELERATION = 0.75;
+
+    /**
+     * Stredné spomalenie lietadla v uzloch za sekundu letu, kým je rýchlejšie ako povolená rýchlosť.
+     */
+    private static final double MEAN_DECELERATION = 0.25;
+
+    /**
+     * Stredné stúpanie lietadla v letových hladinách za sekundu letu.
+     */
+    private static final double MEAN_CLIMB = 0.75;
+
+    /**
+     * Stredné klesanie lietadla v letových hladinách za sekundu letu.
+     */
+    private static final double MEAN_DESCENT = 0.25;
+
+    /**
+     * Počet sekúnd v hodine, v ktorej je udaná rýchlosť lietadiel v uzloch.
+     */
+    private static final double SECONDS_PER_HOUR = 3600;
+
+    /**
+     * Najmenší počet lietadiel a bodov trás, pre ktoré sú pripravené polia.
+     */
+    private static final int MIN_CAPACITY = 16;
+
+    /**
+     * Porovnanie pozícií lietadiel na mriežke.
+     */
+    private final ConflictDetector detector;
+
+    /**
+     * Čas letu v sekundách, ktorý uplynie za jeden krok simulácie.
+     */
+    private final double stepSeconds;
+
+    /**
+     * Počet krokov simulácie medzi dvoma porovnaniami pozícií lietadiel.
+     */
+    private final int sampleSteps;
+
+    /**
+     * Počet porovnaní pozícií počas predpovede.
+     */
+    private final int samples;
+
+    /**
+     * Počet lietadiel v sonde.
+     */
+    private int count;
+
+    /**
+     * Volacie znaky lietadiel.
+     */
+    private String[] callSigns;
+
+    /**
+     * Poloha lietadiel na sever od rovníka v námorných míľach.
+     */
+    private double[] north;
+
+    /**
+     * Poloha lietadiel na východ od nultého poludníka v námorných míľach.
+     */
+    private double[] east;
+
+    /**
+     * Aktuálna rýchlosť lietadiel v uzloch.
+     */
+    private double[] airSpeed;
+
+    /**
+     * Povolená rýchlosť lietadiel v uzloch.
+     */
+    private double[] finalAirSpeed;
+
+    /**
+     * Aktuálna letová hladina lietadiel.
+     */
+    private double[] flightLevel;
+
+    /**
+     * Povolená letová hladina lietadiel.
+     */
+    private double[] finalFlightLevel;
+
+    /**
+     * Letová hladina lietadiel zaokrúhlená pre porovnanie na mriežke.
+     */
+    private int[] sampledFlightLevel;
+
+    /**
+     * Vzdialenosť, ktorú lietadlá preletia od posledného porovnania, v námorných míľach.
+     */
+    private double[] travel;
+
+    /**
+     * Príznak lietadiel, ktoré sú ešte v riadenej oblasti letiska.
+     */
+    private boolean[] active;
+
+    /**
+     * Poradie bodu trasy, na ktorý lietadlo letí, v poliach bodov trás.
+     */
+    private int[] routeCursor;
+
+    /**
+     * Poradie za posledným bodom trasy lietadla v poliach bodov trás.
+     */
+    private int[] routeEnd;
+
+    /**
+     * Počet bodov trás všetkých lietadiel.
+     */
+    private int routePointCount;
+
+    /**
+     * Body trás všetkých lietadiel za sebou, severná súradnica v námorných míľach.
+     */
+    private double[] routeNorth;
+
+    /**
+     * Body trás všetkých lietadiel za sebou, východná súradnica v námorných míľach.
+     */
+    private double[] routeEast;
+
+    /**
+     * Základný konštruktor pripraví sondu pre riadenú oblasť letiska.
+     *
+     * @param airportLatitude Zemepisná šírka letiska, podľa ktorej sa prepočítava zemepisná dĺžka na míle.
+     * @param stepSeconds Čas letu v sekundách, ktorý uplynie za jeden krok simulácie.
+     * @param horizonSteps Počet krokov simulácie, na ktoré sa konflikty predpovedajú.
+     */
+    ConflictProbe(double airportLatitude, double stepSeconds, long horizonSteps) {
+        this.detector = new ConflictDetector(airportLatitude);
+        this.stepSeconds = stepSeconds;
+        this.sampleSteps = (int) Math.max(1, Math.round(SAMPLE_SECONDS / stepSeconds));
+        this.samples = (int) Math.max(1, horizonSteps / sampleSteps);
+        this.callSigns = new String[MIN_CAPACITY];
+        this.north = new double[MIN_CAPACITY];
+        this.east = new double[MIN_CAPACITY];
+        this.airSpeed = new double[MIN_CAPACITY];
+        this.finalAirSpeed = new double[MIN_CAPACITY];
+        this.flightLevel = new double[MIN_CAPACITY];
+        this.finalFlightLevel = new double[MIN_CAPACITY];
+        this.sampledFlightLevel = new int[MIN_CAPACITY];
+        this.travel = new double[MIN_CAPACITY];
+        this.active = new boolean[MIN_CAPACITY];
+        this.routeCursor = new int[MIN_CAPACITY];
+        this.routeEnd = new int[MIN_CAPACITY];
+        this.routeNorth = new double[MIN_CAPACITY];
+        this.routeEast = new double[MIN_CAPACITY];
+    }
+
+    /**
+     * Odstráni zo sondy všetky lietadlá.
+     */
+    void clear() {
+        Arrays.fill(callSigns, 0, count, null);
+        count = 0;
+        routePointCount = 0;
+    }
+
+    /**
+     * Pridá do sondy lietadlo. Body jeho trasy sa pridávajú hneď potom cez {@link #addRoutePoint}.
+     *
+     * @param callSign Volací znak lietadla.
+     * @param latitude Zemepisná šírka lietadla.
+     * @param longitude Zemepisná dĺžka lietadla.
+     * @param actualAirSpeed Aktuálna rýchlosť lietadla v uzloch.
+     * @param maxAirSpeed Povolená rýchlosť lietadla v uzloch.
+     * @param actualFlightLevel Aktuálna letová hladina lietadla.
+     * @param maxFlightLevel Povolená letová hladina lietadla.
+     */
+    void addAircraft(String callSign, double latitude, double longitude, int actualAirSpeed, int maxAirSpeed,
+            int actualFlightLevel, int maxFlightLevel) {
+        if (count == callSigns.length) {
+            int capacity = count * 2;
+            callSigns = Arrays.copyOf(callSigns, capacity);
+            north = Arrays.copyOf(north, capacity);
+            east = Arrays.copyOf(east, capacity);
+            airSpeed = Arrays.copyOf(airSpeed, capacity);
+            finalAirSpeed = Arrays.copyOf(finalAirSpeed, capacity);
+            flightLevel = Arrays.copyOf(flightLevel, capacity);
+            finalFlightLevel = Arrays.copyOf(finalFlightLevel, capacity);
+            sampledFlightLevel = new int[capacity];
+            travel = new double[capacity];
+            active = new boolean[capacity];
+            routeCursor = Arrays.copyOf(routeCursor, capacity);
+            routeEnd = Arrays.copyOf(routeEnd, capacity);
+        }
+        callSigns[count] = callSign;
+        north[count] = detector.toNorth(latitude);
+        east[count] = detector.toEast(longitude);
+        airSpeed[count] = actualAirSpeed;
+        finalAirSpeed[count] = maxAirSpeed;
+        flightLevel[count] = actualFlightLevel;
+        finalFlightLevel[count] = maxFlightLevel;
+        routeCursor[count] = routePointCount;
+        routeEnd[count] = routePointCount;
+        count++;
+    }
+
+    /**
+     * Pridá ďalší bod trasy naposledy pridanému lietadlu.
+     *
+     * @param latitude Zemepisná šírka bodu.
+     * @param longitude Zemepisná dĺžka bodu.
+     */
+    void addRoutePoint(double latitude, double longitude) {
+        if (routePointCount == routeNorth.length) {
+            routeNorth = Arrays.copyOf(routeNorth, routePointCount * 2);
+            routeEast = Arrays.copyOf(routeEast, routePointCount * 2);
+        }
+        routeNorth[routePointCount] = detector.toNorth(latitude);
+        routeEast[routePointCount] = detector.toEast(longitude);
+        routePointCount++;
+        routeEnd[count - 1] = routePointCount;
+    }
+
+    /**
+     * Vráti počet lietadiel v sonde.
+     *
+     * @return Počet lietadiel.
+     */
+    int size() {
+        return count;
+    }
+
+    /**
+     * Posunie lietadlá po ich trasách a nájde dvojice, ktoré by narušili separáciu. Stav lietadiel
+     * v sonde sa pri tom mení, pred ďalšou predpoveďou sa preto musí naplniť znova.
+     *
+     * @return Nemodifikovateľný zoznam predpovedaných konfliktov zoradený podľa času do konfliktu.
+     */
+    List<AircraftConflict> probe() {
+        for (int i = 0; i < count; i++) {
+            active[i] = routeCursor[i] < routeEnd[i];
+            sampledFlightLevel[i] = (int) Math.round(flightLevel[i]);
+        }
+        Set<Long> reported = new HashSet<Long>();
+        int pairs = detector.findPairs(count, active, north, east, sampledFlightLevel);
+        for (int pair = 0; pair < pairs; pair++) {
+            reported.add(pairKey(detector.getPairFirst(pair), detector.getPairSecond(pair)));
+        }
+
+        List<AircraftConflict> predicted = null;
+        for (int sample = 1; sample <= samples; sample++) {
+            Arrays.fill(travel, 0, count, 0);
+            for (int step = 0; step < sampleSteps; step++) {
+                advanceStep();
+            }
+            for (int i = 0; i < count; i++) {
+                if (active[i]) {
+                    active[i] = moveAlongRoute(i, travel[i]);
+                }
+                sampledFlightLevel[i] = (int) Math.round(flightLevel[i]);
+            }
+            pairs = detector.findPairs(count, active, north, east, sampledFlightLevel);
+            for (int pair = 0; pair < pairs; pair++) {
+                int first = detector.getPairFirst(pair);
+                int second = detector.getPairSecond(pair);
+                if (!reported.add(pairKey(first, second))) {
+                    continue;
+                }
+                if (predicted == null) {
+                    predicted = new ArrayList<AircraftConflict>();
+                }
+                predicted.add(new AircraftConflict(callSigns[first], callSigns[second],
+                        detector.getPairDistance(pair),
+                        Math.abs(sampledFlightLevel[first] - sampledFlightLevel[second]),
+                        sample * sampleSteps * stepSeconds));
+            }
+        }
+        return predicted == null ? Collections.<AircraftConflict>emptyList()
+                : Collections.unmodifiableList(predicted);
+    }
+
+    /**
+     * Posunie všetky lietadlá o jeden krok simulácie v rovnakom poradí, ako krok simulácie:
+     * najprv pohyb aktuálnou rýchlosťou, potom zmena rýchlosti a nakoniec zmena výšky.
+     */
+    private void advanceStep() {
+        double nmPerKnot = stepSeconds / SECONDS_PER_HOUR;
+        double acceleration = MEAN_ACCELERATION * stepSeconds;
+        double deceleration = MEAN_DECELERATION * stepSeconds;
+        double climb = MEAN_CLIMB * stepSeconds;
+        double descent = MEAN_DESCENT * stepSeconds;
+        for (int i = 0; i < count; i++) {
+            double speed = airSpeed[i];
+            travel[i] += speed < AirportSimulation.ROTATION_SPEED ? 0 : speed * nmPerKnot;
+            airSpeed[i] = speed < finalAirSpeed[i]
+                    ? Math.min(speed + acceleration, finalAirSpeed[i])
+                    : Math.max(speed - deceleration, finalAirSpeed[i]);
+        }
+        for (int i = 0; i < count; i++) {
+            double level = flightLevel[i];
+            if (level < finalFlightLevel[i] && airSpeed[i] > AirportSimulation.ROTATION_SPEED) {
+                flightLevel[i] = Math.min(level + climb, finalFlightLevel[i]);
+            } else if (level > finalFlightLevel[i]) {
+                flightLevel[i] = Math.max(level - descent, finalFlightLevel[i]);
+            }
+        }
+    }
+
+    /**
+     * Posunie lietadlo o zadanú vzdialenosť po bodoch jeho trasy.
+     *
+     * @param index Poradie lietadla v sonde.
+     * @param distance Vzdialenosť v námorných míľach.
+     *
+     * @return True, ak lietadlo ešte neprešlo všetky body trasy.
+     */
+    private boolean moveAlongRoute(int index, double distance) {
+        int cursor = routeCursor[index];
+        while (cursor < routeEnd[index]) {
+            double northDistance = routeNorth[cursor] - north[index];
+            double eastDistance = routeEast[cursor] - east[index];
+            double legDistance = Math.sqrt(northDistance * northDistance + eastDistance * eastDistance);
+            if (distance < legDistance) {
+                double fraction = distance / legDistance;
+                north[index] += northDistance * fraction;
+                east[index] += eastDistance * fraction;
+                break;
+            }
+            north[index] = routeNorth[cursor];
+            east[index] = routeEast[cursor];
+            distance -= legDistance;
+            cursor++;
+        }
+        routeCursor[index] = cursor;
+        return cursor < routeEnd[index];
+    }
+
+    /**
+     * Vytvorí kľúč dvojice lietadiel z ich poradia v sonde.
+     */
+    private static Long pairKey(int first, int second) {
+        return Long.valueOf(((long) first << 32) | second);
+    }
+
+}
@@ -0,0 +1,122 @@
+package net.robobalasko.letiskoserv.simulacia;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Jednovláknový vykonávateľ správ jednej simulácie letiska.
+ *
+ * Správy (kroky simulácie, zmeny od riadiaceho, predané lietadlá, prihlásenia na odber) sa ukladajú
+ * do schránky a vykonávajú sa jedna po druhej na niektorom vlákne spoločnej skupiny vlákien.
+ * V jednom okamihu vykonáva správy daného letiska najviac jedno vlákno, stav letiska preto
+ * nepotrebuje zámky. Po spracovaní {@code MAX_BATCH} správ actor uvoľní vlákno ostatným letiskám
+ * a zvyšok schránky spracuje pri ďalšom naplánovaní.
+ *
+ * @author rbalasko
+ */
+final class SimulationActor implements Runnable {
+
+    /**
+     * Najväčší počet správ, ktoré actor spracuje pred uvoľnením vlákna.
+     */
+    private static final int MAX_BATCH = 64;
+
+    /**
+     * Názov actora, ktorý sa zobrazuje v záznamoch.
+     */
+    private final String name;
+
+    /**
+     * Vlákna, na ktorých sa správy vykonávajú.
+     */
+    private final Executor executor;
+
+    /**
+     * Schránka správ čakajúcich na vykonanie.
+     */
+    private final Queue<Runnable> mailbox;
+
+    /**
+     * Príznak, že actor je naplánovaný alebo práve vykonáva správy.
+     */
+    private final AtomicBoolean scheduled;
+
+    /**
+     * Základný konštruktor vytvorí actora s prázdnou schránkou.
+     *
+     * @param name Názov actora.
+     * @param executor Vlákna, na ktorých sa budú správy vykonávať.
+     */
+    SimulationActor(String name, Executor executor) {
+        this.name = name;
+        this.executor = executor;
+        this.mailbox = new ConcurrentLinkedQueue<Runnable>();
+        this.scheduled = new AtomicBoolean();
+    }
+
+    /**
+     * Vloží správu do schránky. Správa sa vykoná po všetkých správach, ktoré do schránky vložilo
+     * to isté vlákno skôr.
+     *
+     * @param message Správa, ktorá sa má vykonať.
+     */
+    void tell(Runnable message) {
+        mailbox.offer(message);
+        schedule();
+    }
+
+    /**
+     * Vráti počet správ čakajúcich v schránke.
+     *
+     * @return Počet správ.
+     */
+    int getPendingCount() {
+        return mailbox.size();
+    }
+
+    /**
+     * Vykoná čakajúce správy. Chyba v jednej správe nezastaví vykonávanie ďalších.
+     */
+    @Override
+    public void run() {
+        try {
+            Runnable message;
+            int processed = 0;
+            while (processed < MAX_BATCH && (message = mailbox.poll()) != null) {
+                try {
+                    message.run();
+                } catch (RuntimeException ex) {
+                    Logger.getLogger(SimulationActor.class.getName()).log(Level.SEVERE,
+                            "A message of the " + name + " simulation has failed.", ex);
+                }
+                processed++;
+            }
+        } finally {
+            scheduled.set(false);
+            if (!mailbox.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+
+    /**
+     * Naplánuje actora na vykonanie, ak ešte naplánovaný nie je.
+     */
+    private void schedule() {
+        if (!scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(this);
+        } catch (RejectedExecutionException ex) {
+            // Engine sa zastavuje, správy sa už nevykonajú
+            scheduled.set(false);
+        }
+    }
+
+}
@@ -0,0 +1,438 @@
+package net.robobalasko.letiskoserv.simulacia;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Simulačný engine, ktorý v pevnom časovom kroku posúva simulácie všetkých pripojených letísk.
+ *
+ * Hodiny simulácie bežia na vlastnom vlákne nezávisle od komunikácie s klientmi, takže pomalý alebo
+ * zaseknutý klient nemôže premávku zastaviť ani zrýchliť. Ak sa engine oneskorí, dobehne zmeškané
+ * kroky, najviac však {@code MAX_CATCH_UP_TICKS} naraz. Zvyšné zmeškané kroky zahodí a zaznamená.
+ *
+ * V každom kroku sa posunú všetky načítané letiská bez ohľadu na to, či ich niekto riadi.
+ * Hodiny vložia krok do schránky actora každého letiska a actory sa vykonajú paralelne na pevnej
+ * skupine vlákien {@code workers}, predvolene jedno vlákno na jadro. Hodiny potom počkajú, kým
+ * krok dokončia všetky letiská, a lietadlá, ktoré medzi letiskami prelietajú, odovzdajú letiskám
+ * príletu v poradí podľa ICAO kódu letiska odletu. Ďalší krok sa začne až po tejto výmene.
+ *
+ * Každé letisko dostane od enginu vlastný prúd náhodných čísel odvodený zo spoločného semena
+ * a svojho ICAO kódu. V deterministickom režime engine posúva letiská po jednom v poradí podľa
+ * ICAO kódu, aby zdieľané volacie znaky dostávali vždy v rovnakom poradí, a zmeškané kroky
+ * nezahadzuje, ale posunie hodiny simulácie. Príkazy riadiacich vykoná letisko až na začiatku
+ * svojho ďalšieho kroku a zapíše ich s číslom tohto kroku do logu {@code AirportSimulation.COMMAND_LOG}.
+ * Rovnaké semeno a príkazy z logu v rovnakých krokoch tak dávajú rovnaké trajektórie lietadiel.
+ *
+ * Predpovede konfliktov letísk bežia na samostatnej skupine vlákien {@code probes} s najnižšou
+ * prioritou, aby nezdržali kroky simulácie ani vtedy, keď je lietadiel veľa.
+ *
+ * @author rbalasko
+ */
+public class SimulationEngine {
+
+    /**
+     * Maximálny počet krokov, ktoré engine dobehne pri jednom prebudení.
+     */
+    private static final int MAX_CATCH_UP_TICKS = 5;
+
+    /**
+     * Dĺžka jedného kroku simulácie v milisekundách.
+     */
+    private final long tickMillis;
+
+    /**
+     * Dĺžka jedného kroku simulácie v nanosekundách.
+     */
+    private final long tickNanos;
+
+    /**
+     * Koľkokrát rýchlejšie ako skutočný čas lietadlá v simulácii letia.
+     */
+    private final double simulationSpeed;
+
+    /**
+     * Počet krokov, po ktorých sa zaznamená prejdená trasa lietadiel.
+     */
+    private final long trailSampleTicks;
+
+    /**
+     * Počet bodov prejdenej trasy, ktoré si lietadlá pamätajú.
+     */
+    private final int trailLength;
+
+    /**
+     * Počet krokov, po ktorých letiská spustia predpoveď konfliktov.
+     */
+    private final long probeIntervalTicks;
+
+    /**
+     * Počet krokov, na ktoré sa konflikty predpovedajú.
+     */
+    private final long probeHorizonTicks;
+
+    /**
+     * Register letísk, ktorých simulácie engine posúva.
+     */
+    private final WorldRegistry world;
+
+    /**
+     * Plánovač, ktorý engine pravidelne prebúdza.
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Vlákna, na ktorých sa vykonávajú actory letísk.
+     */
+    private final ExecutorService workers;
+
+    /**
+     * Vlákna, na ktorých sa predpovedajú konflikty lietadiel.
+     */
+    private final ExecutorService probes;
+
+    /**
+     * Čas spustenia enginu, od ktorého sa počítajú kroky.
+     */
+    private long startNanos;
+
+    /**
+     * Počet vykonaných alebo zahodených krokov od spustenia enginu.
+     */
+    private volatile long tickCount;
+
+    /**
+     * Počet krokov letísk, ktoré trvali dlhšie ako jeden časový krok.
+     */
+    private final AtomicLong overrunCount;
+
+    /**
+     * Poradie, v akom si letiská po kroku vymieňajú lietadlá.
+     */
+    private static final Comparator<AirportSimulation> EXCHANGE_ORDER = new Comparator<AirportSimulation>() {
+        @Override
+        public int compare(AirportSimulation first, AirportSimulation second) {
+            return first.getIcaoCode().compareToIgnoreCase(second.getIcaoCode());
+        }
+    };
+
+    /**
+     * Generátor, z ktorého sa odvodzujú prúdy náhodných čísel letísk.
+     */
+    private final SimulationRandom random;
+
+    /**
+     * Príznak deterministického režimu.
+     */
+    private final boolean deterministic;
+
+    /**
+     * Počet zmeškaných krokov, ktoré engine nedobehol a zahodil.
+     */
+    private volatile long skippedTickCount;
+
+    /**
+     * Základný konštruktor pripraví engine so zadanou dĺžkou kroku.
+     *
+     * @param world Register letísk, ktorých simulácie sa majú posúvať.
+     * @param tickMillis Dĺžka jedného kroku simulácie v milisekundách.
+     * @param simulationSpeed Koľkokrát rýchlejšie ako skutočný čas lietadlá letia.
+     * @param trailInterval Interval, v ktorom sa zaznamenáva prejdená trasa lietadiel, v milisekundách.
+     * @param trailLength Počet bodov prejdenej trasy, ktoré si lietadlá pamätajú.
+     * @param workerThreads Počet vlákien, na ktorých sa vykonávajú actory letísk, alebo 0 pre jedno
+     * vlákno na každé jadro procesora. Rovnaký počet vlákien dostanú aj predpovede konfliktov.
+     * @param probeInterval Interval, v ktorom letiská spúšťajú predpoveď konfliktov, v milisekundách.
+     * @param probeHorizon Počet minút letu, na ktoré sa konflikty predpovedajú.
+     * @param random Generátor, z ktorého sa odvodzujú prúdy náhodných čísel letísk.
+     * @param deterministic Či majú rovnaké semeno a príkazy dávať rovnaké trajektórie. Letiská
+     * sa potom v každom kroku posúvajú po jednom namiesto paralelne.
+     */
+    public SimulationEngine(WorldRegistry world, long tickMillis, double simulationSpeed,
+            long trailInterval, int trailLength, int workerThreads, long probeInterval, int probeHorizon,
+            SimulationRandom random, boolean deterministic) {
+        this.world = world;
+        this.random = random;
+        this.deterministic = deterministic;
+        this.tickMillis = tickMillis;
+        this.simulationSpeed = simulationSpeed;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.trailSampleTicks = Math.max(1, trailInterval / tickMillis);
+        this.trailLength = trailLength;
+        this.probeIntervalTicks = Math.max(1, probeInterval / tickMillis);
+        this.probeHorizonTicks = Math.max(1, Math.round(probeHorizon * 60000 / (tickMillis * simulationSpeed)));
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                return new Thread(runnable, "airport-simulation");
+            }
+        });
+        if (workerThreads <= 0) {
+            workerThreads = Runtime.getRuntime().availableProcessors();
+        }
+        this.workers = Executors.newFixedThreadPool(workerThreads, new ThreadFactory() {
+            private final AtomicInteger threadNumber = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                return new Thread(runnable, "airport-simulation-worker-" + threadNumber.incrementAndGet());
+            }
+        });
+        this.probes = Executors.newFixedThreadPool(workerThreads, new ThreadFactory() {
+            private final AtomicInteger threadNumber = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "airport-conflict-probe-" + threadNumber.incrementAndGet());
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        });
+        this.overrunCount = new AtomicLong();
+    }
+
+    /**
+     * Naštartuje engine.
+     */
+    public void start() {
+        startNanos = System.nanoTime();
+        scheduler.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                runDueTicks(System.nanoTime());
+            }
+        }, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Zastaví engine. Hodiny, ktoré práve čakajú na dokončenie kroku, sa prerušia.
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+        workers.shutdown();
+        probes.shutdownNow();
+    }
+
+    /**
+     * Vráti register letísk, ktorých simulácie engine posúva.
+     *
+     * @return Register letísk.
+     */
+    public WorldRegistry getWorld() {
+        return world;
+    }
+
+    /**
+     * Vráti vlákna, na ktorých sa vykonávajú actory letísk.
+     *
+     * @return Skupina vlákien actorov.
+     */
+    Executor getWorkers() {
+        return workers;
+    }
+
+    /**
+     * Vráti vlákna, na ktorých sa predpovedajú konflikty lietadiel.
+     *
+     * @return Skupina vlákien predpovedí.
+     */
+    Executor getProbeExecutor() {
+        return probes;
+    }
+
+    /**
+     * Vytvorí pomenovaný prúd náhodných čísel odvodený zo semena enginu.
+     *
+     * @param name Názov prúdu, napr. ICAO kód letiska.
+     *
+     * @return Generátor náhodných čísel.
+     */
+    SimulationRandom createRandom(String name) {
+        return random.stream(name);
+    }
+
+    /**
+     * Vráti počet krokov, po ktorých letiská spustia predpoveď konfliktov.
+     *
+     * @return Počet krokov.
+     */
+    long getProbeIntervalTicks() {
+        return probeIntervalTicks;
+    }
+
+    /**
+     * Vráti počet krokov, na ktoré sa konflikty predpovedajú.
+     *
+     * @return Počet krokov.
+     */
+    long getProbeHorizonTicks() {
+        return probeHorizonTicks;
+    }
+
+    /**
+     * Vykoná všetky kroky, ktoré sú podľa uplynulého času na rade.
+     *
+     * @param nowNanos Aktuálny čas z {@code System.nanoTime()}.
+     */
+    void runDueTicks(long nowNanos) {
+        long due = (nowNanos - startNanos) / tickNanos - tickCount;
+        if (due > MAX_CATCH_UP_TICKS) {
+            long skipped = due - MAX_CATCH_UP_TICKS;
+            skippedTickCount += skipped;
+            due = MAX_CATCH_UP_TICKS;
+            if (deterministic) {
+                // Čísla krokov musia ostať súvislé, simulácia sa radšej oneskorí za skutočným časom
+                startNanos += skipped * tickNanos;
+                Logger.getLogger(SimulationEngine.class.getName()).log(Level.WARNING,
+                        "The simulation is falling behind, it has been delayed by {0} ticks.", skipped);
+            } else {
+                tickCount += skipped;
+                Logger.getLogger(SimulationEngine.class.getName()).log(Level.WARNING,
+                        "The simulation is falling behind, {0} ticks have been skipped.", skipped);
+            }
+        }
+        for (long i = 0; i < due; i++) {
+            tick(tickCount + 1);
+            tickCount++;
+        }
+    }
+
+    /**
+     * Vykoná jeden krok simulácie všetkých letísk paralelne, v deterministickom režime po jednom,
+     * počká na jeho dokončenie a vymení medzi letiskami lietadlá, ktoré v kroku opustili riadenú
+     * oblasť svojho letiska.
+     *
+     * Chyba v simulácii jedného letiska nezastaví simuláciu ostatných letísk.
+     *
+     * @param tick Poradové číslo kroku.
+     */
+    private void tick(long tick) {
+        boolean sampleTrail = tick % trailSampleTicks == 0;
+        List<AirportSimulation> simulations = new ArrayList<AirportSimulation>(world.getSimulations());
+        Collections.sort(simulations, EXCHANGE_ORDER);
+        try {
+            if (deterministic) {
+                for (AirportSimulation simulation : simulations) {
+                    CountDownLatch barrier = new CountDownLatch(1);
+                    simulation.requestStep(tick, sampleTrail, barrier);
+                    barrier.await();
+                }
+            } else {
+                CountDownLatch barrier = new CountDownLatch(simulations.size());
+                for (AirportSimulation simulation : simulations) {
+                    simulation.requestStep(tick, sampleTrail, barrier);
+                }
+                barrier.await();
+            }
+        } catch (InterruptedException ex) {
+            // Engine sa zastavuje, lietadlá sa už nevymenia
+            Thread.currentThread().interrupt();
+            return;
+        }
+        for (AirportSimulation simulation : simulations) {
+            simulation.exchangeHandOffs();
+        }
+    }
+
+    /**
+     * Zaznamená dĺžku kroku simulácie letiska. Volá sa z vlákna actora letiska.
+     *
+     * @param simulation Simulácia letiska, ktorá krok vykonala.
+     * @param tick Poradové číslo kroku.
+     * @param stepNanos Dĺžka kroku v nanosekundách.
+     */
+    void stepFinished(AirportSimulation simulation, long tick, long stepNanos) {
+        if (stepNanos > tickNanos) {
+            overrunCount.incrementAndGet();
+            Logger.getLogger(SimulationEngine.class.getName()).log(Level.FINE,
+                    "The simulation tick {0} of {1} took longer than {2} ms.",
+                    new Object[]{tick, simulation.getIcaoCode(), tickMillis});
+        }
+    }
+
+    /**
+     * Vráti dĺžku jedného kroku simulácie.
+     *
+     * @return Dĺžka kroku v milisekundách.
+     */
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    /**
+     * Vráti, koľkokrát rýchlejšie ako skutočný čas lietadlá v simulácii letia.
+     *
+     * @return Násobok skutočného času.
+     */
+    public double getSimulationSpeed() {
+        return simulationSpeed;
+    }
+
+    /**
+     * Vráti čas letu, ktorý uplynie za jeden krok simulácie. Lietadlá sa podľa neho pohybujú,
+     * zrýchľujú aj stúpajú, takže ich let nezávisí od dĺžky kroku.
+     *
+     * @return Čas letu v sekundách.
+     */
+    public double getStepSeconds() {
+        return tickMillis * simulationSpeed / 1000.0;
+    }
+
+    /**
+     * Vráti počet bodov prejdenej trasy, ktoré si lietadlá pamätajú.
+     *
+     * @return Dĺžka prejdenej trasy v bodoch.
+     */
+    public int getTrailLength() {
+        return trailLength;
+    }
+
+    /**
+     * Vráti počet krokov od spustenia enginu vrátane zahodených.
+     *
+     * @return Počet krokov.
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * Zistí, či engine beží v deterministickom režime.
+     *
+     * @return True v deterministickom režime, false inak.
+     */
+    boolean isDeterministic() {
+        return deterministic;
+    }
+
+    /**
+     * Vráti počet krokov letísk, ktoré trvali dlhšie ako jeden časový krok.
+     *
+     * @return Počet oneskorených krokov.
+     */
+    public long getOverrunCount() {
+        return overrunCount.get();
+    }
+
+    /**
+     * Vráti počet zmeškaných krokov, ktoré engine zahodil, v deterministickom režime počet krokov,
+     * o ktoré sa simulácia oneskorila.
+     *
+     * @return Počet zahodených alebo oneskorených krokov.
+     */
+    public long getSkippedTickCount() {
+        return skippedTickCount;
+    }
+
+}
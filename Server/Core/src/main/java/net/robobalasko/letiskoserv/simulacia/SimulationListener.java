@@ -0,0 +1,20 @@
+package net.robobalasko.letiskoserv.simulacia;
+
+/**
+ * Rozhranie pre objekty, ktoré chcú byť upozornené na každý krok simulácie letiska.
+ *
+ * Metóda sa volá na vlákne simulácie, preto nesmie blokovať ani čakať na sieť.
+ *
+ * @author rbalasko
+ */
+public interface SimulationListener {
+
+    /**
+     * Upozorní, že simulácia letiska vykonala ďalší krok.
+     *
+     * @param simulation Simulácia letiska, ktorá krok vykonala.
+     * @param tick Poradové číslo kroku simulácie.
+     */
+    void simulationStepped(AirportSimulation simulation, long tick);
+
+}
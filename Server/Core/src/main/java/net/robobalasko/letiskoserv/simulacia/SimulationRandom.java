@@ -0,0 +1,132 @@
+package net.robobalasko.letiskoserv.simulacia;
+
+import java.util.Random;
+
+/**
+ * Generátor náhodných čísel simulácie s algoritmom SplitMix64.
+ *
+ * Generátor má len dva stavy typu {@code long} a ďalšie číslo vypočíta jedným sčítaním
+ * a premiešaním bitov, bez zamykania a atomických operácií triedy {@code Random}. Z jedného
+ * semena sa dajú odvodiť pomenované nezávislé prúdy, napr. jeden pre každé letisko. Prúd závisí
+ * len od semena a svojho názvu, nie od poradia, v akom sa prúdy vytvoria, ani od toho, koľko čísel
+ * už iné prúdy vygenerovali. Rovnaké semeno tak dáva rovnaké čísla v každom behu servera.
+ *
+ * Trieda rozširuje {@code Random}, aby ju mohli používať aj triedy, ktoré o simulácii nevedia.
+ * Objekt nie je bezpečný pre viac vlákien, každý prúd smie používať len jeden actor.
+ *
+ * @author rbalasko
+ */
+public final class SimulationRandom extends Random {
+
+    /**
+     * Verzia serializovanej podoby triedy.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Prírastok stavu predvoleného prúdu, nepárna konštanta odvodená zo zlatého rezu.
+     */
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    /**
+     * Najmenší rozdiel medzi dvoma desatinnými číslami z {@code nextDouble}.
+     */
+    private static final double DOUBLE_UNIT = 1.0 / (1L << 53);
+
+    /**
+     * Semeno, z ktorého sa odvodzujú pomenované prúdy.
+     */
+    private final long origin;
+
+    /**
+     * Prírastok stavu pri každom čísle, vždy nepárny.
+     */
+    private final long gamma;
+
+    /**
+     * Aktuálny stav generátora.
+     */
+    private long state;
+
+    /**
+     * Základný konštruktor vytvorí generátor so zadaným semenom.
+     *
+     * @param seed Semeno generátora.
+     */
+    public SimulationRandom(long seed) {
+        this(seed, GOLDEN_GAMMA);
+    }
+
+    private SimulationRandom(long seed, long gamma) {
+        super(seed);
+        this.origin = seed;
+        this.gamma = gamma;
+        this.state = seed;
+    }
+
+    /**
+     * Vytvorí nezávislý prúd náhodných čísel so zadaným názvom. Prúd s rovnakým názvom
+     * z generátora s rovnakým semenom dáva vždy rovnaké čísla.
+     *
+     * @param name Názov prúdu, napr. ICAO kód letiska.
+     *
+     * @return Nový generátor.
+     */
+    public SimulationRandom stream(String name) {
+        // 64-bitový FNV-1a haš názvu, aby sa prúdy s podobnými názvami nekrížili
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < name.length(); i++) {
+            hash = (hash ^ name.charAt(i)) * 0x100000001b3L;
+        }
+        long key = mix64(origin ^ mix64(hash));
+        return new SimulationRandom(mix64(key + GOLDEN_GAMMA), mixGamma(key + 2 * GOLDEN_GAMMA));
+    }
+
+    /**
+     * Nastaví generátoru nové semeno. Pomenované prúdy sa aj naďalej odvodzujú z pôvodného semena.
+     *
+     * @param seed Nové semeno.
+     */
+    @Override
+    public synchronized void setSeed(long seed) {
+        super.setSeed(seed);
+        this.state = seed;
+    }
+
+    @Override
+    public long nextLong() {
+        state += gamma;
+        return mix64(state);
+    }
+
+    @Override
+    public double nextDouble() {
+        return (nextLong() >>> 11) * DOUBLE_UNIT;
+    }
+
+    @Override
+    protected int next(int bits) {
+        return (int) (nextLong() >>> (64 - bits));
+    }
+
+    /**
+     * Premieša bity stavu na výsledné číslo (variant 13 funkcie MurmurHash3 fmix64).
+     */
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Odvodí nepárny prírastok stavu s dostatočným počtom zmien bitov.
+     */
+    private static long mixGamma(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        int transitions = Long.bitCount(z ^ (z >>> 1));
+        return transitions < 24 ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+    }
+
+}
@@ -0,0 +1,190 @@
+package net.robobalasko.letiskoserv.simulacia;
+
+import java.util.Arrays;
+
+/**
+ * Hierarchické časové koleso, v ktorom si simulácia plánuje udalosti lietadiel na niektorý
+ * z budúcich krokov.
+ *
+ * Koleso má {@code LEVELS} úrovní po {@code SLOTS} priehradkách. Priehradka najnižšej úrovne
+ * zodpovedá jednému kroku, priehradka každej vyššej úrovne {@code SLOTS} priehradkám úrovne
+ * pod ňou. Udalosť sa uloží do najnižšej úrovne, do ktorej rozsahu jej krok patrí. Keď koleso
+ * dôjde na začiatok rozsahu priehradky vyššej úrovne, jej udalosti sa rozdelia do nižších úrovní.
+ * Naplánovanie aj vybratie udalosti tak trvá konštantný čas bez ohľadu na počet udalostí.
+ *
+ * Udalosťou je len číslo, napr. slot lietadla, a priehradky sú primitívne polia, takže koleso
+ * nevytvára objekty pre jednotlivé udalosti. Koleso neodstraňuje zrušené udalosti, ich vlastník
+ * ich pri vybratí musí rozpoznať sám.
+ *
+ * @author rbalasko
+ */
+final class TimingWheel {
+
+    /**
+     * Počet bitov indexu priehradky v jednej úrovni.
+     */
+    private static final int SLOT_BITS = 6;
+
+    /**
+     * Počet priehradiek v jednej úrovni.
+     */
+    private static final int SLOTS = 1 << SLOT_BITS;
+
+    /**
+     * Počet úrovní kolesa.
+     */
+    private static final int LEVELS = 3;
+
+    /**
+     * Počiatočná kapacita priehradky.
+     */
+    private static final int INITIAL_CAPACITY = 4;
+
+    /**
+     * Udalosti v priehradkách všetkých úrovní za sebou.
+     */
+    private final int[][] events;
+
+    /**
+     * Kroky, na ktoré sú udalosti v priehradkách naplánované.
+     */
+    private final long[][] dueSteps;
+
+    /**
+     * Počet udalostí v priehradkách.
+     */
+    private final int[] sizes;
+
+    /**
+     * Posledný krok, na ktorý sa koleso posunulo.
+     */
+    private long currentStep;
+
+    /**
+     * Udalosti vybraté posledným posunom kolesa.
+     */
+    private int[] expired;
+
+    /**
+     * Počet udalostí vybratých posledným posunom kolesa.
+     */
+    private int expiredCount;
+
+    /**
+     * Základný konštruktor vytvorí prázdne koleso v kroku 0.
+     */
+    TimingWheel() {
+        this.events = new int[LEVELS * SLOTS][];
+        this.dueSteps = new long[LEVELS * SLOTS][];
+        this.sizes = new int[LEVELS * SLOTS];
+        for (int bucket = 0; bucket < events.length; bucket++) {
+            events[bucket] = new int[INITIAL_CAPACITY];
+            dueSteps[bucket] = new long[INITIAL_CAPACITY];
+        }
+        this.expired = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Naplánuje udalosť na zadaný krok. Krok, ktorý už nastal, sa posunie na najbližší budúci krok.
+     *
+     * @param event Udalosť.
+     * @param step Krok, v ktorom sa má udalosť vybrať.
+     */
+    void schedule(int event, long step) {
+        insert(event, Math.max(step, currentStep + 1));
+    }
+
+    /**
+     * Posunie koleso na ďalší krok a vyberie udalosti naplánované na tento krok. Udalosti sa dajú
+     * prečítať cez {@link #getExpired(int)}, kým sa koleso znova neposunie.
+     *
+     * @return Krok, na ktorý sa koleso posunulo.
+     */
+    long advance() {
+        long step = ++currentStep;
+        // Na začiatku rozsahu priehradky vyššej úrovne sa jej udalosti rozdelia nižšie
+        for (int level = LEVELS - 1; level > 0; level--) {
+            if ((step & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                cascade(level * SLOTS + (int) ((step >>> (SLOT_BITS * level)) & (SLOTS - 1)));
+            }
+        }
+        int bucket = (int) (step & (SLOTS - 1));
+        int size = sizes[bucket];
+        if (expired.length < size) {
+            expired = new int[Math.max(size, expired.length * 2)];
+        }
+        System.arraycopy(events[bucket], 0, expired, 0, size);
+        expiredCount = size;
+        sizes[bucket] = 0;
+        return step;
+    }
+
+    /**
+     * Vráti počet udalostí vybratých posledným posunom kolesa.
+     *
+     * @return Počet udalostí.
+     */
+    int getExpiredCount() {
+        return expiredCount;
+    }
+
+    /**
+     * Vráti udalosť vybratú posledným posunom kolesa.
+     *
+     * @param index Poradie udalosti.
+     *
+     * @return Udalosť.
+     */
+    int getExpired(int index) {
+        return expired[index];
+    }
+
+    /**
+     * Vráti posledný krok, na ktorý sa koleso posunulo.
+     *
+     * @return Krok kolesa.
+     */
+    long getCurrentStep() {
+        return currentStep;
+    }
+
+    /**
+     * Uloží udalosť do priehradky najnižšej úrovne, do ktorej rozsahu krok patrí. Udalosti
+     * vzdialenejšie ako rozsah najvyššej úrovne sa uložia do jej poslednej priehradky
+     * a pri rozdelení sa do nej vrátia.
+     */
+    private void insert(int event, long step) {
+        long delta = step - currentStep;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        long slotStep = Math.min(step, currentStep + (1L << (SLOT_BITS * LEVELS)) - 1);
+        int bucket = level * SLOTS + (int) ((slotStep >>> (SLOT_BITS * level)) & (SLOTS - 1));
+        int size = sizes[bucket];
+        if (size == events[bucket].length) {
+            events[bucket] = Arrays.copyOf(events[bucket], size * 2);
+            dueSteps[bucket] = Arrays.copyOf(dueSteps[bucket], size * 2);
+        }
+        events[bucket][size] = event;
+        dueSteps[bucket][size] = step;
+        sizes[bucket] = size + 1;
+    }
+
+    /**
+     * Rozdelí udalosti priehradky vyššej úrovne do nižších úrovní podľa ich kroku.
+     */
+    private void cascade(int bucket) {
+        int size = sizes[bucket];
+        if (size == 0) {
+            return;
+        }
+        int[] bucketEvents = Arrays.copyOf(events[bucket], size);
+        long[] bucketSteps = Arrays.copyOf(dueSteps[bucket], size);
+        sizes[bucket] = 0;
+        for (int i = 0; i < size; i++) {
+            insert(bucketEvents[i], bucketSteps[i]);
+        }
+    }
+
+}
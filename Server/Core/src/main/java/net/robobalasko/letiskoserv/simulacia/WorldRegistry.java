@@ -0,0 +1,163 @@
+package net.robobalasko.letiskoserv.simulacia;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import net.robobalasko.letiskoserv.lietadla.Aircraft;
+import net.robobalasko.letiskoserv.lietadla.CallsignAllocator;
+import net.robobalasko.letiskoserv.navigacia.Airport;
+
+/**
+ * Register všetkých letísk, ktoré server práve simuluje.
+ *
+ * Simulácie letísk sú uložené podľa ICAO kódu v {@code ConcurrentHashMap}, takže vyhľadanie
+ * letiska je konštantné a bezpečné z ktoréhokoľvek vlákna. Server do registra pri štarte vloží
+ * všetky načítané letiská a tie sa simulujú, aj keď ich nikto neriadi. Každá simulácia si sama
+ * drží svoje lietadlá a index lietadiel podľa volacieho znaku.
+ *
+ * Pri každej zmene zoznamu letísk register pošle všetkým simuláciám nový zoznam, aby si ich
+ * generátory lietadiel prestavili tabuľky letísk a trás.
+ *
+ * @author rbalasko
+ */
+public class WorldRegistry {
+
+    /**
+     * Simulácie letísk podľa ICAO kódu písaného veľkými písmenami.
+     */
+    private final ConcurrentMap<String, AirportSimulation> simulations;
+
+    /**
+     * Dáta simulovaných letísk, z ktorých generátory vyberajú letiská príletu.
+     */
+    private final List<Airport> airports;
+
+    /**
+     * Prideľovač volacích znakov, ktorý zaručuje jedinečnosť volacích znakov na všetkých letiskách.
+     */
+    private final CallsignAllocator callsignAllocator;
+
+    /**
+     * Základný konštruktor vytvorí prázdny register.
+     *
+     * @param random Generátor náhodných čísel pre prideľovač volacích znakov.
+     */
+    public WorldRegistry(Random random) {
+        this.simulations = new ConcurrentHashMap<String, AirportSimulation>();
+        this.airports = new CopyOnWriteArrayList<Airport>();
+        this.callsignAllocator = new CallsignAllocator(random);
+    }
+
+    /**
+     * Zaregistruje simuláciu letiska.
+     *
+     * @param simulation Simulácia letiska.
+     *
+     * @return True, ak bolo letisko zaregistrované, false ak už sa simuluje.
+     */
+    public boolean register(AirportSimulation simulation) {
+        if (simulations.putIfAbsent(key(simulation.getIcaoCode()), simulation) != null) {
+            return false;
+        }
+        airports.add(simulation.getAirport());
+        airportsChanged();
+        return true;
+    }
+
+    /**
+     * Odstráni simuláciu letiska z registra.
+     *
+     * @param simulation Simulácia letiska.
+     */
+    public void unregister(AirportSimulation simulation) {
+        if (simulations.remove(key(simulation.getIcaoCode()), simulation)) {
+            airports.remove(simulation.getAirport());
+            airportsChanged();
+        }
+    }
+
+    /**
+     * Nájde simuláciu letiska podľa jeho ICAO kódu.
+     *
+     * @param icaoCode ICAO kód letiska.
+     *
+     * @return Simulácia letiska alebo null, ak sa letisko nesimuluje.
+     */
+    public AirportSimulation getSimulation(String icaoCode) {
+        return simulations.get(key(icaoCode));
+    }
+
+    /**
+     * Vráti simulácie všetkých letísk.
+     *
+     * @return Pohľad na simulácie v registri.
+     */
+    public Collection<AirportSimulation> getSimulations() {
+        return Collections.unmodifiableCollection(simulations.values());
+    }
+
+    /**
+     * Vráti dáta všetkých simulovaných letísk.
+     *
+     * @return Nemodifikovateľný zoznam letísk.
+     */
+    public List<Airport> getAirports() {
+        return Collections.unmodifiableList(airports);
+    }
+
+    /**
+     * Vráti prideľovač volacích znakov zdieľaný všetkými letiskami.
+     *
+     * @return Prideľovač volacích znakov.
+     */
+    public CallsignAllocator getCallsignAllocator() {
+        return callsignAllocator;
+    }
+
+    /**
+     * Nájde lietadlo podľa volacieho znaku na ktoromkoľvek simulovanom letisku, ktoré
+     * sleduje niektorý klient. Letiská bez klienta svoj stav lietadiel nezverejňujú.
+     *
+     * @param callSign Volací znak lietadla.
+     *
+     * @return Lietadlo alebo null, ak sa nikde nenachádza.
+     */
+    public Aircraft findAircraft(String callSign) {
+        for (AirportSimulation simulation : simulations.values()) {
+            Aircraft aircraft = simulation.findAircraft(callSign);
+            if (aircraft != null) {
+                return aircraft;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Vráti počet simulovaných letísk.
+     *
+     * @return Počet letísk v registri.
+     */
+    public int size() {
+        return simulations.size();
+    }
+
+    /**
+     * Pošle aktuálny zoznam letísk všetkým simuláciám v registri.
+     */
+    private void airportsChanged() {
+        List<Airport> snapshot = Collections.unmodifiableList(new ArrayList<Airport>(airports));
+        for (AirportSimulation simulation : simulations.values()) {
+            simulation.connectedAirportsChanged(snapshot);
+        }
+    }
+
+    private static String key(String icaoCode) {
+        return icaoCode.toUpperCase();
+    }
+
+}
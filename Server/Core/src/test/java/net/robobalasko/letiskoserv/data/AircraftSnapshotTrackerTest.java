@@ -0,0 +1,268 @@
+package net.robobalasko.letiskoserv.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.robobalasko.letiskoserv.lietadla.Aircraft;
+import net.robobalasko.letiskoserv.navigacia.AirportRouteTypesEnum;
+import net.robobalasko.letiskoserv.navigacia.Route;
+import net.robobalasko.letiskoserv.simulacia.AircraftSnapshot;
+import net.robobalasko.letiskoserv.simulacia.AircraftSnapshots;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Testy vytvárania rozdielov v zozname lietadiel. Rozdiely sa aplikujú na lokálnu kópiu
+ * rovnako ako u klienta a kópia sa porovná s aktuálnym stavom lietadiel.
+ *
+ * @author rbalasko
+ */
+public class AircraftSnapshotTrackerTest {
+
+    /**
+     * Testované sledovanie odoslaných stavov.
+     */
+    private AircraftSnapshotTracker tracker;
+
+    /**
+     * Lietadlá simulácie, z ktorých sa vytvárajú stavy.
+     */
+    private List<Aircraft> aircraft;
+
+    /**
+     * Kľúče lietadiel simulácie v poradí lietadiel.
+     */
+    private List<Object> keys;
+
+    /**
+     * Lokálna kópia lietadiel podľa identifikátora z rozdielov.
+     */
+    private Map<Integer, Aircraft> mirror;
+
+    /**
+     * Verzia zoznamu lietadiel v lokálnej kópii.
+     */
+    private long mirrorVersion;
+
+    /**
+     * Vytvorí sledovanie a tri lietadlá.
+     */
+    @Before
+    public void setUp() {
+        tracker = new AircraftSnapshotTracker();
+        aircraft = new ArrayList<Aircraft>();
+        keys = new ArrayList<Object>();
+        mirror = new HashMap<Integer, Aircraft>();
+        mirrorVersion = 0;
+        addAircraft("AAL001", 48.1);
+        addAircraft("BAW002", 48.2);
+        addAircraft("OM-ABC", 48.3);
+    }
+
+    /**
+     * Prvý rozdiel je úplný zoznam so všetkými lietadlami.
+     */
+    @Test
+    public void testFirstDeltaIsFullSnapshot() {
+        AircraftSnapshotDelta delta = tracker.createDelta(snapshot(), 0);
+
+        assertTrue(delta.isFullSnapshot());
+        assertEquals(1, delta.getVersion());
+        assertEquals(3, delta.getAddedAircraft().size());
+        assertTrue(delta.getChangedAircraft().isEmpty());
+        assertTrue(delta.getRemovedAircraftIds().isEmpty());
+        applyAndVerify(delta);
+    }
+
+    /**
+     * Rozdiel voči potvrdenej verzii obsahuje len zmenené údaje a po aplikovaní zhoduje kópiu so stavom.
+     */
+    @Test
+    public void testChangesApplyOntoFullSnapshot() {
+        applyAndVerify(tracker.createDelta(snapshot(), 0));
+
+        Aircraft moved = aircraft.get(0);
+        moved.setLatitude(48.15);
+        moved.setLongitude(17.25);
+        moved.setActualFlightLevel(80);
+        moved.setHeading(95);
+        moved.getRouteTrail().add(48.15, 17.25);
+        Aircraft cleared = aircraft.get(1);
+        cleared.setClearedForDeparture(true);
+        cleared.setFinalFlightLevel(300);
+        cleared.setFinalAirSpeed(290);
+        cleared.setActualAirSpeed(200);
+        Aircraft rerouted = aircraft.get(2);
+        rerouted.setStarRoute(new Route(22, "NIT2A", AirportRouteTypesEnum.STAR, Arrays.asList("NIT", "BIMBA")));
+        rerouted.setActualRoute(rerouted.getStarRoute());
+        rerouted.setDirectWaypoints(Arrays.asList("BIMBA"));
+        rerouted.setRouteCursor(1);
+
+        AircraftSnapshotDelta delta = tracker.createDelta(snapshot(), tracker.getVersion());
+
+        assertFalse(delta.isFullSnapshot());
+        assertEquals(1, delta.getBaseVersion());
+        assertTrue(delta.getAddedAircraft().isEmpty());
+        assertEquals(3, delta.getChangedAircraft().size());
+        AircraftStateChange change = delta.getChangedAircraft().get(0);
+        assertTrue(change.hasChanged(AircraftStateChange.POSITION));
+        assertTrue(change.hasChanged(AircraftStateChange.TRAIL));
+        assertFalse(change.hasChanged(AircraftStateChange.FINAL_FLIGHT_LEVEL));
+        assertFalse(change.hasChanged(AircraftStateChange.ROUTE));
+        applyAndVerify(delta);
+    }
+
+    /**
+     * Nezmenený stav vytvorí rozdiel bez lietadiel.
+     */
+    @Test
+    public void testUnchangedSnapshotGivesEmptyDelta() {
+        applyAndVerify(tracker.createDelta(snapshot(), 0));
+
+        AircraftSnapshotDelta delta = tracker.createDelta(snapshot(), tracker.getVersion());
+
+        assertFalse(delta.isFullSnapshot());
+        assertTrue(delta.getAddedAircraft().isEmpty());
+        assertTrue(delta.getChangedAircraft().isEmpty());
+        assertTrue(delta.getRemovedAircraftIds().isEmpty());
+        applyAndVerify(delta);
+    }
+
+    /**
+     * Odstránené lietadlo sa z kópie vymaže a nové lietadlo do nej pribudne s novým identifikátorom.
+     */
+    @Test
+    public void testRemovedAndAddedAircraft() {
+        applyAndVerify(tracker.createDelta(snapshot(), 0));
+
+        aircraft.remove(1);
+        keys.remove(1);
+        addAircraft("DLH003", 48.4);
+        AircraftSnapshotDelta delta = tracker.createDelta(snapshot(), tracker.getVersion());
+
+        assertEquals(1, delta.getRemovedAircraftIds().size());
+        assertEquals(1, delta.getAddedAircraft().size());
+        assertFalse(mirror.containsKey(delta.getAddedAircraftIds().get(0)));
+        applyAndVerify(delta);
+    }
+
+    /**
+     * Vymazaná prejdená trasa sa klientovi pošle celá a kópia ju nahradí.
+     */
+    @Test
+    public void testTrailResetIsSentWhole() {
+        Aircraft acft = aircraft.get(0);
+        acft.getRouteTrail().add(48.10, 17.10);
+        acft.getRouteTrail().add(48.11, 17.11);
+        applyAndVerify(tracker.createDelta(snapshot(), 0));
+
+        acft.getRouteTrail().clear();
+        acft.getRouteTrail().add(48.20, 17.20);
+        AircraftSnapshotDelta delta = tracker.createDelta(snapshot(), tracker.getVersion());
+
+        AircraftStateChange change = delta.getChangedAircraft().get(0);
+        assertTrue(change.isTrailReset());
+        assertEquals(1, change.getTrailPoints().length);
+        applyAndVerify(delta);
+    }
+
+    /**
+     * Ak klient potvrdí inú ako poslednú odoslanú verziu, dostane úplný zoznam a kópiu vytvorí nanovo.
+     */
+    @Test
+    public void testUnexpectedAcknowledgementGivesFullSnapshot() {
+        applyAndVerify(tracker.createDelta(snapshot(), 0));
+        tracker.createDelta(snapshot(), tracker.getVersion());
+
+        aircraft.get(2).setLatitude(49);
+        AircraftSnapshotDelta delta = tracker.createDelta(snapshot(), mirrorVersion);
+
+        assertTrue(delta.isFullSnapshot());
+        assertEquals(3, delta.getVersion());
+        assertEquals(3, delta.getAddedAircraft().size());
+        applyAndVerify(delta);
+        applyAndVerify(tracker.createDelta(snapshot(), tracker.getVersion()));
+    }
+
+    /**
+     * Pridá do simulácie lietadlo s novým kľúčom.
+     */
+    private void addAircraft(String callSign, double latitude) {
+        Aircraft acft = new Aircraft();
+        acft.setCallSign(callSign);
+        acft.setLatitude(latitude);
+        acft.setLongitude(17.2);
+        acft.setActualFlightLevel(40);
+        acft.setActualAirSpeed(160);
+        aircraft.add(acft);
+        keys.add(new Object());
+    }
+
+    /**
+     * Vytvorí stav z kópií lietadiel simulácie rovnako ako simulácia po kroku.
+     */
+    private AircraftSnapshot snapshot() {
+        Aircraft[] copies = new Aircraft[aircraft.size()];
+        for (int i = 0; i < copies.length; i++) {
+            copies[i] = new Aircraft(aircraft.get(i));
+        }
+        return AircraftSnapshots.create(mirrorVersion, keys.toArray(), copies);
+    }
+
+    /**
+     * Aplikuje rozdiel na lokálnu kópiu rovnako ako klient a overí, že kópia zodpovedá lietadlám simulácie.
+     */
+    private void applyAndVerify(AircraftSnapshotDelta delta) {
+        if (delta.isFullSnapshot()) {
+            mirror.clear();
+        } else {
+            assertEquals(mirrorVersion, delta.getBaseVersion());
+        }
+        for (Integer aircraftId : delta.getRemovedAircraftIds()) {
+            assertNotNull(mirror.remove(aircraftId));
+        }
+        for (int i = 0; i < delta.getAddedAircraft().size(); i++) {
+            mirror.put(delta.getAddedAircraftIds().get(i), new Aircraft(delta.getAddedAircraft().get(i)));
+        }
+        for (AircraftStateChange change : delta.getChangedAircraft()) {
+            change.applyTo(mirror.get(change.getAircraftId()));
+        }
+        mirrorVersion = delta.getVersion();
+
+        assertEquals(aircraft.size(), mirror.size());
+        Map<String, Aircraft> mirrorByCallSign = new HashMap<String, Aircraft>();
+        for (Aircraft acft : mirror.values()) {
+            mirrorByCallSign.put(acft.getCallSign(), acft);
+        }
+        for (Aircraft expected : aircraft) {
+            Aircraft actual = mirrorByCallSign.get(expected.getCallSign());
+            assertNotNull(expected.getCallSign(), actual);
+            assertEquals(expected.getLatitude(), actual.getLatitude(), 0);
+            assertEquals(expected.getLongitude(), actual.getLongitude(), 0);
+            assertEquals(expected.getActualFlightLevel(), actual.getActualFlightLevel());
+            assertEquals(expected.getFinalFlightLevel(), actual.getFinalFlightLevel());
+            assertEquals(expected.getActualAirSpeed(), actual.getActualAirSpeed());
+            assertEquals(expected.getFinalAirSpeed(), actual.getFinalAirSpeed());
+            assertEquals(expected.isClearedForDeparture(), actual.isClearedForDeparture());
+            assertEquals(expected.isGoingAround(), actual.isGoingAround());
+            assertEquals(expected.isSeparationLost(), actual.isSeparationLost());
+            assertEquals(expected.getHeading(), actual.getHeading(), 0);
+            assertSame(expected.getActualRoute(), actual.getActualRoute());
+            assertEquals(expected.getDirectWaypoints(), actual.getDirectWaypoints());
+            assertEquals(expected.getRouteCursor(), actual.getRouteCursor());
+            assertArrayEquals(expected.getRouteTrail().getPackedPoints(), actual.getRouteTrail().getPackedPoints());
+        }
+    }
+
+}
@@ -0,0 +1,326 @@
+package net.robobalasko.letiskoserv.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import net.robobalasko.letiskoserv.lietadla.Aircraft;
+import net.robobalasko.letiskoserv.lietadla.AircraftTypeEnum;
+import net.robobalasko.letiskoserv.navigacia.AirportRouteTypesEnum;
+import net.robobalasko.letiskoserv.navigacia.Route;
+
+import org.junit.Test;
+
+/**
+ * Testy binárneho formátu správ medzi klientom a serverom.
+ *
+ * @author rbalasko
+ */
+public class AirportBinaryCodecTest {
+
+    /**
+     * Celé a dlhé celé číslo sa dekódujú na rovnakú hodnotu.
+     */
+    @Test
+    public void testNumberRoundTrip() throws IOException {
+        assertEquals(Integer.valueOf(-42), roundTrip(Integer.valueOf(-42)));
+        assertEquals(Long.valueOf(Long.MAX_VALUE), roundTrip(Long.valueOf(Long.MAX_VALUE)));
+    }
+
+    /**
+     * Zoznam lietadiel sa dekóduje s volacími znakmi zo zásobníkov aj mimo nich, trasami a prejdenou trasou.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testAircraftListRoundTrip() throws IOException {
+        Aircraft departing = createDeparture("AAL123");
+        Aircraft arriving = createArrival("XYZ1234");
+        Aircraft bare = new Aircraft();
+        bare.setCallSign("OM-ABC");
+
+        List<Aircraft> decoded = (List<Aircraft>) roundTrip(Arrays.asList(departing, arriving, bare));
+
+        assertEquals(3, decoded.size());
+        assertSameAircraft(departing, decoded.get(0));
+        assertSameAircraft(arriving, decoded.get(1));
+        assertSameAircraft(bare, decoded.get(2));
+        assertSame(decoded.get(0).getSidRoute(), decoded.get(0).getActualRoute());
+        assertSame(decoded.get(1).getStarRoute(), decoded.get(1).getActualRoute());
+        assertNull(decoded.get(2).getActualRoute());
+    }
+
+    /**
+     * Aktuálna trasa, ktorú riadiaci zmenil bez zmeny odletovej a príletovej trasy, sa dekóduje
+     * so svojím typom a názvom a odletová trasa lietadla zostane pôvodná.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testChangedActualRouteRoundTrip() throws IOException {
+        Aircraft acft = createDeparture("CSA510");
+        acft.setStarRoute(createRoute(AirportRouteTypesEnum.STAR, "NIT2A"));
+        acft.setActualRoute(createRoute(AirportRouteTypesEnum.SID, "BIMBA2C"));
+
+        List<Aircraft> decoded = (List<Aircraft>) roundTrip(Arrays.asList(acft));
+
+        Aircraft decodedAircraft = decoded.get(0);
+        assertSameAircraft(acft, decodedAircraft);
+        assertEquals(AirportRouteTypesEnum.SID, decodedAircraft.getActualRoute().getRouteType());
+        assertEquals("BIMBA2C", decodedAircraft.getActualRoute().getRouteName());
+        assertEquals("RUMAG1B", decodedAircraft.getSidRoute().getRouteName());
+    }
+
+    /**
+     * Prázdny zoznam lietadiel sa dekóduje na prázdny zoznam.
+     */
+    @Test
+    public void testEmptyAircraftListRoundTrip() throws IOException {
+        assertEquals(Collections.emptyList(), roundTrip(Collections.<Aircraft>emptyList()));
+    }
+
+    /**
+     * Rozdiel v zozname lietadiel sa dekóduje s novými, zmenenými aj odstránenými lietadlami.
+     */
+    @Test
+    public void testSnapshotDeltaRoundTrip() throws IOException {
+        AircraftSnapshotDelta delta = new AircraftSnapshotDelta(8, 7);
+        delta.removeAircraft(3);
+        delta.removeAircraft(5);
+        delta.addAircraft(9, createDeparture("BAW042"));
+        AircraftStateChange full = new AircraftStateChange(4);
+        full.setPosition(48.2, 17.3);
+        full.setActualFlightLevel(120);
+        full.setFinalFlightLevel(240);
+        full.setActualAirSpeed(250);
+        full.setFinalAirSpeed(280);
+        full.setFlags(true, false, true);
+        full.setHeading(271.5);
+        full.setRoute(createRoute(AirportRouteTypesEnum.STAR, "NIT2A"), Arrays.asList("NIT", "BIMBA"));
+        full.setRouteCursor(1);
+        full.setTrail(true, new long[] { 11, 12, 13 });
+        delta.changeAircraft(full);
+        AircraftStateChange position = new AircraftStateChange(6);
+        position.setPosition(48.1, 17.1);
+        delta.changeAircraft(position);
+
+        AircraftSnapshotDelta decoded = (AircraftSnapshotDelta) roundTrip(delta);
+
+        assertEquals(8, decoded.getVersion());
+        assertEquals(7, decoded.getBaseVersion());
+        assertFalse(decoded.isFullSnapshot());
+        assertEquals(Arrays.asList(3, 5), decoded.getRemovedAircraftIds());
+        assertEquals(Arrays.asList(9), decoded.getAddedAircraftIds());
+        assertSameAircraft(delta.getAddedAircraft().get(0), decoded.getAddedAircraft().get(0));
+        assertEquals(2, decoded.getChangedAircraft().size());
+        assertSameChange(full, decoded.getChangedAircraft().get(0));
+        assertSameChange(position, decoded.getChangedAircraft().get(1));
+    }
+
+    /**
+     * Rámec so záporným počtom prvkov sa odmietne.
+     */
+    @Test(expected = IOException.class)
+    public void testNegativeCountIsRejected() throws IOException {
+        ByteBuffer payload = payload(new AircraftSnapshotDelta(2, 1));
+        // Počet odstránených lietadiel nasleduje za typom správy a dvoma verziami
+        payload.putInt(17, -1);
+        AirportBinaryCodec.decode(payload);
+    }
+
+    /**
+     * Rámec s počtom prvkov väčším, ako sa do neho zmestí, sa odmietne skôr, ako sa pre ne alokuje miesto.
+     */
+    @Test(expected = IOException.class)
+    public void testOversizedCountIsRejected() throws IOException {
+        ByteBuffer payload = payload(Collections.<Aircraft>emptyList());
+        payload.putInt(1, Integer.MAX_VALUE);
+        AirportBinaryCodec.decode(payload);
+    }
+
+    /**
+     * Neplatný identifikátor volacieho znaku sa odmietne.
+     */
+    @Test(expected = IOException.class)
+    public void testInvalidCallSignIdIsRejected() throws IOException {
+        Aircraft acft = new Aircraft();
+        acft.setCallSign("AAL001");
+        ByteBuffer payload = payload(Arrays.asList(acft));
+        // Identifikátor volacieho znaku nasleduje za typom správy a počtom lietadiel
+        payload.putInt(5, Integer.MAX_VALUE);
+        AirportBinaryCodec.decode(payload);
+    }
+
+    /**
+     * Neúplný rámec sa odmietne.
+     */
+    @Test(expected = IOException.class)
+    public void testTruncatedFrameIsRejected() throws IOException {
+        ByteBuffer payload = payload(Long.valueOf(5));
+        payload.limit(payload.limit() - 1);
+        AirportBinaryCodec.decode(payload);
+    }
+
+    /**
+     * Neznámy typ správy sa odmietne.
+     */
+    @Test(expected = IOException.class)
+    public void testUnknownTypeIsRejected() throws IOException {
+        AirportBinaryCodec.decode(ByteBuffer.wrap(new byte[] { 99, 0, 0, 0, 0 }));
+    }
+
+    /**
+     * Zakóduje správu do rámca a dekóduje jeho obsah.
+     */
+    private static Object roundTrip(Object message) throws IOException {
+        assertTrue(AirportBinaryCodec.isSupported(message));
+        ByteBuffer payload = payload(message);
+        Object decoded = AirportBinaryCodec.decode(payload);
+        assertEquals(0, payload.remaining());
+        return decoded;
+    }
+
+    /**
+     * Zakóduje správu a vráti obsah rámca bez hlavičky.
+     */
+    private static ByteBuffer payload(Object message) throws IOException {
+        ByteBuffer frame = AirportBinaryCodec.encodeFrame(message);
+        assertEquals(frame.remaining() - AirportMessageCodec.HEADER_LENGTH, frame.getInt(0));
+        byte[] payload = new byte[frame.remaining() - AirportMessageCodec.HEADER_LENGTH];
+        frame.position(AirportMessageCodec.HEADER_LENGTH);
+        frame.get(payload);
+        return ByteBuffer.wrap(payload);
+    }
+
+    /**
+     * Vytvorí odlietajúce lietadlo na odletovej trase s prejdenou trasou.
+     */
+    private static Aircraft createDeparture(String callSign) {
+        Aircraft acft = new Aircraft();
+        acft.setCallSign(callSign);
+        acft.setAircraftType(AircraftTypeEnum.A320);
+        acft.setDepAirport("LZIB");
+        acft.setArrAirport("EGLL");
+        acft.setSidRoute(createRoute(AirportRouteTypesEnum.SID, "RUMAG1B"));
+        acft.setActualRoute(acft.getSidRoute());
+        acft.setRouteCursor(2);
+        acft.setLatitude(48.170);
+        acft.setLongitude(17.212);
+        acft.setActualFlightLevel(50);
+        acft.setFinalFlightLevel(250);
+        acft.setActualAirSpeed(180);
+        acft.setFinalAirSpeed(290);
+        acft.setClearedForDeparture(true);
+        acft.setHeading(130.25);
+        acft.getRouteTrail().setCapacity(3);
+        for (int i = 0; i < 5; i++) {
+            acft.getRouteTrail().add(48.1 + i * 0.01, 17.2 - i * 0.01);
+        }
+        return acft;
+    }
+
+    /**
+     * Vytvorí prilietajúce lietadlo na príletovej trase s pridanými bodmi.
+     */
+    private static Aircraft createArrival(String callSign) {
+        Aircraft acft = new Aircraft();
+        acft.setCallSign(callSign);
+        acft.setAircraftType(AircraftTypeEnum.A330);
+        acft.setDepAirport("KJFK");
+        acft.setArrAirport("LZIB");
+        acft.setStarRoute(createRoute(AirportRouteTypesEnum.STAR, "NIT2A"));
+        acft.setActualRoute(acft.getStarRoute());
+        acft.setDirectWaypoints(Arrays.asList("NIT", "BIMBA"));
+        acft.setLatitude(48.5);
+        acft.setLongitude(18.1);
+        acft.setActualFlightLevel(180);
+        acft.setFinalFlightLevel(60);
+        acft.setActualAirSpeed(280);
+        acft.setFinalAirSpeed(210);
+        acft.setGoingAround(true);
+        acft.setIsSelected(true);
+        acft.setSeparationLost(true);
+        acft.setHeading(255);
+        return acft;
+    }
+
+    /**
+     * Vytvorí trasu zadaného typu s dvoma bodmi.
+     */
+    private static Route createRoute(AirportRouteTypesEnum routeType, String routeName) {
+        return new Route(22, routeName, routeType, Arrays.asList(routeName.substring(0, 3), "BIMBA"));
+    }
+
+    /**
+     * Overí, že dekódované lietadlo má rovnaké údaje ako odoslané.
+     */
+    private static void assertSameAircraft(Aircraft expected, Aircraft actual) {
+        assertEquals(expected.getCallSign(), actual.getCallSign());
+        assertEquals(expected.getAircraftType(), actual.getAircraftType());
+        assertEquals(expected.getDepAirport(), actual.getDepAirport());
+        assertEquals(expected.getArrAirport(), actual.getArrAirport());
+        assertSameRoute(expected.getSidRoute(), actual.getSidRoute());
+        assertSameRoute(expected.getStarRoute(), actual.getStarRoute());
+        assertSameRoute(expected.getActualRoute(), actual.getActualRoute());
+        assertEquals(expected.getDirectWaypoints(), actual.getDirectWaypoints());
+        assertEquals(expected.getRouteCursor(), actual.getRouteCursor());
+        assertEquals(expected.getLatitude(), actual.getLatitude(), 0);
+        assertEquals(expected.getLongitude(), actual.getLongitude(), 0);
+        assertEquals(expected.getActualFlightLevel(), actual.getActualFlightLevel());
+        assertEquals(expected.getFinalFlightLevel(), actual.getFinalFlightLevel());
+        assertEquals(expected.getActualAirSpeed(), actual.getActualAirSpeed());
+        assertEquals(expected.getFinalAirSpeed(), actual.getFinalAirSpeed());
+        assertEquals(expected.isClearedForDeparture(), actual.isClearedForDeparture());
+        assertEquals(expected.isGoingAround(), actual.isGoingAround());
+        assertEquals(expected.isIsSelected(), actual.isIsSelected());
+        assertEquals(expected.isSeparationLost(), actual.isSeparationLost());
+        assertEquals(expected.getHeading(), actual.getHeading(), 0);
+        assertEquals(expected.getRouteTrail().getCapacity(), actual.getRouteTrail().getCapacity());
+        assertArrayEquals(expected.getRouteTrail().getPackedPoints(), actual.getRouteTrail().getPackedPoints());
+    }
+
+    /**
+     * Overí, že dekódovaná zmena obsahuje rovnaké údaje ako odoslaná.
+     */
+    private static void assertSameChange(AircraftStateChange expected, AircraftStateChange actual) {
+        assertEquals(expected.getAircraftId(), actual.getAircraftId());
+        assertEquals(expected.getChangedFields(), actual.getChangedFields());
+        assertEquals(expected.getLatitude(), actual.getLatitude(), 0);
+        assertEquals(expected.getLongitude(), actual.getLongitude(), 0);
+        assertEquals(expected.getActualFlightLevel(), actual.getActualFlightLevel());
+        assertEquals(expected.getFinalFlightLevel(), actual.getFinalFlightLevel());
+        assertEquals(expected.getActualAirSpeed(), actual.getActualAirSpeed());
+        assertEquals(expected.getFinalAirSpeed(), actual.getFinalAirSpeed());
+        assertEquals(expected.isClearedForDeparture(), actual.isClearedForDeparture());
+        assertEquals(expected.isGoingAround(), actual.isGoingAround());
+        assertEquals(expected.isSeparationLost(), actual.isSeparationLost());
+        assertEquals(expected.getHeading(), actual.getHeading(), 0);
+        assertSameRoute(expected.getRoute(), actual.getRoute());
+        assertEquals(expected.getDirectWaypoints(), actual.getDirectWaypoints());
+        assertEquals(expected.getRouteCursor(), actual.getRouteCursor());
+        assertEquals(expected.isTrailReset(), actual.isTrailReset());
+        assertArrayEquals(expected.getTrailPoints(), actual.getTrailPoints());
+    }
+
+    /**
+     * Overí, že dekódovaná trasa má rovnaké údaje ako odoslaná.
+     */
+    private static void assertSameRoute(Route expected, Route actual) {
+        if (expected == null) {
+            assertNull(actual);
+            return;
+        }
+        assertEquals(expected.getRouteType(), actual.getRouteType());
+        assertEquals(expected.getRunwayNumber(), actual.getRunwayNumber());
+        assertEquals(expected.getRouteName(), actual.getRouteName());
+        assertEquals(expected.getRoutePoints(), actual.getRoutePoints());
+    }
+
+}
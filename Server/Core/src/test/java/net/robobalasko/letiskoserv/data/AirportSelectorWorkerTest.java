@@ -0,0 +1,190 @@
+package net.robobalasko.letiskoserv.data;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.ResourceBundle;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import net.robobalasko.letiskoserv.simulacia.SimulationEngine;
+import net.robobalasko.letiskoserv.simulacia.SimulationRandom;
+import net.robobalasko.letiskoserv.simulacia.WorldRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Testy I/O vlákna neblokujúceho servera a rámcovania správ na skutočnom spojení cez loopback.
+ *
+ * @author rbalasko
+ */
+public class AirportSelectorWorkerTest {
+
+    /**
+     * Letiská, ku ktorým sa môžu klienti v teste pripojiť.
+     */
+    private static final String[] AIRPORTS = { "lzib", "lzkz" };
+
+    /**
+     * Najdlhší čas v milisekundách, ktorý klient čaká na odpoveď servera.
+     */
+    private static final int READ_TIMEOUT = 5000;
+
+    /**
+     * Kanál, na ktorom test prijíma spojenie klienta a odovzdá ho I/O vláknu.
+     */
+    private ServerSocketChannel serverChannel;
+
+    /**
+     * Testované I/O vlákno.
+     */
+    private AirportSelectorWorker worker;
+
+    /**
+     * Engine, ktorý relácie klientov potrebujú, ale v teste sa nespúšťa.
+     */
+    private SimulationEngine engine;
+
+    /**
+     * Vlákna, na ktorých by relácie odosielali lietadlá odberateľom.
+     */
+    private ExecutorService radarFeedExecutor;
+
+    /**
+     * Socket klienta pripojeného k I/O vláknu.
+     */
+    private Socket client;
+
+    /**
+     * Prijaté odpovede servera.
+     */
+    private DataInputStream input;
+
+    /**
+     * Pripojí klienta k I/O vláknu, ktoré vytvára relácie bez hlavného servera.
+     */
+    @Before
+    public void setUp() throws IOException {
+        final ResourceBundle language = ResourceBundle.getBundle("languages/language");
+        final ResourceBundle settings = ResourceBundle.getBundle("config/settings");
+        final AirportSlotRegistry airportSlots = new AirportSlotRegistry(Arrays.asList(AIRPORTS));
+        SimulationRandom random = new SimulationRandom(1);
+        engine = new SimulationEngine(new WorldRegistry(random.stream("callsigns")), 100, 1, 1000, 20, 1,
+                2000, 5, random, false);
+        radarFeedExecutor = Executors.newSingleThreadExecutor();
+        worker = new AirportSelectorWorker(null, 0) {
+            @Override
+            AirportServiceSession createSession(AirportChannelConnection connection) {
+                return new AirportServiceSession(connection, airportSlots, language, settings, 0, engine,
+                        radarFeedExecutor);
+            }
+        };
+        worker.start();
+
+        InetAddress loopback = InetAddress.getByName("127.0.0.1");
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.socket().bind(new InetSocketAddress(loopback, 0));
+        client = new Socket(loopback, serverChannel.socket().getLocalPort());
+        client.setTcpNoDelay(true);
+        client.setSoTimeout(READ_TIMEOUT);
+        input = new DataInputStream(client.getInputStream());
+        SocketChannel channel = serverChannel.accept();
+        channel.socket().setTcpNoDelay(true);
+        worker.register(channel);
+    }
+
+    /**
+     * Odpojí klienta a zastaví I/O vlákno aj engine.
+     */
+    @After
+    public void tearDown() throws IOException {
+        client.close();
+        serverChannel.close();
+        worker.stop();
+        radarFeedExecutor.shutdown();
+        engine.shutdown();
+    }
+
+    /**
+     * Rámec, ktorý prichádza po jednom bajte, sa poskladá a spracuje až celý.
+     */
+    @Test
+    public void testFrameSplitIntoSingleBytes() throws Exception {
+        byte[] request = concat(frame(AirportServiceProtocol.SEND_WIRE_CODEC, false),
+                frame(AirportMessageCodec.CODEC_SERIALIZATION, false));
+
+        OutputStream output = client.getOutputStream();
+        for (byte b : request) {
+            output.write(b);
+            output.flush();
+            Thread.sleep(1);
+        }
+
+        assertEquals(AirportMessageCodec.CODEC_SERIALIZATION, AirportMessageCodec.readMessage(input));
+    }
+
+    /**
+     * Viac rámcov prijatých naraz sa spracuje v poradí, v akom prišli, aj po prechode na binárny formát.
+     */
+    @Test
+    public void testSeveralFramesInOneWrite() throws Exception {
+        byte[] request = concat(frame(AirportServiceProtocol.SEND_WIRE_CODEC, false),
+                frame(AirportMessageCodec.CODEC_BINARY, false),
+                frame(AirportServiceProtocol.SEND_AIRPRT_LIST, true));
+
+        client.getOutputStream().write(request);
+
+        assertEquals(AirportMessageCodec.CODEC_BINARY, AirportMessageCodec.readMessage(input));
+        assertEquals(Arrays.asList(AIRPORTS), AirportMessageCodec.readMessage(input));
+    }
+
+    /**
+     * Rámec väčší ako {@code MAX_FRAME_LENGTH} spojenie uzatvorí bez toho, aby naň server čakal.
+     */
+    @Test
+    public void testOversizedFrameClosesConnection() throws Exception {
+        ByteBuffer header = ByteBuffer.allocate(AirportMessageCodec.HEADER_LENGTH);
+        header.putInt(AirportMessageCodec.MAX_FRAME_LENGTH + 1);
+
+        client.getOutputStream().write(header.array());
+
+        assertEquals(-1, input.read());
+    }
+
+    /**
+     * Zakóduje správu do rámca a vráti jeho bajty.
+     */
+    private static byte[] frame(Object message, boolean binaryCodec) throws IOException {
+        ByteBuffer frame = AirportMessageCodec.encode(message, binaryCodec);
+        byte[] bytes = new byte[frame.remaining()];
+        frame.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Spojí bajty viacerých rámcov za seba.
+     */
+    private static byte[] concat(byte[]... frames) {
+        int length = 0;
+        for (byte[] frame : frames) {
+            length += frame.length;
+        }
+        ByteBuffer all = ByteBuffer.allocate(length);
+        for (byte[] frame : frames) {
+            all.put(frame);
+        }
+        return all.array();
+    }
+
+}
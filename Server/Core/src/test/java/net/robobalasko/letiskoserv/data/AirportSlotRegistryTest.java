@@ -0,0 +1,186 @@
+package net.robobalasko.letiskoserv.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Testy registra obsadených letísk.
+ *
+ * @author rbalasko
+ */
+public class AirportSlotRegistryTest {
+
+    /**
+     * Letiská testovaného registra.
+     */
+    private static final List<String> AIRPORTS = Arrays.asList("lzib", "lzkz", "lhbp", "lzsl");
+
+    /**
+     * Počet vlákien, ktoré v súbežných testoch naraz obsadzujú letiská.
+     */
+    private static final int THREADS = 8;
+
+    /**
+     * Letisko obsadené jedným klientom nemôže obsadiť iný klient, kým ho prvý neuvoľní.
+     */
+    @Test
+    public void testClaimedAirportCannotBeClaimedAgain() {
+        AirportSlotRegistry registry = new AirportSlotRegistry(AIRPORTS);
+
+        AirportSlotRegistry.Lease lease = registry.claim("lzkz");
+        assertNotNull(lease);
+        assertTrue(registry.isClaimed("lzkz"));
+        assertNull(registry.claim("lzkz"));
+
+        assertTrue(registry.release(lease));
+        assertFalse(registry.isClaimed("lzkz"));
+        AirportSlotRegistry.Lease next = registry.claim("lzkz");
+        assertNotNull(next);
+        assertTrue(next.getId() != lease.getId());
+    }
+
+    /**
+     * Starý lístok neuvoľní letisko, ktoré medzitým obsadil iný klient.
+     */
+    @Test
+    public void testStaleLeaseDoesNotReleaseNewClaim() {
+        AirportSlotRegistry registry = new AirportSlotRegistry(AIRPORTS);
+        AirportSlotRegistry.Lease stale = registry.claim("lzib");
+        assertTrue(registry.release(stale));
+        AirportSlotRegistry.Lease current = registry.claim("lzib");
+
+        assertFalse(registry.release(stale));
+        assertTrue(registry.isClaimed("lzib"));
+        assertTrue(registry.release(current));
+        assertFalse(registry.release(null));
+    }
+
+    /**
+     * Neznáme letisko nie je možné obsadiť.
+     */
+    @Test
+    public void testUnknownAirportCannotBeClaimed() {
+        AirportSlotRegistry registry = new AirportSlotRegistry(AIRPORTS);
+
+        assertNull(registry.claim("lkpr"));
+        assertNull(registry.claim(null));
+        assertEquals(AIRPORTS, registry.getAvailableAirports());
+    }
+
+    /**
+     * Zoznam voľných letísk vynechá obsadené letiská a zachová pôvodné poradie.
+     */
+    @Test
+    public void testAvailableAirportsFollowClaims() {
+        AirportSlotRegistry registry = new AirportSlotRegistry(AIRPORTS);
+
+        AirportSlotRegistry.Lease lzkz = registry.claim("lzkz");
+        registry.claim("lzsl");
+        assertEquals(Arrays.asList("lzib", "lhbp"), registry.getAvailableAirports());
+
+        registry.release(lzkz);
+        assertEquals(Arrays.asList("lzib", "lzkz", "lhbp"), registry.getAvailableAirports());
+    }
+
+    /**
+     * Z klientov, ktorí súčasne obsadzujú to isté letisko, uspeje práve jeden.
+     */
+    @Test
+    public void testConcurrentClaimsHaveOneWinner() throws Exception {
+        for (int round = 0; round < 200; round++) {
+            final AirportSlotRegistry registry = new AirportSlotRegistry(AIRPORTS);
+            List<AirportSlotRegistry.Lease> leases = runConcurrently(new Callable<AirportSlotRegistry.Lease>() {
+                @Override
+                public AirportSlotRegistry.Lease call() {
+                    return registry.claim("lzib");
+                }
+            });
+
+            leases.removeAll(Collections.singleton(null));
+            assertEquals(1, leases.size());
+            assertEquals(Arrays.asList("lzkz", "lhbp", "lzsl"), registry.getAvailableAirports());
+        }
+    }
+
+    /**
+     * Po súbežnom obsadzovaní a uvoľňovaní letísk zodpovedá zoznam voľných letísk skutočnému obsadeniu.
+     */
+    @Test
+    public void testAvailableAirportsConsistentAfterConcurrentChanges() throws Exception {
+        final AirportSlotRegistry registry = new AirportSlotRegistry(AIRPORTS);
+        List<AirportSlotRegistry.Lease> held = runConcurrently(new Callable<AirportSlotRegistry.Lease>() {
+            @Override
+            public AirportSlotRegistry.Lease call() {
+                AirportSlotRegistry.Lease last = null;
+                for (int i = 0; i < 2000; i++) {
+                    if (last != null) {
+                        registry.release(last);
+                    }
+                    last = registry.claim(AIRPORTS.get(i % AIRPORTS.size()));
+                }
+                return last;
+            }
+        });
+
+        List<String> expected = new ArrayList<String>();
+        for (String airport : AIRPORTS) {
+            if (registry.isClaimed(airport)) {
+                assertFalse(registry.getAvailableAirports().contains(airport));
+            } else {
+                expected.add(airport);
+            }
+        }
+        assertEquals(expected, registry.getAvailableAirports());
+        for (AirportSlotRegistry.Lease lease : held) {
+            if (lease != null) {
+                assertTrue(registry.release(lease));
+            }
+        }
+        assertEquals(AIRPORTS, registry.getAvailableAirports());
+    }
+
+    /**
+     * Spustí úlohu naraz na viacerých vláknach a vráti jej výsledky.
+     */
+    private static <T> List<T> runConcurrently(final Callable<T> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<T>> futures = new ArrayList<Future<T>>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(new Callable<T>() {
+                    @Override
+                    public T call() throws Exception {
+                        start.await();
+                        return task.call();
+                    }
+                }));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<T>();
+            for (Future<T> future : futures) {
+                results.add(future.get(30, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
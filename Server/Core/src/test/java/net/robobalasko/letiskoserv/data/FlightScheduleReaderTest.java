@@ -0,0 +1,166 @@
+package net.robobalasko.letiskoserv.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.robobalasko.letiskoserv.lietadla.AircraftTypeEnum;
+import net.robobalasko.letiskoserv.lietadla.ScheduledFlight;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Testy prúdového čitateľa letového plánu.
+ *
+ * @author rbalasko
+ */
+public class FlightScheduleReaderTest {
+
+    /**
+     * Dočasné súbory letových plánov vytvorené testom.
+     */
+    private final List<File> files = new ArrayList<File>();
+
+    /**
+     * Zmaže dočasné súbory letových plánov.
+     */
+    @After
+    public void tearDown() {
+        for (File file : files) {
+            file.delete();
+        }
+    }
+
+    /**
+     * Čitateľ vráti v poradí súboru len odlety svojho letiska so všetkými údajmi. Chýbajúce
+     * nepovinné údaje sú prázdne.
+     */
+    @Test
+    public void testReadsOnlyOwnDepartures() throws IOException {
+        FlightScheduleReader reader = open("lzib",
+                "<flight time=\"00:00:30\" callsign=\"SVK101\" type=\"B737\" from=\"LZIB\" to=\"lzkz\""
+                + " sid=\"NITRA 6Z\" star=\"MARKA 6B\" level=\"240\" speed=\"420\" />",
+                "<flight time=\"00:02\" callsign=\"CSA741\" type=\"A320\" from=\"LZKZ\" to=\"LZIB\" />",
+                "<flight time=\"01:03\" callsign=\"DLH812\" type=\"A320\" from=\"lzib\" to=\"LZKZ\" />");
+
+        ScheduledFlight first = reader.next();
+        assertEquals(30, first.getDepartureTime(), 0);
+        assertEquals("SVK101", first.getCallSign());
+        assertSame(AircraftTypeEnum.B737, first.getAircraftType());
+        assertEquals("LZIB", first.getDepAirport());
+        assertEquals("LZKZ", first.getArrAirport());
+        assertEquals("NITRA 6Z", first.getSidRoute());
+        assertEquals("MARKA 6B", first.getStarRoute());
+        assertEquals(240, first.getFlightLevel());
+        assertEquals(420, first.getAirSpeed());
+
+        ScheduledFlight second = reader.next();
+        assertEquals("DLH812", second.getCallSign());
+        assertEquals(3780, second.getDepartureTime(), 0);
+        assertNull(second.getSidRoute());
+        assertNull(second.getStarRoute());
+        assertEquals(0, second.getFlightLevel());
+        assertEquals(0, second.getAirSpeed());
+
+        assertNull(reader.next());
+        assertNull(reader.peek());
+    }
+
+    /**
+     * Pohľad na ďalší let ho nevyberie.
+     */
+    @Test
+    public void testPeekDoesNotConsume() throws IOException {
+        FlightScheduleReader reader = open("lzkz",
+                "<flight time=\"00:02:00\" callsign=\"CSA741\" type=\"A320\" from=\"LZKZ\" to=\"LZIB\" />");
+
+        ScheduledFlight peeked = reader.peek();
+        assertSame(peeked, reader.peek());
+        assertSame(peeked, reader.next());
+        assertNull(reader.next());
+    }
+
+    /**
+     * Let s neplatnými údajmi sa preskočí a čítanie pokračuje ďalším letom.
+     */
+    @Test
+    public void testInvalidFlightsAreSkipped() throws IOException {
+        FlightScheduleReader reader = open("lzib",
+                "<flight time=\"00:61\" callsign=\"BAD001\" type=\"A320\" from=\"LZIB\" to=\"LZKZ\" />",
+                "<flight time=\"00:05\" callsign=\"BAD002\" type=\"XX99\" from=\"LZIB\" to=\"LZKZ\" />",
+                "<flight time=\"00:06\" type=\"A320\" from=\"LZIB\" to=\"LZKZ\" />",
+                "<flight time=\"00:07\" callsign=\"BAD004\" type=\"A320\" from=\"LZIB\" to=\"LZKZ\" level=\"x\" />",
+                "<flight time=\"00:08\" callsign=\"SVK305\" type=\"B737\" from=\"LZIB\" to=\"LZKZ\" />");
+
+        assertEquals(Arrays.asList("SVK305"), readCallSigns(reader));
+    }
+
+    /**
+     * Chyba v štruktúre xml ukončí čítanie, lety pred ňou sa však vrátia.
+     */
+    @Test
+    public void testMalformedXmlEndsSchedule() throws IOException {
+        FlightScheduleReader reader = open("lzib",
+                "<flight time=\"00:01\" callsign=\"SVK101\" type=\"B737\" from=\"LZIB\" to=\"LZKZ\" />",
+                "<flight <broken />",
+                "<flight time=\"00:03\" callsign=\"SVK103\" type=\"B737\" from=\"LZIB\" to=\"LZKZ\" />");
+
+        assertEquals(Arrays.asList("SVK101"), readCallSigns(reader));
+        assertNull(reader.peek());
+    }
+
+    /**
+     * Priložený vzorový letový plán obsahuje osem odletov z Bratislavy.
+     */
+    @Test
+    public void testSampleSchedule() throws IOException {
+        FlightScheduleReader reader = new FlightScheduleReader(
+                FlightScheduleReaderTest.class.getResource("/schedules/sample.xml"), "lzib");
+
+        List<String> callSigns = readCallSigns(reader);
+
+        assertEquals(Arrays.asList("SVK101", "DLH812", "BAW201", "OM-KLM", "UAL960", "AAL110", "SVK107", "BAW207"),
+                callSigns);
+    }
+
+    /**
+     * Prečíta volacie znaky všetkých zostávajúcich letov.
+     */
+    private static List<String> readCallSigns(FlightScheduleReader reader) {
+        List<String> callSigns = new ArrayList<String>();
+        for (ScheduledFlight flight = reader.next(); flight != null; flight = reader.next()) {
+            callSigns.add(flight.getCallSign());
+        }
+        return callSigns;
+    }
+
+    /**
+     * Zapíše lety do dočasného súboru letového plánu a otvorí ho čitateľom letiska.
+     */
+    private FlightScheduleReader open(String airportIcao, String... flights) throws IOException {
+        File file = File.createTempFile("schedule", ".xml");
+        files.add(file);
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<schedule>\n");
+            for (String flight : flights) {
+                writer.write("    " + flight + "\n");
+            }
+            writer.write("</schedule>\n");
+        } finally {
+            writer.close();
+        }
+        return new FlightScheduleReader(file.toURI().toURL(), airportIcao);
+    }
+
+}
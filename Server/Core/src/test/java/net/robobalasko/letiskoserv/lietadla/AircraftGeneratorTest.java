@@ -0,0 +1,135 @@
+package net.robobalasko.letiskoserv.lietadla;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import net.robobalasko.letiskoserv.navigacia.Airport;
+import net.robobalasko.letiskoserv.navigacia.AirportRouteTypesEnum;
+import net.robobalasko.letiskoserv.navigacia.InvalidRouteDataException;
+
+import org.junit.Test;
+
+/**
+ * Testy generátora lietadiel.
+ *
+ * @author rbalasko
+ */
+public class AircraftGeneratorTest {
+
+    /**
+     * Počet generovaných lietadiel v jednom teste.
+     */
+    private static final int AIRCRAFT_COUNT = 500;
+
+    /**
+     * Odlet nikdy neletí na letisko bez príletových trás a vždy má obe trasy.
+     */
+    @Test
+    public void testDepartureSkipsAirportWithoutStars() throws InvalidRouteDataException {
+        Airport lzib = createAirport("LZIB", true, true);
+        Airport lzkz = createAirport("LZKZ", true, true);
+        Airport lkpr = createAirport("LKPR", true, false);
+        CallsignAllocator allocator = new CallsignAllocator(new Random(1));
+        AircraftGenerator generator = new AircraftGenerator("LZIB", lzib, Arrays.asList(lzib, lzkz, lkpr),
+                allocator, new Random(2));
+
+        Set<String> destinations = new HashSet<String>();
+        for (int i = 0; i < AIRCRAFT_COUNT; i++) {
+            Aircraft acft = generator.generateRandomAircraft(i % 2 == 0);
+            assertNotNull(acft);
+            assertNotNull(acft.getSidRoute());
+            assertNotNull(acft.getStarRoute());
+            destinations.add(acft.getArrAirport());
+            allocator.release(acft.getCallSign());
+        }
+
+        assertEquals(new HashSet<String>(Arrays.asList("LZKZ")), destinations);
+    }
+
+    /**
+     * Prílet nikdy nepriletí z letiska bez odletových trás a vždy má obe trasy.
+     */
+    @Test
+    public void testArrivalSkipsAirportWithoutSids() throws InvalidRouteDataException {
+        Airport lzib = createAirport("LZIB", true, true);
+        Airport lzkz = createAirport("LZKZ", true, true);
+        Airport lkpr = createAirport("LKPR", false, true);
+        CallsignAllocator allocator = new CallsignAllocator(new Random(1));
+        AircraftGenerator generator = new AircraftGenerator("LZIB", lzib, Arrays.asList(lkpr, lzkz),
+                allocator, new Random(2));
+
+        Set<String> origins = new HashSet<String>();
+        for (int i = 0; i < AIRCRAFT_COUNT; i++) {
+            Aircraft acft = generator.generateArrivingAircraft(i % 2 == 0);
+            assertNotNull(acft);
+            assertNotNull(acft.getSidRoute());
+            assertNotNull(acft.getStarRoute());
+            origins.add(acft.getDepAirport());
+            allocator.release(acft.getCallSign());
+        }
+
+        assertEquals(new HashSet<String>(Arrays.asList("LZKZ")), origins);
+    }
+
+    /**
+     * Ak jediné iné letisko nemá príletové trasy, odlet letí okruh späť na letisko generátora.
+     */
+    @Test
+    public void testDepartureReturnsHomeWithoutOtherDestination() throws InvalidRouteDataException {
+        Airport lzib = createAirport("LZIB", true, true);
+        Airport lkpr = createAirport("LKPR", true, false);
+        AircraftGenerator generator = new AircraftGenerator("LZIB", lzib, Arrays.asList(lkpr),
+                new CallsignAllocator(new Random(1)), new Random(2));
+
+        Aircraft acft = generator.generateRandomAircraft(true);
+
+        assertEquals("LZIB", acft.getArrAirport());
+        assertEquals(AirportRouteTypesEnum.STAR, acft.getStarRoute().getRouteType());
+    }
+
+    /**
+     * Letisko bez odletových trás negeneruje odlety a nespotrebuje pri tom volací znak.
+     */
+    @Test
+    public void testAirportWithoutSidsGeneratesNoDepartures() throws InvalidRouteDataException {
+        Airport lzib = createAirport("LZIB", false, true);
+        Airport lzkz = createAirport("LZKZ", true, true);
+        CallsignAllocator allocator = new CallsignAllocator(new Random(1));
+        AircraftGenerator generator = new AircraftGenerator("LZIB", lzib, Arrays.asList(lzkz),
+                allocator, new Random(2));
+
+        assertNull(generator.generateRandomAircraft(true));
+        assertNull(generator.generateRandomAircraft(false));
+
+        // Prideľovač s rovnakým semenom pridelí rovnaké volacie znaky, ak sa žiadny nespotreboval
+        CallsignAllocator unused = new CallsignAllocator(new Random(1));
+        assertEquals(unused.allocateGeneralAviation(), allocator.allocateGeneralAviation());
+        for (AirlineIcaoCodeEnum airline : AirlineIcaoCodeEnum.values()) {
+            assertEquals(unused.allocate(airline), allocator.allocate(airline));
+        }
+        assertNotNull(generator.generateArrivingAircraft(true));
+    }
+
+    /**
+     * Vytvorí letisko s jednou odletovou a príletovou trasou podľa zadania.
+     */
+    private static Airport createAirport(String icaoCode, boolean sid, boolean star)
+            throws InvalidRouteDataException {
+        Airport airport = new Airport();
+        airport.setIcaoCode(icaoCode);
+        if (sid) {
+            airport.setRoute(22, icaoCode + "1A", new String[] { "AAA", "BBB" }, AirportRouteTypesEnum.SID);
+        }
+        if (star) {
+            airport.setRoute(22, icaoCode + "2B", new String[] { "CCC", "DDD" }, AirportRouteTypesEnum.STAR);
+        }
+        return airport;
+    }
+
+}
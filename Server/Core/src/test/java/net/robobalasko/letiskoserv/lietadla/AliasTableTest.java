@@ -0,0 +1,102 @@
+package net.robobalasko.letiskoserv.lietadla;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Testy tabuľky pre výber náhodného prvku podľa váh.
+ *
+ * @author rbalasko
+ */
+public class AliasTableTest {
+
+    /**
+     * Počet výberov pri overovaní rozdelenia.
+     */
+    private static final int SAMPLES = 200000;
+
+    /**
+     * Povolená odchýlka početnosti prvku od jeho pravdepodobnosti.
+     */
+    private static final double TOLERANCE = 0.01;
+
+    /**
+     * Prvky sa vyberajú s pravdepodobnosťou úmernou ich váhe.
+     */
+    @Test
+    public void testSamplesFollowWeights() {
+        double[] weights = { 1, 2, 3, 4 };
+
+        double[] frequencies = sample(new AliasTable(weights), weights.length);
+
+        for (int i = 0; i < weights.length; i++) {
+            assertEquals("item " + i, weights[i] / 10, frequencies[i], TOLERANCE);
+        }
+    }
+
+    /**
+     * Prvok s nulovou alebo zápornou váhou sa nikdy nevyberie.
+     */
+    @Test
+    public void testZeroWeightIsNeverSampled() {
+        double[] weights = { 0, 5, 0, -2, 5, 0 };
+
+        double[] frequencies = sample(new AliasTable(weights), weights.length);
+
+        assertEquals(0, frequencies[0], 0);
+        assertEquals(0, frequencies[2], 0);
+        assertEquals(0, frequencies[3], 0);
+        assertEquals(0, frequencies[5], 0);
+        assertEquals(0.5, frequencies[1], TOLERANCE);
+        assertEquals(0.5, frequencies[4], TOLERANCE);
+    }
+
+    /**
+     * Ak sú všetky váhy nulové, prvky sa vyberajú rovnomerne.
+     */
+    @Test
+    public void testAllZeroWeightsSampleUniformly() {
+        double[] weights = { 0, 0, 0, 0 };
+
+        double[] frequencies = sample(new AliasTable(weights), weights.length);
+
+        for (int i = 0; i < weights.length; i++) {
+            assertEquals("item " + i, 0.25, frequencies[i], TOLERANCE);
+        }
+    }
+
+    /**
+     * Tabuľka s jediným prvkom vždy vráti tento prvok.
+     */
+    @Test
+    public void testSingleItem() {
+        AliasTable table = new AliasTable(new double[] { 3 });
+        Random random = new Random(7);
+
+        assertEquals(1, table.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0, table.sample(random));
+        }
+    }
+
+    /**
+     * Vráti relatívne početnosti prvkov vo výberoch s pevným semienkom.
+     */
+    private static double[] sample(AliasTable table, int count) {
+        assertEquals(count, table.size());
+        Random random = new Random(42);
+        int[] counts = new int[count];
+        for (int i = 0; i < SAMPLES; i++) {
+            counts[table.sample(random)]++;
+        }
+        double[] frequencies = new double[count];
+        for (int i = 0; i < count; i++) {
+            frequencies[i] = (double) counts[i] / SAMPLES;
+        }
+        return frequencies;
+    }
+
+}
@@ -0,0 +1,159 @@
+package net.robobalasko.letiskoserv.lietadla;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Testy prideľovača volacích znakov.
+ *
+ * @author rbalasko
+ */
+public class CallsignAllocatorTest {
+
+    /**
+     * Počet čísel letu jednej aerolínky.
+     */
+    private static final int AIRLINE_POOL_SIZE = 1000;
+
+    /**
+     * Testovaný prideľovač.
+     */
+    private CallsignAllocator allocator;
+
+    /**
+     * Vytvorí prideľovač s pevným semienkom.
+     */
+    @Before
+    public void setUp() {
+        allocator = new CallsignAllocator(new Random(42));
+    }
+
+    /**
+     * Prideľovač pridelí každé číslo letu aerolínky práve raz a potom ohlási vyčerpanie.
+     */
+    @Test
+    public void testAllocatesEveryCallSignOnce() {
+        Set<String> callSigns = allocateAll(AirlineIcaoCodeEnum.AAL);
+
+        assertEquals(AIRLINE_POOL_SIZE, callSigns.size());
+        assertTrue(callSigns.contains("AAL000"));
+        assertTrue(callSigns.contains("AAL999"));
+    }
+
+    /**
+     * Uvoľnený volací znak sa dá znova prideliť, ostatné pridelené volacie znaky nie.
+     */
+    @Test
+    public void testReleasedCallSignIsAllocatedAgain() {
+        allocateAll(AirlineIcaoCodeEnum.BAW);
+
+        assertTrue(allocator.release("BAW123"));
+        assertFalse(allocator.release("BAW123"));
+        assertEquals("BAW123", allocator.allocate(AirlineIcaoCodeEnum.BAW));
+        assertNull(allocator.allocate(AirlineIcaoCodeEnum.BAW));
+    }
+
+    /**
+     * Uvoľnenia a pridelenia v ľubovoľnom poradí nikdy nepridelia volací znak dvom lietadlám.
+     */
+    @Test
+    public void testAllocateAndReleaseKeepCallSignsUnique() {
+        Random random = new Random(7);
+        Set<String> active = new HashSet<String>();
+        for (int i = 0; i < 20000; i++) {
+            if (!active.isEmpty() && random.nextInt(3) == 0) {
+                String callSign = active.iterator().next();
+                assertTrue(allocator.release(callSign));
+                active.remove(callSign);
+            } else {
+                String callSign = allocator.allocate(AirlineIcaoCodeEnum.CSA);
+                if (callSign == null) {
+                    assertEquals(AIRLINE_POOL_SIZE, active.size());
+                } else {
+                    assertTrue(callSign + " allocated twice", active.add(callSign));
+                }
+            }
+        }
+    }
+
+    /**
+     * Vyhradený volací znak sa nepridelí, kým sa neuvoľní, a nedá sa vyhradiť dvakrát.
+     */
+    @Test
+    public void testReservedCallSignIsNotAllocated() {
+        assertTrue(allocator.reserve("DLH042"));
+        assertFalse(allocator.reserve("DLH042"));
+
+        Set<String> callSigns = allocateAll(AirlineIcaoCodeEnum.DLH);
+
+        assertEquals(AIRLINE_POOL_SIZE - 1, callSigns.size());
+        assertFalse(callSigns.contains("DLH042"));
+        assertFalse(allocator.reserve("DLH100"));
+        assertTrue(allocator.release("DLH042"));
+        assertEquals("DLH042", allocator.allocate(AirlineIcaoCodeEnum.DLH));
+    }
+
+    /**
+     * Volací znak mimo zásobníkov sa dá vyhradiť len raz a po uvoľnení znova.
+     */
+    @Test
+    public void testForeignCallSignReservation() {
+        assertTrue(allocator.reserve("XYZ1234"));
+        assertFalse(allocator.reserve("XYZ1234"));
+
+        int id = allocator.getId("XYZ1234");
+        assertTrue(id != CallsignAllocator.NO_ID);
+        assertEquals("XYZ1234", allocator.getCallSign(id));
+        assertNull(CallsignAllocator.getPoolCallSign(id));
+
+        assertTrue(allocator.release("XYZ1234"));
+        assertFalse(allocator.release("XYZ1234"));
+        assertEquals(CallsignAllocator.NO_ID, allocator.getId("XYZ1234"));
+        assertNull(allocator.getCallSign(id));
+        assertTrue(allocator.reserve("XYZ1234"));
+    }
+
+    /**
+     * Identifikátor volacieho znaku zo zásobníkov sa dá previesť späť na rovnaký volací znak.
+     */
+    @Test
+    public void testPoolIdRoundTrip() {
+        String[] callSigns = { "AAL000", "AAL999", "SVK007", "OM-AAA", "OM-ZZZ" };
+        Set<Integer> ids = new HashSet<Integer>();
+        for (String callSign : callSigns) {
+            int id = CallsignAllocator.getPoolId(callSign);
+            assertTrue(ids.add(id));
+            assertEquals(callSign, CallsignAllocator.getPoolCallSign(id));
+            assertEquals(id, allocator.getId(callSign));
+        }
+
+        assertEquals(CallsignAllocator.NO_ID, CallsignAllocator.getPoolId("AAL1000"));
+        assertEquals(CallsignAllocator.NO_ID, CallsignAllocator.getPoolId("OM-AA1"));
+        assertEquals(CallsignAllocator.NO_ID, CallsignAllocator.getPoolId(null));
+        assertNull(CallsignAllocator.getPoolCallSign(-1));
+        assertNull(CallsignAllocator.getPoolCallSign(AIRLINE_POOL_SIZE));
+    }
+
+    /**
+     * Pridelí všetky voľné volacie znaky aerolínky a overí, že sa neopakujú.
+     */
+    private Set<String> allocateAll(AirlineIcaoCodeEnum airline) {
+        Set<String> callSigns = new HashSet<String>();
+        String callSign;
+        while ((callSign = allocator.allocate(airline)) != null) {
+            assertTrue(callSign + " allocated twice", callSigns.add(callSign));
+            assertTrue(callSigns.size() <= AIRLINE_POOL_SIZE);
+        }
+        return callSigns;
+    }
+
+}
@@ -0,0 +1,149 @@
+package net.robobalasko.letiskoserv.lietadla;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Testy prejdenej trasy lietadla.
+ *
+ * @author rbalasko
+ */
+public class RouteTrailTest {
+
+    /**
+     * Vráti najväčšiu kapacitu trás na predvolenú hodnotu.
+     */
+    @After
+    public void tearDown() {
+        RouteTrail.setMaxCapacity(RouteTrail.DEFAULT_MAX_CAPACITY);
+    }
+
+    /**
+     * Plná trasa pri pridaní bodu zahodí najstarší bod a body vráti od najstaršieho.
+     */
+    @Test
+    public void testWrapsAroundWhenFull() {
+        RouteTrail trail = new RouteTrail(4);
+        trail.addAll(points(1, 10));
+
+        assertEquals(4, trail.size());
+        assertEquals(10, trail.getAppendedCount());
+        assertArrayEquals(points(7, 10), trail.getPackedPoints());
+    }
+
+    /**
+     * Body pridané od zadaného počtu sa vrátia aj po pretečení, body mimo trasy sa vynechajú.
+     */
+    @Test
+    public void testPointsSinceAfterWraparound() {
+        RouteTrail trail = new RouteTrail(4);
+        trail.addAll(points(1, 10));
+
+        assertArrayEquals(points(9, 10), trail.getPackedPointsSince(8));
+        assertArrayEquals(points(7, 10), trail.getPackedPointsSince(2));
+        assertArrayEquals(new long[0], trail.getPackedPointsSince(10));
+    }
+
+    /**
+     * Bod zhodný s posledným bodom trasy sa nepridá.
+     */
+    @Test
+    public void testRepeatedPointIsSkipped() {
+        RouteTrail trail = new RouteTrail(4);
+        trail.add(48.17, 17.21);
+        trail.add(48.17, 17.21);
+        trail.add(48.18, 17.22);
+
+        long[] points = trail.getPackedPoints();
+        assertEquals(2, points.length);
+        assertEquals(48.18, RouteTrail.unpackLatitude(points[1]), 1e-6);
+        assertEquals(17.22, RouteTrail.unpackLongitude(points[1]), 1e-6);
+    }
+
+    /**
+     * Zmenšenie kapacity zachová najnovšie body aj po pretečení zásobníka.
+     */
+    @Test
+    public void testShrinkKeepsLatestPoints() {
+        RouteTrail trail = new RouteTrail(5);
+        trail.addAll(points(1, 8));
+
+        trail.setCapacity(3);
+
+        assertEquals(3, trail.getCapacity());
+        assertArrayEquals(points(6, 8), trail.getPackedPoints());
+        trail.addAll(points(9, 9));
+        assertArrayEquals(points(7, 9), trail.getPackedPoints());
+    }
+
+    /**
+     * Zväčšenie kapacity zachová všetky body a ďalšie body sa pridajú bez zahodenia.
+     */
+    @Test
+    public void testGrowKeepsAllPoints() {
+        RouteTrail trail = new RouteTrail(3);
+        trail.addAll(points(1, 5));
+
+        trail.setCapacity(6);
+
+        assertEquals(6, trail.getCapacity());
+        assertArrayEquals(points(3, 5), trail.getPackedPoints());
+        trail.addAll(points(6, 9));
+        assertArrayEquals(points(4, 9), trail.getPackedPoints());
+    }
+
+    /**
+     * Kapacita trasy sa zníži na najväčšiu povolenú kapacitu a nie je menšia ako 1.
+     */
+    @Test
+    public void testCapacityIsLimited() {
+        RouteTrail.setMaxCapacity(8);
+
+        assertEquals(8, new RouteTrail(100).getCapacity());
+        assertEquals(1, new RouteTrail(0).getCapacity());
+        RouteTrail trail = new RouteTrail(4);
+        trail.setCapacity(Integer.MAX_VALUE);
+        assertEquals(8, trail.getCapacity());
+    }
+
+    /**
+     * Prijatá trasa s kapacitou nad povolenou hranicou sa zníži a zachová najnovšie body.
+     */
+    @Test
+    public void testDeserializedCapacityIsLimited() throws Exception {
+        RouteTrail trail = new RouteTrail(10);
+        trail.addAll(points(1, 12));
+        RouteTrail.setMaxCapacity(4);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(trail);
+        out.close();
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        RouteTrail copy = (RouteTrail) in.readObject();
+
+        assertEquals(4, copy.getCapacity());
+        assertArrayEquals(points(9, 12), copy.getPackedPoints());
+        assertEquals(12, copy.getAppendedCount());
+    }
+
+    /**
+     * Vytvorí zbalené body s hodnotami od {@code from} po {@code to} vrátane.
+     */
+    private static long[] points(int from, int to) {
+        long[] points = new long[to - from + 1];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = from + i;
+        }
+        return points;
+    }
+
+}
@@ -0,0 +1,34 @@
+package net.robobalasko.letiskoserv.simulacia;
+
+import java.util.Collections;
+
+import net.robobalasko.letiskoserv.lietadla.Aircraft;
+
+/**
+ * Vytvára stavy lietadiel pre testy mimo balíka simulácie bez spustenia simulácie.
+ *
+ * @author rbalasko
+ */
+public final class AircraftSnapshots {
+
+    /**
+     * Trieda obsahuje len statické metódy, preto nie je možné vytvoriť jej inštanciu.
+     */
+    private AircraftSnapshots() {
+    }
+
+    /**
+     * Vytvorí stav bez konfliktov z kľúčov a kópií lietadiel.
+     *
+     * @param tick Poradové číslo kroku simulácie.
+     * @param keys Kľúče lietadiel.
+     * @param aircraft Kópie lietadiel v poradí kľúčov.
+     *
+     * @return Stav lietadiel.
+     */
+    public static AircraftSnapshot create(long tick, Object[] keys, Aircraft[] aircraft) {
+        return new AircraftSnapshot(tick, keys.clone(), aircraft.clone(),
+                Collections.<AircraftConflict>emptyList(), Collections.<AircraftConflict>emptyList());
+    }
+
+}
@@ -0,0 +1,142 @@
+package net.robobalasko.letiskoserv.simulacia;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import net.robobalasko.letiskoserv.lietadla.Aircraft;
+
+import org.junit.Test;
+
+/**
+ * Testy krátkodobého upozornenia na konflikt lietadiel.
+ *
+ * @author rbalasko
+ */
+public class ConflictDetectorTest {
+
+    /**
+     * Zemepisná šírka letiska, pre ktoré sa detekcia v testoch pripravuje.
+     */
+    private static final double AIRPORT_LATITUDE = 48.17;
+
+    /**
+     * Mriežka nájde presne tie dvojice, ktoré nájde porovnanie každého lietadla s každým.
+     */
+    @Test
+    public void testGridMatchesBruteForce() {
+        ConflictDetector detector = new ConflictDetector(AIRPORT_LATITUDE);
+        Random random = new Random(7);
+        for (int round = 0; round < 50; round++) {
+            int count = 1 + random.nextInt(400);
+            boolean[] active = new boolean[count];
+            double[] north = new double[count];
+            double[] east = new double[count];
+            int[] flightLevel = new int[count];
+            for (int slot = 0; slot < count; slot++) {
+                active[slot] = random.nextInt(10) != 0;
+                north[slot] = 2890 + random.nextDouble() * 40;
+                east[slot] = 690 + random.nextDouble() * 40;
+                flightLevel[slot] = random.nextInt(150);
+            }
+
+            int pairs = detector.findPairs(count, active, north, east, flightLevel);
+
+            Set<String> found = new HashSet<String>();
+            for (int pair = 0; pair < pairs; pair++) {
+                assertTrue(found.add(detector.getPairFirst(pair) + "-" + detector.getPairSecond(pair)));
+            }
+            assertEquals(bruteForce(count, active, north, east, flightLevel), found);
+        }
+    }
+
+    /**
+     * Separácia je narušená len pod tromi míľami a pod 20 letovými hladinami, aj keď lietadlá
+     * ležia v susedných bunkách mriežky.
+     */
+    @Test
+    public void testSeparationLimits() {
+        ConflictDetector detector = new ConflictDetector(AIRPORT_LATITUDE);
+        boolean[] active = { true, true };
+
+        assertEquals(0, detector.findPairs(2, active, new double[] { 3000, 3003 }, new double[] { 700, 700 },
+                new int[] { 50, 50 }));
+        assertEquals(1, detector.findPairs(2, active, new double[] { 3000, 3002.9 }, new double[] { 700, 700 },
+                new int[] { 50, 50 }));
+        assertEquals(2.9, detector.getPairDistance(0), 1e-9);
+        assertEquals(0, detector.findPairs(2, active, new double[] { 3000, 3000 }, new double[] { 700, 701 },
+                new int[] { 50, 70 }));
+        assertEquals(1, detector.findPairs(2, active, new double[] { 3000, 3000 }, new double[] { 700, 701 },
+                new int[] { 59, 40 }));
+        // Lietadlá na oboch stranách hranice buniek vo všetkých troch smeroch
+        assertEquals(1, detector.findPairs(2, active, new double[] { 2999.9, 3000.1 },
+                new double[] { 698.9, 699.1 }, new int[] { 39, 40 }));
+    }
+
+    /**
+     * Detekcia nad tabuľkou stavu vynechá lietadlá na zemi, nastaví príznak lietadlám v konflikte
+     * a po ich rozídení ho zruší.
+     */
+    @Test
+    public void testDetectSetsAndClearsFlags() {
+        ConflictDetector detector = new ConflictDetector(AIRPORT_LATITUDE);
+        AircraftStateTable table = new AircraftStateTable();
+        int first = table.add(createAircraft("OMA101", 48.17, 17.20, 60, true));
+        int second = table.add(createAircraft("OMA102", 48.18, 17.21, 70, true));
+        int grounded = table.add(createAircraft("OMA103", 48.17, 17.20, 60, false));
+
+        List<AircraftConflict> conflicts = detector.detect(table);
+
+        assertEquals(1, conflicts.size());
+        assertEquals("OMA101", conflicts.get(0).getFirstCallSign());
+        assertEquals("OMA102", conflicts.get(0).getSecondCallSign());
+        assertEquals(10, conflicts.get(0).getVerticalSeparation());
+        assertTrue(table.hasFlag(first, AircraftStateTable.SEPARATION_LOST));
+        assertTrue(table.hasFlag(second, AircraftStateTable.SEPARATION_LOST));
+        assertFalse(table.hasFlag(grounded, AircraftStateTable.SEPARATION_LOST));
+
+        table.actualFlightLevel[second] = 90;
+        assertTrue(detector.detect(table).isEmpty());
+        assertFalse(table.hasFlag(first, AircraftStateTable.SEPARATION_LOST));
+        assertFalse(table.hasFlag(second, AircraftStateTable.SEPARATION_LOST));
+    }
+
+    /**
+     * Nájde dvojice lietadiel s narušenou separáciou porovnaním každého lietadla s každým.
+     */
+    private static Set<String> bruteForce(int count, boolean[] active, double[] north, double[] east,
+            int[] flightLevel) {
+        Set<String> pairs = new HashSet<String>();
+        for (int slot = 0; slot < count; slot++) {
+            for (int other = slot + 1; other < count; other++) {
+                if (active[slot] && active[other]
+                        && Math.abs(flightLevel[slot] - flightLevel[other]) < ConflictDetector.SEPARATION_FL
+                        && Math.hypot(north[slot] - north[other], east[slot] - east[other])
+                        < ConflictDetector.SEPARATION_NM) {
+                    pairs.add(slot + "-" + other);
+                }
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * Vytvorí lietadlo so zadanou polohou.
+     */
+    private static Aircraft createAircraft(String callSign, double latitude, double longitude, int flightLevel,
+            boolean cleared) {
+        Aircraft acft = new Aircraft();
+        acft.setCallSign(callSign);
+        acft.setLatitude(latitude);
+        acft.setLongitude(longitude);
+        acft.setActualFlightLevel(flightLevel);
+        acft.setClearedForDeparture(cleared);
+        return acft;
+    }
+
+}
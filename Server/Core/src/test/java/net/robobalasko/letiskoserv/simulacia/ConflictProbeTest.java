@@ -0,0 +1,126 @@
+package net.robobalasko.letiskoserv.simulacia;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Testy strednodobej sondy konfliktov.
+ *
+ * Lietadlá v testoch letia po poludníku 17,2° východnej dĺžky, kde jedna minúta zemepisnej šírky
+ * je jedna námorná míľa.
+ *
+ * @author rbalasko
+ */
+public class ConflictProbeTest {
+
+    /**
+     * Zemepisná šírka letiska, pre ktoré sa sonda v testoch pripravuje.
+     */
+    private static final double AIRPORT_LATITUDE = 48.17;
+
+    /**
+     * Zemepisná dĺžka, po ktorej lietadlá v testoch letia.
+     */
+    private static final double LONGITUDE = 17.2;
+
+    /**
+     * Čas letu v sekundách za jeden krok simulácie pri kroku 500 ms a osemnásobnej rýchlosti.
+     */
+    private static final double STEP_SECONDS = 4;
+
+    /**
+     * Počet krokov predpovede, päť minút letu.
+     */
+    private static final long HORIZON_STEPS = 75;
+
+    /**
+     * Lietadlá letiace proti sebe vo vzdialenosti 20 míľ rýchlosťou 240 uzlov sa k sebe
+     * približujú o osem míľ za minútu. Pod tri míle sa dostanú pri prvom porovnaní po 127,5
+     * sekundách letu, teda v 128. sekunde.
+     */
+    @Test
+    public void testHeadOnConflictIsPredicted() {
+        ConflictProbe probe = new ConflictProbe(AIRPORT_LATITUDE, STEP_SECONDS, HORIZON_STEPS);
+        fillHeadOn(probe, 100, 100);
+
+        List<AircraftConflict> predicted = probe.probe();
+
+        assertEquals(1, predicted.size());
+        AircraftConflict conflict = predicted.get(0);
+        assertEquals("OMA101", conflict.getFirstCallSign());
+        assertEquals("OMA102", conflict.getSecondCallSign());
+        assertEquals(128, conflict.getTimeToConflict(), 1e-9);
+        assertEquals(20 - 8 * 128 / 60.0, conflict.getDistance(), 1e-6);
+        assertEquals(0, conflict.getVerticalSeparation());
+
+        // Po vyprázdnení a novom naplnení dá sonda rovnakú predpoveď
+        probe.clear();
+        fillHeadOn(probe, 100, 100);
+        assertEquals(128, probe.probe().get(0).getTimeToConflict(), 1e-9);
+    }
+
+    /**
+     * Lietadlá letiace proti sebe s dostatočnou zvislou separáciou konflikt nemajú.
+     */
+    @Test
+    public void testVerticallySeparatedAircraftHaveNoConflict() {
+        ConflictProbe probe = new ConflictProbe(AIRPORT_LATITUDE, STEP_SECONDS, HORIZON_STEPS);
+        fillHeadOn(probe, 100, 120);
+
+        assertTrue(probe.probe().isEmpty());
+    }
+
+    /**
+     * Konflikt za hranicou predpovede sa nehlási.
+     */
+    @Test
+    public void testConflictBeyondHorizonIsNotPredicted() {
+        ConflictProbe probe = new ConflictProbe(AIRPORT_LATITUDE, STEP_SECONDS, 30);
+        fillHeadOn(probe, 100, 100);
+
+        assertTrue(probe.probe().isEmpty());
+    }
+
+    /**
+     * Lietadlo, ktoré doletí na koniec svojej trasy, sa ďalej nesleduje.
+     */
+    @Test
+    public void testAircraftAtRouteEndIsNotTracked() {
+        ConflictProbe probe = new ConflictProbe(AIRPORT_LATITUDE, STEP_SECONDS, HORIZON_STEPS);
+        probe.addAircraft("OMA101", 48.0, LONGITUDE, 240, 240, 100, 100);
+        probe.addRoutePoint(48.05, LONGITUDE);
+        probe.addAircraft("OMA102", 48.0 + 20 / 60.0, LONGITUDE, 240, 240, 100, 100);
+        probe.addRoutePoint(48.0 + 17 / 60.0, LONGITUDE);
+
+        assertTrue(probe.probe().isEmpty());
+    }
+
+    /**
+     * Dvojicu, ktorá už separáciu narušila, hlási detekcia po kroku, sonda ju preto vynechá.
+     */
+    @Test
+    public void testCurrentConflictIsNotPredicted() {
+        ConflictProbe probe = new ConflictProbe(AIRPORT_LATITUDE, STEP_SECONDS, HORIZON_STEPS);
+        probe.addAircraft("OMA101", 48.0, LONGITUDE, 240, 240, 100, 100);
+        probe.addRoutePoint(48.5, LONGITUDE);
+        probe.addAircraft("OMA102", 48.0 + 2 / 60.0, LONGITUDE, 240, 240, 100, 100);
+        probe.addRoutePoint(47.5, LONGITUDE);
+
+        assertTrue(probe.probe().isEmpty());
+    }
+
+    /**
+     * Naplní sondu dvoma lietadlami, ktoré letia proti sebe vo vzdialenosti 20 míľ.
+     */
+    private static void fillHeadOn(ConflictProbe probe, int firstLevel, int secondLevel) {
+        probe.addAircraft("OMA101", 48.0, LONGITUDE, 240, 240, firstLevel, firstLevel);
+        probe.addRoutePoint(48.5, LONGITUDE);
+        probe.addAircraft("OMA102", 48.0 + 20 / 60.0, LONGITUDE, 240, 240, secondLevel, secondLevel);
+        probe.addRoutePoint(47.8, LONGITUDE);
+    }
+
+}
@@ -0,0 +1,174 @@
+package net.robobalasko.letiskoserv.simulacia;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Testy actora, ktorý vykonáva správy simulácie letiska na spoločnej skupine vlákien.
+ *
+ * @author rbalasko
+ */
+public class SimulationActorTest {
+
+    /**
+     * Počet vlákien, ktoré v súbežnom teste posielajú správy.
+     */
+    private static final int SENDERS = 4;
+
+    /**
+     * Počet správ, ktoré pošle každé vlákno.
+     */
+    private static final int MESSAGES = 5000;
+
+    /**
+     * Správy od viacerých vlákien sa vykonajú všetky, nikdy dve naraz a v poradí, v akom ich
+     * poslalo každé vlákno.
+     */
+    @Test
+    public void testMessagesRunOneAtATimeInSenderOrder() throws Exception {
+        ExecutorService workers = Executors.newFixedThreadPool(4);
+        final SimulationActor actor = new SimulationActor("LZIB", workers);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger overlaps = new AtomicInteger();
+        final int[] lastMessage = new int[SENDERS];
+        final List<Integer> outOfOrder = new ArrayList<Integer>();
+        final CountDownLatch done = new CountDownLatch(SENDERS * MESSAGES);
+        Arrays.fill(lastMessage, -1);
+
+        List<Thread> senders = new ArrayList<Thread>();
+        for (int s = 0; s < SENDERS; s++) {
+            final int sender = s;
+            senders.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int m = 0; m < MESSAGES; m++) {
+                        final int message = m;
+                        actor.tell(new Runnable() {
+                            @Override
+                            public void run() {
+                                if (running.incrementAndGet() != 1) {
+                                    overlaps.incrementAndGet();
+                                }
+                                // Stav actora nie je chránený zámkom, rovnako ako stav letiska
+                                if (lastMessage[sender] != message - 1) {
+                                    outOfOrder.add(message);
+                                }
+                                lastMessage[sender] = message;
+                                running.decrementAndGet();
+                                done.countDown();
+                            }
+                        });
+                    }
+                }
+            }));
+        }
+        for (Thread sender : senders) {
+            sender.start();
+        }
+
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        workers.shutdown();
+        assertTrue(workers.awaitTermination(30, TimeUnit.SECONDS));
+        assertEquals(0, overlaps.get());
+        assertEquals(new ArrayList<Integer>(), outOfOrder);
+        assertEquals(0, actor.getPendingCount());
+    }
+
+    /**
+     * Chyba v jednej správe nezastaví vykonanie ďalších správ.
+     */
+    @Test
+    public void testFailingMessageDoesNotStopActor() {
+        ManualExecutor executor = new ManualExecutor();
+        SimulationActor actor = new SimulationActor("LZIB", executor);
+        final List<String> executed = new ArrayList<String>();
+
+        actor.tell(new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException("test");
+            }
+        });
+        actor.tell(record(executed, "after"));
+        executor.runAll();
+
+        assertEquals(Arrays.asList("after"), executed);
+    }
+
+    /**
+     * Actor s plnou schránkou uvoľní vlákno po 64 správach, aby sa dostali na rad aj ostatné letiská.
+     */
+    @Test
+    public void testBusyActorYieldsToOtherActors() {
+        ManualExecutor executor = new ManualExecutor();
+        SimulationActor busy = new SimulationActor("LZIB", executor);
+        SimulationActor other = new SimulationActor("LZKZ", executor);
+        List<String> executed = new ArrayList<String>();
+
+        for (int i = 0; i < 100; i++) {
+            busy.tell(record(executed, "LZIB" + i));
+        }
+        other.tell(record(executed, "LZKZ"));
+        executor.runAll();
+
+        assertEquals(101, executed.size());
+        assertEquals("LZIB63", executed.get(63));
+        assertEquals("LZKZ", executed.get(64));
+        assertEquals("LZIB64", executed.get(65));
+        assertEquals("LZIB99", executed.get(100));
+    }
+
+    /**
+     * Vytvorí správu, ktorá si do zoznamu zapíše svoj názov.
+     */
+    private static Runnable record(final List<String> executed, final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                executed.add(name);
+            }
+        };
+    }
+
+    /**
+     * Skupina vlákien, ktorá naplánované úlohy vykonáva až na požiadanie testu v poradí naplánovania.
+     */
+    private static class ManualExecutor implements Executor {
+
+        /**
+         * Naplánované úlohy.
+         */
+        private final Queue<Runnable> tasks = new LinkedList<Runnable>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        /**
+         * Vykoná naplánované úlohy aj úlohy, ktoré pri tom pribudnú.
+         */
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,224 @@
+package net.robobalasko.letiskoserv.simulacia;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import net.robobalasko.letiskoserv.data.AirportLoader;
+import net.robobalasko.letiskoserv.lietadla.Aircraft;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Testy hodín simulačného enginu.
+ *
+ * Testy nespúšťajú plánovač enginu, ale volajú jeho hodiny s vlastným časom, takže výsledok
+ * nezávisí od rýchlosti počítača.
+ *
+ * @author rbalasko
+ */
+public class SimulationEngineTest {
+
+    /**
+     * Dĺžka kroku testovaného enginu v milisekundách.
+     */
+    private static final long TICK_MILLIS = 100;
+
+    /**
+     * Dĺžka kroku testovaného enginu v nanosekundách.
+     */
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS);
+
+    /**
+     * Počet krokov, ktoré letiská letia v testoch celého sveta, približne tri hodiny letu.
+     */
+    private static final long WORLD_TICKS = 3000;
+
+    /**
+     * Testovaný engine.
+     */
+    private SimulationEngine engine;
+
+    /**
+     * Zastaví vlákna testovaného enginu.
+     */
+    @After
+    public void tearDown() {
+        if (engine != null) {
+            engine.shutdown();
+        }
+    }
+
+    /**
+     * Engine vykoná jeden krok za každý celý uplynutý časový krok a neúplný krok nechá na neskôr.
+     */
+    @Test
+    public void testRunsOneStepPerElapsedTick() throws Exception {
+        List<Long> steps = startAirport(false);
+
+        engine.runDueTicks(TICK_NANOS * 5 / 2);
+        assertEquals(Arrays.asList(1L, 2L), steps);
+
+        engine.runDueTicks(TICK_NANOS * 3);
+        engine.runDueTicks(TICK_NANOS * 4 - 1);
+        assertEquals(Arrays.asList(1L, 2L, 3L), steps);
+        assertEquals(3, engine.getTickCount());
+        assertEquals(0, engine.getSkippedTickCount());
+    }
+
+    /**
+     * Oneskorený engine dobehne najviac päť krokov a zvyšné zmeškané kroky preskočí.
+     */
+    @Test
+    public void testCatchUpIsLimited() throws Exception {
+        List<Long> steps = startAirport(false);
+
+        engine.runDueTicks(TICK_NANOS * 20);
+
+        assertEquals(Arrays.asList(16L, 17L, 18L, 19L, 20L), steps);
+        assertEquals(20, engine.getTickCount());
+        assertEquals(15, engine.getSkippedTickCount());
+    }
+
+    /**
+     * V deterministickom režime engine zmeškané kroky nepreskočí, ale posunie svoje hodiny,
+     * takže čísla krokov zostanú súvislé.
+     */
+    @Test
+    public void testDeterministicCatchUpDelaysClock() throws Exception {
+        List<Long> steps = startAirport(true);
+
+        engine.runDueTicks(TICK_NANOS * 20);
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L), steps);
+        assertEquals(5, engine.getTickCount());
+        assertEquals(15, engine.getSkippedTickCount());
+
+        engine.runDueTicks(TICK_NANOS * 20);
+        assertEquals(5, steps.size());
+
+        engine.runDueTicks(TICK_NANOS * 21);
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L, 6L), steps);
+    }
+
+    /**
+     * Paralelné kroky letísk na viacerých vláknach dajú pri rovnakom semene rovnaké polohy, výšky
+     * a rýchlosti lietadiel ako kroky po jednom, pretože lietadlá sa medzi letiskami odovzdávajú
+     * až po kroku všetkých letísk v pevnom poradí. Volacie znaky sa môžu líšiť, lebo letiská
+     * si ich pri paralelných krokoch berú zo spoločného prideľovača v ľubovoľnom poradí.
+     */
+    @Test
+    public void testParallelStepsMatchSequentialSteps() throws Exception {
+        List<String> parallel = runWorld(42, false, 4, false);
+        List<String> sequential = runWorld(42, true, 1, false);
+
+        assertTrue(parallel.size() > 10);
+        assertEquals(sequential, parallel);
+    }
+
+    /**
+     * Deterministický beh s rovnakým semenom dá aj na viacerých vláknach rovnaké lietadlá vrátane
+     * volacích znakov, iné semeno dá iný stav sveta.
+     */
+    @Test
+    public void testSameSeedGivesSameRun() throws Exception {
+        List<String> first = runWorld(42, true, 4, true);
+        List<String> second = runWorld(42, true, 4, true);
+
+        assertTrue(first.size() > 10);
+        assertEquals(first, second);
+        assertFalse(first.equals(runWorld(43, true, 4, true)));
+    }
+
+    /**
+     * Pripraví engine so simuláciou jedného letiska a vráti zoznam, do ktorého sa zapisujú
+     * čísla krokov, ktoré letisko vykonalo.
+     */
+    private List<Long> startAirport(boolean deterministic) throws Exception {
+        SimulationRandom random = new SimulationRandom(1);
+        WorldRegistry world = new WorldRegistry(random.stream("callsigns"));
+        engine = new SimulationEngine(world, TICK_MILLIS, 1, 1000, 20, 1, 2000, 5, random, deterministic);
+        AirportLoader loader = new AirportLoader(new File(SimulationEngineTest.class.getResource("/xml").toURI()));
+        AirportSimulation simulation = new AirportSimulation("lzib", loader.loadAirport("lzib"), engine,
+                60, 60, 40, null);
+        world.register(simulation);
+        final List<Long> steps = new ArrayList<Long>();
+        simulation.addSimulationListener(new SimulationListener() {
+            @Override
+            public void simulationStepped(AirportSimulation simulation, long tick) {
+                steps.add(tick);
+            }
+        });
+        return steps;
+    }
+
+    /**
+     * Nechá letiská LZIB a LZKZ letieť {@code WORLD_TICKS} krokov a vráti stav ich lietadiel
+     * po poslednom kroku zoradený podľa letiska a polohy. Odlety dostanú povolenie hneď po tom,
+     * ako sa objavia na dráhe, takže lietadlá medzi letiskami aj prelietajú.
+     *
+     * @param callSigns Či má stav obsahovať aj volacie znaky lietadiel.
+     */
+    private List<String> runWorld(long seed, boolean deterministic, int workers, final boolean callSigns)
+            throws Exception {
+        SimulationRandom random = new SimulationRandom(seed);
+        WorldRegistry world = new WorldRegistry(random.stream("callsigns"));
+        SimulationEngine worldEngine = new SimulationEngine(world, 500, 8, 3000, 20, workers, 2000, 5, random,
+                deterministic);
+        final List<String> state = Collections.synchronizedList(new ArrayList<String>());
+        try {
+            AirportLoader loader = new AirportLoader(new File(SimulationEngineTest.class.getResource("/xml").toURI()));
+            for (String icaoCode : Arrays.asList("lzib", "lzkz")) {
+                AirportSimulation simulation = new AirportSimulation(icaoCode, loader.loadAirport(icaoCode),
+                        worldEngine, 60, 60, 40, null);
+                world.register(simulation);
+                simulation.addSnapshotReader();
+                simulation.addSimulationListener(new SimulationListener() {
+                    @Override
+                    public void simulationStepped(AirportSimulation simulation, long tick) {
+                        if (tick != WORLD_TICKS) {
+                            clearDepartures(simulation);
+                            return;
+                        }
+                        for (Aircraft acft : simulation.getSnapshot().getAircraft()) {
+                            state.add(simulation.getIcaoCode() + " " + acft.getLatitude() + " "
+                                    + acft.getLongitude() + " FL" + acft.getActualFlightLevel() + " "
+                                    + acft.getActualAirSpeed() + "kt " + acft.getDepAirport() + "-"
+                                    + acft.getArrAirport() + (callSigns ? " " + acft.getCallSign() : ""));
+                        }
+                    }
+                });
+            }
+            long tickNanos = TimeUnit.MILLISECONDS.toNanos(500);
+            for (long tick = 1; tick <= WORLD_TICKS; tick++) {
+                worldEngine.runDueTicks(tick * tickNanos);
+            }
+        } finally {
+            worldEngine.shutdown();
+        }
+        List<String> sorted = new ArrayList<String>(state);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Ako riadiaci povolí odlet všetkým lietadlám letiska, ktoré na povolenie čakajú.
+     */
+    private static void clearDepartures(AirportSimulation simulation) {
+        for (Aircraft acft : simulation.getSnapshot().getAircraft()) {
+            if (!acft.isClearedForDeparture()) {
+                Aircraft command = new Aircraft(acft);
+                command.setClearedForDeparture(true);
+                simulation.modifyControlledAircraft(command);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+package net.robobalasko.letiskoserv.simulacia;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Testy generátora náhodných čísel simulácie.
+ *
+ * @author rbalasko
+ */
+public class SimulationRandomTest {
+
+    /**
+     * Počet čísel, ktoré testy z generátora čítajú.
+     */
+    private static final int COUNT = 64;
+
+    /**
+     * Generátory s rovnakým semenom dávajú rovnaké čísla, s iným semenom iné.
+     */
+    @Test
+    public void testSameSeedGivesSameNumbers() {
+        assertArrayEquals(draw(new SimulationRandom(42)), draw(new SimulationRandom(42)));
+        assertFalse(Arrays.equals(draw(new SimulationRandom(42)), draw(new SimulationRandom(43))));
+    }
+
+    /**
+     * Pomenovaný prúd nezávisí od poradia, v akom sa prúdy vytvoria, ani od čísel, ktoré už
+     * vygeneroval hlavný generátor alebo iné prúdy.
+     */
+    @Test
+    public void testStreamDependsOnlyOnSeedAndName() {
+        SimulationRandom first = new SimulationRandom(42);
+        long[] expected = draw(first.stream("lzib"));
+
+        SimulationRandom second = new SimulationRandom(42);
+        draw(second);
+        draw(second.stream("lzkz"));
+        SimulationRandom other = second.stream("callsigns");
+        other.nextDouble();
+
+        assertArrayEquals(expected, draw(second.stream("lzib")));
+        assertFalse(Arrays.equals(expected, draw(second.stream("lzkz"))));
+        assertFalse(Arrays.equals(expected, draw(new SimulationRandom(43).stream("lzib"))));
+    }
+
+    /**
+     * Desatinné čísla ležia v intervale od nuly po jednotku bez jednotky.
+     */
+    @Test
+    public void testNextDoubleIsInUnitInterval() {
+        SimulationRandom random = new SimulationRandom(7);
+        for (int i = 0; i < 10000; i++) {
+            double value = random.nextDouble();
+            assertTrue(value >= 0 && value < 1);
+        }
+    }
+
+    /**
+     * Vygeneruje z generátora {@code COUNT} čísel.
+     */
+    private static long[] draw(SimulationRandom random) {
+        long[] values = new long[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            values[i] = random.nextLong();
+        }
+        return values;
+    }
+
+}
@@ -0,0 +1,134 @@
+package net.robobalasko.letiskoserv.simulacia;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Testy časového kolesa simulácie.
+ *
+ * @author rbalasko
+ */
+public class TimingWheelTest {
+
+    /**
+     * Udalosť v rozsahu najnižšej úrovne sa vyberie presne vo svojom kroku.
+     */
+    @Test
+    public void testNearEventExpiresOnItsStep() {
+        TimingWheel wheel = new TimingWheel();
+        wheel.schedule(7, 5);
+
+        assertEquals(-1, advanceUntilExpired(wheel, 7, 4));
+        assertEquals(5, advanceUntilExpired(wheel, 7, 1));
+    }
+
+    /**
+     * Krok, ktorý už nastal, sa posunie na najbližší budúci krok.
+     */
+    @Test
+    public void testPastStepIsMovedToNextStep() {
+        TimingWheel wheel = new TimingWheel();
+        advance(wheel, 10);
+        wheel.schedule(3, 2);
+
+        assertEquals(11, advanceUntilExpired(wheel, 3, 1));
+    }
+
+    /**
+     * Udalosti vyšších úrovní sa pri rozdelení presunú nižšie a vyberú sa presne vo svojom kroku.
+     */
+    @Test
+    public void testCascadedEventsExpireOnTheirSteps() {
+        TimingWheel wheel = new TimingWheel();
+        advance(wheel, 37);
+        long[] steps = { 38, 63, 64, 100, 101, 4095, 4096, 4097, 5000, 200000, 262143 };
+        for (int event = 0; event < steps.length; event++) {
+            wheel.schedule(event, steps[event]);
+        }
+
+        long[] expiredSteps = new long[steps.length];
+        Arrays.fill(expiredSteps, -1);
+        while (wheel.getCurrentStep() < 262143) {
+            long step = wheel.advance();
+            for (int i = 0; i < wheel.getExpiredCount(); i++) {
+                int event = wheel.getExpired(i);
+                assertEquals("event " + event + " expired twice", -1, expiredSteps[event]);
+                expiredSteps[event] = step;
+            }
+        }
+
+        for (int event = 0; event < steps.length; event++) {
+            assertEquals("event " + event, steps[event], expiredSteps[event]);
+        }
+    }
+
+    /**
+     * Viac udalostí naplánovaných na rovnaký krok sa vyberie naraz v poradí naplánovania.
+     */
+    @Test
+    public void testEventsOnSameStepExpireTogether() {
+        TimingWheel wheel = new TimingWheel();
+        for (int event = 0; event < 20; event++) {
+            wheel.schedule(event, 130);
+        }
+
+        advance(wheel, 129);
+        wheel.advance();
+
+        int[] expired = new int[wheel.getExpiredCount()];
+        for (int i = 0; i < expired.length; i++) {
+            expired[i] = wheel.getExpired(i);
+        }
+        int[] expected = new int[20];
+        for (int event = 0; event < expected.length; event++) {
+            expected[event] = event;
+        }
+        assertArrayEquals(expected, expired);
+    }
+
+    /**
+     * Udalosť vzdialenejšia ako rozsah kolesa sa nevyberie skôr a vyberie sa presne vo svojom kroku.
+     */
+    @Test
+    public void testFarEventIsClampedAndExpiresOnItsStep() {
+        TimingWheel wheel = new TimingWheel();
+        advance(wheel, 1000);
+        long range = 1L << 18;
+        wheel.schedule(1, 1000 + range);
+        wheel.schedule(2, 1000 + 3 * range + 17);
+
+        assertEquals(1000 + range, advanceUntilExpired(wheel, 1, 2 * range));
+        assertEquals(1000 + 3 * range + 17, advanceUntilExpired(wheel, 2, 3 * range));
+    }
+
+    /**
+     * Posunie koleso o zadaný počet krokov.
+     */
+    private static void advance(TimingWheel wheel, int steps) {
+        for (int i = 0; i < steps; i++) {
+            wheel.advance();
+        }
+    }
+
+    /**
+     * Posúva koleso, kým sa nevyberie zadaná udalosť, najviac o zadaný počet krokov.
+     *
+     * @return Krok, v ktorom sa udalosť vybrala, alebo -1, ak sa nevybrala.
+     */
+    private static long advanceUntilExpired(TimingWheel wheel, int event, long maxSteps) {
+        for (long i = 0; i < maxSteps; i++) {
+            long step = wheel.advance();
+            for (int j = 0; j < wheel.getExpiredCount(); j++) {
+                if (wheel.getExpired(j) == event) {
+                    return step;
+                }
+            }
+        }
+        return -1;
+    }
+
+}